@@ -0,0 +1,98 @@
+package com.example.benchmarks;
+
+import com.example.classes.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A soak run of object churn: each iteration creates cargo, loads it onto ships, delivers it
+ * and deletes it again. Next to the time, it reports the heap used after a full GC at the end
+ * of the iteration, relative to the heap after setup, which stays flat when deleted objects
+ * can be collected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ChurnBenchmark {
+    @Param({"200000"})
+    public int cycleCount;
+
+    private List<Galaxy> galaxies;
+    private List<Ship> ships;
+    private Random random;
+    private long baseline;
+
+    /**
+     * The heap in use after each iteration, reported as secondary results. JMH adds these
+     * counters up over the iterations, so a flat heap scores close to zero; the value of each
+     * iteration is in the raw data of the JSON results ({@code -rf json}).
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long retainedKilobytes;
+        public long cargoLeft;
+    }
+
+    /**
+     * Builds the galaxies and ships and measures the heap they take.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(8);
+        galaxies = Datasets.galaxies(random, 100, 0);
+        ships = Datasets.ships(random, 100, Integer.MAX_VALUE);
+        Cargo.addRegisteredOwner(Datasets.OWNER);
+        baseline = usedAfterGc();
+    }
+
+    /**
+     * Creates, loads, delivers and deletes cycleCount cargo, a ship's load at a time.
+     *
+     * @param heap The counters to report the heap in.
+     * @return The number of cargo delivered.
+     */
+    @Benchmark
+    public int churn(Heap heap) {
+        int delivered = 0;
+        for (int cycle = 0; cycle < cycleCount; cycle += 100) {
+            Ship ship = ships.get(random.nextInt(ships.size()));
+            Galaxy destination = galaxies.get(random.nextInt(galaxies.size()));
+            for (int i = 0; i < 100; i++) {
+                Cargo cargo = Cargo.constructor("Churn", 1 + random.nextInt(100), Datasets.OWNER);
+                cargo.setDestination(destination);
+                ship.addCargo(cargo);
+            }
+            ship.setGalaxy(destination);
+            List<Cargo> unloaded = List.copyOf(ship.getCargoSet());
+            ship.unloadCargoGoingTo(destination);
+            for (Cargo cargo : unloaded) {
+                cargo.delete();
+                delivered++;
+            }
+        }
+        heap.retainedKilobytes = (usedAfterGc() - baseline) >> 10;
+        heap.cargoLeft = ObjectPlus.getExtentCount(Cargo.class);
+        return delivered;
+    }
+
+    /**
+     * Runs a full GC and returns the heap in use.
+     *
+     * @return The used heap in bytes.
+     */
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
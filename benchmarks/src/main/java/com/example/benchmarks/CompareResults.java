@@ -0,0 +1,153 @@
+package com.example.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with {@code -rf csv} and reports every benchmark that got
+ * slower by more than a threshold. Benchmarks are matched by name and parameters. Scores of
+ * throughput benchmarks are better when higher, all others when lower. A change that stays within
+ * the sum of both error margins is never reported, so noisy benchmarks do not fail the build.
+ * <p>
+ * Usage: {@code CompareResults <baseline.csv> <current.csv> [threshold percent, default 10]}.
+ * Exits with 1 if there is a regression and with 2 if the arguments or files are wrong.
+ */
+public class CompareResults {
+    /**
+     * One line of a result file.
+     *
+     * @param mode  The benchmark mode, such as avgt or thrpt.
+     * @param score The score.
+     * @param error The error of the score.
+     * @param unit  The unit of the score.
+     */
+    private record Result(String mode, double score, double error, String unit) {
+    }
+
+    /**
+     * Compares the result files and prints a line for each benchmark.
+     *
+     * @param args The baseline file, the current file and optionally the threshold in percent.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("usage: CompareResults <baseline.csv> <current.csv> [threshold percent]");
+            System.exit(2);
+        }
+        try {
+            double threshold = args.length == 3 ? Double.parseDouble(args[2]) : 10;
+            Map<String, Result> baseline = read(Path.of(args[0]));
+            Map<String, Result> current = read(Path.of(args[1]));
+            int regressions = 0;
+            for (Map.Entry<String, Result> entry : current.entrySet()) {
+                Result now = entry.getValue();
+                Result before = baseline.get(entry.getKey());
+                if (before == null) {
+                    System.out.printf("NEW        %s %.3f %s%n", entry.getKey(), now.score(), now.unit());
+                    continue;
+                }
+                if (!before.unit().equals(now.unit()) || !before.mode().equals(now.mode())) {
+                    System.out.printf("CHANGED    %s %s %s -> %s %s%n", entry.getKey(), before.mode(), before.unit(), now.mode(), now.unit());
+                    continue;
+                }
+                double change = (now.score() - before.score()) / before.score() * 100;
+                double slower = now.mode().equals("thrpt") ? -change : change;
+                boolean noise = Math.abs(now.score() - before.score()) <= errorOf(before) + errorOf(now);
+                String verdict = noise ? "OK" : slower > threshold ? "REGRESSION" : slower < -threshold ? "IMPROVED" : "OK";
+                if (verdict.equals("REGRESSION")) regressions++;
+                System.out.printf("%-10s %s %.3f -> %.3f %s (%+.1f%%)%n", verdict, entry.getKey(), before.score(), now.score(), now.unit(), change);
+            }
+            for (String name : baseline.keySet()) {
+                if (!current.containsKey(name)) System.out.printf("MISSING    %s%n", name);
+            }
+            System.out.printf("%d regression(s) above %.1f%%%n", regressions, threshold);
+            System.exit(regressions == 0 ? 0 : 1);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Retrieves the error margin of a result, zero if JMH could not compute one.
+     *
+     * @param result The result.
+     * @return The error margin.
+     */
+    private static double errorOf(Result result) {
+        return Double.isNaN(result.error()) ? 0 : result.error();
+    }
+
+    /**
+     * Reads a result file into a map from the benchmark name with its parameters to its result.
+     *
+     * @param file The file.
+     * @return The results in the order of the file.
+     * @throws IOException      If the file can not be read.
+     * @throws RuntimeException If the file is not a JMH result file.
+     */
+    private static Map<String, Result> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        if (lines.isEmpty()) throw new RuntimeException(file + " is empty");
+        List<String> header = split(lines.get(0));
+        int name = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int error = header.indexOf("Score Error (99.9%)");
+        int unit = header.indexOf("Unit");
+        if (name < 0 || mode < 0 || score < 0 || unit < 0) throw new RuntimeException(file + " is not a JMH csv file");
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) continue;
+            List<String> fields = split(line);
+            StringBuilder key = new StringBuilder(fields.get(name));
+            for (int i = unit + 1; i < header.size() && i < fields.size(); i++) {
+                if (fields.get(i).isEmpty()) continue;
+                key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(fields.get(i));
+            }
+            double scoreError = error < 0 || fields.get(error).equals("NaN") ? Double.NaN : parse(fields.get(error));
+            results.put(key.toString(), new Result(fields.get(mode), parse(fields.get(score)), scoreError, fields.get(unit)));
+        }
+        return results;
+    }
+
+    /**
+     * Splits a line of a CSV file, removing the quotes around fields.
+     *
+     * @param line The line.
+     * @return The fields.
+     */
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Parses a score, which JMH may write with a decimal comma in some locales.
+     *
+     * @param text The score.
+     * @return The score as a number.
+     */
+    private static double parse(String text) {
+        return Double.parseDouble(text.replace(',', '.'));
+    }
+}
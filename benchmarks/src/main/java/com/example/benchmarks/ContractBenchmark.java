@@ -0,0 +1,48 @@
+package com.example.benchmarks;
+
+import com.example.classes.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing a contract with a ship that already has many. The number of contracts stays the same
+ * during a run: each new contract is deleted again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContractBenchmark {
+    @Param({"10", "1000", "10000"})
+    public int contractsPerShip;
+
+    private Ship ship;
+    private CrewMember spare;
+
+    /**
+     * Hires the crew of the ship and one more crew member without a contract.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        ship = NoLifeSupportShip.constructor("Crewed", 1000, ShipType.NoProtection, null, "Autopilot");
+        List<CrewMember> crew = Datasets.crew(contractsPerShip);
+        for (CrewMember crewMember : crew) Contract.constructor("Engineer", null, ship, crewMember);
+        spare = Datasets.crew(1).get(0);
+    }
+
+    /**
+     * Signs a contract with the spare crew member and deletes it.
+     *
+     * @return The contract.
+     */
+    @Benchmark
+    public Contract constructAndDelete() {
+        Contract contract = Contract.constructor("Pilot", null, ship, spare);
+        contract.delete();
+        return contract;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.benchmarks;
+
+import com.example.classes.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Datasets class builds the domain objects the benchmarks run on. Every generator takes a
+ * source of randomness, so the same seed always gives the same data. Galaxy codes and names
+ * get a running number, so several datasets can exist in one JVM.
+ */
+public class Datasets {
+    /**
+     * The owner all generated cargo belongs to.
+     */
+    public static final String OWNER = "Benchmark";
+
+    private static final AtomicInteger nextNumber = new AtomicInteger();
+
+    private Datasets() {
+    }
+
+    /**
+     * Creates galaxies, the given share of them dangerous. A quarter of the dangerous galaxies
+     * are at war and the others have a solar flare strength from 0 to 99.
+     *
+     * @param random         The source of randomness.
+     * @param count          The number of galaxies.
+     * @param dangerousShare The share of dangerous galaxies, from 0 to 1.
+     * @return The galaxies.
+     */
+    public static List<Galaxy> galaxies(Random random, int count, double dangerousShare) {
+        List<Galaxy> galaxies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String code = "B" + nextNumber.getAndIncrement();
+            galaxies.add(random.nextDouble() < dangerousShare
+                    ? Galaxy.dangerousGalaxyConstructor("Galaxy " + code, code, random.nextInt(4) == 0, random.nextInt(100))
+                    : Galaxy.peacefulGalaxyConstructor("Galaxy " + code, code, LocalDate.of(2400, 1, 1).plusDays(random.nextInt(3650))));
+        }
+        return galaxies;
+    }
+
+    /**
+     * Connects galaxies in a ring, so that all of them are connected, and adds the given number
+     * of routes from each galaxy to random galaxies.
+     *
+     * @param random    The source of randomness.
+     * @param galaxies  The galaxies, at least 2.
+     * @param shortcuts The number of extra routes per galaxy.
+     */
+    public static void connect(Random random, List<Galaxy> galaxies, int shortcuts) {
+        for (int i = 0; i < galaxies.size(); i++) {
+            galaxies.get(i).connect(galaxies.get((i + 1) % galaxies.size()), 1 + random.nextInt(20));
+            for (int k = 0; k < shortcuts; k++) {
+                Galaxy other = galaxies.get(random.nextInt(galaxies.size()));
+                if (other != galaxies.get(i)) galaxies.get(i).connect(other, 5 + random.nextInt(50));
+            }
+        }
+    }
+
+    /**
+     * Creates ships without life support, half of them shielded with a shield strength from 0 to 99.
+     *
+     * @param random   The source of randomness.
+     * @param count    The number of ships.
+     * @param capacity The maximum cargo mass of each ship.
+     * @return The ships.
+     */
+    public static List<Ship> ships(Random random, int count, int capacity) {
+        List<Ship> ships = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean shielded = random.nextBoolean();
+            ships.add(NoLifeSupportShip.constructor("Ship " + nextNumber.getAndIncrement(), capacity,
+                    shielded ? ShipType.Shielded : ShipType.NoProtection, shielded ? random.nextInt(100) : null, "Autopilot"));
+        }
+        return ships;
+    }
+
+    /**
+     * Creates cargo with masses from 1 to the given maximum, each going to a random galaxy.
+     *
+     * @param random       The source of randomness.
+     * @param count        The number of cargo.
+     * @param maxMass      The greatest mass.
+     * @param destinations The galaxies to send the cargo to, or an empty list for no destination.
+     * @return The cargo.
+     */
+    public static List<Cargo> cargo(Random random, int count, int maxMass, List<Galaxy> destinations) {
+        Cargo.addRegisteredOwner(OWNER);
+        List<Cargo> cargo = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Cargo c = Cargo.constructor("Cargo", 1 + random.nextInt(maxMass), OWNER);
+            if (!destinations.isEmpty()) c.setDestination(destinations.get(random.nextInt(destinations.size())));
+            cargo.add(c);
+        }
+        return cargo;
+    }
+
+    /**
+     * Creates mechanical crew members.
+     *
+     * @param count The number of crew members.
+     * @return The crew members.
+     */
+    public static List<CrewMember> crew(int count) {
+        List<CrewMember> crew = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            crew.add(MechanicalCrewMember.constructor("SN" + nextNumber.getAndIncrement(), "M1"));
+        }
+        return crew;
+    }
+
+    /**
+     * Builds a whole universe: connected galaxies, a third of them dangerous, ships docked in
+     * random galaxies with one crew member each, and cargo waiting to be picked up.
+     *
+     * @param seed     The seed of all random choices.
+     * @param galaxies The number of galaxies, at least 2.
+     * @param ships    The number of ships.
+     * @param cargo    The number of cargo.
+     * @return The ships of the universe.
+     */
+    public static List<Ship> universe(long seed, int galaxies, int ships, int cargo) {
+        Random random = new Random(seed);
+        List<Galaxy> created = galaxies(random, galaxies, 1.0 / 3);
+        connect(random, created, 1);
+        List<Ship> fleet = ships(random, ships, 5_000);
+        List<CrewMember> crew = crew(ships);
+        for (int i = 0; i < ships; i++) {
+            fleet.get(i).setGalaxy(created.get(random.nextInt(galaxies)));
+            Contract.constructor("Pilot", null, fleet.get(i), crew.get(i));
+        }
+        cargo(random, cargo, 200, created);
+        return fleet;
+    }
+}
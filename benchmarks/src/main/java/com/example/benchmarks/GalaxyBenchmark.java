@@ -0,0 +1,70 @@
+package com.example.benchmarks;
+
+import com.example.classes.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Galaxy lookups at growing numbers of galaxies and of cargo heading to one galaxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GalaxyBenchmark {
+    @Param({"1000", "100000"})
+    public int galaxyCount;
+
+    @Param({"100", "10000"})
+    public int cargoCount;
+
+    private Galaxy target;
+    private Ship shielded;
+
+    /**
+     * Creates the galaxies and sends the cargo to one of them.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(2);
+        List<Galaxy> galaxies = Datasets.galaxies(random, galaxyCount, 1.0 / 3);
+        target = galaxies.get(0);
+        Datasets.cargo(random, cargoCount, 100, List.of(target));
+        shielded = NoLifeSupportShip.constructor("Shielded", 1000, ShipType.Shielded, 50, "Autopilot");
+    }
+
+    /**
+     * Checks a galaxy code that is not taken.
+     */
+    @Benchmark
+    public void galaxyCodeUniquenessCheck() {
+        Galaxy.galaxyCodeUniquenessCheck("FREE");
+    }
+
+    /**
+     * Goes through the cargo heading to one galaxy, lightest first.
+     *
+     * @return The total mass of the cargo.
+     */
+    @Benchmark
+    public long getCargoSet() {
+        long mass = 0;
+        for (Cargo cargo : target.getCargoSet()) mass += cargo.getMass();
+        return mass;
+    }
+
+    /**
+     * Lists the galaxies a shielded ship can go to.
+     *
+     * @return The number of galaxies.
+     */
+    @Benchmark
+    public int getReachableGalaxies() {
+        return Galaxy.getReachableGalaxies(shielded).size();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.benchmarks;
+
+import com.example.classes.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving the whole universe to the snapshot file and reading it back. The file is written to
+ * the working directory of the benchmark, as {@link Util#saveToFile()} does, and deleted at the
+ * end. Its size is printed once the trial is over.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+    private static final Path SNAPSHOT_FILE = Path.of("extents.dat");
+
+    @Param({"10000", "100000", "1000000"})
+    public int cargoCount;
+
+    /**
+     * Builds a universe with 1000 galaxies and 1000 ships and writes it once.
+     *
+     * @throws IOException If the file can not be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Datasets.universe(3, 1000, 1000, cargoCount);
+        Util.saveToFile();
+    }
+
+    /**
+     * Prints the size of the snapshot file and deletes it.
+     *
+     * @throws IOException If the file can not be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("Snapshot of %d cargo: %d bytes%n", cargoCount, Files.size(SNAPSHOT_FILE));
+        Files.deleteIfExists(SNAPSHOT_FILE);
+    }
+
+    /**
+     * Writes all extents to the snapshot file.
+     *
+     * @throws IOException If the file can not be written.
+     */
+    @Benchmark
+    public void saveToFile() throws IOException {
+        Util.saveToFile();
+    }
+
+    /**
+     * Replaces all extents with the content of the snapshot file.
+     *
+     * @return The number of cargo read.
+     * @throws Exception If the file can not be read.
+     */
+    @Benchmark
+    public int readFromFile() throws Exception {
+        Util.readFromFile();
+        return ObjectPlus.getExtentCount(Cargo.class);
+    }
+
+    /**
+     * Writes all extents and reads them back.
+     *
+     * @return The number of cargo read.
+     * @throws Exception If the file can not be written or read.
+     */
+    @Benchmark
+    public int roundTrip() throws Exception {
+        Util.saveToFile();
+        Util.readFromFile();
+        return ObjectPlus.getExtentCount(Cargo.class);
+    }
+}
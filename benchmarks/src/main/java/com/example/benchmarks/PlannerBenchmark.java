@@ -0,0 +1,87 @@
+package com.example.benchmarks;
+
+import com.example.classes.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning cargo loads for one ship and for a whole fleet from a growing pool of waiting cargo.
+ * Plans are not applied, so every call plans from the same state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlannerBenchmark {
+    @Param({"1000", "100000"})
+    public int poolSize;
+
+    private List<Ship> fleet;
+    private List<Cargo> pool;
+
+    /**
+     * Creates 1000 ships and the cargo pool going to 1000 galaxies.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(4);
+        List<Galaxy> galaxies = Datasets.galaxies(random, 1000, 1.0 / 3);
+        fleet = Datasets.ships(random, 1000, 5_000);
+        pool = Datasets.cargo(random, poolSize, 200, galaxies);
+    }
+
+    /**
+     * Plans the load of one ship, exactly if the pool is small enough and greedily otherwise.
+     *
+     * @return The plan.
+     */
+    @Benchmark
+    public LoadPlan loadPlan() {
+        return CargoLoadPlanner.plan(fleet.get(0), pool);
+    }
+
+    /**
+     * Plans the load of one ship greedily.
+     *
+     * @return The plan.
+     */
+    @Benchmark
+    public LoadPlan loadPlanGreedy() {
+        return CargoLoadPlanner.planGreedy(fleet.get(0), pool);
+    }
+
+    /**
+     * Plans the load of one ship on all cores, exactly if the pool is small enough and greedily otherwise.
+     *
+     * @return The plan.
+     */
+    @Benchmark
+    public LoadPlan loadPlanParallel() {
+        return CargoLoadPlanner.planParallel(fleet.get(0), pool);
+    }
+
+    /**
+     * Assigns the pool to the whole fleet, one shard per core.
+     *
+     * @return The assignment.
+     */
+    @Benchmark
+    public FleetAssignment fleetAssignment() {
+        return FleetAssignmentPlanner.plan(fleet, pool);
+    }
+
+    /**
+     * Assigns the pool to the whole fleet in a single shard, for comparison with the sharded assignment.
+     *
+     * @return The assignment.
+     */
+    @Benchmark
+    public FleetAssignment fleetAssignmentSingleShard() {
+        return FleetAssignmentPlanner.plan(fleet, pool, 1);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.benchmarks;
+
+import com.example.classes.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shortest route queries on a growing route network, answered from the cache and computed
+ * again after a galaxy changed its status.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteBenchmark {
+    @Param({"1000", "10000"})
+    public int galaxyCount;
+
+    private List<Galaxy> galaxies;
+    private Galaxy from;
+    private Galaxy to;
+    private Galaxy toggled;
+    private List<Galaxy> targets;
+
+    /**
+     * Creates the galaxies, connected in a ring with two random routes from each.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(5);
+        galaxies = Datasets.galaxies(random, galaxyCount, 1.0 / 3);
+        Datasets.connect(random, galaxies, 2);
+        from = galaxies.get(0);
+        to = galaxies.get(galaxyCount / 2);
+        targets = List.of(galaxies.get(galaxyCount / 3), galaxies.get(galaxyCount / 2), galaxies.get(2 * galaxyCount / 3));
+        toggled = galaxies.get(1);
+        if (toggled.getGalaxyType() == GalaxyType.Dangerous) toggled.changeToPeaceful(LocalDate.of(2400, 1, 1));
+    }
+
+    /**
+     * Finds the distance between two galaxies for shielded ships, answered from the cache.
+     *
+     * @return The distance.
+     */
+    @Benchmark
+    public double cachedDistance() {
+        return RouteNetwork.distance(ShipType.Shielded, 50, from, to);
+    }
+
+    /**
+     * Makes a galaxy next to the start dangerous or peaceful again, which drops the cached
+     * routes, and finds the distance between two galaxies for shielded ships.
+     *
+     * @return The distance.
+     */
+    @Benchmark
+    public double distanceAfterStatusChange() {
+        if (toggled.getGalaxyType() == GalaxyType.Peaceful) {
+            toggled.changeToDangerous(true, 0);
+        } else {
+            toggled.changeToPeaceful(LocalDate.of(2400, 1, 1));
+        }
+        return RouteNetwork.distance(ShipType.Shielded, 50, from, to);
+    }
+
+    /**
+     * Finds the route to the nearest of three galaxies within a distance, searching only as far as needed.
+     *
+     * @return The route, or null.
+     */
+    @Benchmark
+    public Route nearestRoute() {
+        if (toggled.getGalaxyType() == GalaxyType.Peaceful) {
+            toggled.changeToDangerous(true, 0);
+        } else {
+            toggled.changeToPeaceful(LocalDate.of(2400, 1, 1));
+        }
+        return RouteNetwork.nearestRoute(ShipType.Shielded, 50, from, targets, 200);
+    }
+}
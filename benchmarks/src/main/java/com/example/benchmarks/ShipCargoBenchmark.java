@@ -0,0 +1,98 @@
+package com.example.benchmarks;
+
+import com.example.classes.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cargo operations on one ship at growing manifest sizes. The manifest size stays the same
+ * during a run: operations that add cargo take it off again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipCargoBenchmark {
+    @Param({"100", "10000", "100000"})
+    public int manifestSize;
+
+    private List<Galaxy> galaxies;
+    private Ship ship;
+    private Cargo extra;
+    private List<Cargo> unreachable;
+
+    /**
+     * Loads an unshielded ship with cargo going to 64 galaxies, a third of them dangerous.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        galaxies = Datasets.galaxies(random, 64, 1.0 / 3);
+        ship = NoLifeSupportShip.constructor("Manifest", Integer.MAX_VALUE / 2, ShipType.NoProtection, null, "Autopilot");
+        List<Cargo> manifest = Datasets.cargo(random, manifestSize, 100, galaxies);
+        ship.addAllCargo(manifest);
+        extra = Datasets.cargo(random, 1, 100, galaxies).get(0);
+        unreachable = new ArrayList<>();
+        for (Cargo cargo : manifest) {
+            if (!ship.canGoToGalaxy(cargo.getDestination())) unreachable.add(cargo);
+        }
+    }
+
+    /**
+     * Adds one cargo to the ship and removes it again.
+     */
+    @Benchmark
+    public void addAndRemoveCargo() {
+        ship.addCargo(extra);
+        ship.removeCargo(extra);
+    }
+
+    /**
+     * Checks whether one more cargo fits.
+     */
+    @Benchmark
+    public void canAddCargoCheck() {
+        ship.canAddCargoCheck(extra);
+    }
+
+    /**
+     * Groups the cargo on the ship by destination.
+     *
+     * @param blackhole Consumes the result.
+     */
+    @Benchmark
+    public void getGalaxyToCargo(Blackhole blackhole) {
+        blackhole.consume(ship.getGalaxyToCargo().size());
+    }
+
+    /**
+     * Checks which of the 64 galaxies the ship can go to.
+     *
+     * @return The number of galaxies the ship can go to.
+     */
+    @Benchmark
+    public int canGoToGalaxy() {
+        int reachable = 0;
+        for (Galaxy galaxy : galaxies) {
+            if (ship.canGoToGalaxy(galaxy)) reachable++;
+        }
+        return reachable;
+    }
+
+    /**
+     * Unloads the cargo going to galaxies the ship can not go to and loads it back, which is
+     * part of the measured time.
+     */
+    @Benchmark
+    public void unloadAllUnreachableCargo() {
+        ship.unloadAllUnreachableCargo();
+        ship.addAllCargo(unreachable);
+    }
+}
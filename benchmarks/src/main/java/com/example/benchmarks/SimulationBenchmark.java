@@ -0,0 +1,51 @@
+package com.example.benchmarks;
+
+import com.example.classes.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A soak run: a month of fleet operations simulated on a universe of 1000 galaxies with ten
+ * cargo per ship. Each iteration simulates the next month of the same universe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SimulationBenchmark {
+    @Param({"1000", "10000"})
+    public int shipCount;
+
+    private FleetSimulation simulation;
+    private long seed;
+
+    /**
+     * Builds the universe.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Datasets.universe(6, 1000, shipCount, shipCount * 10);
+    }
+
+    /**
+     * Prepares a simulation of all ships, starting from where the last one stopped.
+     */
+    @Setup(Level.Iteration)
+    public void prepare() {
+        simulation = FleetSimulation.constructor(seed++);
+        simulation.setShardCount(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Simulates 720 hours.
+     *
+     * @return The report of the run.
+     */
+    @Benchmark
+    public SimulationReport month() {
+        return simulation.run(720);
+    }
+}
@@ -2,8 +2,9 @@ package com.example.classes;
 
 import java.io.Serializable;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Cargo class represents a cargo item and extends ObjectPlus.
@@ -12,9 +13,9 @@ import java.util.Set;
  */
 public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable {
     /**
-     * A set of registered owners of the cargo.
+     * Registered owners of the cargo, each with the number and total mass of the cargo they own.
      */
-    private static Set<String> registeredOwners = new HashSet<>();
+    private static volatile Map<String, OwnerRecord> registeredOwners = new ConcurrentHashMap<>();
 
     private String name;
     private int mass;
@@ -48,7 +49,11 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
         Util.validString(name);
         Util.positiveIntCheck(mass);
         validOwnerCheck(owner);
-        return new Cargo(name, mass, owner);
+        return Journal.mutate(() -> {
+            Cargo created = new Cargo(name, mass, owner);
+            Journal.logCreated(Journal.CARGO_CREATED, created, name, mass, owner);
+            return created;
+        });
     }
 
     /**
@@ -57,16 +62,32 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
      * @return an unmodifiable set of registered owners
      */
     public static Set<String> getRegisteredOwners() {
-        return Collections.unmodifiableSet(registeredOwners);
+        Snapshot.require(Snapshot.CARGO);
+        return Collections.unmodifiableSet(registeredOwners.keySet());
     }
 
     /**
-     * Sets the registered owners of the cargo.
+     * Sets the registered owners of the cargo and recounts the cargo of each owner.
+     * Owners of existing cargo are registered even if they are missing from the given set.
      *
      * @param registeredOwners the set of registered owners
      */
     public static void setRegisteredOwners(Set<String> registeredOwners) {
-        Cargo.registeredOwners = registeredOwners;
+        Map<String, OwnerRecord> owners = new ConcurrentHashMap<>();
+        for (String owner : registeredOwners) {
+            owners.put(owner, new OwnerRecord());
+        }
+        try {
+            Iterable<Cargo> extent = getExtent(Cargo.class);
+            if (extent != null) {
+                for (Cargo cargo : extent) {
+                    if (cargo.owner != null) owners.computeIfAbsent(cargo.owner, o -> new OwnerRecord()).add(cargo.mass);
+                }
+            }
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        Cargo.registeredOwners = owners;
     }
 
     /**
@@ -76,7 +97,14 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
      */
     public static void addRegisteredOwner(String owner) {
         Util.validString(owner);
-        registeredOwners.add(owner);
+        Snapshot.require(Snapshot.OWNERS);
+        Journal.mutate(() -> {
+            OwnerRecord record = new OwnerRecord();
+            synchronized (record) {
+                if (registeredOwners.putIfAbsent(owner, record) != null) return;
+                Journal.log(Journal.OWNER_ADDED, null, owner);
+            }
+        });
     }
 
     /**
@@ -86,14 +114,40 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
      * @throws Exception if the owner has existing cargo
      */
     public static void removeRegisteredOwner(String owner) throws Exception {
-        Iterable<Cargo> extent = getExtent(Cargo.class);
-        if (extent != null) {
-            for (Cargo cargo : extent) {
-                if (cargo.owner.equals(owner))
-                    throw new RuntimeException("Can not remove an owner that already has cargo.");
+        Snapshot.require(Snapshot.CARGO);
+        Journal.mutate(() -> {
+            OwnerRecord record = registeredOwners.get(owner);
+            if (record == null) return;
+            synchronized (record) {
+                record.markRemoved();
+                if (!registeredOwners.remove(owner, record)) return;
+                Journal.log(Journal.OWNER_REMOVED, null, owner);
             }
-            registeredOwners.remove(owner);
-        }
+        });
+    }
+
+    /**
+     * Returns the number of cargo items owned by the given owner.
+     *
+     * @param owner the owner
+     * @return the number of cargo items of the owner, or 0 if the owner is not registered
+     */
+    public static int getCargoCountByOwner(String owner) {
+        Snapshot.require(Snapshot.CARGO);
+        OwnerRecord record = registeredOwners.get(owner);
+        return record == null ? 0 : record.getCargoCount();
+    }
+
+    /**
+     * Returns the total mass of the cargo owned by the given owner.
+     *
+     * @param owner the owner
+     * @return the total cargo mass of the owner, or 0 if the owner is not registered
+     */
+    public static long getCargoMassByOwner(String owner) {
+        Snapshot.require(Snapshot.CARGO);
+        OwnerRecord record = registeredOwners.get(owner);
+        return record == null ? 0 : record.getCargoMass();
     }
 
     /**
@@ -112,7 +166,12 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
      */
     public void setName(String name) {
         Util.validString(name);
-        this.name = name;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.name = name;
+                Journal.log(Journal.CARGO_NAME, this, name);
+            }
+        });
     }
 
     /**
@@ -125,16 +184,56 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
     }
 
     /**
-     * Sets the mass of the cargo.
+     * Sets the mass of the cargo. The capacity of the ship carrying the cargo is checked and
+     * its total updated in one step under the ship's lock.
      *
      * @param mass the new mass of the cargo
+     * @throws RuntimeException if the mass is not positive or the ship can not carry the new mass
      */
     public void setMass(int mass) {
         Util.positiveIntCheck(mass);
-        if (ship != null) {
-            ship.canAddCargoCheck(mass - this.mass);
+        Journal.mutate(() -> withLocks(() -> {
+            int delta = mass - this.mass;
+            if (ship != null) {
+                ship.cargoMassChanged(this, delta);
+            }
+            this.mass = mass;
+            if (destination != null) {
+                destination.cargoMassChanged(this, mass - delta);
+            }
+            if (owner != null) {
+                registeredOwners.get(owner).massChanged(delta);
+            }
+            Journal.log(Journal.CARGO_MASS, this, mass);
+        }));
+    }
+
+    /**
+     * Runs an action while holding the lock of the ship carrying the cargo, if any, and then
+     * the lock of the cargo itself, the same order in which ships lock the cargo they load.
+     * The cargo may move to another ship while the locks are being taken, in which case they
+     * are taken again.
+     *
+     * @param action the action to run
+     */
+    private void withLocks(Runnable action) {
+        while (true) {
+            Ship ship = this.ship;
+            if (ship == null) {
+                synchronized (this) {
+                    if (this.ship != null) continue;
+                    action.run();
+                    return;
+                }
+            }
+            synchronized (ship) {
+                synchronized (this) {
+                    if (this.ship != ship) continue;
+                    action.run();
+                    return;
+                }
+            }
         }
-        this.mass = mass;
     }
 
     /**
@@ -153,7 +252,40 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
      */
     public void setOwner(String owner) {
         validOwnerCheck(owner);
-        this.owner = owner;
+        Journal.mutate(() -> withLocks(() -> {
+            if (owner.equals(this.owner)) return;
+            OwnerRecord record = registeredOwners.get(owner);
+            if (record == null) throw new RuntimeException("Owner is not in registered owners.");
+            record.add(mass);
+            if (this.owner == null) {
+                this.owner = owner;
+                Journal.log(Journal.CARGO_OWNER, this, owner);
+                return;
+            }
+            OwnerRecord oldRecord = registeredOwners.get(this.owner);
+            synchronized (oldRecord) {
+                oldRecord.remove(mass);
+                this.owner = owner;
+                Journal.log(Journal.CARGO_OWNER, this, owner);
+            }
+        }));
+    }
+
+    /**
+     * Unloads the cargo from its ship, removes it from its destination and stops counting it
+     * towards its owner.
+     */
+    @Override
+    protected void detach() {
+        Ship ship = this.ship;
+        if (ship != null) ship.removeCargo(this);
+        setDestination(null);
+        withLocks(() -> {
+            if (owner != null) {
+                registeredOwners.get(owner).remove(mass);
+                owner = null;
+            }
+        });
     }
 
     /**
@@ -164,7 +296,8 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
      */
     private static void validOwnerCheck(String owner) {
         Util.validString(owner);
-        if (!registeredOwners.contains(owner)) throw new RuntimeException("Owner is not in registered owners.");
+        Snapshot.require(Snapshot.OWNERS);
+        if (!registeredOwners.containsKey(owner)) throw new RuntimeException("Owner is not in registered owners.");
     }
 
     /**
@@ -182,17 +315,34 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
      * @param destination the new destination galaxy of the cargo
      */
     public void setDestination(Galaxy destination) {
-        if (this.destination == destination) return;
+        Journal.mutate(() -> withLocks(() -> assignDestination(destination)));
+    }
 
-        if (this.destination != null) {
-            this.destination.removeCargo(this);
-            if (destination == null) {
-                this.destination = null;
-                return;
-            }
-        }
+    /**
+     * Removes the destination of the cargo if it is still the given galaxy.
+     *
+     * @param destination the galaxy the cargo should no longer head to
+     */
+    void leaveDestination(Galaxy destination) {
+        Journal.mutate(() -> withLocks(() -> {
+            if (this.destination == destination) assignDestination(null);
+        }));
+    }
+
+    /**
+     * Stores the new destination, moves the cargo between the galaxies and lets the ship carrying
+     * the cargo regroup it. Callers hold the locks of the ship and of the cargo.
+     *
+     * @param destination the new destination of the cargo
+     */
+    private void assignDestination(Galaxy destination) {
+        Galaxy oldDestination = this.destination;
+        if (oldDestination == destination) return;
+        if (oldDestination != null) oldDestination.cargoLeft(this);
         this.destination = destination;
-        destination.addCargo(this);
+        if (destination != null) destination.cargoArrived(this);
+        if (ship != null) ship.cargoDestinationChanged(this, oldDestination);
+        Journal.log(Journal.CARGO_DESTINATION, this, destination);
     }
 
     /**
@@ -211,16 +361,20 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
      */
     public void setShip(Ship ship) {
         if (this.ship == ship) return;
-        if (this.ship != null) {
+        if (ship == null) {
             this.ship.removeCargo(this);
-            if (ship == null) {
-                this.ship = null;
-                return;
-            }
+            return;
         }
-        this.ship = ship;
         ship.addCargo(this);
+    }
 
+    /**
+     * Stores the ship carrying the cargo. Called by the ship, which keeps its own side of the
+     * association, while holding its own lock and the lock of the cargo.
+     *
+     * @param ship the ship carrying the cargo, or null
+     */
+    void assignShip(Ship ship) {
         this.ship = ship;
     }
 
@@ -234,4 +388,70 @@ public class Cargo extends ObjectPlus implements Comparable<Cargo>, Serializable
     public int compareTo(Cargo o) {
         return Integer.compare(this.mass, o.mass);
     }
+
+    /**
+     * Number and total mass of the cargo belonging to one registered owner.
+     * Records are shared between threads, so every access is synchronized on the record.
+     */
+    private static class OwnerRecord {
+        private int cargoCount;
+        private long cargoMass;
+        private boolean removed;
+
+        /**
+         * Counts a cargo item of the given mass towards the owner.
+         *
+         * @param mass the mass of the cargo
+         * @throws RuntimeException if the owner has been removed in the meantime
+         */
+        private synchronized void add(int mass) {
+            if (removed) throw new RuntimeException("Owner is not in registered owners.");
+            cargoCount++;
+            cargoMass += mass;
+        }
+
+        /**
+         * Removes a cargo item of the given mass from the owner's totals.
+         *
+         * @param mass the mass of the cargo
+         */
+        private synchronized void remove(int mass) {
+            cargoCount--;
+            cargoMass -= mass;
+        }
+
+        /**
+         * Adjusts the total mass after the mass of one of the owner's cargo items changed.
+         *
+         * @param delta the change in mass
+         */
+        private synchronized void massChanged(int delta) {
+            cargoMass += delta;
+        }
+
+        /**
+         * Marks the owner as removed, so that no more cargo can be counted towards it.
+         *
+         * @throws RuntimeException if the owner still has cargo
+         */
+        private synchronized void markRemoved() {
+            if (cargoCount > 0)
+                throw new RuntimeException("Can not remove an owner that already has cargo.");
+            removed = true;
+        }
+
+        /**
+         * @return the number of cargo items owned
+         */
+        private synchronized int getCargoCount() {
+            return cargoCount;
+        }
+
+        /**
+         * @return the total mass of the cargo owned
+         */
+        private synchronized long getCargoMass() {
+            return cargoMass;
+        }
+    }
 }
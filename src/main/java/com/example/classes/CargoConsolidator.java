@@ -0,0 +1,172 @@
+package com.example.classes;
+
+import java.util.*;
+
+/**
+ * The CargoConsolidator class rebalances the cargo of the ships docked in one galaxy so that the
+ * cargo for each destination is spread over as few ships as possible.
+ * <p>
+ * All docked ships are locked for the whole run, so the cargo can not change while it is planned
+ * and moved. Ships that left the galaxy before their lock was taken are left out. Cargo whose
+ * destination its ship can not reach stays where it is. The rest is grouped by destination and
+ * each group is packed first-fit decreasing: the heaviest cargo first, into the first ship already
+ * used for the destination that still fits it, opening the reachable ship with the most capacity
+ * left when none does. Destinations fewer ships can reach are packed first. The plan is only
+ * carried out if it uses fewer ships per destination in total than the current loading and places
+ * all cargo.
+ */
+public class CargoConsolidator {
+
+    /**
+     * Consolidates the cargo of the ships docked in the given galaxy.
+     *
+     * @param galaxy The galaxy whose ships to consolidate.
+     * @return The number of cargo moved to another ship.
+     * @throws RuntimeException If galaxy is null.
+     */
+    public static int consolidate(Galaxy galaxy) {
+        if (galaxy == null) throw new RuntimeException("Galaxy can not be null");
+        Snapshot.require(Snapshot.CARGO);
+        List<Ship> ships = new ArrayList<>(galaxy.getShips());
+        int[] moved = {0};
+        Ship.withCargoLocks(ships, () -> {
+            List<Ship> docked = new ArrayList<>(ships.size());
+            for (Ship ship : ships) {
+                if (ship.getGalaxy() == galaxy) docked.add(ship);
+            }
+            moved[0] = new Planning(docked).run();
+        });
+        return moved[0];
+    }
+
+    /**
+     * The state of one consolidation run. Ships are referred to by index.
+     */
+    private static class Planning {
+        private final Ship[] ships;
+        private final int[] remaining;
+        private final Map<Galaxy, List<Cargo>> cargoByDestination = new HashMap<>();
+        private final Map<Cargo, Integer> plannedShip = new HashMap<>();
+
+        /**
+         * Reserves the capacity of the cargo that stays where it is and groups the rest by destination.
+         *
+         * @param docked The ships docked in the galaxy.
+         */
+        private Planning(List<Ship> docked) {
+            ships = docked.toArray(new Ship[0]);
+            remaining = new int[ships.length];
+            for (int s = 0; s < ships.length; s++) {
+                Ship ship = ships[s];
+                remaining[s] = ship.getMaxCargoMassCapacity();
+                for (Cargo cargo : ship.getCargoSet()) {
+                    Galaxy destination = cargo.getDestination();
+                    if (destination != null && !ship.canGoToGalaxy(destination)) {
+                        remaining[s] -= cargo.getMass();
+                    } else {
+                        cargoByDestination.computeIfAbsent(destination, key -> new ArrayList<>()).add(cargo);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Plans the new loading and carries it out if it is better than the current one.
+         *
+         * @return The number of cargo moved.
+         */
+        private int run() {
+            Map<Galaxy, int[]> candidates = new HashMap<>();
+            for (Galaxy destination : cargoByDestination.keySet()) {
+                candidates.put(destination, shipsReaching(destination));
+            }
+            List<Galaxy> order = new ArrayList<>(cargoByDestination.keySet());
+            order.sort(Comparator.comparingInt((Galaxy g) -> candidates.get(g).length)
+                    .thenComparing(Comparator.comparingLong(this::massGoingTo).reversed()));
+
+            int current = 0;
+            int planned = 0;
+            for (Galaxy destination : order) {
+                Set<Ship> used = new HashSet<>();
+                for (Cargo cargo : cargoByDestination.get(destination)) used.add(cargo.getShip());
+                current += used.size();
+                int opened = pack(cargoByDestination.get(destination), candidates.get(destination));
+                if (opened < 0) return 0;
+                planned += opened;
+            }
+            if (planned >= current) return 0;
+
+            int moved = 0;
+            for (Map.Entry<Cargo, Integer> entry : plannedShip.entrySet()) {
+                Cargo cargo = entry.getKey();
+                Ship target = ships[entry.getValue()];
+                if (cargo.getShip() == target) continue;
+                target.loadCargo(cargo);
+                Journal.log(Journal.CARGO_SHIP, cargo, target);
+                moved++;
+            }
+            return moved;
+        }
+
+        /**
+         * Packs the cargo of one destination first-fit decreasing into the given ships.
+         *
+         * @param cargoList  The cargo going to the destination.
+         * @param candidates The indexes of the ships that can go to the destination.
+         * @return The number of ships used, or -1 if some cargo fits no ship.
+         */
+        private int pack(List<Cargo> cargoList, int[] candidates) {
+            List<Cargo> sorted = new ArrayList<>(cargoList);
+            sorted.sort(Comparator.comparingInt(Cargo::getMass).reversed());
+            List<Integer> opened = new ArrayList<>();
+            for (Cargo cargo : sorted) {
+                int mass = cargo.getMass();
+                int chosen = -1;
+                for (int s : opened) {
+                    if (remaining[s] >= mass) {
+                        chosen = s;
+                        break;
+                    }
+                }
+                if (chosen < 0) {
+                    for (int s : candidates) {
+                        if (remaining[s] >= mass && !opened.contains(s) && (chosen < 0 || remaining[s] > remaining[chosen])) {
+                            chosen = s;
+                        }
+                    }
+                    if (chosen < 0) return -1;
+                    opened.add(chosen);
+                }
+                remaining[chosen] -= mass;
+                plannedShip.put(cargo, chosen);
+            }
+            return opened.size();
+        }
+
+        /**
+         * Finds the ships that can go to the given destination. Every ship can carry cargo without one.
+         *
+         * @param destination The destination, or null.
+         * @return The indexes of the ships.
+         */
+        private int[] shipsReaching(Galaxy destination) {
+            List<Integer> reaching = new ArrayList<>();
+            for (int s = 0; s < ships.length; s++) {
+                if (destination == null || ships[s].canGoToGalaxy(destination)) reaching.add(s);
+            }
+            return reaching.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Sums the mass of the cargo going to the given destination.
+         *
+         * @param destination The destination, or null.
+         * @return The total mass.
+         */
+        private long massGoingTo(Galaxy destination) {
+            long mass = 0;
+            for (Cargo cargo : cargoByDestination.get(destination)) mass += cargo.getMass();
+            return mass;
+        }
+    }
+}
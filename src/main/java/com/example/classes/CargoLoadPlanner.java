@@ -0,0 +1,341 @@
+package com.example.classes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * The CargoLoadPlanner class chooses which cargo from a pool to load onto a ship.
+ * <p>
+ * The chosen cargo maximizes the total value within the ship's remaining capacity, the value
+ * of a cargo being its mass unless another value is given. Only cargo that is on no ship is
+ * considered. Cargo whose destination the ship can not reach is left out. Cargo going to a
+ * reachable galaxy is preferred over cargo without a destination: it is packed first and cargo
+ * without a destination only fills the capacity left over.
+ * <p>
+ * The exact planner solves the 0/1 knapsack problem by dynamic programming over the capacity,
+ * which takes time and bits of memory proportional to the number of cargo times the capacity,
+ * and is only used up to {@link #EXACT_CELL_LIMIT} cells and {@link #EXACT_CAPACITY_LIMIT}.
+ * The greedy planner sorts the cargo by value per mass and takes whatever still fits, which
+ * scales to millions of cargo. The parallel planner spreads either of them over all cores.
+ */
+public class CargoLoadPlanner {
+    /**
+     * The largest number of cargo times capacity the exact planner accepts, one bit each.
+     */
+    public static final long EXACT_CELL_LIMIT = 200_000_000L;
+
+    /**
+     * The largest capacity the exact planner accepts. It keeps one or, in parallel, two rows of
+     * eight bytes per capacity step, 32 MB each at this limit.
+     */
+    public static final int EXACT_CAPACITY_LIMIT = 1 << 22;
+
+    /**
+     * Capacity from which the rows of the exact planner are computed in parallel.
+     */
+    private static final int PARALLEL_ROW_THRESHOLD = 1 << 16;
+
+    /**
+     * Number of capacity steps computed by one task of a parallel row, a multiple of 64.
+     */
+    private static final int ROW_CHUNK = 1 << 14;
+
+    /**
+     * Chooses the cargo with the largest total mass, exactly if the pool and the ship's
+     * capacity are small enough and greedily otherwise.
+     *
+     * @param ship The ship to plan for.
+     * @param pool The candidate cargo.
+     * @return The load plan.
+     */
+    public static LoadPlan plan(Ship ship, Collection<Cargo> pool) {
+        return plan(ship, pool, Cargo::getMass);
+    }
+
+    /**
+     * Chooses the cargo with the largest total value, exactly if the pool and the ship's
+     * capacity are small enough and greedily otherwise.
+     *
+     * @param ship  The ship to plan for.
+     * @param pool  The candidate cargo.
+     * @param value The value of each cargo, non-negative.
+     * @return The load plan.
+     */
+    public static LoadPlan plan(Ship ship, Collection<Cargo> pool, ToLongFunction<Cargo> value) {
+        if (fitsExact(ship, pool)) return planExact(ship, pool, value);
+        return planGreedy(ship, pool, value);
+    }
+
+    /**
+     * Chooses the cargo with the largest total mass by dynamic programming.
+     *
+     * @param ship The ship to plan for.
+     * @param pool The candidate cargo.
+     * @return The load plan.
+     * @throws RuntimeException If the capacity exceeds {@link #EXACT_CAPACITY_LIMIT} or the number of cargo times the capacity {@link #EXACT_CELL_LIMIT}.
+     */
+    public static LoadPlan planExact(Ship ship, Collection<Cargo> pool) {
+        return planExact(ship, pool, Cargo::getMass);
+    }
+
+    /**
+     * Chooses the cargo with the largest total value by dynamic programming.
+     *
+     * @param ship  The ship to plan for.
+     * @param pool  The candidate cargo.
+     * @param value The value of each cargo, non-negative.
+     * @return The load plan.
+     * @throws RuntimeException If the capacity exceeds {@link #EXACT_CAPACITY_LIMIT} or the number of cargo times the capacity {@link #EXACT_CELL_LIMIT}.
+     */
+    public static LoadPlan planExact(Ship ship, Collection<Cargo> pool, ToLongFunction<Cargo> value) {
+        return new Planning(ship, pool, value).run(Mode.EXACT, false);
+    }
+
+    /**
+     * Chooses cargo with a large total mass greedily, heaviest first.
+     *
+     * @param ship The ship to plan for.
+     * @param pool The candidate cargo.
+     * @return The load plan.
+     */
+    public static LoadPlan planGreedy(Ship ship, Collection<Cargo> pool) {
+        return planGreedy(ship, pool, Cargo::getMass);
+    }
+
+    /**
+     * Chooses cargo with a large total value greedily, best value per mass first.
+     *
+     * @param ship  The ship to plan for.
+     * @param pool  The candidate cargo.
+     * @param value The value of each cargo, non-negative.
+     * @return The load plan.
+     */
+    public static LoadPlan planGreedy(Ship ship, Collection<Cargo> pool, ToLongFunction<Cargo> value) {
+        return new Planning(ship, pool, value).run(Mode.GREEDY, false);
+    }
+
+    /**
+     * Chooses the cargo with the largest total mass using all cores, exactly if the pool and
+     * the ship's capacity are small enough and greedily otherwise.
+     *
+     * @param ship The ship to plan for.
+     * @param pool The candidate cargo.
+     * @return The load plan.
+     */
+    public static LoadPlan planParallel(Ship ship, Collection<Cargo> pool) {
+        return planParallel(ship, pool, Cargo::getMass);
+    }
+
+    /**
+     * Chooses the cargo with the largest total value using all cores, exactly if the pool and
+     * the ship's capacity are small enough and greedily otherwise.
+     *
+     * @param ship  The ship to plan for.
+     * @param pool  The candidate cargo.
+     * @param value The value of each cargo, non-negative.
+     * @return The load plan.
+     */
+    public static LoadPlan planParallel(Ship ship, Collection<Cargo> pool, ToLongFunction<Cargo> value) {
+        Mode mode = fitsExact(ship, pool) ? Mode.EXACT : Mode.GREEDY;
+        return new Planning(ship, pool, value).run(mode, true);
+    }
+
+    /**
+     * Checks whether the exact planner accepts the given ship and pool.
+     *
+     * @param ship The ship to plan for.
+     * @param pool The candidate cargo.
+     * @return True if the exact planner accepts them.
+     */
+    private static boolean fitsExact(Ship ship, Collection<Cargo> pool) {
+        return fitsExact(pool.size(), ship.getRemainingCapacity());
+    }
+
+    /**
+     * Checks whether the exact planner accepts the given number of cargo and capacity.
+     *
+     * @param cargoCount The number of candidate cargo.
+     * @param capacity   The capacity to fill.
+     * @return True if the capacity is within {@link #EXACT_CAPACITY_LIMIT} and the number of
+     * cargo times the capacity within {@link #EXACT_CELL_LIMIT}.
+     */
+    private static boolean fitsExact(int cargoCount, int capacity) {
+        return capacity <= EXACT_CAPACITY_LIMIT && (long) cargoCount * (capacity + 1) <= EXACT_CELL_LIMIT;
+    }
+
+    /**
+     * The ways of choosing cargo.
+     */
+    private enum Mode {
+        EXACT, GREEDY
+    }
+
+    /**
+     * The state of one planning run.
+     */
+    private static class Planning {
+        private final Ship ship;
+        private final ToLongFunction<Cargo> value;
+        private final List<Cargo> reachable = new ArrayList<>();
+        private final List<Cargo> withoutDestination = new ArrayList<>();
+
+        /**
+         * Sorts the pool into cargo going to reachable galaxies and cargo without a destination,
+         * leaving out cargo that is on a ship or can not be delivered by the ship.
+         *
+         * @param ship  The ship to plan for.
+         * @param pool  The candidate cargo.
+         * @param value The value of each cargo.
+         */
+        private Planning(Ship ship, Collection<Cargo> pool, ToLongFunction<Cargo> value) {
+            if (ship == null) throw new RuntimeException("Ship can not be null");
+            if (pool == null) throw new RuntimeException("Cargo pool can not be null");
+            if (value == null) throw new RuntimeException("Value can not be null");
+            this.ship = ship;
+            this.value = value;
+            for (Cargo cargo : pool) {
+                if (cargo == null || cargo.getShip() != null) continue;
+                Galaxy destination = cargo.getDestination();
+                if (destination == null) withoutDestination.add(cargo);
+                else if (ship.canGoToGalaxy(destination)) reachable.add(cargo);
+            }
+        }
+
+        /**
+         * Packs the cargo going to reachable galaxies, then fills the rest of the capacity
+         * with cargo without a destination.
+         *
+         * @param mode     The way of choosing cargo.
+         * @param parallel Whether to use all cores.
+         * @return The load plan.
+         */
+        private LoadPlan run(Mode mode, boolean parallel) {
+            int capacity = ship.getRemainingCapacity();
+            if (mode == Mode.EXACT && !fitsExact(reachable.size() + withoutDestination.size(), capacity))
+                throw new RuntimeException("Too many cargo or too much capacity for the exact planner");
+            List<Cargo> chosen = new ArrayList<>();
+            for (List<Cargo> candidates : List.of(reachable, withoutDestination)) {
+                Cargo[] items = candidates.toArray(new Cargo[0]);
+                List<Cargo> packed = mode == Mode.EXACT ? packExact(items, capacity, parallel) : packGreedy(items, capacity, parallel);
+                for (Cargo cargo : packed) capacity -= cargo.getMass();
+                chosen.addAll(packed);
+            }
+            long totalMass = 0;
+            long totalValue = 0;
+            for (Cargo cargo : chosen) {
+                totalMass += cargo.getMass();
+                totalValue += value.applyAsLong(cargo);
+            }
+            return new LoadPlan(ship, chosen, totalMass, totalValue);
+        }
+
+        /**
+         * Solves the 0/1 knapsack problem for the given cargo. best[w] holds the largest value
+         * that fits into mass w using the cargo considered so far, and one bit per cargo and
+         * mass records whether taking the cargo improved it, so the choice can be traced back.
+         *
+         * @param items        The candidate cargo.
+         * @param capacityLeft The capacity to fill. Rows never go beyond the total mass of the cargo.
+         * @param parallel     Whether to compute each row in parallel.
+         * @return The chosen cargo.
+         */
+        private List<Cargo> packExact(Cargo[] items, int capacityLeft, boolean parallel) {
+            long totalMass = 0;
+            for (Cargo item : items) totalMass += item.getMass();
+            int capacity = (int) Math.min(capacityLeft, totalMass);
+            int words = (capacity >> 6) + 1;
+            long[][] taken = new long[items.length][];
+            long[] best = new long[capacity + 1];
+            long[] next = parallel && capacity >= PARALLEL_ROW_THRESHOLD ? new long[capacity + 1] : null;
+            for (int i = 0; i < items.length; i++) {
+                int mass = items[i].getMass();
+                if (mass > capacity) continue;
+                long itemValue = value.applyAsLong(items[i]);
+                long[] bits = new long[words];
+                taken[i] = bits;
+                if (next == null) {
+                    for (int w = capacity; w >= mass; w--) {
+                        long candidate = best[w - mass] + itemValue;
+                        if (candidate > best[w]) {
+                            best[w] = candidate;
+                            bits[w >> 6] |= 1L << w;
+                        }
+                    }
+                } else {
+                    long[] previous = best;
+                    long[] row = next;
+                    IntStream.range(0, (capacity + ROW_CHUNK) / ROW_CHUNK).parallel().forEach(chunk -> {
+                        int end = Math.min(capacity, (chunk + 1) * ROW_CHUNK - 1);
+                        for (int w = chunk * ROW_CHUNK; w <= end; w++) {
+                            long kept = previous[w];
+                            if (w >= mass && previous[w - mass] + itemValue > kept) {
+                                row[w] = previous[w - mass] + itemValue;
+                                bits[w >> 6] |= 1L << w;
+                            } else {
+                                row[w] = kept;
+                            }
+                        }
+                    });
+                    next = best;
+                    best = row;
+                }
+            }
+            List<Cargo> chosen = new ArrayList<>();
+            int w = capacity;
+            for (int i = items.length - 1; i >= 0; i--) {
+                if (taken[i] != null && (taken[i][w >> 6] & 1L << w) != 0) {
+                    chosen.add(items[i]);
+                    w -= items[i].getMass();
+                }
+            }
+            return chosen;
+        }
+
+        /**
+         * Takes the cargo in order of decreasing value per mass, skipping cargo that no longer
+         * fits. If a single cargo is worth more than everything taken, it is taken alone.
+         *
+         * @param items    The candidate cargo.
+         * @param capacity The capacity to fill.
+         * @param parallel Whether to sort in parallel.
+         * @return The chosen cargo.
+         */
+        private List<Cargo> packGreedy(Cargo[] items, int capacity, boolean parallel) {
+            int n = items.length;
+            long[] values = new long[n];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = value.applyAsLong(items[i]);
+                order[i] = i;
+            }
+            Comparator<Integer> byDensity = (a, b) -> {
+                int density = Double.compare((double) values[b] / items[b].getMass(), (double) values[a] / items[a].getMass());
+                return density != 0 ? density : Integer.compare(items[b].getMass(), items[a].getMass());
+            };
+            if (parallel) Arrays.parallelSort(order, byDensity);
+            else Arrays.sort(order, byDensity);
+
+            List<Cargo> chosen = new ArrayList<>();
+            long chosenValue = 0;
+            int remaining = capacity;
+            int bestSingle = -1;
+            for (int i : order) {
+                int mass = items[i].getMass();
+                if (mass > capacity) continue;
+                if (bestSingle < 0 || values[i] > values[bestSingle]) bestSingle = i;
+                if (mass <= remaining) {
+                    chosen.add(items[i]);
+                    chosenValue += values[i];
+                    remaining -= mass;
+                }
+            }
+            if (bestSingle >= 0 && values[bestSingle] > chosenValue) return new ArrayList<>(List.of(items[bestSingle]));
+            return chosen;
+        }
+    }
+}
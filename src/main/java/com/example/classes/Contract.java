@@ -36,19 +36,35 @@ public class Contract extends ObjectPlus implements Serializable {
      * @throws RuntimeException If validations fail (e.g., null ship or crew member, invalid salary for crew type).
      */
     public static Contract constructor(String role, Double salary, Ship ship, CrewMember crewMember) {
+        long start = Metrics.start(MeteredOperation.ContractConstructor);
         Util.validString(role);
         if (ship == null) throw new RuntimeException("Ship can't be null");
         if (crewMember == null) throw new RuntimeException("Crew member can't be null");
         validSalary(salary, crewMember);
-        return new Contract(role, salary, ship, crewMember);
+        Contract contract = Journal.mutate(() -> {
+            Contract created = new Contract(role, salary, ship, crewMember);
+            Journal.logCreated(Journal.CONTRACT_CREATED, created, role, salary, ship, crewMember);
+            return created;
+        });
+        Metrics.record(MeteredOperation.ContractConstructor, start);
+        return contract;
     }
     /**
      * Sets ship and crew member references to null.
      */
-    public void setToNulls() {
+    public synchronized void setToNulls() {
+        if (ship != null) Journal.log(Journal.CONTRACT_TERMINATED, this);
         ship = null;
         crewMember = null;
     }
+    /**
+     * Terminates the contract if it is still in force.
+     */
+    @Override
+    protected void detach() {
+        Ship ship = this.ship;
+        if (ship != null) ship.removeContract(this);
+    }
     /**
      * Retrieves the role of the crew member in the contract.
      * @return The role of the crew member.
@@ -63,7 +79,12 @@ public class Contract extends ObjectPlus implements Serializable {
      */
     public void setRole(String role) {
         Util.validString(role);
-        this.role = role;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.role = role;
+                Journal.log(Journal.CONTRACT_ROLE, this, role);
+            }
+        });
     }
     /**
      * Retrieves the salary associated with the contract.
@@ -79,7 +100,12 @@ public class Contract extends ObjectPlus implements Serializable {
      */
     public void setSalary(Double salary) {
         validSalary(salary, getCrewMember());
-        this.salary = salary;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.salary = salary;
+                Journal.log(Journal.CONTRACT_SALARY, this, salary);
+            }
+        });
     }
     /**
      * Validates the salary based on the type of crew member.
@@ -1,9 +1,10 @@
 package com.example.classes;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract class representing a crew member.
@@ -17,7 +18,7 @@ public abstract class CrewMember extends ObjectPlus implements Serializable {
      * Constructs a CrewMember object initializing contracts set.
      */
     protected CrewMember() {
-        contracts = new HashSet<>();
+        contracts = ConcurrentHashMap.newKeySet();
     }
 
     /**
@@ -26,6 +27,7 @@ public abstract class CrewMember extends ObjectPlus implements Serializable {
      * @return The set of contracts.
      */
     public Set<Contract> getContracts() {
+        Snapshot.require(Snapshot.CONTRACTS);
         return Collections.unmodifiableSet(contracts);
     }
 
@@ -38,15 +40,18 @@ public abstract class CrewMember extends ObjectPlus implements Serializable {
     public void addContract(Contract contract) {
         if (contract == null) throw new RuntimeException("Contract can not be null");
 
-        if (contracts.contains(contract)) return;
-        if (contract.getCrewMember() != this)
-            throw new RuntimeException("This contract is not for this crew member");
-        for (Contract contr : contracts) {
-            if (contr.getCrewMember() == contract.getCrewMember()) {
-                throw new RuntimeException("Contract between this crew member and ship already exists");
+        Snapshot.require(Snapshot.CONTRACTS);
+        synchronized (contracts) {
+            if (contracts.contains(contract)) return;
+            if (contract.getCrewMember() != this)
+                throw new RuntimeException("This contract is not for this crew member");
+            for (Contract contr : contracts) {
+                if (contr.getCrewMember() == contract.getCrewMember()) {
+                    throw new RuntimeException("Contract between this crew member and ship already exists");
+                }
             }
+            contracts.add(contract);
         }
-        contracts.add(contract);
     }
 
     /**
@@ -58,13 +63,26 @@ public abstract class CrewMember extends ObjectPlus implements Serializable {
     public void removeContract(Contract contract) {
         if (contract == null) throw new RuntimeException("Contract can not be null");
 
-        if (!contracts.contains(contract)) return;
-
-        contracts.remove(contract);
-        contract.getShip().removeContract(contract);
+        Snapshot.require(Snapshot.CONTRACTS);
+        Ship ship = contract.getShip();
+        synchronized (contracts) {
+            if (!contracts.remove(contract)) return;
+        }
+        if (ship != null) ship.removeContract(contract);
         contract.setToNulls();
     }
 
+    /**
+     * Terminates all contracts of the crew member.
+     */
+    @Override
+    protected void detach() {
+        Snapshot.require(Snapshot.CONTRACTS);
+        for (Contract contract : new ArrayList<>(contracts)) {
+            removeContract(contract);
+        }
+    }
+
     /**
      * Abstract method to be implemented by subclasses to check if the crew member can join a specific ship.
      *
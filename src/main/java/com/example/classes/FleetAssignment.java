@@ -0,0 +1,122 @@
+package com.example.classes;
+
+import java.util.*;
+
+/**
+ * An assignment of cargo to the ships of a fleet, as made by {@link FleetAssignmentPlanner}.
+ * The assignment changes nothing until it is applied.
+ */
+public class FleetAssignment {
+    private final Map<Ship, List<Cargo>> assignments;
+    private final List<Cargo> unreachable;
+    private final List<Cargo> unassigned;
+    private final int assignedCount;
+    private final long assignedMass;
+
+    /**
+     * Constructs a fleet assignment.
+     *
+     * @param assignments The cargo assigned to each ship.
+     * @param unreachable The cargo whose destination no ship of the fleet can go to.
+     * @param unassigned  All cargo that could not be assigned, including the unreachable cargo.
+     */
+    FleetAssignment(Map<Ship, List<Cargo>> assignments, List<Cargo> unreachable, List<Cargo> unassigned) {
+        this.assignments = Collections.unmodifiableMap(assignments);
+        this.unreachable = Collections.unmodifiableList(unreachable);
+        this.unassigned = Collections.unmodifiableList(unassigned);
+        int count = 0;
+        long mass = 0;
+        for (List<Cargo> cargoList : assignments.values()) {
+            count += cargoList.size();
+            for (Cargo cargo : cargoList) mass += cargo.getMass();
+        }
+        this.assignedCount = count;
+        this.assignedMass = mass;
+    }
+
+    /**
+     * Retrieves the cargo assigned to each ship. Ships without cargo are left out.
+     *
+     * @return An unmodifiable map from ship to its assigned cargo.
+     */
+    public Map<Ship, List<Cargo>> getAssignments() {
+        return assignments;
+    }
+
+    /**
+     * Retrieves the cargo whose destination no ship of the fleet can go to.
+     *
+     * @return An unmodifiable list of unreachable cargo.
+     */
+    public List<Cargo> getUnreachable() {
+        return unreachable;
+    }
+
+    /**
+     * Retrieves all cargo that could not be assigned, because it is unreachable or because
+     * no ship able to deliver it had enough capacity left.
+     *
+     * @return An unmodifiable list of unassigned cargo.
+     */
+    public List<Cargo> getUnassigned() {
+        return unassigned;
+    }
+
+    /**
+     * Retrieves the number of assigned cargo.
+     *
+     * @return The number of assigned cargo.
+     */
+    public int getAssignedCount() {
+        return assignedCount;
+    }
+
+    /**
+     * Retrieves the total mass of the assigned cargo.
+     *
+     * @return The total assigned mass.
+     */
+    public long getAssignedMass() {
+        return assignedMass;
+    }
+
+    /**
+     * Loads all assigned cargo onto their ships. All ships of the assignment are locked for the
+     * whole load and every ship is checked first, so either everything is loaded or, if some ship
+     * lost capacity or some cargo was loaded elsewhere in the meantime, nothing is.
+     *
+     * @throws RuntimeException If some cargo is assigned more than once or the assignment no
+     *                          longer fits the fleet.
+     */
+    public void apply() {
+        Set<Cargo> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<Cargo> cargoList : assignments.values()) {
+            for (Cargo cargo : cargoList) {
+                if (!seen.add(cargo)) throw new RuntimeException("Cargo is assigned more than once");
+            }
+        }
+        for (Ship ship : assignments.keySet()) Snapshot.requireCargoOf(ship);
+        Ship.withCargoLocks(assignments.keySet(), () -> {
+            for (Map.Entry<Ship, List<Cargo>> entry : assignments.entrySet()) {
+                long mass = 0;
+                for (Cargo cargo : entry.getValue()) {
+                    if (cargo.getShip() != null) throw new RuntimeException("Assigned cargo is already on a ship");
+                    mass += cargo.getMass();
+                }
+                if (mass > entry.getKey().getRemainingCapacity())
+                    throw new RuntimeException("Assigned cargo exceeds the remaining capacity of a ship");
+            }
+            List<Map.Entry<Ship, List<Cargo>>> loaded = new ArrayList<>();
+            try {
+                for (Map.Entry<Ship, List<Cargo>> entry : assignments.entrySet()) {
+                    entry.getKey().loadFreeCargo(entry.getValue());
+                    loaded.add(entry);
+                }
+            } catch (RuntimeException e) {
+                for (Map.Entry<Ship, List<Cargo>> entry : loaded) entry.getKey().unloadUnlogged(entry.getValue());
+                throw e;
+            }
+            for (Map.Entry<Ship, List<Cargo>> entry : loaded) entry.getKey().logLoaded(entry.getValue());
+        });
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.classes;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * The FleetAssignmentPlanner class assigns a pool of cargo to the ships of a fleet.
+ * <p>
+ * Each cargo may only go to a ship that can reach its destination and has enough capacity
+ * left. Ships with the same protection reach the same galaxies, so ships are grouped into
+ * protection classes and reachability is looked up once per destination and class.
+ * <p>
+ * The cargo is sorted with the hardest cargo first: cargo fewer protection classes can deliver,
+ * then heavier cargo. Cargo and ships are then dealt round-robin into shards, one per core.
+ * Each shard packs its own cargo into its own ships best-fit, choosing the ship with the least
+ * capacity left that still fits the cargo. The shards run in parallel. Cargo a shard could not
+ * place is retried against the capacity left on all ships in a final sequential pass.
+ */
+public class FleetAssignmentPlanner {
+
+    /**
+     * Assigns all cargo that is on no ship to all ships.
+     *
+     * @return The fleet assignment.
+     */
+    public static FleetAssignment plan() {
+        List<Cargo> pool = new ArrayList<>();
+        for (Cargo cargo : ObjectPlus.getExtentOf(Cargo.class)) {
+            if (cargo.getShip() == null) pool.add(cargo);
+        }
+        return plan(ObjectPlus.getExtentOf(Ship.class), pool);
+    }
+
+    /**
+     * Assigns the given cargo to the given ships, using one shard per core.
+     *
+     * @param ships The ships of the fleet.
+     * @param pool  The cargo to assign. Cargo that is already on a ship is ignored.
+     * @return The fleet assignment.
+     */
+    public static FleetAssignment plan(Collection<? extends Ship> ships, Collection<Cargo> pool) {
+        return plan(ships, pool, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Assigns the given cargo to the given ships.
+     *
+     * @param ships  The ships of the fleet.
+     * @param pool   The cargo to assign. Cargo that is already on a ship is ignored.
+     * @param shards The number of shards packed independently.
+     * @return The fleet assignment.
+     */
+    public static FleetAssignment plan(Collection<? extends Ship> ships, Collection<Cargo> pool, int shards) {
+        if (ships == null) throw new RuntimeException("Ships can not be null");
+        if (pool == null) throw new RuntimeException("Cargo pool can not be null");
+        Util.positiveIntCheck(shards);
+        return new Planning(ships, pool, shards).run();
+    }
+
+    /**
+     * The state of one planning run. Ships and protection classes are referred to by index.
+     */
+    private static class Planning {
+        private final Ship[] ships;
+        private final int[] remaining;
+        private final int[] shipClass;
+        private final List<ShipType> classTypes = new ArrayList<>();
+        private final List<Integer> classShields = new ArrayList<>();
+        private final int shards;
+
+        private final Cargo[] cargo;
+        private final int[][] cargoClasses;
+        private final List<Cargo> unreachable = new ArrayList<>();
+        private final int[] assignedShip;
+
+        /**
+         * Indexes the ships by protection class and works out which classes can deliver each cargo.
+         *
+         * @param fleet  The ships of the fleet.
+         * @param pool   The cargo to assign.
+         * @param shards The number of shards.
+         */
+        private Planning(Collection<? extends Ship> fleet, Collection<Cargo> pool, int shards) {
+            this.shards = shards;
+            ships = fleet.toArray(new Ship[0]);
+            remaining = new int[ships.length];
+            shipClass = new int[ships.length];
+            Map<Integer, Integer> classByShield = new HashMap<>();
+            for (int i = 0; i < ships.length; i++) {
+                Ship ship = ships[i];
+                remaining[i] = ship.getRemainingCapacity();
+                Integer shield = ship.getShipType() == ShipType.Shielded ? ship.getSolarFlareShieldStrength() : null;
+                shipClass[i] = classByShield.computeIfAbsent(shield == null ? -1 : shield, key -> {
+                    classTypes.add(ship.getShipType());
+                    classShields.add(shield);
+                    return classTypes.size() - 1;
+                });
+            }
+
+            int[] allClasses = IntStream.range(0, classTypes.size()).toArray();
+            Map<Galaxy, int[]> classesByDestination = new HashMap<>();
+            List<Cargo> candidates = new ArrayList<>();
+            List<int[]> candidateClasses = new ArrayList<>();
+            for (Cargo c : pool) {
+                if (c == null || c.getShip() != null) continue;
+                Galaxy destination = c.getDestination();
+                int[] classes = destination == null ? allClasses
+                        : classesByDestination.computeIfAbsent(destination, this::classesReaching);
+                if (classes.length == 0) {
+                    unreachable.add(c);
+                } else {
+                    candidates.add(c);
+                    candidateClasses.add(classes);
+                }
+            }
+
+            Integer[] order = new Integer[candidates.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.parallelSort(order, (a, b) -> {
+                int flexibility = Integer.compare(candidateClasses.get(a).length, candidateClasses.get(b).length);
+                if (flexibility != 0) return flexibility;
+                return Integer.compare(candidates.get(b).getMass(), candidates.get(a).getMass());
+            });
+            cargo = new Cargo[order.length];
+            cargoClasses = new int[order.length][];
+            for (int i = 0; i < order.length; i++) {
+                cargo[i] = candidates.get(order[i]);
+                cargoClasses[i] = candidateClasses.get(order[i]);
+            }
+            assignedShip = new int[cargo.length];
+            Arrays.fill(assignedShip, -1);
+        }
+
+        /**
+         * Finds the protection classes whose ships can go to the given galaxy.
+         *
+         * @param galaxy The destination galaxy.
+         * @return The indexes of the classes.
+         */
+        private int[] classesReaching(Galaxy galaxy) {
+            return IntStream.range(0, classTypes.size())
+                    .filter(c -> galaxy.isReachableWith(classTypes.get(c), classShields.get(c)))
+                    .toArray();
+        }
+
+        /**
+         * Packs every shard in parallel, then retries the cargo left over against all ships.
+         *
+         * @return The fleet assignment.
+         */
+        private FleetAssignment run() {
+            IntStream.range(0, shards).parallel().forEach(shard -> pack(
+                    IntStream.range(0, ships.length).filter(s -> s % shards == shard).toArray(),
+                    IntStream.range(0, cargo.length).filter(c -> c % shards == shard).toArray()));
+            if (shards > 1) {
+                pack(IntStream.range(0, ships.length).toArray(),
+                        IntStream.range(0, cargo.length).filter(c -> assignedShip[c] < 0).toArray());
+            }
+
+            Map<Ship, List<Cargo>> assignments = new LinkedHashMap<>();
+            List<Cargo> unassigned = new ArrayList<>(unreachable);
+            for (int c = 0; c < cargo.length; c++) {
+                if (assignedShip[c] < 0) unassigned.add(cargo[c]);
+                else assignments.computeIfAbsent(ships[assignedShip[c]], ship -> new ArrayList<>()).add(cargo[c]);
+            }
+            return new FleetAssignment(assignments, unreachable, unassigned);
+        }
+
+        /**
+         * Assigns the given cargo, in order, to the given ships best-fit. Each protection class
+         * keeps its ships ordered by capacity left, encoded with the ship index in one long,
+         * so the best ship of a class is a ceiling lookup.
+         *
+         * @param shardShips The indexes of the ships to pack into.
+         * @param shardCargo The indexes of the cargo to pack.
+         */
+        private void pack(int[] shardShips, int[] shardCargo) {
+            List<TreeSet<Long>> byClass = new ArrayList<>();
+            for (int c = 0; c < classTypes.size(); c++) byClass.add(new TreeSet<>());
+            for (int s : shardShips) {
+                if (remaining[s] > 0) byClass.get(shipClass[s]).add(key(remaining[s], s));
+            }
+            for (int c : shardCargo) {
+                int mass = cargo[c].getMass();
+                long best = Long.MAX_VALUE;
+                for (int shipClassIndex : cargoClasses[c]) {
+                    Long fit = byClass.get(shipClassIndex).ceiling(key(mass, 0));
+                    if (fit != null && fit < best) best = fit;
+                }
+                if (best == Long.MAX_VALUE) continue;
+                int s = (int) best;
+                TreeSet<Long> classShips = byClass.get(shipClass[s]);
+                classShips.remove(best);
+                remaining[s] -= mass;
+                if (remaining[s] > 0) classShips.add(key(remaining[s], s));
+                assignedShip[c] = s;
+            }
+        }
+
+        /**
+         * Encodes a ship's capacity left and its index so that keys order by capacity first.
+         *
+         * @param capacity The capacity left.
+         * @param ship     The index of the ship.
+         * @return The key.
+         */
+        private static long key(int capacity, int ship) {
+            return (long) capacity << 32 | ship;
+        }
+    }
+}
@@ -0,0 +1,694 @@
+package com.example.classes;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * The FleetSimulation class forecasts deliveries by simulating the operations of a fleet on the
+ * domain objects themselves, which it changes as it goes.
+ * <p>
+ * The simulation is driven by events kept in priority queues ordered by time. A ship docked in a
+ * galaxy delivers the cargo going there, loads waiting cargo it can deliver, stays a while and
+ * leaves for the nearest destination of its cargo, travelling along the shortest route of the
+ * {@link RouteNetwork} or by a direct jump of fixed length, whichever is shorter. A ship that has nothing
+ * to deliver goes to a random galaxy. A ship that arrives at a galaxy it can no longer go to is
+ * turned away and leaves for its next destination. Delivered cargo waits where it was delivered
+ * and gets a new random destination. Galaxies change between peaceful and dangerous from time
+ * to time, and contracts end and are signed again with another ship after a break.
+ * <p>
+ * Ships are dealt into shards that each keep their own events and waiting cargo, so that they do
+ * not depend on each other. Time advances in windows: at the start of each window the events of
+ * galaxies and contracts falling into it are applied and delivered cargo is given new
+ * destinations, one at a time, then the shards simulate their ships up to the end of the window
+ * in parallel. With the same seed, shard count, window and inputs in the same order, a run
+ * always gives the same result.
+ */
+public class FleetSimulation {
+    /**
+     * The most waiting cargo a ship looks at when loading.
+     */
+    private static final int LOAD_SCAN_LIMIT = 256;
+
+    /**
+     * The number of random galaxies an empty ship tries before waiting instead.
+     */
+    private static final int REPOSITION_ATTEMPTS = 8;
+
+    private static final int DEPARTURE = 0;
+    private static final int ARRIVAL = 1;
+    private static final int STATUS_CHANGE = 2;
+    private static final int CONTRACT_END = 3;
+    private static final int CONTRACT_START = 4;
+
+    private final List<Galaxy> galaxies;
+    private final List<Ship> ships;
+    private final List<Cargo> waitingCargo;
+    private final long seed;
+
+    private int shardCount = Runtime.getRuntime().availableProcessors();
+    private double windowHours = 1;
+    private double speed = 1;
+    private double jumpDistance = 24;
+    private double dockHours = 2;
+    private double idleHours = 24;
+    private double statusChangeMeanHours = 24 * 90;
+    private double warProbability = 0.2;
+    private int maxSolarFlareStrength = 100;
+    private double contractMeanHours = 24 * 180;
+    private double contractBreakMeanHours = 24 * 14;
+    private LocalDate startDate = LocalDate.of(2400, 1, 1);
+
+    private boolean started;
+    private double now;
+    private Random random;
+    private long sequence;
+    private PriorityQueue<Event> events;
+    private Shard[] shards;
+    private long globalEvents;
+    private long statusChanges;
+    private long contractsEnded;
+    private long contractsStarted;
+    private long contractsRejected;
+
+    /**
+     * Private constructor to initialize a simulation.
+     *
+     * @param galaxies     The galaxies ships may go to.
+     * @param ships        The ships of the fleet.
+     * @param waitingCargo The cargo waiting to be picked up.
+     * @param seed         The seed of all random choices.
+     */
+    private FleetSimulation(List<Galaxy> galaxies, List<Ship> ships, List<Cargo> waitingCargo, long seed) {
+        this.galaxies = galaxies;
+        this.ships = ships;
+        this.waitingCargo = waitingCargo;
+        this.seed = seed;
+    }
+
+    /**
+     * Static factory method to create a simulation of all ships over all galaxies. The galaxies
+     * are taken in the order of their ids and the ships and cargo in the order of their extents,
+     * which may differ between program runs.
+     *
+     * @param seed The seed of all random choices.
+     * @return A new simulation.
+     * @throws RuntimeException If there are no galaxies.
+     */
+    public static FleetSimulation constructor(long seed) {
+        List<Galaxy> galaxies = new ArrayList<>(ObjectPlus.getExtentOf(Galaxy.class));
+        galaxies.sort(Comparator.comparingInt(Galaxy::getId));
+        List<Cargo> cargo = new ArrayList<>();
+        for (Cargo c : ObjectPlus.getExtentOf(Cargo.class)) {
+            if (c.getShip() == null && c.getDestination() != null) cargo.add(c);
+        }
+        return constructor(galaxies, new ArrayList<>(ObjectPlus.getExtentOf(Ship.class)), cargo, seed);
+    }
+
+    /**
+     * Static factory method to create a simulation of the given ships. Waiting cargo starts in a
+     * random galaxy other than its destination. Ships in no galaxy start in a random galaxy.
+     *
+     * @param galaxies     The galaxies ships may go to and cargo may be sent to.
+     * @param ships        The ships of the fleet.
+     * @param waitingCargo The cargo waiting to be picked up. Cargo on a ship or without a destination is ignored.
+     * @param seed         The seed of all random choices.
+     * @return A new simulation.
+     * @throws RuntimeException If a list is null or contains null, or there are no galaxies.
+     */
+    public static FleetSimulation constructor(List<Galaxy> galaxies, List<Ship> ships, List<Cargo> waitingCargo, long seed) {
+        if (galaxies == null || ships == null || waitingCargo == null) throw new RuntimeException("Lists can not be null");
+        if (galaxies.isEmpty()) throw new RuntimeException("There must be at least one galaxy");
+        if (galaxies.contains(null) || ships.contains(null) || waitingCargo.contains(null)) {
+            throw new RuntimeException("Lists can not contain null");
+        }
+        return new FleetSimulation(new ArrayList<>(galaxies), new ArrayList<>(ships), new ArrayList<>(waitingCargo), seed);
+    }
+
+    /**
+     * Sets the number of shards the ships are dealt into. One shard simulates everything on the calling thread.
+     *
+     * @param shardCount The number of shards.
+     * @throws RuntimeException If shardCount is not positive or the simulation has started.
+     */
+    public void setShardCount(int shardCount) {
+        notStartedCheck();
+        Util.positiveIntCheck(shardCount);
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Sets the length of the time windows. Events of galaxies and contracts take effect at the start of their window.
+     *
+     * @param windowHours The window length, in hours.
+     * @throws RuntimeException If windowHours is not positive or the simulation has started.
+     */
+    public void setWindowHours(double windowHours) {
+        notStartedCheck();
+        positiveCheck(windowHours);
+        this.windowHours = windowHours;
+    }
+
+    /**
+     * Sets the distance ships travel per hour.
+     *
+     * @param speed The speed.
+     * @throws RuntimeException If speed is not positive or the simulation has started.
+     */
+    public void setSpeed(double speed) {
+        notStartedCheck();
+        positiveCheck(speed);
+        this.speed = speed;
+    }
+
+    /**
+     * Sets the length of a direct jump between galaxies, taken where no route between them is shorter.
+     *
+     * @param jumpDistance The jump distance.
+     * @throws RuntimeException If jumpDistance is not positive or the simulation has started.
+     */
+    public void setJumpDistance(double jumpDistance) {
+        notStartedCheck();
+        positiveCheck(jumpDistance);
+        this.jumpDistance = jumpDistance;
+    }
+
+    /**
+     * Sets how long a ship stays docked after arriving, and how long a ship with nowhere to go waits.
+     *
+     * @param dockHours The time docked, in hours.
+     * @param idleHours The time waited, in hours.
+     * @throws RuntimeException If a time is not positive or the simulation has started.
+     */
+    public void setStayHours(double dockHours, double idleHours) {
+        notStartedCheck();
+        positiveCheck(dockHours);
+        positiveCheck(idleHours);
+        this.dockHours = dockHours;
+        this.idleHours = idleHours;
+    }
+
+    /**
+     * Sets how often galaxies change between peaceful and dangerous and what dangerous galaxies are like.
+     *
+     * @param meanHours             The mean time between two changes of one galaxy, in hours.
+     * @param warProbability        The probability that a galaxy becoming dangerous is at war.
+     * @param maxSolarFlareStrength The strongest solar flares of a galaxy becoming dangerous.
+     * @throws RuntimeException If a value is out of range or the simulation has started.
+     */
+    public void setStatusChanges(double meanHours, double warProbability, int maxSolarFlareStrength) {
+        notStartedCheck();
+        positiveCheck(meanHours);
+        if (!(warProbability >= 0 && warProbability <= 1)) throw new RuntimeException("Probability must be between 0 and 1");
+        Util.nonNegativeIntCheck(maxSolarFlareStrength);
+        this.statusChangeMeanHours = meanHours;
+        this.warProbability = warProbability;
+        this.maxSolarFlareStrength = maxSolarFlareStrength;
+    }
+
+    /**
+     * Sets how long contracts last and how long crew members wait before signing a new one.
+     *
+     * @param meanHours      The mean length of a contract, in hours.
+     * @param breakMeanHours The mean break between two contracts, in hours.
+     * @throws RuntimeException If a time is not positive or the simulation has started.
+     */
+    public void setContractHours(double meanHours, double breakMeanHours) {
+        notStartedCheck();
+        positiveCheck(meanHours);
+        positiveCheck(breakMeanHours);
+        this.contractMeanHours = meanHours;
+        this.contractBreakMeanHours = breakMeanHours;
+    }
+
+    /**
+     * Sets the date the simulation starts at, used as the peaceful since date of galaxies becoming peaceful.
+     *
+     * @param startDate The start date.
+     * @throws RuntimeException If startDate is null or the simulation has started.
+     */
+    public void setStartDate(LocalDate startDate) {
+        notStartedCheck();
+        if (startDate == null) throw new RuntimeException("Start date can not be null");
+        this.startDate = startDate;
+    }
+
+    /**
+     * Retrieves the simulated time passed so far.
+     *
+     * @return The simulated time, in hours.
+     */
+    public double getTime() {
+        return now;
+    }
+
+    /**
+     * Simulates the given time, continuing from where the previous run ended.
+     *
+     * @param hours The time to simulate, in hours.
+     * @return The report of this run.
+     * @throws RuntimeException If hours is negative.
+     */
+    public SimulationReport run(double hours) {
+        if (!(hours >= 0)) throw new RuntimeException("Time can not be negative");
+        if (!started) start();
+        long startNanos = System.nanoTime();
+        globalEvents = statusChanges = contractsEnded = contractsStarted = contractsRejected = 0;
+        for (Shard shard : shards) shard.resetCounters();
+
+        double end = now + hours;
+        while (now < end) {
+            double windowEnd = Math.min(now + windowHours, end);
+            reconsignDeliveredCargo();
+            while (!events.isEmpty() && events.peek().time < windowEnd) {
+                handle(events.poll());
+            }
+            if (shards.length == 1) {
+                shards[0].run(windowEnd);
+            } else {
+                IntStream.range(0, shards.length).parallel().forEach(k -> shards[k].run(windowEnd));
+            }
+            now = windowEnd;
+        }
+        reconsignDeliveredCargo();
+
+        long shipEvents = 0, arrivals = 0, turnedAway = 0, deliveries = 0, deliveredMass = 0, repositionings = 0;
+        for (Shard shard : shards) {
+            shipEvents += shard.events;
+            arrivals += shard.arrivals;
+            turnedAway += shard.turnedAway;
+            deliveries += shard.deliveries;
+            deliveredMass += shard.deliveredMass;
+            repositionings += shard.repositionings;
+        }
+        return new SimulationReport(hours, System.nanoTime() - startNanos, shards.length, shipEvents + globalEvents,
+                arrivals, turnedAway, deliveries, deliveredMass, repositionings,
+                statusChanges, contractsEnded, contractsStarted, contractsRejected);
+    }
+
+    /**
+     * Deals the ships and waiting cargo into shards and schedules the first events.
+     */
+    private void start() {
+        started = true;
+        random = new Random(seed);
+        events = new PriorityQueue<>();
+        shards = new Shard[shardCount];
+        for (int k = 0; k < shardCount; k++) shards[k] = new Shard();
+
+        for (int i = 0; i < ships.size(); i++) {
+            Shard shard = shards[i % shardCount];
+            Ship ship = ships.get(i);
+            Random shipRandom = new Random(seed ^ (i + 1) * 0x9E3779B97F4A7C15L);
+            int local = shard.add(ship, shipRandom);
+            if (ship.getGalaxy() == null) {
+                Galaxy galaxy = shard.randomGalaxy(local, null);
+                if (galaxy != null) ship.setGalaxy(galaxy);
+            }
+            shard.positions.set(local, ship.getGalaxy());
+            shard.schedule(shipRandom.nextDouble() * dockHours, DEPARTURE, local, null);
+        }
+
+        for (int j = 0; j < waitingCargo.size(); j++) {
+            Cargo cargo = waitingCargo.get(j);
+            if (cargo.getShip() != null || cargo.getDestination() == null) continue;
+            Galaxy origin = galaxies.get(random.nextInt(galaxies.size()));
+            if (origin == cargo.getDestination() && galaxies.size() > 1) {
+                origin = galaxies.get((galaxies.indexOf(origin) + 1) % galaxies.size());
+            }
+            shards[j % shardCount].pool(origin).add(cargo);
+        }
+
+        for (int g = 0; g < galaxies.size(); g++) {
+            schedule(exponential(random, statusChangeMeanHours), STATUS_CHANGE, g, null);
+        }
+        for (Ship ship : ships) {
+            List<Contract> contracts = new ArrayList<>(ship.getContracts());
+            contracts.sort(Comparator.comparing(Contract::getRole)
+                    .thenComparing(Contract::getSalary, Comparator.nullsFirst(Comparator.naturalOrder())));
+            for (Contract contract : contracts) {
+                schedule(exponential(random, contractMeanHours), CONTRACT_END, 0, contract);
+            }
+        }
+    }
+
+    /**
+     * Applies an event of a galaxy or a contract.
+     *
+     * @param event The event.
+     */
+    private void handle(Event event) {
+        globalEvents++;
+        switch (event.kind) {
+            case STATUS_CHANGE -> {
+                Galaxy galaxy = galaxies.get(event.index);
+                if (galaxy.getGalaxyType() == GalaxyType.Peaceful) {
+                    galaxy.changeToDangerous(random.nextDouble() < warProbability, random.nextInt(maxSolarFlareStrength + 1));
+                } else {
+                    galaxy.changeToPeaceful(startDate.plusDays((long) (event.time / 24)));
+                }
+                statusChanges++;
+                schedule(event.time + exponential(random, statusChangeMeanHours), STATUS_CHANGE, event.index, null);
+            }
+            case CONTRACT_END -> {
+                Contract contract = (Contract) event.subject;
+                Ship ship = contract.getShip();
+                if (ship == null) return;
+                Object[] terms = {contract.getRole(), contract.getSalary(), contract.getCrewMember()};
+                ship.removeContract(contract);
+                contractsEnded++;
+                schedule(event.time + exponential(random, contractBreakMeanHours), CONTRACT_START, 0, terms);
+            }
+            case CONTRACT_START -> {
+                if (ships.isEmpty()) return;
+                Object[] terms = (Object[]) event.subject;
+                Ship ship = ships.get(random.nextInt(ships.size()));
+                try {
+                    Contract contract = Contract.constructor((String) terms[0], (Double) terms[1], ship, (CrewMember) terms[2]);
+                    contractsStarted++;
+                    schedule(event.time + exponential(random, contractMeanHours), CONTRACT_END, 0, contract);
+                } catch (RuntimeException e) {
+                    contractsRejected++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives the cargo delivered in the last window a new random destination. The cargo waits
+     * where it was delivered.
+     */
+    private void reconsignDeliveredCargo() {
+        for (Shard shard : shards) {
+            for (int i = 0; i < shard.delivered.size(); i++) {
+                Cargo cargo = shard.delivered.get(i);
+                Galaxy galaxy = shard.deliveredAt.get(i);
+                if (galaxies.size() < 2 || cargo.getShip() != null) continue;
+                int index = random.nextInt(galaxies.size() - 1);
+                Galaxy destination = galaxies.get(index);
+                if (destination == galaxy) destination = galaxies.get(galaxies.size() - 1);
+                cargo.setDestination(destination);
+                shard.pool(galaxy).add(cargo);
+            }
+            shard.delivered.clear();
+            shard.deliveredAt.clear();
+        }
+    }
+
+    /**
+     * Schedules an event of a galaxy or a contract.
+     *
+     * @param time    The time of the event.
+     * @param kind    The kind of the event.
+     * @param index   The index of the galaxy the event is about.
+     * @param subject The contract or the terms of the contract the event is about.
+     */
+    private void schedule(double time, int kind, int index, Object subject) {
+        events.add(new Event(time, sequence++, kind, index, subject));
+    }
+
+    /**
+     * Draws an exponentially distributed time.
+     *
+     * @param random The source of randomness.
+     * @param mean   The mean time.
+     * @return The time.
+     */
+    private static double exponential(Random random, double mean) {
+        return -mean * Math.log(1 - random.nextDouble());
+    }
+
+    /**
+     * Checks that the simulation has not started yet.
+     *
+     * @throws RuntimeException If it has.
+     */
+    private void notStartedCheck() {
+        if (started) throw new RuntimeException("Simulation already started");
+    }
+
+    /**
+     * Checks that a number is positive and finite.
+     *
+     * @param d The number to check.
+     * @throws RuntimeException If it is not.
+     */
+    private static void positiveCheck(double d) {
+        if (!(d > 0) || Double.isInfinite(d)) throw new RuntimeException("Value must be positive");
+    }
+
+    /**
+     * A scheduled event. Events are ordered by time and, at the same time, by the order they were scheduled in.
+     */
+    private static class Event implements Comparable<Event> {
+        private final double time;
+        private final long sequence;
+        private final int kind;
+        private final int index;
+        private final Object subject;
+
+        /**
+         * @param time     The time of the event.
+         * @param sequence The number of events scheduled before it in the same queue.
+         * @param kind     The kind of the event.
+         * @param index    The index of the ship or galaxy the event is about.
+         * @param subject  The galaxy, contract or contract terms the event is about, or null.
+         */
+        private Event(double time, long sequence, int kind, int index, Object subject) {
+            this.time = time;
+            this.sequence = sequence;
+            this.kind = kind;
+            this.index = index;
+            this.subject = subject;
+        }
+
+        /**
+         * Compares two events by time, then by the order they were scheduled in.
+         *
+         * @param other The other event.
+         * @return A negative number, zero or a positive number as this event comes first, together or later.
+         */
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Double.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * A group of ships simulated together, with their events and the cargo waiting for them.
+     * Ships are referred to by their index within the shard.
+     */
+    private class Shard {
+        private final List<Ship> shardShips = new ArrayList<>();
+        private final List<Random> randoms = new ArrayList<>();
+        private final List<Galaxy> positions = new ArrayList<>();
+        private final PriorityQueue<Event> shardEvents = new PriorityQueue<>();
+        private final Map<Galaxy, ArrayDeque<Cargo>> pools = new HashMap<>();
+        private final List<Cargo> delivered = new ArrayList<>();
+        private final List<Galaxy> deliveredAt = new ArrayList<>();
+        private long shardSequence;
+
+        private long events;
+        private long arrivals;
+        private long turnedAway;
+        private long deliveries;
+        private long deliveredMass;
+        private long repositionings;
+
+        /**
+         * Adds a ship to the shard.
+         *
+         * @param ship       The ship.
+         * @param shipRandom The source of randomness of the ship.
+         * @return The index of the ship within the shard.
+         */
+        private int add(Ship ship, Random shipRandom) {
+            shardShips.add(ship);
+            randoms.add(shipRandom);
+            positions.add(null);
+            return shardShips.size() - 1;
+        }
+
+        /**
+         * Retrieves the cargo of the shard waiting in a galaxy.
+         *
+         * @param galaxy The galaxy.
+         * @return The waiting cargo, in the order it arrived.
+         */
+        private ArrayDeque<Cargo> pool(Galaxy galaxy) {
+            return pools.computeIfAbsent(galaxy, key -> new ArrayDeque<>());
+        }
+
+        /**
+         * Sets all counters back to zero.
+         */
+        private void resetCounters() {
+            events = arrivals = turnedAway = deliveries = deliveredMass = repositionings = 0;
+        }
+
+        /**
+         * Processes the events of the shard up to the given time.
+         *
+         * @param end The end of the window.
+         */
+        private void run(double end) {
+            while (!shardEvents.isEmpty() && shardEvents.peek().time < end) {
+                Event event = shardEvents.poll();
+                events++;
+                if (event.kind == ARRIVAL) arrive(event.index, (Galaxy) event.subject, event.time);
+                else depart(event.index, event.time);
+            }
+        }
+
+        /**
+         * Docks a ship in the galaxy it arrived at, delivers and loads cargo and schedules its
+         * departure, or turns it away if it can not go there.
+         *
+         * @param local  The index of the ship.
+         * @param galaxy The galaxy arrived at.
+         * @param time   The time of arrival.
+         */
+        private void arrive(int local, Galaxy galaxy, double time) {
+            Ship ship = shardShips.get(local);
+            positions.set(local, galaxy);
+            if (!ship.canGoToGalaxy(galaxy)) {
+                turnedAway++;
+                depart(local, time);
+                return;
+            }
+            arrivals++;
+            ship.setGalaxy(galaxy);
+
+            List<Cargo> arriving = new ArrayList<>(ship.getCargoGoingTo(galaxy));
+            ship.unloadCargoGoingTo(galaxy);
+            for (Cargo cargo : arriving) {
+                delivered.add(cargo);
+                deliveredAt.add(galaxy);
+                deliveredMass += cargo.getMass();
+            }
+            deliveries += arriving.size();
+
+            ArrayDeque<Cargo> pool = pools.get(galaxy);
+            if (pool != null && !pool.isEmpty()) {
+                List<Cargo> load = new ArrayList<>();
+                List<Cargo> left = new ArrayList<>();
+                int remaining = ship.getRemainingCapacity();
+                for (int scanned = 0; scanned < LOAD_SCAN_LIMIT && !pool.isEmpty(); scanned++) {
+                    Cargo cargo = pool.poll();
+                    if (cargo.getMass() <= remaining && ship.canGoToGalaxy(cargo.getDestination())) {
+                        load.add(cargo);
+                        remaining -= cargo.getMass();
+                    } else {
+                        left.add(cargo);
+                    }
+                }
+                for (int i = left.size() - 1; i >= 0; i--) pool.addFirst(left.get(i));
+                ship.addAllCargo(load);
+            }
+            schedule(time + dockHours, DEPARTURE, local, null);
+        }
+
+        /**
+         * Sends a ship to the nearest destination of its cargo, or to a random galaxy if it has
+         * nothing to deliver. Cargo the ship can no longer deliver is left waiting in the galaxy
+         * it is docked in. A ship that finds nowhere to go waits.
+         *
+         * @param local The index of the ship.
+         * @param time  The time of departure.
+         */
+        private void depart(int local, double time) {
+            Ship ship = shardShips.get(local);
+            Galaxy from = positions.get(local);
+            List<Galaxy> destinations = new ArrayList<>();
+            for (Galaxy destination : ship.getGalaxyToCargo().keySet()) {
+                if (destination != null && destination != from && ship.canGoToGalaxy(destination)) destinations.add(destination);
+            }
+            Galaxy next;
+            double nextDistance;
+            if (!destinations.isEmpty()) {
+                Route route = nearestRoute(ship, from, destinations);
+                if (route != null) {
+                    next = route.getEnd();
+                    nextDistance = route.getDistance();
+                } else {
+                    next = Collections.min(destinations, Comparator.comparingInt(Galaxy::getId));
+                    nextDistance = jumpDistance;
+                }
+            } else {
+                if (ship.getGalaxy() == from && from != null) leaveUndeliverableCargo(ship, from);
+                next = randomGalaxy(local, from);
+                if (next == null) {
+                    schedule(time + idleHours, DEPARTURE, local, null);
+                    return;
+                }
+                repositionings++;
+                Route route = nearestRoute(ship, from, List.of(next));
+                nextDistance = route != null ? route.getDistance() : jumpDistance;
+            }
+            ship.setGalaxy(null);
+            schedule(time + nextDistance / speed, ARRIVAL, local, next);
+        }
+
+        /**
+         * Unloads the cargo a ship can not deliver into the waiting cargo of the galaxy it is docked in.
+         *
+         * @param ship   The ship.
+         * @param galaxy The galaxy the ship is docked in.
+         */
+        private void leaveUndeliverableCargo(Ship ship, Galaxy galaxy) {
+            List<Cargo> undeliverable = new ArrayList<>();
+            for (Map.Entry<Galaxy, Set<Cargo>> entry : ship.getGalaxyToCargo().entrySet()) {
+                if (entry.getKey() != null && !ship.canGoToGalaxy(entry.getKey())) undeliverable.addAll(entry.getValue());
+            }
+            if (undeliverable.isEmpty()) return;
+            ship.removeAllCargo(undeliverable);
+            pool(galaxy).addAll(undeliverable);
+        }
+
+        /**
+         * Draws a random galaxy other than the given one that the ship can go to.
+         *
+         * @param local   The index of the ship.
+         * @param exclude The galaxy not to draw, or null.
+         * @return The galaxy, or null if none was found in a few attempts.
+         */
+        private Galaxy randomGalaxy(int local, Galaxy exclude) {
+            Ship ship = shardShips.get(local);
+            Random shipRandom = randoms.get(local);
+            for (int attempt = 0; attempt < REPOSITION_ATTEMPTS; attempt++) {
+                Galaxy galaxy = galaxies.get(shipRandom.nextInt(galaxies.size()));
+                if (galaxy != exclude && ship.canGoToGalaxy(galaxy)) return galaxy;
+            }
+            return null;
+        }
+
+        /**
+         * Finds the shortest route from a galaxy to the nearest of the given galaxies that is
+         * shorter than a direct jump.
+         *
+         * @param ship    The ship.
+         * @param from    The galaxy, or null.
+         * @param targets The galaxies to choose from.
+         * @return The route, or null if a jump is no longer than any route.
+         */
+        private Route nearestRoute(Ship ship, Galaxy from, List<Galaxy> targets) {
+            if (from == null || from.getRoutes().isEmpty()) return null;
+            Integer shield = ship.getShipType() == ShipType.Shielded ? ship.getSolarFlareShieldStrength() : null;
+            Route route = RouteNetwork.nearestRoute(ship.getShipType(), shield, from, targets, jumpDistance);
+            return route != null && route.getDistance() < jumpDistance ? route : null;
+        }
+
+        /**
+         * Schedules an event of a ship of the shard.
+         *
+         * @param time    The time of the event.
+         * @param kind    The kind of the event.
+         * @param local   The index of the ship.
+         * @param subject The galaxy the ship goes to, or null.
+         */
+        private void schedule(double time, int kind, int local, Object subject) {
+            shardEvents.add(new Event(time, shardSequence++, kind, local, subject));
+        }
+    }
+}
@@ -3,24 +3,112 @@ package com.example.classes;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
 
 /**
  * Represents a galaxy.
  * Extends ObjectPlus and implements Serializable.
  */
 public class Galaxy extends ObjectPlus implements Serializable {
+    /**
+     * An index of all galaxies by their galaxy code.
+     */
+    private static volatile Map<String, Galaxy> galaxiesByCode = new ConcurrentHashMap<>();
+
+    /**
+     * Index of galaxies by their id.
+     */
+    private static volatile Map<Integer, Galaxy> galaxiesById = new ConcurrentHashMap<>();
+
+    /**
+     * Dangerous galaxies that are not at war, grouped by solar flare strength. A shielded ship
+     * can go to exactly the galaxies in the groups up to its shield strength.
+     */
+    private static volatile NavigableMap<Integer, Set<Galaxy>> calmDangerousByFlare = new ConcurrentSkipListMap<>();
+
+    /**
+     * Peaceful galaxies, which every ship can go to.
+     */
+    private static volatile Set<Galaxy> peacefulGalaxies = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Guards changes to the status indexes and the reachability masks. Readers do not take it.
+     */
+    private static final Object statusIndexLock = new Object();
+
+    /**
+     * The id the next galaxy gets.
+     */
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * Increased whenever a galaxy appears, disappears or changes its type, at war status or
+     * solar flare strength.
+     */
+    private static final AtomicLong statusVersion = new AtomicLong();
+
+    /**
+     * Reachability masks by the strongest solar flare group the ships they are for withstand,
+     * -1 standing for ships that can only go to peaceful galaxies. There is at most one mask per
+     * solar flare group. A mask is never modified once published: a status change replaces the
+     * masks whose bit for the galaxy flips.
+     */
+    private static final Map<Integer, BitSet> reachabilityMasks = new ConcurrentHashMap<>();
+
+    /**
+     * Increased whenever a route between two galaxies is added, removed or changes its distance,
+     * which makes all cached shortest routes out of date.
+     */
+    private static final AtomicLong routeVersion = new AtomicLong();
+
+    /**
+     * Guards adding and removing routes, so that both ends of a route change together.
+     */
+    private static final Object routeLock = new Object();
+
+    private int id;
+
     private String name;
     private String galaxyCode;
-    private Boolean atWar;
-    private Integer solarFlareStrength;
-    private LocalDate peacefulSince;
-    private GalaxyType galaxyType;
 
-    private Set<Ship> ships;
-    private Set<Cargo> cargoSet;
+    /**
+     * The type of the galaxy with the attributes of that type. A status change replaces the whole
+     * object, so readers that do not lock never see one type with the attributes of another.
+     */
+    private volatile Status status;
+
+    private final Set<Ship> ships = ConcurrentHashMap.newKeySet();
 
     /**
-     * Private constructor to initialize a Galaxy object.
+     * The cargo heading to the galaxy with the number of its arrival. Readers do not lock.
+     */
+    private final Map<Cargo, Long> cargoArrivals = new ConcurrentHashMap<>();
+
+    /**
+     * Guards changes to the cargo heading to the galaxy, its mass groups and the arrival count.
+     */
+    private final Object cargoLock = new Object();
+    private long arrivalCount;
+
+    /**
+     * The cargo heading to the galaxy grouped by mass, kept up to date on every cargo change.
+     * Cargo of equal mass is kept in the order it arrived, keyed by the number of its arrival.
+     */
+    private final NavigableMap<Integer, NavigableMap<Long, Cargo>> cargoByMass = new ConcurrentSkipListMap<>();
+
+    /**
+     * The galaxies directly connected to this one by a route, with the distance of the route.
+     * Routes go both ways and are stored in both galaxies.
+     */
+    private final Map<Galaxy, Double> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to initialize a Galaxy object. The galaxy is complete before it is
+     * added to the code, status and id indexes, so concurrent lookups never see it half built.
      *
      * @param name               The name of the galaxy.
      * @param galaxyCode         The unique code identifying the galaxy.
@@ -30,18 +118,26 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @param galaxyType         The type of the galaxy (Peaceful or Dangerous).
      */
     private Galaxy(String name, String galaxyCode, Boolean atWar, Integer solarFlareStrength, LocalDate peacefulSince, GalaxyType galaxyType) {
-        galaxyCodeUniquenessCheck(galaxyCode);
-        setName(name);
-        setGalaxyCode(galaxyCode);
-
-        if (galaxyType == GalaxyType.Peaceful) {
-            changeToPeaceful(peacefulSince);
-        }
-        if (galaxyType == GalaxyType.Dangerous) {
-            changeToDangerous(atWar, solarFlareStrength);
+        id = nextId.getAndIncrement();
+        try {
+            setName(name);
+            status = galaxyType == GalaxyType.Peaceful
+                    ? new Status(peacefulSince)
+                    : new Status(atWar, solarFlareStrength);
+            Util.validString(galaxyCode);
+            this.galaxyCode = galaxyCode;
+            if (galaxiesByCode.putIfAbsent(galaxyCode, this) != null) {
+                this.galaxyCode = null;
+                throw new RuntimeException("Galaxy code is already in use");
+            }
+        } catch (RuntimeException e) {
+            if (this.galaxyCode != null) galaxiesByCode.remove(this.galaxyCode, this);
+            removeFromExtent();
+            throw e;
         }
-        ships = new HashSet<>();
-        cargoSet = new HashSet<>();
+        addToStatusIndex();
+        galaxiesById.put(id, this);
+        statusVersion.incrementAndGet();
     }
 
     /**
@@ -57,7 +153,11 @@ public class Galaxy extends ObjectPlus implements Serializable {
         Util.validString(name);
         galaxyCodeUniquenessCheck(galaxyCode);
         if (peacefulSince == null) throw new RuntimeException("Peaceful since can't be null");
-        return new Galaxy(name, galaxyCode, null, null, peacefulSince, GalaxyType.Peaceful);
+        return Journal.mutate(() -> {
+            Galaxy created = new Galaxy(name, galaxyCode, null, null, peacefulSince, GalaxyType.Peaceful);
+            Journal.logCreated(Journal.GALAXY_CREATED, created, name, galaxyCode, peacefulSince, null, null);
+            return created;
+        });
     }
 
     /**
@@ -76,7 +176,11 @@ public class Galaxy extends ObjectPlus implements Serializable {
         if (atWar == null) throw new RuntimeException("At war can't be null");
         if (solarFlareStrength == null) throw new RuntimeException("Solar flare strength can't be null");
         Util.nonNegativeIntCheck(solarFlareStrength);
-        return new Galaxy(name, galaxyCode, atWar, solarFlareStrength, null, GalaxyType.Dangerous);
+        return Journal.mutate(() -> {
+            Galaxy created = new Galaxy(name, galaxyCode, atWar, solarFlareStrength, null, GalaxyType.Dangerous);
+            Journal.logCreated(Journal.GALAXY_CREATED, created, name, galaxyCode, null, atWar, solarFlareStrength);
+            return created;
+        });
     }
 
     /**
@@ -87,13 +191,19 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @throws RuntimeException If the galaxy is already of Dangerous type.
      */
     public void changeToDangerous(boolean atWar, int solarFlareStrength) {
-        if (galaxyType == GalaxyType.Dangerous) {
-            throw new RuntimeException("Galaxy is already of dangerous type");
-        }
-        galaxyType = GalaxyType.Dangerous;
-        this.atWar = atWar;
-        peacefulSince = null;
-        setSolarFlareStrength(solarFlareStrength);
+        Util.nonNegativeIntCheck(solarFlareStrength);
+        Journal.mutate(() -> {
+            synchronized (this) {
+                if (status.galaxyType == GalaxyType.Dangerous) {
+                    throw new RuntimeException("Galaxy is already of dangerous type");
+                }
+                removeFromStatusIndex();
+                status = new Status(atWar, solarFlareStrength);
+                addToStatusIndex();
+                statusVersion.incrementAndGet();
+                Journal.log(Journal.GALAXY_DANGEROUS, this, atWar, solarFlareStrength);
+            }
+        });
     }
 
     /**
@@ -103,15 +213,100 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @throws RuntimeException If the galaxy is already of Peaceful type.
      */
     public void changeToPeaceful(LocalDate peacefulSince) {
-        if (galaxyType == GalaxyType.Peaceful) {
-            throw new RuntimeException("Galaxy is already of peaceful type");
+        if (peacefulSince == null) throw new RuntimeException("Peaceful since can't be null");
+        Journal.mutate(() -> {
+            synchronized (this) {
+                if (status.galaxyType == GalaxyType.Peaceful) {
+                    throw new RuntimeException("Galaxy is already of peaceful type");
+                }
+                removeFromStatusIndex();
+                status = new Status(peacefulSince);
+                addToStatusIndex();
+                statusVersion.incrementAndGet();
+                Journal.log(Journal.GALAXY_PEACEFUL, this, peacefulSince);
+            }
+        });
+    }
+
+
+    /**
+     * Retrieves the id of the galaxy. Ids are small numbers given out in order of creation
+     * and are used as bit positions in reachability masks.
+     *
+     * @return The id of the galaxy.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Adds the galaxy to the index matching its current status.
+     */
+    private void addToStatusIndex() {
+        Status status = this.status;
+        synchronized (statusIndexLock) {
+            if (status.galaxyType == GalaxyType.Peaceful) {
+                peacefulGalaxies.add(this);
+            } else if (!status.atWar) {
+                calmDangerousByFlare.computeIfAbsent(status.solarFlareStrength, flare -> ConcurrentHashMap.newKeySet()).add(this);
+            } else {
+                return;
+            }
+            int weakest = status.galaxyType == GalaxyType.Peaceful ? -1 : status.solarFlareStrength;
+            reachabilityMasks.replaceAll((key, mask) -> key >= weakest ? withBit(mask, id, true) : mask);
         }
-        galaxyType = GalaxyType.Peaceful;
-        setPeacefulSince(peacefulSince);
-        atWar = null;
-        solarFlareStrength = null;
     }
 
+    /**
+     * Removes the galaxy from the index matching its current status,
+     * dropping its solar flare group if it becomes empty.
+     */
+    private void removeFromStatusIndex() {
+        Status status = this.status;
+        synchronized (statusIndexLock) {
+            if (status.galaxyType == GalaxyType.Peaceful) {
+                if (!peacefulGalaxies.remove(this)) return;
+            } else if (!status.atWar) {
+                Set<Galaxy> group = calmDangerousByFlare.get(status.solarFlareStrength);
+                if (group == null || !group.remove(this)) return;
+                if (group.isEmpty()) {
+                    calmDangerousByFlare.remove(status.solarFlareStrength);
+                    reachabilityMasks.remove(status.solarFlareStrength);
+                }
+            } else {
+                return;
+            }
+            reachabilityMasks.replaceAll((key, mask) -> withBit(mask, id, false));
+        }
+    }
+
+    /**
+     * Returns a mask with one bit changed, the mask itself if the bit already has the value.
+     *
+     * @param mask  The mask, which is not modified.
+     * @param bit   The bit to change.
+     * @param value The new value of the bit.
+     * @return The mask with the bit set to value.
+     */
+    private static BitSet withBit(BitSet mask, int bit, boolean value) {
+        if (mask.get(bit) == value) return mask;
+        BitSet changed = (BitSet) mask.clone();
+        changed.set(bit, value);
+        return changed;
+    }
+
+    /**
+     * Checks whether a ship with the given protection can go to this galaxy.
+     *
+     * @param shipType                 The type of the ship.
+     * @param solarFlareShieldStrength The solar flare shield strength of the ship, null for ships without protection.
+     * @return True if the ship can go to this galaxy.
+     */
+    boolean isReachableWith(ShipType shipType, Integer solarFlareShieldStrength) {
+        Status status = this.status;
+        if (status.galaxyType == GalaxyType.Peaceful) return true;
+        return shipType == ShipType.Shielded && !status.atWar && status.solarFlareStrength <= solarFlareShieldStrength;
+    }
 
     /**
      * Retrieves the name of the galaxy.
@@ -130,7 +325,12 @@ public class Galaxy extends ObjectPlus implements Serializable {
      */
     public void setName(String name) {
         Util.validString(name);
-        this.name = name;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.name = name;
+                Journal.log(Journal.GALAXY_NAME, this, name);
+            }
+        });
     }
 
     /**
@@ -149,10 +349,19 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @throws RuntimeException If galaxyCode is null, empty, or already in use.
      */
     public void setGalaxyCode(String galaxyCode) {
-        if (galaxyCode.equals(this.galaxyCode)) return;
-        galaxyCodeUniquenessCheck(galaxyCode);
         Util.validString(galaxyCode);
-        this.galaxyCode = galaxyCode;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                if (galaxyCode.equals(this.galaxyCode)) return;
+                galaxyCodeUniquenessCheck(galaxyCode);
+                if (galaxiesByCode.putIfAbsent(galaxyCode, this) != null) {
+                    throw new RuntimeException("Galaxy code is already in use");
+                }
+                if (this.galaxyCode != null) galaxiesByCode.remove(this.galaxyCode, this);
+                this.galaxyCode = galaxyCode;
+                Journal.log(Journal.GALAXY_CODE, this, galaxyCode);
+            }
+        });
     }
 
     /**
@@ -162,20 +371,10 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @throws RuntimeException If called on a Peaceful type galaxy.
      */
     public Boolean getAtWar() {
-        if (galaxyType == GalaxyType.Peaceful)
+        Status status = this.status;
+        if (status.galaxyType == GalaxyType.Peaceful)
             throw new RuntimeException("Peaceful galaxy doesn't have at war attribute");
-        return atWar;
-    }
-
-    /**
-     * Sets the at war status of the galaxy (only for Dangerous type).
-     *
-     * @param atWar The at war status to set.
-     * @throws RuntimeException If atWar is null.
-     */
-    private void setAtWar(Boolean atWar) {
-        if (atWar == null) throw new RuntimeException("At war can't be set to null");
-        this.atWar = atWar;
+        return status.atWar;
     }
 
     /**
@@ -185,21 +384,10 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @throws RuntimeException If called on a Peaceful type galaxy.
      */
     public Integer getSolarFlareStrength() {
-        if (galaxyType == GalaxyType.Peaceful)
+        Status status = this.status;
+        if (status.galaxyType == GalaxyType.Peaceful)
             throw new RuntimeException("Peaceful galaxy doesn't have solar flare strength attribute");
-        return solarFlareStrength;
-    }
-
-    /**
-     * Sets the solar flare strength of the galaxy (only for Dangerous type).
-     *
-     * @param solarFlareStrength The solar flare strength to set.
-     * @throws RuntimeException If solarFlareStrength is null or negative.
-     */
-    private void setSolarFlareStrength(Integer solarFlareStrength) {
-        if (atWar == null) throw new RuntimeException("Solar flare strength can't be set to null");
-        Util.nonNegativeIntCheck(solarFlareStrength);
-        this.solarFlareStrength = solarFlareStrength;
+        return status.solarFlareStrength;
     }
 
     /**
@@ -209,20 +397,10 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @throws RuntimeException If called on a Dangerous type galaxy.
      */
     public LocalDate getPeacefulSince() {
-        if (galaxyType == GalaxyType.Dangerous)
+        Status status = this.status;
+        if (status.galaxyType == GalaxyType.Dangerous)
             throw new RuntimeException("Dangerous galaxy doesn't have peaceful since attribute");
-        return peacefulSince;
-    }
-
-    /**
-     * Sets the date since the galaxy has been peaceful (only for Peaceful type).
-     *
-     * @param peacefulSince The date to set.
-     * @throws RuntimeException If peacefulSince is null.
-     */
-    private void setPeacefulSince(LocalDate peacefulSince) {
-        if (peacefulSince == null) throw new RuntimeException("Solar flare strength can't be set to null");
-        this.peacefulSince = peacefulSince;
+        return status.peacefulSince;
     }
 
     /**
@@ -231,7 +409,7 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @return The galaxy type.
      */
     public GalaxyType getGalaxyType() {
-        return galaxyType;
+        return status.galaxyType;
     }
 
     /**
@@ -240,6 +418,7 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @return The set of ships.
      */
     public Set<Ship> getShips() {
+        Snapshot.require(Snapshot.SHIPS);
         return Collections.unmodifiableSet(ships);
     }
 
@@ -253,9 +432,7 @@ public class Galaxy extends ObjectPlus implements Serializable {
             throw new RuntimeException("Can not add null");
         }
 
-        if (ships.contains(ship)) return;
-
-        ships.add(ship);
+        Snapshot.require(Snapshot.SHIPS);
         ship.setGalaxy(this);
     }
     /**
@@ -263,19 +440,169 @@ public class Galaxy extends ObjectPlus implements Serializable {
      * @param ship The ship to remove.
      */
     public void removeShip(Ship ship) {
-        if (!ships.contains(ship)) return;
+        Snapshot.require(Snapshot.SHIPS);
+        if (ship != null) ship.leaveGalaxy(this);
+    }
+    /**
+     * Records a ship arriving in the galaxy. Called by the ship while holding its lock.
+     * @param ship The ship that arrived.
+     */
+    void shipArrived(Ship ship) {
+        ships.add(ship);
+    }
+    /**
+     * Records a ship leaving the galaxy. Called by the ship while holding its lock.
+     * @param ship The ship that left.
+     */
+    void shipLeft(Ship ship) {
         ships.remove(ship);
-        ship.setGalaxy(null);
     }
+    /**
+     * Retrieves the galaxies directly connected to this one by a route.
+     *
+     * @return An unmodifiable map from each neighbouring galaxy to the distance of the route to it.
+     */
+    public Map<Galaxy, Double> getRoutes() {
+        return Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * Connects this galaxy and another one by a route going both ways, replacing the distance
+     * of an existing route between them.
+     *
+     * @param galaxy   The galaxy to connect to.
+     * @param distance The travel cost of the route.
+     * @throws RuntimeException If galaxy is null or this galaxy, or distance is not positive and finite.
+     */
+    public void connect(Galaxy galaxy, double distance) {
+        if (galaxy == null) throw new RuntimeException("Can not connect to null");
+        if (galaxy == this) throw new RuntimeException("Can not connect a galaxy to itself");
+        if (!(distance > 0) || Double.isInfinite(distance)) throw new RuntimeException("Distance must be positive");
+        Journal.mutate(() -> {
+            synchronized (routeLock) {
+                routes.put(galaxy, distance);
+                galaxy.routes.put(this, distance);
+                routeVersion.incrementAndGet();
+                Journal.log(Journal.GALAXY_CONNECTED, this, galaxy, distance);
+            }
+        });
+    }
+
+    /**
+     * Removes the route between this galaxy and another one, if there is one.
+     *
+     * @param galaxy The galaxy to disconnect from.
+     */
+    public void disconnect(Galaxy galaxy) {
+        if (galaxy == null) return;
+        Journal.mutate(() -> {
+            synchronized (routeLock) {
+                if (routes.remove(galaxy) == null) return;
+                galaxy.routes.remove(this);
+                routeVersion.incrementAndGet();
+                Journal.log(Journal.GALAXY_DISCONNECTED, this, galaxy);
+            }
+        });
+    }
+
     /**
      * Retrieves the set of cargo in the galaxy, sorted in their natural order.
+     * The set is a read-only view that reflects later changes.
      * @return The sorted set of cargo.
      */
     public Set<Cargo> getCargoSet() {
-        List<Cargo> list = new ArrayList<>(cargoSet);
-        Collections.sort(list);
-        return new LinkedHashSet<>(list);
+        Snapshot.require(Snapshot.CARGO);
+        return new MassOrderedCargo(cargoByMass, cargoArrivals, cargoArrivals::size);
     }
+
+    /**
+     * Retrieves the heaviest cargo heading to the galaxy.
+     * @param count The maximum number of cargo to return.
+     * @return The heaviest cargo, heaviest first.
+     */
+    public List<Cargo> getHeaviestCargo(int count) {
+        Util.nonNegativeIntCheck(count);
+        Snapshot.require(Snapshot.CARGO);
+        return firstCargo(cargoByMass.descendingMap(), count);
+    }
+
+    /**
+     * Retrieves the lightest cargo heading to the galaxy.
+     * @param count The maximum number of cargo to return.
+     * @return The lightest cargo, lightest first.
+     */
+    public List<Cargo> getLightestCargo(int count) {
+        Util.nonNegativeIntCheck(count);
+        Snapshot.require(Snapshot.CARGO);
+        return firstCargo(cargoByMass, count);
+    }
+
+    /**
+     * Retrieves the cargo heading to the galaxy with a mass in the given range.
+     * The set is a read-only view that reflects later changes.
+     * @param minMass The smallest mass, inclusive.
+     * @param maxMass The largest mass, inclusive.
+     * @return The cargo in the mass range, sorted by mass.
+     */
+    public Set<Cargo> getCargoWithMassBetween(int minMass, int maxMass) {
+        if (minMass > maxMass) throw new RuntimeException("Minimal mass can't be larger than maximal mass");
+        Snapshot.require(Snapshot.CARGO);
+        return new MassOrderedCargo(cargoByMass.subMap(minMass, true, maxMass, true), cargoArrivals, null);
+    }
+
+    /**
+     * Takes cargo from the mass groups in their order until count cargo are taken.
+     * @param groups The cargo grouped by mass.
+     * @param count The maximum number of cargo to take.
+     * @return The taken cargo.
+     */
+    private static List<Cargo> firstCargo(NavigableMap<Integer, NavigableMap<Long, Cargo>> groups, int count) {
+        List<Cargo> result = new ArrayList<>(Math.min(count, 64));
+        for (NavigableMap<Long, Cargo> group : groups.values()) {
+            for (Cargo cargo : group.values()) {
+                if (result.size() == count) return result;
+                result.add(cargo);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Moves a cargo heading to the galaxy to the group of its new mass.
+     * Called by the cargo after its mass changed.
+     * @param cargo The cargo whose mass changed.
+     * @param oldMass The previous mass of the cargo.
+     */
+    void cargoMassChanged(Cargo cargo, int oldMass) {
+        synchronized (cargoLock) {
+            Long arrival = cargoArrivals.get(cargo);
+            if (arrival == null) return;
+            removeFromMassGroup(arrival, oldMass);
+            addToMassGroup(cargo, arrival);
+        }
+    }
+
+    /**
+     * Adds a cargo to the group of its mass. Called while holding the cargo lock.
+     * @param cargo The cargo to add.
+     * @param arrival The number of the arrival of the cargo.
+     */
+    private void addToMassGroup(Cargo cargo, long arrival) {
+        cargoByMass.computeIfAbsent(cargo.getMass(), mass -> new ConcurrentSkipListMap<>()).put(arrival, cargo);
+    }
+
+    /**
+     * Removes a cargo from the group of the given mass, dropping the group if it becomes empty.
+     * Called while holding the cargo lock.
+     * @param arrival The number of the arrival of the cargo to remove.
+     * @param mass The mass the cargo is grouped by.
+     */
+    private void removeFromMassGroup(long arrival, int mass) {
+        NavigableMap<Long, Cargo> group = cargoByMass.get(mass);
+        group.remove(arrival);
+        if (group.isEmpty()) cargoByMass.remove(mass);
+    }
+
     /**
      * Adds a cargo to the galaxy.
      * @param cargo The cargo to add.
@@ -286,19 +613,64 @@ public class Galaxy extends ObjectPlus implements Serializable {
             throw new RuntimeException("Can not add null");
         }
 
-        if (cargoSet.contains(cargo)) return;
-
-        cargoSet.add(cargo);
+        long start = Metrics.start(MeteredOperation.GalaxyAddCargo);
+        Snapshot.require(Snapshot.CARGO);
         cargo.setDestination(this);
+        Metrics.record(MeteredOperation.GalaxyAddCargo, start);
     }
     /**
      * Removes a cargo from the galaxy.
      * @param cargo The cargo to remove.
      */
     public void removeCargo(Cargo cargo) {
-        if (!cargoSet.contains(cargo)) return;
-        cargoSet.remove(cargo);
-        cargo.setDestination(null);
+        Snapshot.require(Snapshot.CARGO);
+        if (cargo != null) cargo.leaveDestination(this);
+    }
+
+    /**
+     * Records a cargo heading to the galaxy. Called by the cargo while holding its lock.
+     * @param cargo The cargo heading to the galaxy.
+     */
+    void cargoArrived(Cargo cargo) {
+        synchronized (cargoLock) {
+            if (cargoArrivals.containsKey(cargo)) return;
+            long arrival = arrivalCount++;
+            cargoArrivals.put(cargo, arrival);
+            addToMassGroup(cargo, arrival);
+        }
+    }
+
+    /**
+     * Records a cargo no longer heading to the galaxy. Called by the cargo while holding its lock.
+     * @param cargo The cargo no longer heading to the galaxy.
+     */
+    void cargoLeft(Cargo cargo) {
+        synchronized (cargoLock) {
+            Long arrival = cargoArrivals.remove(cargo);
+            if (arrival != null) removeFromMassGroup(arrival, cargo.getMass());
+        }
+    }
+
+    /**
+     * Sends away all ships in the galaxy, removes it as the destination of all cargo
+     * and releases its galaxy code.
+     */
+    @Override
+    protected void detach() {
+        for (Ship ship : new ArrayList<>(getShips())) {
+            removeShip(ship);
+        }
+        Snapshot.require(Snapshot.CARGO);
+        List<Cargo> heading = new ArrayList<>(cargoArrivals.keySet());
+        for (Cargo cargo : heading) {
+            removeCargo(cargo);
+        }
+        if (galaxyCode != null) galaxiesByCode.remove(galaxyCode, this);
+        for (Galaxy neighbour : new ArrayList<>(routes.keySet())) {
+            disconnect(neighbour);
+        }
+        removeFromStatusIndex();
+        if (galaxiesById.remove(id, this)) statusVersion.incrementAndGet();
     }
 
     /**
@@ -308,21 +680,280 @@ public class Galaxy extends ObjectPlus implements Serializable {
      */
     public static void galaxyCodeUniquenessCheck(String galaxyCode) {
         Util.validString(galaxyCode);
+        Snapshot.require(Snapshot.GALAXIES);
+        if (galaxiesByCode.containsKey(galaxyCode)) {
+            throw new RuntimeException("Galaxy code is already in use");
+        }
+    }
+
+    /**
+     * Finds the galaxy with the given galaxy code.
+     * @param galaxyCode The galaxy code to look up.
+     * @return The galaxy with the given code, or null if there is none.
+     */
+    public static Galaxy findByCode(String galaxyCode) {
+        Snapshot.require(Snapshot.GALAXIES);
+        return galaxiesByCode.get(galaxyCode);
+    }
+
+    /**
+     * Finds the galaxy with the given id.
+     * @param id The id to look up.
+     * @return The galaxy with the given id, or null if there is none.
+     */
+    public static Galaxy findById(int id) {
+        Snapshot.require(Snapshot.GALAXIES);
+        return galaxiesById.get(id);
+    }
+
+    /**
+     * Finds all galaxies the given ship can go to: every peaceful galaxy and, for a shielded
+     * ship, every dangerous galaxy not at war whose solar flares its shield withstands.
+     * Only the matching galaxies are visited.
+     * @param ship The ship to find galaxies for.
+     * @return The galaxies the ship can go to.
+     */
+    public static List<Galaxy> getReachableGalaxies(Ship ship) {
+        if (ship == null) throw new RuntimeException("Ship can not be null");
+        Snapshot.require(Snapshot.GALAXIES);
+        List<Galaxy> galaxies = new ArrayList<>(peacefulGalaxies);
+        if (ship.getShipType() == ShipType.Shielded) {
+            galaxies.addAll(getCalmDangerousGalaxies(ship.getSolarFlareShieldStrength()));
+        }
+        return galaxies;
+    }
+
+    /**
+     * Finds the dangerous galaxies that are not at war and have solar flares of at most
+     * the given strength.
+     * @param maxSolarFlareStrength The largest solar flare strength, inclusive.
+     * @return The galaxies, ordered by solar flare strength.
+     */
+    public static List<Galaxy> getCalmDangerousGalaxies(int maxSolarFlareStrength) {
+        Snapshot.require(Snapshot.GALAXIES);
+        List<Galaxy> galaxies = new ArrayList<>();
+        for (Set<Galaxy> group : calmDangerousByFlare.headMap(maxSolarFlareStrength, true).values()) {
+            galaxies.addAll(group);
+        }
+        return galaxies;
+    }
+
+    /**
+     * Retrieves all peaceful galaxies.
+     * @return A read-only view of the peaceful galaxies.
+     */
+    public static Set<Galaxy> getPeacefulGalaxies() {
+        Snapshot.require(Snapshot.GALAXIES);
+        return Collections.unmodifiableSet(peacefulGalaxies);
+    }
+
+    /**
+     * Returns the ids of all galaxies a ship with the given protection can go to. The mask is
+     * shared by all ships that withstand the same solar flare groups, so it must not be modified.
+     * It is computed once and replaced by a copy with one bit flipped when a galaxy appears,
+     * disappears or changes its status.
+     *
+     * @param shipType                 The type of the ship.
+     * @param solarFlareShieldStrength The solar flare shield strength of the ship, null for ships without protection.
+     * @return The reachability mask, a bit set over galaxy ids.
+     */
+    static BitSet reachabilityMask(ShipType shipType, Integer solarFlareShieldStrength) {
+        Snapshot.require(Snapshot.GALAXIES);
+        BitSet mask = reachabilityMasks.get(reachabilityKey(shipType, solarFlareShieldStrength));
+        if (mask != null) return mask;
+        synchronized (statusIndexLock) {
+            int key = reachabilityKey(shipType, solarFlareShieldStrength);
+            return reachabilityMasks.computeIfAbsent(key, k -> {
+                BitSet galaxies = new BitSet();
+                for (Galaxy galaxy : peacefulGalaxies) galaxies.set(galaxy.id);
+                for (Set<Galaxy> group : calmDangerousByFlare.headMap(k, true).values()) {
+                    for (Galaxy galaxy : group) galaxies.set(galaxy.id);
+                }
+                return galaxies;
+            });
+        }
+    }
+
+    /**
+     * Returns the key of the reachability mask for ships with the given protection: the
+     * strongest solar flare group they withstand, or -1 if they withstand none.
+     *
+     * @param shipType                 The type of the ship.
+     * @param solarFlareShieldStrength The solar flare shield strength of the ship, null for ships without protection.
+     * @return The key of the mask.
+     */
+    private static int reachabilityKey(ShipType shipType, Integer solarFlareShieldStrength) {
+        if (shipType != ShipType.Shielded) return -1;
+        Integer strongest = calmDangerousByFlare.floorKey(solarFlareShieldStrength);
+        return strongest == null ? -1 : strongest;
+    }
+
+    /**
+     * Retrieves the current status version, which changes whenever the reachability of some galaxy may have changed.
+     *
+     * @return The status version.
+     */
+    static long getStatusVersion() {
+        return statusVersion.get();
+    }
+
+    /**
+     * Retrieves a bound on the galaxy ids: every galaxy has an id below it.
+     *
+     * @return The id the next galaxy gets.
+     */
+    static int getIdBound() {
+        return nextId.get();
+    }
+
+    /**
+     * Retrieves the current route version, which changes whenever some route changes.
+     *
+     * @return The route version.
+     */
+    static long getRouteVersion() {
+        return routeVersion.get();
+    }
+
+    /**
+     * Rebuilds the galaxy code, id and status indexes from the current extent of galaxies.
+     * Must be called whenever the extents are replaced.
+     */
+    static void rebuildGalaxyIndexes() {
+        Map<String, Galaxy> index = new ConcurrentHashMap<>();
+        Map<Integer, Galaxy> idIndex = new ConcurrentHashMap<>();
+        calmDangerousByFlare = new ConcurrentSkipListMap<>();
+        peacefulGalaxies = ConcurrentHashMap.newKeySet();
         try {
             Iterable<Galaxy> extent = getExtent(Galaxy.class);
             if (extent != null) {
                 for (Galaxy galaxy : extent) {
-                    if (galaxy.getGalaxyCode()!=null){
-                        if (galaxy.getGalaxyCode().equals(galaxyCode)) {
-                            throw new RuntimeException("Galaxy code is already in use");
-                        }
-                    }
-
+                    if (galaxy.getGalaxyCode() != null) index.put(galaxy.getGalaxyCode(), galaxy);
+                    idIndex.put(galaxy.id, galaxy);
+                    galaxy.addToStatusIndex();
+                    nextId.accumulateAndGet(galaxy.id + 1, Math::max);
                 }
             }
         } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
+        galaxiesByCode = index;
+        galaxiesById = idIndex;
+        synchronized (statusIndexLock) {
+            reachabilityMasks.clear();
+        }
+        statusVersion.incrementAndGet();
+    }
+
+    /**
+     * The type of a galaxy with the attributes of that type, never changed once created.
+     */
+    private static class Status implements Serializable {
+        private final GalaxyType galaxyType;
+        private final Boolean atWar;
+        private final Integer solarFlareStrength;
+        private final LocalDate peacefulSince;
+
+        /**
+         * Creates the status of a peaceful galaxy.
+         *
+         * @param peacefulSince The date since which the galaxy has been peaceful.
+         * @throws RuntimeException If peacefulSince is null.
+         */
+        private Status(LocalDate peacefulSince) {
+            if (peacefulSince == null) throw new RuntimeException("Peaceful since can't be set to null");
+            this.galaxyType = GalaxyType.Peaceful;
+            this.atWar = null;
+            this.solarFlareStrength = null;
+            this.peacefulSince = peacefulSince;
+        }
+
+        /**
+         * Creates the status of a dangerous galaxy.
+         *
+         * @param atWar              Whether the galaxy is at war.
+         * @param solarFlareStrength The strength of solar flares.
+         * @throws RuntimeException If atWar or solarFlareStrength is null, or solarFlareStrength is negative.
+         */
+        private Status(Boolean atWar, Integer solarFlareStrength) {
+            if (atWar == null) throw new RuntimeException("At war can't be set to null");
+            if (solarFlareStrength == null) throw new RuntimeException("Solar flare strength can't be set to null");
+            Util.nonNegativeIntCheck(solarFlareStrength);
+            this.galaxyType = GalaxyType.Dangerous;
+            this.atWar = atWar;
+            this.solarFlareStrength = solarFlareStrength;
+            this.peacefulSince = null;
+        }
     }
 
+    /**
+     * A read-only view of cargo grouped by mass, iterated in the order of the groups. The view
+     * is weakly consistent: it can be read while cargo changes.
+     */
+    private static class MassOrderedCargo extends AbstractSet<Cargo> {
+        private final NavigableMap<Integer, NavigableMap<Long, Cargo>> groups;
+        private final Map<Cargo, Long> arrivals;
+        private final IntSupplier size;
+
+        /**
+         * @param groups The cargo grouped by mass and keyed by the number of its arrival.
+         * @param arrivals The number of the arrival of each cargo.
+         * @param size Supplies the number of cargo in the groups, or null to count them when asked.
+         */
+        private MassOrderedCargo(NavigableMap<Integer, NavigableMap<Long, Cargo>> groups, Map<Cargo, Long> arrivals,
+                                 IntSupplier size) {
+            this.groups = groups;
+            this.arrivals = arrivals;
+            this.size = size;
+        }
+
+        /**
+         * @return An iterator over the cargo, lightest first.
+         */
+        @Override
+        public Iterator<Cargo> iterator() {
+            Iterator<NavigableMap<Long, Cargo>> remaining = groups.values().iterator();
+            return new Iterator<>() {
+                private Iterator<Cargo> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && remaining.hasNext()) {
+                        current = remaining.next().values().iterator();
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public Cargo next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return current.next();
+                }
+            };
+        }
+
+        /**
+         * @return The number of cargo in the view.
+         */
+        @Override
+        public int size() {
+            if (size != null) return size.getAsInt();
+            int count = 0;
+            for (NavigableMap<Long, Cargo> group : groups.values()) count += group.size();
+            return count;
+        }
+
+        /**
+         * Looks the cargo up in the group of its mass.
+         * @param o The object to look for.
+         * @return Whether the object is a cargo in the view.
+         */
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Cargo cargo)) return false;
+            Long arrival = arrivals.get(cargo);
+            NavigableMap<Long, Cargo> group = arrival == null ? null : groups.get(cargo.getMass());
+            return group != null && group.get(arrival) == cargo;
+        }
+    }
 }
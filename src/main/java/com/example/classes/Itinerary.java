@@ -0,0 +1,96 @@
+package com.example.classes;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An order in which to visit the destinations of a ship, as found by {@link TourPlanner}.
+ */
+public class Itinerary {
+    private final ShipType shipType;
+    private final Integer solarFlareShieldStrength;
+    private final Galaxy start;
+    private final List<Galaxy> stops;
+    private final List<Galaxy> unreachable;
+    private final double distance;
+
+    /**
+     * Constructs an itinerary.
+     *
+     * @param shipType                 The type of the ships the itinerary is for.
+     * @param solarFlareShieldStrength The shield strength of the ships the itinerary is for.
+     * @param start                    The galaxy the tour starts in.
+     * @param stops                    The galaxies to visit, in order.
+     * @param unreachable              The destinations that can not be visited.
+     * @param distance                 The total distance of the tour.
+     */
+    Itinerary(ShipType shipType, Integer solarFlareShieldStrength, Galaxy start, List<Galaxy> stops, List<Galaxy> unreachable, double distance) {
+        this.shipType = shipType;
+        this.solarFlareShieldStrength = solarFlareShieldStrength;
+        this.start = start;
+        this.stops = Collections.unmodifiableList(stops);
+        this.unreachable = Collections.unmodifiableList(unreachable);
+        this.distance = distance;
+    }
+
+    /**
+     * Retrieves the galaxy the tour starts in.
+     *
+     * @return The start galaxy.
+     */
+    public Galaxy getStart() {
+        return start;
+    }
+
+    /**
+     * Retrieves the galaxies to visit, in order. The start galaxy is not included.
+     *
+     * @return An unmodifiable list of galaxies.
+     */
+    public List<Galaxy> getStops() {
+        return stops;
+    }
+
+    /**
+     * Retrieves the destinations that can not be visited from the start galaxy.
+     *
+     * @return An unmodifiable list of galaxies.
+     */
+    public List<Galaxy> getUnreachable() {
+        return unreachable;
+    }
+
+    /**
+     * Retrieves the total distance of the tour.
+     *
+     * @return The distance.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Finds the stop to go to after the given galaxy: the stop following it if it is a stop,
+     * the first stop if it is the start or not on the tour at all.
+     *
+     * @param current The galaxy the ship is in, or null.
+     * @return The next stop, or null if the given galaxy is the last stop.
+     */
+    public Galaxy getNextStop(Galaxy current) {
+        int index = current == null ? -1 : stops.indexOf(current);
+        return index + 1 < stops.size() ? stops.get(index + 1) : null;
+    }
+
+    /**
+     * Finds the shortest route of one leg of the tour.
+     *
+     * @param leg The index of the stop the leg leads to.
+     * @return The route from the previous stop, or from the start for the first leg, to the stop,
+     * or null if routes or galaxies changed since the tour was planned and there is no route left.
+     * @throws IndexOutOfBoundsException If there is no such stop.
+     */
+    public Route getRoute(int leg) {
+        Galaxy from = leg == 0 ? start : stops.get(leg - 1);
+        return RouteNetwork.shortestRoute(shipType, solarFlareShieldStrength, from, stops.get(leg));
+    }
+}
@@ -0,0 +1,769 @@
+package com.example.classes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * The Journal class is an append-only write-ahead log of every mutation of the domain objects.
+ * <p>
+ * While a journal is open, each creation and each change of a galaxy, ship, crew member, cargo,
+ * contract or registered owner is appended to the journal file as a small record. Records are
+ * collected in memory and a background thread writes and forces them to disk together every
+ * few milliseconds, so a mutation only pays for encoding its record. Opening a journal restores
+ * the last snapshot and replays the journal over it. Compacting writes a new snapshot and starts
+ * an empty journal.
+ * <p>
+ * Every mutation runs through {@link #mutate(Runnable)} and appends its record while it still holds
+ * the locks of the objects it changes, so records of the same object are in the order in which
+ * the changes were applied. Compaction waits for the mutations in progress and holds back new
+ * ones until the snapshot is written, so it is safe while other threads keep mutating.
+ * <p>
+ * Objects are identified in records by their kind and a number. Objects restored from the
+ * snapshot are numbered by their position in the snapshot, newly created objects get the next
+ * free number of their kind. Mutations of objects created before the journal was opened are
+ * not recorded.
+ */
+public class Journal {
+    static final byte OWNER_ADDED = 1;
+    static final byte OWNER_REMOVED = 2;
+    static final byte GALAXY_CREATED = 3;
+    static final byte GALAXY_NAME = 4;
+    static final byte GALAXY_CODE = 5;
+    static final byte GALAXY_DANGEROUS = 6;
+    static final byte GALAXY_PEACEFUL = 7;
+    static final byte NO_LIFE_SUPPORT_SHIP_CREATED = 8;
+    static final byte ORGANIC_SUPPORT_SHIP_CREATED = 9;
+    static final byte SHIP_NAME = 10;
+    static final byte SHIP_CAPACITY = 11;
+    static final byte SHIP_SHIELD = 12;
+    static final byte SHIP_AI_TYPE = 13;
+    static final byte SHIP_FOOD_TYPES = 14;
+    static final byte SHIP_GALAXY = 15;
+    static final byte ORGANIC_CREW_MEMBER_CREATED = 16;
+    static final byte MECHANICAL_CREW_MEMBER_CREATED = 17;
+    static final byte CREW_MEMBER_NAME = 18;
+    static final byte CREW_MEMBER_FOOD_TYPE = 19;
+    static final byte CREW_MEMBER_SERIAL_NUMBER = 20;
+    static final byte CREW_MEMBER_MODEL_NUMBER = 21;
+    static final byte CARGO_CREATED = 22;
+    static final byte CARGO_NAME = 23;
+    static final byte CARGO_MASS = 24;
+    static final byte CARGO_OWNER = 25;
+    static final byte CARGO_DESTINATION = 26;
+    static final byte CARGO_SHIP = 27;
+    static final byte CONTRACT_CREATED = 28;
+    static final byte CONTRACT_ROLE = 29;
+    static final byte CONTRACT_SALARY = 30;
+    static final byte CONTRACT_TERMINATED = 31;
+    static final byte OBJECT_DELETED = 32;
+    static final byte GALAXY_CONNECTED = 33;
+    static final byte GALAXY_DISCONNECTED = 34;
+
+    private static final int MAGIC = 0x53504D4A;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 10;
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte STRING = 4;
+    private static final byte DATE = 5;
+    private static final byte SHIP_TYPE = 6;
+    private static final byte FOOD_TYPE = 7;
+    private static final byte FOOD_TYPES = 8;
+    private static final byte REFERENCE = 9;
+
+    private static final int GALAXY = 0;
+    private static final int SHIP = 1;
+    private static final int CREW_MEMBER = 2;
+    private static final int CARGO = 3;
+    private static final int CONTRACT = 4;
+
+    /**
+     * The journal that mutations are currently recorded to, or null if none is open.
+     */
+    private static volatile Journal active;
+    /**
+     * Shared by every mutation while a journal is open and taken exclusively while compacting.
+     * Mutations take it before any lock of a domain object.
+     */
+    private static final ReentrantReadWriteLock mutationGate = new ReentrantReadWriteLock();
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final long syncIntervalMillis;
+    private final FileChannel channel;
+    private final Thread flusher;
+
+    /**
+     * Guards the ids and the pending records.
+     */
+    private final Object lock = new Object();
+    /**
+     * Guards the journal file, held while pending records are written and while compacting.
+     */
+    private final Object writeLock = new Object();
+
+    private final Map<Object, Integer> ids = new IdentityHashMap<>();
+    private final int[] nextIds = new int[5];
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(scratch);
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final CRC32 crc = new CRC32();
+    private long appendedRecords;
+    private long durableRecords;
+    private IOException failure;
+    private boolean closed;
+    private ScheduledExecutorService compactor;
+    private ScheduledFuture<?> autoCompaction;
+
+    /**
+     * Private constructor to initialize a Journal object over an already recovered journal file.
+     *
+     * @param snapshotPath       the snapshot file the journal is compacted into
+     * @param journalPath        the journal file
+     * @param channel            the open journal file, positioned at its end
+     * @param syncIntervalMillis the longest time records wait before being forced to disk
+     * @param restored           the objects restored from the snapshot and the journal by kind
+     */
+    private Journal(Path snapshotPath, Path journalPath, FileChannel channel, long syncIntervalMillis,
+                    List<? extends List<?>> restored) {
+        this.snapshotPath = snapshotPath;
+        this.journalPath = journalPath;
+        this.channel = channel;
+        this.syncIntervalMillis = syncIntervalMillis;
+        resetIds(restored);
+        flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Opens a journal with a sync interval of 5 milliseconds.
+     *
+     * @param snapshotPath the snapshot file to restore from and compact into
+     * @param journalPath  the journal file
+     * @return the open journal
+     * @throws IOException if an I/O error occurs or the files can not be recovered
+     * @see #open(Path, Path, long)
+     */
+    public static Journal open(Path snapshotPath, Path journalPath) throws IOException {
+        return open(snapshotPath, journalPath, 5);
+    }
+
+    /**
+     * Restores the domain state from the snapshot and the journal and starts recording all further
+     * mutations to the journal. All objects that exist before the call are discarded.
+     * <p>
+     * A journal written over a different snapshot than the current one is left over from an
+     * interrupted compaction. Its records are already contained in the snapshot, so it is discarded.
+     * A torn record at the end of the journal is cut off.
+     *
+     * @param snapshotPath       the snapshot file to restore from and compact into
+     * @param journalPath        the journal file
+     * @param syncIntervalMillis the longest time records wait before being forced to disk
+     * @return the open journal
+     * @throws IOException if an I/O error occurs or the files can not be recovered
+     */
+    public static synchronized Journal open(Path snapshotPath, Path journalPath, long syncIntervalMillis) throws IOException {
+        if (active != null) throw new RuntimeException("A journal is already open");
+        if (syncIntervalMillis <= 0) throw new RuntimeException("Sync interval has to be positive.");
+
+        List<List<?>> restored;
+        int snapshotChecksum = 0;
+        if (Files.exists(snapshotPath)) {
+            restored = Snapshot.readSnapshot(snapshotPath);
+            snapshotChecksum = Snapshot.checksumOf(snapshotPath);
+        } else {
+            ObjectPlus.clearExtents();
+            Cargo.setRegisteredOwners(new HashSet<>());
+            restored = List.of(List.of(), List.of(), List.of(), List.of(), List.of());
+        }
+        List<List<Object>> objects = new ArrayList<>();
+        for (List<?> list : restored) objects.add(new ArrayList<>(list));
+
+        FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = channel.size() >= HEADER_SIZE ? replay(channel, snapshotChecksum, objects) : -1;
+            if (end < 0) {
+                channel.truncate(0);
+                writeHeader(channel, snapshotChecksum);
+                end = HEADER_SIZE;
+            }
+            channel.truncate(end);
+            channel.force(true);
+            channel.position(end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        Journal journal = new Journal(snapshotPath, journalPath, channel, syncIntervalMillis, objects);
+        active = journal;
+        return journal;
+    }
+
+    /**
+     * Returns the journal that mutations are currently recorded to.
+     *
+     * @return the open journal, or null if none is open
+     */
+    public static Journal getActive() {
+        return active;
+    }
+
+    /**
+     * Runs a mutation of domain objects so that it is not interleaved with a compaction.
+     * Must be called before any lock of a domain object is taken; nested calls are allowed.
+     *
+     * @param mutation the mutation to run
+     */
+    static void mutate(Runnable mutation) {
+        if (active == null) {
+            mutation.run();
+            return;
+        }
+        mutationGate.readLock().lock();
+        try {
+            mutation.run();
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a mutation of domain objects that returns a result so that it is not interleaved with a compaction.
+     *
+     * @param mutation the mutation to run
+     * @param <T>      the type of the result
+     * @return the result of the mutation
+     * @see #mutate(Runnable)
+     */
+    static <T> T mutate(Supplier<T> mutation) {
+        if (active == null) return mutation.get();
+        mutationGate.readLock().lock();
+        try {
+            return mutation.get();
+        } finally {
+            mutationGate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a mutation of the given object if a journal is open.
+     *
+     * @param type   the type of the record
+     * @param target the mutated object, or null for mutations of static state
+     * @param values the new values
+     */
+    static void log(byte type, Object target, Object... values) {
+        Journal journal = active;
+        if (journal != null) journal.append(type, target, null, values);
+    }
+
+    /**
+     * Records the creation of the given object if a journal is open, giving it the next id of its kind.
+     *
+     * @param type    the type of the record
+     * @param created the created object
+     * @param values  the values needed to create the object again
+     */
+    static void logCreated(byte type, Object created, Object... values) {
+        Journal journal = active;
+        if (journal != null) journal.append(type, null, created, values);
+    }
+
+    /**
+     * Waits until all records appended so far are forced to disk.
+     *
+     * @throws IOException if writing the journal failed
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = appendedRecords;
+            lock.notifyAll();
+            while (durableRecords < target && failure == null && !closed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the journal", e);
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    /**
+     * Returns the current size of the journal file.
+     *
+     * @return the size of the journal file in bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Writes the current state into a new snapshot and empties the journal.
+     * Waits for the mutations in progress and holds back new ones until the snapshot is written.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void compact() throws IOException {
+        if (mutationGate.getReadHoldCount() > 0) throw new RuntimeException("Can not compact the journal during a mutation");
+        mutationGate.writeLock().lock();
+        try {
+            sync();
+            synchronized (writeLock) {
+                synchronized (lock) {
+                    if (closed) throw new RuntimeException("The journal is closed");
+                    Path temporary = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+                    List<List<?>> written = Snapshot.writeSnapshot(temporary);
+                    Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    channel.truncate(0);
+                    writeHeader(channel, Snapshot.checksumOf(snapshotPath));
+                    channel.force(true);
+                    channel.position(HEADER_SIZE);
+                    pending.reset();
+                    durableRecords = appendedRecords;
+                    resetIds(written);
+                }
+            }
+        } finally {
+            mutationGate.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts the journal if its file has grown larger than the given size.
+     *
+     * @param maxJournalSize the largest journal size in bytes that is kept
+     * @return true if the journal was compacted
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean compactIfLargerThan(long maxJournalSize) throws IOException {
+        sync();
+        if (size() <= maxJournalSize) return false;
+        compact();
+        return true;
+    }
+
+    /**
+     * Compacts the journal from a background thread whenever it has grown larger than the given
+     * size, checking at a fixed interval. Replaces an earlier setting. A size of 0 compacts at
+     * every check that finds new records. A failed compaction is reported by the next {@link #sync()}.
+     *
+     * @param maxJournalSize the largest journal size in bytes that is kept
+     * @param periodMillis   the time between two checks in milliseconds
+     */
+    public void setAutoCompaction(long maxJournalSize, long periodMillis) {
+        if (maxJournalSize < 0) throw new RuntimeException("Journal size can not be negative.");
+        if (periodMillis <= 0) throw new RuntimeException("Compaction period has to be positive.");
+        synchronized (lock) {
+            if (closed) throw new RuntimeException("The journal is closed");
+            if (autoCompaction != null) autoCompaction.cancel(false);
+            if (compactor == null) {
+                compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+                    Thread thread = new Thread(task, "journal-compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            long threshold = Math.max(maxJournalSize, HEADER_SIZE);
+            autoCompaction = compactor.scheduleWithFixedDelay(() -> compactInBackground(threshold),
+                    periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops compacting the journal from a background thread.
+     */
+    public void stopAutoCompaction() {
+        synchronized (lock) {
+            if (autoCompaction != null) autoCompaction.cancel(false);
+            autoCompaction = null;
+        }
+    }
+
+    /**
+     * Compacts the journal on the background thread if it is too large, keeping a failure for the next sync.
+     *
+     * @param maxJournalSize the largest journal size in bytes that is kept
+     */
+    private void compactInBackground(long maxJournalSize) {
+        try {
+            synchronized (lock) {
+                if (closed || failure != null) return;
+            }
+            compactIfLargerThan(maxJournalSize);
+        } catch (IOException | RuntimeException e) {
+            synchronized (lock) {
+                if (!closed && failure == null) failure = e instanceof IOException io ? io : new IOException(e);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Forces all pending records to disk and stops recording mutations.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void close() throws IOException {
+        synchronized (Journal.class) {
+            if (active == this) active = null;
+        }
+        ScheduledExecutorService compactor;
+        synchronized (lock) {
+            compactor = this.compactor;
+        }
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sync();
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Returns the journal file.
+     *
+     * @return the path of the journal file
+     */
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    /**
+     * Encodes a record and adds it to the pending records.
+     * Records that refer to objects unknown to the journal are dropped.
+     */
+    private void append(byte type, Object target, Object created, Object[] values) {
+        synchronized (lock) {
+            if (closed) return;
+            scratch.reset();
+            try {
+                record.writeByte(type);
+                if (!writeValue(target)) return;
+                for (Object value : values) {
+                    if (!writeValue(value)) return;
+                }
+                crc.reset();
+                crc.update(scratch.toByteArray());
+                pendingOut.writeInt(scratch.size());
+                pendingOut.writeInt((int) crc.getValue());
+                scratch.writeTo(pending);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            if (created != null) {
+                int kind = kindOf(created);
+                ids.put(created, nextIds[kind]++);
+            }
+            if (type == OBJECT_DELETED) ids.remove(target);
+            appendedRecords++;
+        }
+    }
+
+    /**
+     * Writes a tagged value to the current record.
+     *
+     * @return false if the value is a domain object unknown to the journal
+     */
+    private boolean writeValue(Object value) throws IOException {
+        if (value == null) {
+            record.writeByte(NULL);
+        } else if (value instanceof Integer i) {
+            record.writeByte(INT);
+            record.writeInt(i);
+        } else if (value instanceof Boolean b) {
+            record.writeByte(BOOLEAN);
+            record.writeBoolean(b);
+        } else if (value instanceof Double d) {
+            record.writeByte(DOUBLE);
+            record.writeDouble(d);
+        } else if (value instanceof String s) {
+            record.writeByte(STRING);
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            record.writeInt(bytes.length);
+            record.write(bytes);
+        } else if (value instanceof LocalDate date) {
+            record.writeByte(DATE);
+            record.writeLong(date.toEpochDay());
+        } else if (value instanceof ShipType shipType) {
+            record.writeByte(SHIP_TYPE);
+            record.writeByte(shipType.ordinal());
+        } else if (value instanceof FoodType foodType) {
+            record.writeByte(FOOD_TYPE);
+            record.writeByte(foodType.ordinal());
+        } else if (value instanceof Set<?> foodTypes) {
+            record.writeByte(FOOD_TYPES);
+            int mask = 0;
+            for (Object foodType : foodTypes) mask |= 1 << ((FoodType) foodType).ordinal();
+            record.writeByte(mask);
+        } else {
+            Integer id = ids.get(value);
+            if (id == null) return false;
+            record.writeByte(REFERENCE);
+            record.writeByte(kindOf(value));
+            record.writeInt(id);
+        }
+        return true;
+    }
+
+    /**
+     * Writes pending records to the journal file and forces them to disk until the journal is closed.
+     */
+    private void flushLoop() {
+        while (true) {
+            synchronized (lock) {
+                if (!closed) {
+                    try {
+                        lock.wait(syncIntervalMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            synchronized (writeLock) {
+                byte[] data;
+                long records;
+                synchronized (lock) {
+                    if (pending.size() == 0) {
+                        if (closed) return;
+                        continue;
+                    }
+                    data = pending.toByteArray();
+                    pending.reset();
+                    records = appendedRecords;
+                }
+                IOException error = null;
+                try {
+                    ByteBuffer buffer = ByteBuffer.wrap(data);
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    channel.force(false);
+                } catch (IOException e) {
+                    error = e;
+                }
+                synchronized (lock) {
+                    if (error != null) failure = error;
+                    else durableRecords = Math.max(durableRecords, records);
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Numbers the given objects by their position in their list and continues numbering after them.
+     */
+    private void resetIds(List<? extends List<?>> objects) {
+        ids.clear();
+        for (int kind = 0; kind < objects.size(); kind++) {
+            List<?> list = objects.get(kind);
+            for (int i = 0; i < list.size(); i++) ids.put(list.get(i), i);
+            nextIds[kind] = list.size();
+        }
+    }
+
+    /**
+     * Returns the kind of the given domain object.
+     */
+    private static int kindOf(Object object) {
+        if (object instanceof Galaxy) return GALAXY;
+        if (object instanceof Ship) return SHIP;
+        if (object instanceof CrewMember) return CREW_MEMBER;
+        if (object instanceof Cargo) return CARGO;
+        if (object instanceof Contract) return CONTRACT;
+        throw new IllegalArgumentException("Not a journaled object: " + object);
+    }
+
+    /**
+     * Writes the journal header referring to the snapshot with the given checksum.
+     */
+    private static void writeHeader(FileChannel channel, int snapshotChecksum) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putInt(snapshotChecksum);
+        header.flip();
+        channel.write(header, 0);
+    }
+
+    /**
+     * Replays the journal over the restored objects, adding newly created objects to their lists.
+     *
+     * @return the position after the last intact record, or -1 if the journal does not belong to the snapshot
+     */
+    private static long replay(FileChannel channel, int snapshotChecksum, List<List<Object>> objects) throws IOException {
+        ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (in.getInt() != MAGIC) throw new IOException("Not a journal file");
+        if (in.getShort() != VERSION) throw new IOException("Unsupported journal version");
+        if (in.getInt() != snapshotChecksum) return -1;
+
+        CRC32 crc = new CRC32();
+        long records = 0;
+        while (in.remaining() >= 8) {
+            int start = in.position();
+            int length = in.getInt();
+            int checksum = in.getInt();
+            if (length <= 0 || length > in.remaining()) {
+                in.position(start);
+                break;
+            }
+            ByteBuffer payload = in.slice(in.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                in.position(start);
+                break;
+            }
+            in.position(in.position() + length);
+            byte type = payload.get();
+            List<Object> values = new ArrayList<>();
+            while (payload.hasRemaining()) values.add(readValue(payload, objects));
+            try {
+                apply(type, values, objects);
+            } catch (RuntimeException e) {
+                throw new IOException("Journal record " + records + " could not be replayed", e);
+            }
+            records++;
+        }
+        return in.position();
+    }
+
+    /**
+     * Reads a tagged value written by {@link #writeValue}.
+     */
+    private static Object readValue(ByteBuffer in, List<List<Object>> objects) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case INT -> in.getInt();
+            case BOOLEAN -> in.get() != 0;
+            case DOUBLE -> in.getDouble();
+            case STRING -> {
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                yield new String(bytes, StandardCharsets.UTF_8);
+            }
+            case DATE -> LocalDate.ofEpochDay(in.getLong());
+            case SHIP_TYPE -> ShipType.values()[in.get()];
+            case FOOD_TYPE -> FoodType.values()[in.get()];
+            case FOOD_TYPES -> {
+                int mask = in.get();
+                Set<FoodType> foodTypes = EnumSet.noneOf(FoodType.class);
+                for (FoodType foodType : FoodType.values()) {
+                    if ((mask & 1 << foodType.ordinal()) != 0) foodTypes.add(foodType);
+                }
+                yield foodTypes;
+            }
+            case REFERENCE -> {
+                int kind = in.get();
+                yield objects.get(kind).get(in.getInt());
+            }
+            default -> throw new RuntimeException("Unknown journal value tag " + tag);
+        };
+    }
+
+    /**
+     * Applies a replayed record to the domain objects. The first value is the mutated object.
+     */
+    private static void apply(byte type, List<Object> v, List<List<Object>> objects) {
+        switch (type) {
+            case OWNER_ADDED -> Cargo.addRegisteredOwner((String) v.get(1));
+            case OWNER_REMOVED -> {
+                try {
+                    Cargo.removeRegisteredOwner((String) v.get(1));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            case GALAXY_CREATED -> objects.get(GALAXY).add(v.get(3) != null
+                    ? Galaxy.peacefulGalaxyConstructor((String) v.get(1), (String) v.get(2), (LocalDate) v.get(3))
+                    : Galaxy.dangerousGalaxyConstructor((String) v.get(1), (String) v.get(2), (Boolean) v.get(4), (Integer) v.get(5)));
+            case GALAXY_NAME -> ((Galaxy) v.get(0)).setName((String) v.get(1));
+            case GALAXY_CODE -> ((Galaxy) v.get(0)).setGalaxyCode((String) v.get(1));
+            case GALAXY_DANGEROUS -> ((Galaxy) v.get(0)).changeToDangerous((Boolean) v.get(1), (Integer) v.get(2));
+            case GALAXY_PEACEFUL -> ((Galaxy) v.get(0)).changeToPeaceful((LocalDate) v.get(1));
+            case GALAXY_CONNECTED -> ((Galaxy) v.get(0)).connect((Galaxy) v.get(1), (Double) v.get(2));
+            case GALAXY_DISCONNECTED -> ((Galaxy) v.get(0)).disconnect((Galaxy) v.get(1));
+            case NO_LIFE_SUPPORT_SHIP_CREATED -> objects.get(SHIP).add(NoLifeSupportShip.constructor((String) v.get(1),
+                    (Integer) v.get(2), (ShipType) v.get(3), (Integer) v.get(4), (String) v.get(5)));
+            case ORGANIC_SUPPORT_SHIP_CREATED -> objects.get(SHIP).add(OrganicSupportShip.constructor((String) v.get(1),
+                    (Integer) v.get(2), (ShipType) v.get(3), (Integer) v.get(4), (Set<FoodType>) v.get(5)));
+            case SHIP_NAME -> ((Ship) v.get(0)).setName((String) v.get(1));
+            case SHIP_CAPACITY -> ((Ship) v.get(0)).setMaxCargoMassCapacity((Integer) v.get(1));
+            case SHIP_SHIELD -> ((Ship) v.get(0)).setSolarFlareShieldStrength((Integer) v.get(1));
+            case SHIP_AI_TYPE -> ((NoLifeSupportShip) v.get(0)).setShipAIType((String) v.get(1));
+            case SHIP_FOOD_TYPES -> ((OrganicSupportShip) v.get(0)).setFoodTypes((Set<FoodType>) v.get(1));
+            case SHIP_GALAXY -> ((Ship) v.get(0)).setGalaxy((Galaxy) v.get(1));
+            case ORGANIC_CREW_MEMBER_CREATED -> objects.get(CREW_MEMBER).add(
+                    OrganicCrewMember.constructor((String) v.get(1), (FoodType) v.get(2)));
+            case MECHANICAL_CREW_MEMBER_CREATED -> {
+                // the model number is not validated by its setter, so it may have been null when logged
+                MechanicalCrewMember crewMember = MechanicalCrewMember.constructor((String) v.get(1), (String) v.get(1));
+                crewMember.setModelNumber((String) v.get(2));
+                objects.get(CREW_MEMBER).add(crewMember);
+            }
+            case CREW_MEMBER_NAME -> ((OrganicCrewMember) v.get(0)).setName((String) v.get(1));
+            case CREW_MEMBER_FOOD_TYPE -> ((OrganicCrewMember) v.get(0)).setAcceptableFoodType((FoodType) v.get(1));
+            case CREW_MEMBER_SERIAL_NUMBER -> ((MechanicalCrewMember) v.get(0)).setSerialNumber((String) v.get(1));
+            case CREW_MEMBER_MODEL_NUMBER -> ((MechanicalCrewMember) v.get(0)).setModelNumber((String) v.get(1));
+            case CARGO_CREATED -> objects.get(CARGO).add(
+                    Cargo.constructor((String) v.get(1), (Integer) v.get(2), (String) v.get(3)));
+            case CARGO_NAME -> ((Cargo) v.get(0)).setName((String) v.get(1));
+            case CARGO_MASS -> ((Cargo) v.get(0)).setMass((Integer) v.get(1));
+            case CARGO_OWNER -> ((Cargo) v.get(0)).setOwner((String) v.get(1));
+            case CARGO_DESTINATION -> ((Cargo) v.get(0)).setDestination((Galaxy) v.get(1));
+            case CARGO_SHIP -> {
+                Cargo cargo = (Cargo) v.get(0);
+                if (v.get(1) == null) cargo.setShip(null);
+                else ((Ship) v.get(1)).restoreCargo(cargo);
+            }
+            case CONTRACT_CREATED -> objects.get(CONTRACT).add(Contract.constructor((String) v.get(1),
+                    (Double) v.get(2), (Ship) v.get(3), (CrewMember) v.get(4)));
+            case CONTRACT_ROLE -> ((Contract) v.get(0)).setRole((String) v.get(1));
+            case CONTRACT_SALARY -> ((Contract) v.get(0)).setSalary((Double) v.get(1));
+            case CONTRACT_TERMINATED -> {
+                Contract contract = (Contract) v.get(0);
+                contract.getShip().removeContract(contract);
+            }
+            case OBJECT_DELETED -> ((ObjectPlus) v.get(0)).delete();
+            default -> throw new RuntimeException("Unknown journal record type " + type);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.classes;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds that many threads can record into at once.
+ * <p>
+ * Durations below 8 ns have a bucket each. Longer ones are bucketed by their power of two, each
+ * power being split into 8 equal buckets, so that a percentile read from the histogram is off by
+ * at most an eighth of its value. Recording takes no lock and the histogram never grows.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds, negative durations counting as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Retrieves the number of durations recorded.
+     *
+     * @return The number of durations.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Retrieves the longest duration recorded.
+     *
+     * @return The longest duration in nanoseconds, 0 if none was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Computes the mean of the durations recorded.
+     *
+     * @return The mean duration in nanoseconds, 0 if none was recorded.
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Finds the duration below which the given share of the recorded durations fall, as the
+     * upper bound of the bucket it is in.
+     *
+     * @param percentile The share, from 0 to 100.
+     * @return The duration in nanoseconds, 0 if none was recorded.
+     * @throws RuntimeException If percentile is not between 0 and 100.
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) throw new RuntimeException("Percentile must be between 0 and 100");
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            snapshot[bucket] = counts.get(bucket);
+            total += snapshot[bucket];
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += snapshot[bucket];
+            if (seen >= rank) return Math.min(upperBoundOf(bucket), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Finds the bucket a duration falls into.
+     *
+     * @param nanos The duration, not negative.
+     * @return The index of the bucket.
+     */
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Finds the longest duration that falls into a bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @return The duration.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + subBucket) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.classes;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A choice of cargo to load onto a ship, as made by {@link CargoLoadPlanner}.
+ * The plan changes nothing until it is applied.
+ */
+public class LoadPlan {
+    private final Ship ship;
+    private final List<Cargo> cargo;
+    private final long totalMass;
+    private final long totalValue;
+
+    /**
+     * Constructs a load plan.
+     *
+     * @param ship       The ship to load.
+     * @param cargo      The cargo chosen for the ship.
+     * @param totalMass  The total mass of the chosen cargo.
+     * @param totalValue The total value of the chosen cargo.
+     */
+    LoadPlan(Ship ship, List<Cargo> cargo, long totalMass, long totalValue) {
+        this.ship = ship;
+        this.cargo = Collections.unmodifiableList(cargo);
+        this.totalMass = totalMass;
+        this.totalValue = totalValue;
+    }
+
+    /**
+     * Retrieves the ship the plan is for.
+     *
+     * @return The ship.
+     */
+    public Ship getShip() {
+        return ship;
+    }
+
+    /**
+     * Retrieves the cargo chosen for the ship.
+     *
+     * @return An unmodifiable list of the chosen cargo.
+     */
+    public List<Cargo> getCargo() {
+        return cargo;
+    }
+
+    /**
+     * Retrieves the total mass of the chosen cargo.
+     *
+     * @return The total mass.
+     */
+    public long getTotalMass() {
+        return totalMass;
+    }
+
+    /**
+     * Retrieves the total value of the chosen cargo.
+     *
+     * @return The total value.
+     */
+    public long getTotalValue() {
+        return totalValue;
+    }
+
+    /**
+     * Loads the chosen cargo onto the ship. The plan is checked again while holding the lock of
+     * the ship, so nothing is loaded if the ship's remaining capacity shrank or some of the cargo
+     * was loaded elsewhere in the meantime.
+     *
+     * @throws RuntimeException If the plan no longer fits the ship.
+     */
+    public void apply() {
+        Snapshot.requireCargoOf(ship);
+        Ship.withCargoLocks(List.of(ship), () -> {
+            if (totalMass > ship.getRemainingCapacity())
+                throw new RuntimeException("Planned cargo exceeds the remaining capacity of the ship");
+            for (Cargo c : cargo) {
+                if (c.getShip() != null) throw new RuntimeException("Planned cargo is already on a ship");
+            }
+            ship.loadFreeCargo(cargo);
+            ship.logLoaded(cargo);
+        });
+    }
+}
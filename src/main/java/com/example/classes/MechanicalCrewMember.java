@@ -34,7 +34,11 @@ public class MechanicalCrewMember extends CrewMember implements Serializable {
     public static MechanicalCrewMember constructor(String serialNumber, String modelNumber) {
         Util.validString(serialNumber);
         Util.validString(modelNumber);
-        return new MechanicalCrewMember(serialNumber, modelNumber);
+        return Journal.mutate(() -> {
+            MechanicalCrewMember created = new MechanicalCrewMember(serialNumber, modelNumber);
+            Journal.logCreated(Journal.MECHANICAL_CREW_MEMBER_CREATED, created, serialNumber, modelNumber);
+            return created;
+        });
     }
 
     /**
@@ -54,7 +58,12 @@ public class MechanicalCrewMember extends CrewMember implements Serializable {
      */
     public void setSerialNumber(String serialNumber) {
         Util.validString(serialNumber);
-        this.serialNumber = serialNumber;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.serialNumber = serialNumber;
+                Journal.log(Journal.CREW_MEMBER_SERIAL_NUMBER, this, serialNumber);
+            }
+        });
     }
 
     /**
@@ -73,7 +82,12 @@ public class MechanicalCrewMember extends CrewMember implements Serializable {
      * @throws RuntimeException If modelNumber is invalid
      */
     public void setModelNumber(String modelNumber) {
-        this.modelNumber = modelNumber;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.modelNumber = modelNumber;
+                Journal.log(Journal.CREW_MEMBER_MODEL_NUMBER, this, modelNumber);
+            }
+        });
     }
 
     /**
@@ -0,0 +1,5 @@
+package com.example.classes;
+
+public enum MeteredOperation {
+    ShipAddCargo, ShipRemoveCargo, ShipCanGoToGalaxy, GalaxyAddCargo, ContractConstructor, SnapshotWrite, SnapshotRead
+}
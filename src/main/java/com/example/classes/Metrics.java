@@ -0,0 +1,348 @@
+package com.example.classes;
+
+import javax.management.*;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Metrics class counts and times the main operations of the domain classes and reports the
+ * number of objects of each class in memory.
+ * <p>
+ * Each {@link MeteredOperation} has a striped counter, so that threads counting at the same time
+ * do not contend, and a {@link LatencyHistogram} of its durations; neither allocates when
+ * recording. An operation is counted when it completes normally; calls that change nothing and
+ * calls that fail are not counted. Operations that take well under a microsecond are timed
+ * for one call in {@value #SAMPLE_INTERVAL}, picked at random, as reading the clock would cost
+ * as much as the operation itself; their counts are exact. Extent sizes are read when they are
+ * reported and cost nothing before, and reading them does not load objects from a snapshot
+ * opened lazily.
+ * <p>
+ * Metrics are on unless the {@code spaceship.metrics} system property is {@code off} at
+ * startup, in which case they cost nothing and can not be switched on. Otherwise they can be
+ * switched off and on at any time, and while off an instrumented operation only reads a flag.
+ * They are reported as text by {@link #dump}, periodically by {@link #startDump} and over JMX
+ * once {@link #registerMBean} has been called.
+ */
+public class Metrics {
+    /**
+     * The name the metrics are registered under in the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "com.example.classes:type=Metrics";
+
+    /**
+     * One call in this many of a sampled operation is timed.
+     */
+    public static final int SAMPLE_INTERVAL = 16;
+
+    /**
+     * The start of an operation that is not counted because metrics were off when it started.
+     */
+    private static final long NOT_COUNTED = Long.MIN_VALUE;
+    /**
+     * The start of an operation that is counted but not timed.
+     */
+    private static final long NOT_TIMED = Long.MIN_VALUE + 1;
+
+    /**
+     * Whether metrics may be switched on, fixed at startup so that the checks fold away when not.
+     */
+    private static final boolean AVAILABLE = !"off".equals(System.getProperty("spaceship.metrics"));
+
+    private static final MeteredOperation[] OPERATIONS = MeteredOperation.values();
+    private static final Set<MeteredOperation> SAMPLED = EnumSet.of(MeteredOperation.ShipAddCargo,
+            MeteredOperation.ShipRemoveCargo, MeteredOperation.ShipCanGoToGalaxy, MeteredOperation.GalaxyAddCargo);
+    private static final List<Class<?>> GAUGED_CLASSES = List.of(Galaxy.class, Ship.class, CrewMember.class, Cargo.class, Contract.class);
+
+    private static final boolean[] sampled = new boolean[OPERATIONS.length];
+    private static final LongAdder[] counts = new LongAdder[OPERATIONS.length];
+    private static final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private static volatile boolean enabled = AVAILABLE;
+
+    private static ScheduledExecutorService dumper;
+    private static ScheduledFuture<?> dump;
+
+    static {
+        for (MeteredOperation operation : OPERATIONS) {
+            sampled[operation.ordinal()] = SAMPLED.contains(operation);
+            counts[operation.ordinal()] = new LongAdder();
+            latencies[operation.ordinal()] = new LatencyHistogram();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Checks if operations are being recorded.
+     *
+     * @return True if metrics are on, false otherwise.
+     */
+    public static boolean isEnabled() {
+        return AVAILABLE && enabled;
+    }
+
+    /**
+     * Switches recording of operations on or off. What was recorded is kept.
+     *
+     * @param enabled Whether to record operations.
+     * @throws RuntimeException If metrics are switched on after being switched off at startup.
+     */
+    public static void setEnabled(boolean enabled) {
+        if (enabled && !AVAILABLE) throw new RuntimeException("Metrics were switched off at startup");
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * Marks the start of an operation.
+     *
+     * @param operation The operation.
+     * @return The start time to pass to {@link #record}, or a mark that the call is not counted or not timed.
+     */
+    static long start(MeteredOperation operation) {
+        if (!AVAILABLE || !enabled) return NOT_COUNTED;
+        if (sampled[operation.ordinal()] && ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL) != 0) return NOT_TIMED;
+        return System.nanoTime();
+    }
+
+    /**
+     * Records an operation that completed, unless metrics were off when it started.
+     *
+     * @param operation The operation.
+     * @param start     The value returned by {@link #start} when the operation started.
+     */
+    static void record(MeteredOperation operation, long start) {
+        if (start == NOT_COUNTED) return;
+        counts[operation.ordinal()].increment();
+        if (start != NOT_TIMED) latencies[operation.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /**
+     * Retrieves the number of times an operation completed while metrics were on.
+     *
+     * @param operation The operation.
+     * @return The number of operations.
+     */
+    public static long getCount(MeteredOperation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    /**
+     * Retrieves the durations of an operation, of every call or of a sample of the calls.
+     *
+     * @param operation The operation.
+     * @return The histogram of its durations.
+     */
+    public static LatencyHistogram getLatency(MeteredOperation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * Retrieves the number of objects of a class and its subclasses in memory.
+     *
+     * @param type The class.
+     * @return The number of objects.
+     */
+    public static int getExtentSize(Class<?> type) {
+        return ObjectPlus.getLoadedExtentCount(type);
+    }
+
+    /**
+     * Describes all metrics as a table: a row per operation with its count and durations, and a
+     * row per class with its number of objects.
+     *
+     * @return The table.
+     */
+    public static String dump() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "%-20s %12s %10s %10s %10s %12s%n", "operation", "count", "mean ns", "p50 ns", "p99 ns", "max ns"));
+        for (MeteredOperation operation : OPERATIONS) {
+            LatencyHistogram latency = getLatency(operation);
+            text.append(String.format(Locale.ROOT, "%-20s %12d %10.0f %10d %10d %12d%n", operation, getCount(operation),
+                    latency.getMean(), latency.getPercentile(50), latency.getPercentile(99), latency.getMax()));
+        }
+        text.append(String.format(Locale.ROOT, "%-20s %12s%n", "extent", "objects"));
+        for (Class<?> type : GAUGED_CLASSES) {
+            text.append(String.format(Locale.ROOT, "%-20s %12d%n", type.getSimpleName(), getExtentSize(type)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Prints {@link #dump} to a stream at a fixed rate from a background thread, replacing an
+     * earlier periodic dump.
+     *
+     * @param out          The stream to print to.
+     * @param periodMillis The time between two dumps, in milliseconds.
+     * @throws RuntimeException If out is null or periodMillis is not positive.
+     */
+    public static synchronized void startDump(PrintStream out, long periodMillis) {
+        if (out == null) throw new RuntimeException("Output can not be null");
+        if (periodMillis <= 0) throw new RuntimeException("Period must be positive");
+        stopDump();
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        dump = dumper.scheduleAtFixedRate(() -> out.print(dump()), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic dump, if there is one.
+     */
+    public static synchronized void stopDump() {
+        if (dump != null) dump.cancel(false);
+        dump = null;
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server under {@link #OBJECT_NAME}, unless they
+     * are registered already. Every metric is an attribute: {@code Enabled}, which can be set,
+     * then for each operation its {@code Count}, {@code MeanNanos}, {@code P50Nanos},
+     * {@code P99Nanos} and {@code MaxNanos} prefixed by its name, and for each class its
+     * {@code Extent} prefixed by its name. The {@code dump} operation returns {@link #dump}.
+     *
+     * @throws RuntimeException If the metrics can not be registered.
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(new MetricsBean(), name);
+        } catch (JMException e) {
+            throw new RuntimeException("Can not register metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The metrics as a dynamic MBean, with an attribute per metric.
+     */
+    private static class MetricsBean implements DynamicMBean {
+        private static final String[] SUFFIXES = {"Count", "MeanNanos", "P50Nanos", "P99Nanos", "MaxNanos"};
+
+        private final MBeanInfo info;
+
+        /**
+         * Describes the attributes and the operation of the bean.
+         */
+        private MetricsBean() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            attributes.add(new MBeanAttributeInfo("Enabled", "boolean", "Whether operations are recorded", true, true, true));
+            for (MeteredOperation operation : OPERATIONS) {
+                for (String suffix : SUFFIXES) {
+                    String type = suffix.equals("MeanNanos") ? "double" : "long";
+                    attributes.add(new MBeanAttributeInfo(operation + suffix, type, suffix + " of " + operation, true, false, false));
+                }
+            }
+            for (Class<?> gauged : GAUGED_CLASSES) {
+                attributes.add(new MBeanAttributeInfo(gauged.getSimpleName() + "Extent", "int",
+                        "Objects of " + gauged.getSimpleName() + " in memory", true, false, false));
+            }
+            MBeanOperationInfo dumpInfo = new MBeanOperationInfo("dump", "All metrics as a table",
+                    new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO);
+            info = new MBeanInfo(Metrics.class.getName(), "Metrics of the domain classes",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[]{dumpInfo}, null);
+        }
+
+        /**
+         * Retrieves the value of a metric.
+         */
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            if (attribute.equals("Enabled")) return isEnabled();
+            for (Class<?> gauged : GAUGED_CLASSES) {
+                if (attribute.equals(gauged.getSimpleName() + "Extent")) return getExtentSize(gauged);
+            }
+            for (MeteredOperation operation : OPERATIONS) {
+                String name = operation.toString();
+                if (!attribute.startsWith(name)) continue;
+                LatencyHistogram latency = getLatency(operation);
+                switch (attribute.substring(name.length())) {
+                    case "Count" -> {
+                        return getCount(operation);
+                    }
+                    case "MeanNanos" -> {
+                        return latency.getMean();
+                    }
+                    case "P50Nanos" -> {
+                        return latency.getPercentile(50);
+                    }
+                    case "P99Nanos" -> {
+                        return latency.getPercentile(99);
+                    }
+                    case "MaxNanos" -> {
+                        return latency.getMax();
+                    }
+                    default -> {
+                    }
+                }
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        /**
+         * Switches metrics on or off, the only attribute that can be set.
+         */
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException, InvalidAttributeValueException {
+            if (!attribute.getName().equals("Enabled")) throw new AttributeNotFoundException(attribute.getName());
+            if (!(attribute.getValue() instanceof Boolean value)) throw new InvalidAttributeValueException("Enabled must be a boolean");
+            setEnabled(value);
+        }
+
+        /**
+         * Retrieves the values of several metrics, skipping unknown ones.
+         */
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // left out, as the contract of getAttributes asks
+                }
+            }
+            return list;
+        }
+
+        /**
+         * Sets several attributes, skipping those that can not be set.
+         */
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            AttributeList set = new AttributeList();
+            for (Attribute attribute : attributes.asList()) {
+                try {
+                    setAttribute(attribute);
+                    set.add(attribute);
+                } catch (JMException e) {
+                    // left out, as the contract of setAttributes asks
+                }
+            }
+            return set;
+        }
+
+        /**
+         * Runs the dump operation.
+         */
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            if (actionName.equals("dump") && (params == null || params.length == 0)) return dump();
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        /**
+         * Retrieves the description of the attributes and the operation.
+         */
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            return info;
+        }
+    }
+}
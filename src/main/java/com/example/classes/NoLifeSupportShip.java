@@ -38,7 +38,11 @@ public class NoLifeSupportShip extends Ship implements Serializable {
     public static NoLifeSupportShip constructor(String name, int maxCargoMassCapacity, ShipType shipType, Integer solarFlareShieldStrength, String shipAIType) {
         validArgsCheck(name, maxCargoMassCapacity, shipType, solarFlareShieldStrength);
         Util.validString(shipAIType);
-        return new NoLifeSupportShip(name, maxCargoMassCapacity, shipType, solarFlareShieldStrength, shipAIType);
+        return Journal.mutate(() -> {
+            NoLifeSupportShip created = new NoLifeSupportShip(name, maxCargoMassCapacity, shipType, solarFlareShieldStrength, shipAIType);
+            Journal.logCreated(Journal.NO_LIFE_SUPPORT_SHIP_CREATED, created, name, maxCargoMassCapacity, shipType, solarFlareShieldStrength, shipAIType);
+            return created;
+        });
     }
 
     /**
@@ -57,6 +61,11 @@ public class NoLifeSupportShip extends Ship implements Serializable {
      */
     public void setShipAIType(String shipAIType) {
         Util.validString(shipAIType);
-        this.shipAIType = shipAIType;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.shipAIType = shipAIType;
+                Journal.log(Journal.SHIP_AI_TYPE, this, shipAIType);
+            }
+        });
     }
 }
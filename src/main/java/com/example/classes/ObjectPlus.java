@@ -4,10 +4,10 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.HashSet;
-import java.util.Hashtable;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * The ObjectPlus class is an abstract base class that implements
@@ -16,30 +16,51 @@ import java.util.Set;
  * <p>
  * This class maintains a static map of class types to sets of instances.
  * It also provides methods to write and read these extents to and from streams.
+ * <p>
+ * Objects may be created from many threads at once. Each extent is a concurrent set
+ * guarded by its own read-write lock: constructors add to it under the shared lock, so they
+ * do not block each other, and {@link #getExtentSnapshot} copies it under the exclusive lock.
+ * <p>
+ * An object stays in its extent until it is {@link #delete() deleted}. Extents of selected
+ * classes can instead hold their objects weakly, see {@link #setWeakExtent}.
+ * <p>
+ * {@link #getExtent} returns the objects of exactly one class, {@link #getExtentOf} the objects
+ * of a class and all its subclasses, for example all ships or all crew members.
  */
 public abstract class ObjectPlus implements Serializable {
 
     /**
      * A map that holds the extents of each class type.
      */
-    private static Map<Class, Set<ObjectPlus>> allExtents = new Hashtable<>();
+    private static volatile Map<Class, Extent> allExtents = new ConcurrentHashMap<>();
+
+    /**
+     * Class types whose extents hold their objects weakly.
+     */
+    private static final Set<Class> weakExtentTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The extents making up the hierarchy of each queried class type. An entry is only valid
+     * for the registry and the number of extents it was computed from, since extents are only
+     * ever added to a registry.
+     */
+    private static final Map<Class, Hierarchy> hierarchies = new ConcurrentHashMap<>();
 
     /**
      * Constructs an instance of ObjectPlus and adds it to the extent
      * corresponding to its class type. All objects inheriting from ObjectPlus
      * should check validity of all parameters before calling the constructor.
+     * Objects of a snapshot opened lazily are not loaded here; the factories load the
+     * sections the new object has to be checked against, such as the galaxies for a new galaxy code.
      */
     public ObjectPlus() {
-        Set<ObjectPlus> extent = null;
-        Class theClass = this.getClass();
-
-        if (allExtents.containsKey(theClass)) {
-            extent = allExtents.get(theClass);
-        } else {
-            extent = new HashSet<>();
-            allExtents.put(theClass, extent);
+        Extent extent = allExtents.computeIfAbsent(this.getClass(), Extent::new);
+        extent.lock.readLock().lock();
+        try {
+            extent.objects.add(this);
+        } finally {
+            extent.lock.readLock().unlock();
         }
-        extent.add(this);
     }
 
     /**
@@ -49,7 +70,12 @@ public abstract class ObjectPlus implements Serializable {
      * @throws IOException if an I/O error occurs while writing the extents
      */
     public static void writeExtents(ObjectOutputStream stream) throws IOException {
-        stream.writeObject(allExtents);
+        Snapshot.require(Snapshot.ALL);
+        Map<Class, Set<ObjectPlus>> extents = new HashMap<>();
+        for (Map.Entry<Class, Extent> entry : allExtents.entrySet()) {
+            extents.put(entry.getKey(), new HashSet<>(entry.getValue().snapshot()));
+        }
+        stream.writeObject(extents);
     }
 
     /**
@@ -61,7 +87,23 @@ public abstract class ObjectPlus implements Serializable {
      */
     public static void readExtents(ObjectInputStream stream) throws IOException,
             ClassNotFoundException {
-        allExtents = (Hashtable) stream.readObject();
+        Map<Class, Set<ObjectPlus>> extents = (Map<Class, Set<ObjectPlus>>) stream.readObject();
+        Map<Class, Extent> loaded = new ConcurrentHashMap<>();
+        for (Map.Entry<Class, Set<ObjectPlus>> entry : extents.entrySet()) {
+            Extent extent = new Extent(entry.getKey());
+            extent.objects.addAll(entry.getValue());
+            loaded.put(entry.getKey(), extent);
+        }
+        allExtents = loaded;
+        Galaxy.rebuildGalaxyIndexes();
+    }
+
+    /**
+     * Removes all objects from the extents of all class types.
+     */
+    static void clearExtents() {
+        allExtents = new ConcurrentHashMap<>();
+        Galaxy.rebuildGalaxyIndexes();
     }
 
     /**
@@ -74,8 +116,267 @@ public abstract class ObjectPlus implements Serializable {
      */
     public static <T> Iterable<T> getExtent(Class<T> type) throws
             ClassNotFoundException {
-        if (allExtents.containsKey(type)) {
-            return (Iterable<T>) allExtents.get(type);
+        Snapshot.require(Snapshot.sectionOf(type));
+        Extent extent = allExtents.get(type);
+        if (extent != null) {
+            return (Iterable<T>) extent.view();
         } else return null;
     }
+
+    /**
+     * Returns a live, unmodifiable view of the instances of the given class type and all of its
+     * subclasses. Nothing is copied: iteration walks the extent of each subclass in turn and
+     * the size is the sum of their sizes.
+     *
+     * @param <T>  the type of the class
+     * @param type the Class object of the class or interface
+     * @return the instances of the given class type and its subclasses, empty if none exist
+     */
+    public static <T> Collection<T> getExtentOf(Class<T> type) {
+        Snapshot.require(Snapshot.sectionOf(type));
+        List<Extent> extents = hierarchyOf(type);
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                Iterator<Extent> remaining = extents.iterator();
+                return new Iterator<>() {
+                    private Iterator<ObjectPlus> current = Collections.emptyIterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!current.hasNext() && remaining.hasNext()) {
+                            current = remaining.next().view().iterator();
+                        }
+                        return current.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return (T) current.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (Extent extent : extents) size += extent.objects.size();
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of instances of the given class type and all of its subclasses.
+     *
+     * @param type the Class object of the class or interface
+     * @return the number of instances
+     */
+    public static int getExtentCount(Class<?> type) {
+        return getExtentOf(type).size();
+    }
+
+    /**
+     * Returns the number of instances of the given class type and all of its subclasses that are
+     * in memory, without reading objects from a snapshot opened lazily.
+     *
+     * @param type the Class object of the class or interface
+     * @return the number of instances in memory
+     */
+    static int getLoadedExtentCount(Class<?> type) {
+        int size = 0;
+        for (Extent extent : hierarchyOf(type)) size += extent.objects.size();
+        return size;
+    }
+
+    /**
+     * Returns the extents of all class types assignable to the given one, computing them
+     * again only when an extent has been added since they were last computed.
+     *
+     * @param type the Class object of the class or interface
+     * @return the extents
+     */
+    private static List<Extent> hierarchyOf(Class<?> type) {
+        Map<Class, Extent> registry = allExtents;
+        Hierarchy hierarchy = hierarchies.get(type);
+        if (hierarchy != null && hierarchy.registry == registry && hierarchy.extentCount == registry.size()) {
+            return hierarchy.extents;
+        }
+        int extentCount = registry.size();
+        List<Extent> extents = new ArrayList<>();
+        for (Map.Entry<Class, Extent> entry : registry.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey())) extents.add(entry.getValue());
+        }
+        hierarchies.put(type, new Hierarchy(registry, extentCount, extents));
+        return extents;
+    }
+
+    /**
+     * The extents of a class hierarchy, computed from the given registry when it held the given
+     * number of extents.
+     */
+    private static class Hierarchy {
+        private final Map<Class, Extent> registry;
+        private final int extentCount;
+        private final List<Extent> extents;
+
+        /**
+         * @param registry    the registry the extents were taken from
+         * @param extentCount the number of extents in the registry before they were taken
+         * @param extents     the extents of the hierarchy
+         */
+        private Hierarchy(Map<Class, Extent> registry, int extentCount, List<Extent> extents) {
+            this.registry = registry;
+            this.extentCount = extentCount;
+            this.extents = List.copyOf(extents);
+        }
+    }
+
+    /**
+     * Returns a consistent copy of the extent of the given class type. No object of the class
+     * can be added to the extent while the copy is made, so the copy contains exactly the objects
+     * whose construction completed before it. The copy can be processed in parallel.
+     *
+     * @param <T>  the type of the class
+     * @param type the Class object corresponding to the desired type
+     * @return an unmodifiable list of the instances of the given class type, empty if none exist
+     */
+    public static <T> List<T> getExtentSnapshot(Class<T> type) {
+        Snapshot.require(Snapshot.sectionOf(type));
+        Extent extent = allExtents.get(type);
+        if (extent == null) return List.of();
+        return (List<T>) Collections.unmodifiableList(extent.snapshot());
+    }
+
+    /**
+     * Makes the extent of the given class type hold its objects weakly or strongly.
+     * <p>
+     * An object in a weak extent is garbage-collected as soon as nothing else refers to it,
+     * without being deleted. Its associations are not cleaned up and the cargo counts of its
+     * owner are not decreased, so a weak extent only suits objects that are dropped once they
+     * are detached from everything, such as delivered cargo. Objects numbered by an open
+     * {@link Journal} stay reachable until they are deleted.
+     *
+     * @param type the class type
+     * @param weak true to hold the objects weakly, false to hold them strongly
+     */
+    public static void setWeakExtent(Class<? extends ObjectPlus> type, boolean weak) {
+        if (weak) weakExtentTypes.add(type);
+        else weakExtentTypes.remove(type);
+        Extent extent = allExtents.get(type);
+        if (extent != null) extent.setWeak(weak);
+    }
+
+    /**
+     * Removes this object from the extent of its class type without touching its associations.
+     *
+     * @return true if the object was in the extent
+     */
+    public boolean removeFromExtent() {
+        Extent extent = allExtents.get(this.getClass());
+        if (extent == null) return false;
+        extent.lock.readLock().lock();
+        try {
+            return extent.objects.remove(this);
+        } finally {
+            extent.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes this object: detaches it from all associated objects and removes it from its extent,
+     * so that it can be garbage-collected. Deleting an object twice has no further effect.
+     */
+    public void delete() {
+        Journal.mutate(() -> {
+            detach();
+            if (removeFromExtent()) Journal.log(Journal.OBJECT_DELETED, this);
+        });
+    }
+
+    /**
+     * Removes all associations of this object before it is deleted.
+     * Classes with associations override this method.
+     */
+    protected void detach() {
+    }
+
+    /**
+     * The instances of one class type together with the lock guarding copies of them.
+     */
+    private static class Extent {
+        private volatile Set<ObjectPlus> objects;
+        private volatile boolean weak;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * Creates an empty extent, weak if the class type was marked weak.
+         *
+         * @param type the class type of the instances
+         */
+        private Extent(Class type) {
+            weak = weakExtentTypes.contains(type);
+            objects = newSet(weak);
+        }
+
+        /**
+         * Creates an empty set suitable for a weak or strong extent.
+         *
+         * @param weak whether the set should hold its elements weakly
+         * @return the set
+         */
+        private static Set<ObjectPlus> newSet(boolean weak) {
+            if (weak) return Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+            return ConcurrentHashMap.newKeySet();
+        }
+
+        /**
+         * Moves the instances to a weak or strong set.
+         *
+         * @param weak whether the instances should be held weakly
+         */
+        private void setWeak(boolean weak) {
+            lock.writeLock().lock();
+            try {
+                if (this.weak == weak) return;
+                Set<ObjectPlus> moved = newSet(weak);
+                moved.addAll(objects);
+                objects = moved;
+                this.weak = weak;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Returns the instances for iteration: a live view of a strong extent, or a copy of a weak
+         * one, whose set can not be iterated while other threads modify it.
+         *
+         * @return the instances
+         */
+        private Collection<ObjectPlus> view() {
+            if (weak) return Collections.unmodifiableList(snapshot());
+            return Collections.unmodifiableSet(objects);
+        }
+
+        /**
+         * Copies the instances while no instance can be added.
+         *
+         * @return a list of the instances
+         */
+        private List<ObjectPlus> snapshot() {
+            lock.writeLock().lock();
+            try {
+                if (weak) {
+                    synchronized (objects) {
+                        return new ArrayList<>(objects);
+                    }
+                }
+                return new ArrayList<>(objects);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
 }
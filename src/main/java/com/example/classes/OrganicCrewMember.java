@@ -36,7 +36,11 @@ public class OrganicCrewMember extends CrewMember implements Serializable {
      */
     public static OrganicCrewMember constructor(String name, FoodType acceptableFoodType) {
         Util.validString(name);
-        return new OrganicCrewMember(name, acceptableFoodType);
+        return Journal.mutate(() -> {
+            OrganicCrewMember created = new OrganicCrewMember(name, acceptableFoodType);
+            Journal.logCreated(Journal.ORGANIC_CREW_MEMBER_CREATED, created, name, acceptableFoodType);
+            return created;
+        });
     }
 
     /**
@@ -73,7 +77,12 @@ public class OrganicCrewMember extends CrewMember implements Serializable {
      */
     public void setName(String name) {
         Util.validString(name);
-        this.name = name;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.name = name;
+                Journal.log(Journal.CREW_MEMBER_NAME, this, name);
+            }
+        });
     }
 
     /**
@@ -91,6 +100,11 @@ public class OrganicCrewMember extends CrewMember implements Serializable {
      * @param acceptableFoodType The acceptable food type to set.
      */
     public void setAcceptableFoodType(FoodType acceptableFoodType) {
-        this.acceptableFoodType = acceptableFoodType;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.acceptableFoodType = acceptableFoodType;
+                Journal.log(Journal.CREW_MEMBER_FOOD_TYPE, this, acceptableFoodType);
+            }
+        });
     }
 }
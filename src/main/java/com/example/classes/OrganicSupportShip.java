@@ -40,7 +40,11 @@ public class OrganicSupportShip extends Ship implements Serializable {
      */
     public static OrganicSupportShip constructor(String name, int maxCargoMassCapacity, ShipType shipType, Integer solarFlareShieldStrength, Set<FoodType> foodTypes) {
         validArgsCheck(name, maxCargoMassCapacity, shipType, solarFlareShieldStrength);
-        return new OrganicSupportShip(name, maxCargoMassCapacity, shipType, solarFlareShieldStrength, foodTypes);
+        return Journal.mutate(() -> {
+            OrganicSupportShip created = new OrganicSupportShip(name, maxCargoMassCapacity, shipType, solarFlareShieldStrength, foodTypes);
+            Journal.logCreated(Journal.ORGANIC_SUPPORT_SHIP_CREATED, created, name, maxCargoMassCapacity, shipType, solarFlareShieldStrength, foodTypes);
+            return created;
+        });
     }
 
     /**
@@ -62,6 +66,11 @@ public class OrganicSupportShip extends Ship implements Serializable {
         if (foodTypes == null) {
             throw new RuntimeException("Food types can not be null");
         }
-        this.foodTypes = foodTypes;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.foodTypes = foodTypes;
+                Journal.log(Journal.SHIP_FOOD_TYPES, this, foodTypes);
+            }
+        });
     }
 }
@@ -0,0 +1,59 @@
+package com.example.classes;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A path through the route network, as found by {@link RouteNetwork}.
+ */
+public class Route {
+    private final List<Galaxy> galaxies;
+    private final double distance;
+
+    /**
+     * Constructs a route.
+     *
+     * @param galaxies The galaxies passed, from the start to the end of the route.
+     * @param distance The total distance of the route.
+     */
+    Route(List<Galaxy> galaxies, double distance) {
+        this.galaxies = Collections.unmodifiableList(galaxies);
+        this.distance = distance;
+    }
+
+    /**
+     * Retrieves the galaxies passed, including the start and the end of the route.
+     *
+     * @return An unmodifiable list of galaxies.
+     */
+    public List<Galaxy> getGalaxies() {
+        return galaxies;
+    }
+
+    /**
+     * Retrieves the galaxy the route starts in.
+     *
+     * @return The start galaxy.
+     */
+    public Galaxy getStart() {
+        return galaxies.get(0);
+    }
+
+    /**
+     * Retrieves the galaxy the route ends in.
+     *
+     * @return The end galaxy.
+     */
+    public Galaxy getEnd() {
+        return galaxies.get(galaxies.size() - 1);
+    }
+
+    /**
+     * Retrieves the total distance of the route.
+     *
+     * @return The distance.
+     */
+    public double getDistance() {
+        return distance;
+    }
+}
@@ -0,0 +1,548 @@
+package com.example.classes;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The RouteNetwork class finds the shortest routes between galaxies over the routes connecting them.
+ * <p>
+ * A ship may only pass through galaxies it can go to, so the shortest routes depend on the
+ * protection of the ship. Ships with the same protection share one capability class, and for
+ * each class the shortest routes from a start galaxy are computed all at once with Dijkstra's
+ * algorithm and cached. Later queries from the same start are answered from the cache until
+ * some route changes or the set of galaxies the class may pass through changes, which drops
+ * the cached routes of that class only. Each class keeps the routes of a bounded number of start
+ * galaxies, fewer the more galaxies there are, and drops the least recently used first. The
+ * routes themselves are copied into arrays indexed by galaxy id each time they change, so that
+ * the search does not walk the route maps of the galaxies. The galaxy a route starts in is always
+ * allowed, since a ship may already be there.
+ */
+public class RouteNetwork {
+    /**
+     * Cached shortest routes by the solar flare shield strength of the ships they are for,
+     * -1 standing for ships without protection.
+     */
+    private static final Map<Integer, Cache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * The number of distances one capability class caches at most, summed over its start galaxies.
+     */
+    private static final int CACHED_DISTANCE_LIMIT = 1 << 22;
+
+    /**
+     * The number of start galaxies one capability class caches at least.
+     */
+    private static final int MIN_CACHED_STARTS = 16;
+
+    /**
+     * The routes between all galaxies as of the last route version they were needed at.
+     */
+    private static volatile Graph graph;
+
+    /**
+     * Working arrays of the searches for a nearest galaxy, one set per thread.
+     */
+    private static final ThreadLocal<SearchSpace> searchSpaces = ThreadLocal.withInitial(SearchSpace::new);
+
+    /**
+     * Finds the shortest route a ship can take from the galaxy it is in to the given galaxy.
+     *
+     * @param ship The ship to find the route for.
+     * @param to   The galaxy to go to.
+     * @return The shortest route, or null if the ship can not get there.
+     * @throws RuntimeException If ship or to is null or the ship is in no galaxy.
+     */
+    public static Route shortestRoute(Ship ship, Galaxy to) {
+        if (ship == null) throw new RuntimeException("Ship can not be null");
+        if (ship.getGalaxy() == null) throw new RuntimeException("Ship is in no galaxy");
+        return shortestRoute(ship, ship.getGalaxy(), to);
+    }
+
+    /**
+     * Finds the shortest route a ship can take between two galaxies.
+     *
+     * @param ship The ship to find the route for.
+     * @param from The galaxy to start in.
+     * @param to   The galaxy to go to.
+     * @return The shortest route, or null if the ship can not get there.
+     * @throws RuntimeException If any argument is null.
+     */
+    public static Route shortestRoute(Ship ship, Galaxy from, Galaxy to) {
+        if (ship == null) throw new RuntimeException("Ship can not be null");
+        Integer shield = ship.getShipType() == ShipType.Shielded ? ship.getSolarFlareShieldStrength() : null;
+        return shortestRoute(ship.getShipType(), shield, from, to);
+    }
+
+    /**
+     * Finds the shortest route between two galaxies for ships with the given protection.
+     *
+     * @param shipType                 The type of the ships.
+     * @param solarFlareShieldStrength The shield strength of the ships, used for shielded ships only.
+     * @param from                     The galaxy to start in.
+     * @param to                       The galaxy to go to.
+     * @return The shortest route, or null if such ships can not get there.
+     * @throws RuntimeException If shipType, from or to is null, or the ships are shielded and
+     *                          solarFlareShieldStrength is null.
+     */
+    public static Route shortestRoute(ShipType shipType, Integer solarFlareShieldStrength, Galaxy from, Galaxy to) {
+        if (to == null) throw new RuntimeException("Galaxy can not be null");
+        ShortestRoutes routes = shortestRoutesFrom(shipType, solarFlareShieldStrength, from);
+        double distance = routes.distanceTo(to);
+        if (distance == Double.POSITIVE_INFINITY) return null;
+        return route(from, to, distance, routes.previous);
+    }
+
+    /**
+     * Finds the length of the shortest route between two galaxies for ships with the given protection.
+     *
+     * @param shipType                 The type of the ships.
+     * @param solarFlareShieldStrength The shield strength of the ships, used for shielded ships only.
+     * @param from                     The galaxy to start in.
+     * @param to                       The galaxy to go to.
+     * @return The distance, or {@link Double#POSITIVE_INFINITY} if such ships can not get there.
+     * @throws RuntimeException If shipType, from or to is null, or the ships are shielded and
+     *                          solarFlareShieldStrength is null.
+     */
+    public static double distance(ShipType shipType, Integer solarFlareShieldStrength, Galaxy from, Galaxy to) {
+        if (to == null) throw new RuntimeException("Galaxy can not be null");
+        return shortestRoutesFrom(shipType, solarFlareShieldStrength, from).distanceTo(to);
+    }
+
+    /**
+     * Finds the shortest route from a galaxy to the nearest of the given galaxies, ties going to
+     * the galaxy with the lower id. Only routes up to the given length are considered, so the
+     * search stops early and its result is not cached, but cached routes are used if there are any.
+     *
+     * @param shipType                 The type of the ships.
+     * @param solarFlareShieldStrength The shield strength of the ships, used for shielded ships only.
+     * @param from                     The galaxy to start in.
+     * @param targets                  The galaxies to choose from.
+     * @param maxDistance              The greatest length of the route.
+     * @return The shortest route, or null if such ships can not get to any of the galaxies within the distance.
+     * @throws RuntimeException If shipType, from or targets is null, or the ships are shielded and
+     *                          solarFlareShieldStrength is null.
+     */
+    public static Route nearestRoute(ShipType shipType, Integer solarFlareShieldStrength, Galaxy from,
+                                     Collection<Galaxy> targets, double maxDistance) {
+        if (targets == null) throw new RuntimeException("Galaxies can not be null");
+        Cache cache = cacheFor(shipType, solarFlareShieldStrength, from);
+        ShortestRoutes cached = cache.get(from);
+        if (cached != null) {
+            Galaxy nearest = null;
+            for (Galaxy target : targets) {
+                if (target == null) continue;
+                double distance = cached.distanceTo(target);
+                if (distance > maxDistance || distance == Double.POSITIVE_INFINITY) continue;
+                if (nearest == null || distance < cached.distanceTo(nearest)
+                        || distance == cached.distanceTo(nearest) && target.getId() < nearest.getId()) {
+                    nearest = target;
+                }
+            }
+            return nearest == null ? null : route(from, nearest, cached.distanceTo(nearest), cached.previous);
+        }
+
+        SearchSpace space = searchSpaces.get();
+        Graph graph = cache.graph;
+        BitSet mask = cache.mask;
+        int bound = Math.max(graph.bound, from.getId() + 1);
+        int stamp = space.reset(bound);
+        for (Galaxy target : targets) {
+            if (target != null && target.getId() < bound) space.targets[target.getId()] = stamp;
+        }
+        double[] distances = space.distances;
+        int[] previous = space.previous;
+        int[] seen = space.seen;
+        double[] keys = space.keys;
+        int[] ids = space.ids;
+        int size = 0;
+        int nearest = -1;
+        seen[from.getId()] = stamp;
+        distances[from.getId()] = 0;
+        previous[from.getId()] = -1;
+        keys[0] = 0;
+        ids[size++] = from.getId();
+        while (size > 0) {
+            int id = ids[0];
+            double distance = keys[0];
+            if (distance > maxDistance || nearest >= 0 && distance > distances[nearest]) break;
+            size--;
+            siftDown(keys, ids, size, keys[size], ids[size]);
+            if (seen[id] == -stamp || distance > distances[id]) continue;
+            seen[id] = -stamp;
+            if (space.targets[id] == stamp && (nearest < 0 || id < nearest)) nearest = id;
+            if (id >= graph.bound) continue;
+            for (int route = graph.offsets[id]; route < graph.offsets[id + 1]; route++) {
+                int nextId = graph.targets[route];
+                if (seen[nextId] == -stamp) continue;
+                double candidate = distance + graph.lengths[route];
+                if (seen[nextId] == stamp && candidate >= distances[nextId] || !mask.get(nextId)) continue;
+                seen[nextId] = stamp;
+                distances[nextId] = candidate;
+                previous[nextId] = id;
+                if (size == ids.length) {
+                    keys = space.keys = Arrays.copyOf(keys, size * 2);
+                    ids = space.ids = Arrays.copyOf(ids, size * 2);
+                }
+                siftUp(keys, ids, size++, candidate, nextId);
+            }
+        }
+        return nearest < 0 ? null : route(from, Galaxy.findById(nearest), distances[nearest], previous);
+    }
+
+    /**
+     * Builds a route by following the galaxies before each galaxy back from its end.
+     *
+     * @param from     The galaxy the route starts in.
+     * @param to       The galaxy the route ends in.
+     * @param distance The length of the route.
+     * @param previous The ids of the galaxies before each galaxy, -1 for the start.
+     * @return The route.
+     */
+    private static Route route(Galaxy from, Galaxy to, double distance, int[] previous) {
+        LinkedList<Galaxy> galaxies = new LinkedList<>();
+        galaxies.add(to);
+        for (int id = to.getId(); id != from.getId(); id = previous[id]) {
+            galaxies.addFirst(Galaxy.findById(previous[id]));
+        }
+        return new Route(new ArrayList<>(galaxies), distance);
+    }
+
+    /**
+     * Finds the lengths of the shortest routes from a galaxy to all galaxies. The array is shared
+     * with the cache and must not be modified.
+     *
+     * @param shipType                 The type of the ships.
+     * @param solarFlareShieldStrength The shield strength of the ships, used for shielded ships only.
+     * @param from                     The galaxy to start in.
+     * @return The distances indexed by galaxy id, {@link Double#POSITIVE_INFINITY} for galaxies such
+     * ships can not get to. Galaxies created later have ids past its end.
+     * @throws RuntimeException If shipType or from is null, or the ships are shielded and
+     *                          solarFlareShieldStrength is null.
+     */
+    static double[] distancesFrom(ShipType shipType, Integer solarFlareShieldStrength, Galaxy from) {
+        return shortestRoutesFrom(shipType, solarFlareShieldStrength, from).distances;
+    }
+
+    /**
+     * Retrieves the shortest routes from a galaxy for ships with the given protection,
+     * computing them if the cache holds none that are up to date.
+     *
+     * @param shipType                 The type of the ships.
+     * @param solarFlareShieldStrength The shield strength of the ships.
+     * @param from                     The galaxy to start in.
+     * @return The shortest routes.
+     */
+    private static ShortestRoutes shortestRoutesFrom(ShipType shipType, Integer solarFlareShieldStrength, Galaxy from) {
+        Cache cache = cacheFor(shipType, solarFlareShieldStrength, from);
+        ShortestRoutes cached = cache.get(from);
+        return cached != null ? cached : cache.putIfAbsent(from, dijkstra(cache, from));
+    }
+
+    /**
+     * Retrieves the cache of the capability class of ships with the given protection, dropping
+     * the cached routes if the routes or the galaxies the class may pass through changed.
+     *
+     * @param shipType                 The type of the ships.
+     * @param solarFlareShieldStrength The shield strength of the ships.
+     * @param from                     The galaxy to start in, checked only.
+     * @return The cache.
+     * @throws RuntimeException If shipType or from is null, or the ships are shielded and
+     *                          solarFlareShieldStrength is null.
+     */
+    private static Cache cacheFor(ShipType shipType, Integer solarFlareShieldStrength, Galaxy from) {
+        if (shipType == null) throw new RuntimeException("Ship type can not be null");
+        if (shipType == ShipType.Shielded && solarFlareShieldStrength == null)
+            throw new RuntimeException("Shield strength can not be null for shielded ships");
+        if (from == null) throw new RuntimeException("Galaxy can not be null");
+        Snapshot.require(Snapshot.GALAXIES);
+        Integer shield = shipType == ShipType.Shielded ? solarFlareShieldStrength : null;
+        int key = shield == null ? -1 : shield;
+        Graph graph = graph();
+        BitSet mask = Galaxy.reachabilityMask(shipType, shield);
+        Cache cache = caches.get(key);
+        if (cache == null || cache.graph != graph || (cache.mask != mask && !cache.mask.equals(mask))) {
+            cache = new Cache(graph, mask);
+            caches.put(key, cache);
+        } else {
+            cache.mask = mask;
+        }
+        return cache;
+    }
+
+    /**
+     * Retrieves the routes between all galaxies, copying them into arrays if some route changed
+     * since they were last copied.
+     *
+     * @return The routes.
+     */
+    private static Graph graph() {
+        long routeVersion = Galaxy.getRouteVersion();
+        Graph current = graph;
+        if (current != null && current.routeVersion == routeVersion) return current;
+        synchronized (RouteNetwork.class) {
+            current = graph;
+            if (current == null || current.routeVersion != routeVersion) {
+                current = new Graph(routeVersion);
+                graph = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Computes the shortest routes from a galaxy to every galaxy reachable from it. Galaxies are
+     * indexed by their id and the queue is a binary heap of ids ordered by distance, in which a
+     * galaxy may appear again with a shorter distance, its older entries being skipped.
+     *
+     * @param cache The cache of the capability class, holding the routes and the galaxies the class may pass through.
+     * @param from  The galaxy to start in.
+     * @return The shortest routes.
+     */
+    private static ShortestRoutes dijkstra(Cache cache, Galaxy from) {
+        Graph graph = cache.graph;
+        BitSet mask = cache.mask;
+        int bound = Math.max(graph.bound, from.getId() + 1);
+        double[] distances = new double[bound];
+        int[] previous = new int[bound];
+        boolean[] settled = new boolean[bound];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+
+        double[] keys = new double[16];
+        int[] ids = new int[16];
+        int size = 0;
+        distances[from.getId()] = 0;
+        keys[0] = 0;
+        ids[size++] = from.getId();
+        while (size > 0) {
+            int id = ids[0];
+            double distance = keys[0];
+            size--;
+            siftDown(keys, ids, size, keys[size], ids[size]);
+            if (settled[id] || distance > distances[id]) continue;
+            settled[id] = true;
+            if (id >= graph.bound) continue;
+            for (int route = graph.offsets[id]; route < graph.offsets[id + 1]; route++) {
+                int nextId = graph.targets[route];
+                if (settled[nextId]) continue;
+                double candidate = distance + graph.lengths[route];
+                if (candidate >= distances[nextId] || !mask.get(nextId)) continue;
+                distances[nextId] = candidate;
+                previous[nextId] = id;
+                if (size == ids.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                siftUp(keys, ids, size++, candidate, nextId);
+            }
+        }
+        return new ShortestRoutes(distances, previous);
+    }
+
+    /**
+     * Puts an entry into the heap at the given free position and moves it up to its place.
+     *
+     * @param keys     The distances of the heap entries.
+     * @param ids      The galaxy ids of the heap entries.
+     * @param position The free position.
+     * @param key      The distance of the entry.
+     * @param id       The galaxy id of the entry.
+     */
+    private static void siftUp(double[] keys, int[] ids, int position, double key, int id) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            keys[position] = keys[parent];
+            ids[position] = ids[parent];
+            position = parent;
+        }
+        keys[position] = key;
+        ids[position] = id;
+    }
+
+    /**
+     * Puts an entry into the heap at the free root position and moves it down to its place.
+     *
+     * @param keys The distances of the heap entries.
+     * @param ids  The galaxy ids of the heap entries.
+     * @param size The number of entries in the heap, not counting the entry placed.
+     * @param key  The distance of the entry.
+     * @param id   The galaxy id of the entry.
+     */
+    private static void siftDown(double[] keys, int[] ids, int size, double key, int id) {
+        if (size == 0) return;
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) break;
+            if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+            if (keys[child] >= key) break;
+            keys[position] = keys[child];
+            ids[position] = ids[child];
+            position = child;
+        }
+        keys[position] = key;
+        ids[position] = id;
+    }
+
+    /**
+     * The shortest routes from one galaxy, indexed by galaxy id: the distance to each galaxy and
+     * the id of the galaxy before it on its route, -1 for the start and unreachable galaxies.
+     */
+    private static class ShortestRoutes {
+        private final double[] distances;
+        private final int[] previous;
+
+        /**
+         * @param distances The distance to each galaxy.
+         * @param previous  The id of the galaxy before each galaxy on its route.
+         */
+        private ShortestRoutes(double[] distances, int[] previous) {
+            this.distances = distances;
+            this.previous = previous;
+        }
+
+        /**
+         * Retrieves the distance to a galaxy.
+         *
+         * @param galaxy The galaxy.
+         * @return The distance, or {@link Double#POSITIVE_INFINITY} if it can not be reached.
+         */
+        private double distanceTo(Galaxy galaxy) {
+            int id = galaxy.getId();
+            return id < distances.length ? distances[id] : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * The routes between all galaxies in compressed form: the routes from the galaxy with id i are
+     * those from offsets[i] to offsets[i + 1], each leading to the galaxy with the id in targets
+     * and having the length in lengths.
+     */
+    private static class Graph {
+        private final long routeVersion;
+        private final int bound;
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] lengths;
+
+        /**
+         * Copies the routes of all galaxies.
+         *
+         * @param routeVersion The route version the routes are copied at.
+         */
+        private Graph(long routeVersion) {
+            this.routeVersion = routeVersion;
+            bound = Galaxy.getIdBound();
+            offsets = new int[bound + 1];
+            List<Map<Galaxy, Double>> routes = new ArrayList<>(bound);
+            for (int id = 0; id < bound; id++) {
+                Galaxy galaxy = Galaxy.findById(id);
+                Map<Galaxy, Double> from = galaxy == null ? Map.of() : new HashMap<>(galaxy.getRoutes());
+                from.keySet().removeIf(next -> next.getId() >= bound);
+                routes.add(from);
+                offsets[id + 1] = offsets[id] + from.size();
+            }
+            targets = new int[offsets[bound]];
+            lengths = new double[offsets[bound]];
+            for (int id = 0; id < bound; id++) {
+                int route = offsets[id];
+                for (Map.Entry<Galaxy, Double> entry : routes.get(id).entrySet()) {
+                    targets[route] = entry.getKey().getId();
+                    lengths[route++] = entry.getValue();
+                }
+            }
+        }
+    }
+
+    /**
+     * The working arrays of a search for a nearest galaxy, indexed by galaxy id. Instead of
+     * clearing them, each search takes a new stamp: a galaxy whose entry in seen is the stamp has
+     * a tentative distance, one whose entry is minus the stamp is settled, and one whose entry in
+     * targets is the stamp is a target.
+     */
+    private static class SearchSpace {
+        private double[] distances = new double[0];
+        private int[] previous = new int[0];
+        private int[] seen = new int[0];
+        private int[] targets = new int[0];
+        private double[] keys = new double[16];
+        private int[] ids = new int[16];
+        private int stamp;
+
+        /**
+         * Prepares the arrays for a new search.
+         *
+         * @param bound The number of galaxy ids the arrays must cover.
+         * @return The stamp of the search.
+         */
+        private int reset(int bound) {
+            if (distances.length < bound) {
+                distances = new double[bound];
+                previous = new int[bound];
+                seen = new int[bound];
+                targets = new int[bound];
+                stamp = 0;
+            }
+            if (stamp == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(targets, 0);
+                stamp = 0;
+            }
+            return ++stamp;
+        }
+    }
+
+    /**
+     * The shortest routes of one capability class by start galaxy, together with the routes and
+     * the galaxies the class may pass through they were computed for.
+     */
+    private static class Cache {
+        private final Graph graph;
+        private volatile BitSet mask;
+
+        /**
+         * The shortest routes in the order they were last used, guarded by the cache.
+         */
+        private final Map<Galaxy, ShortestRoutes> routes;
+
+        /**
+         * @param graph The routes the shortest routes are computed over.
+         * @param mask  The ids of the galaxies the class may pass through.
+         */
+        private Cache(Graph graph, BitSet mask) {
+            this.graph = graph;
+            this.mask = mask;
+            int capacity = Math.max(MIN_CACHED_STARTS, CACHED_DISTANCE_LIMIT / Math.max(graph.bound, 1));
+            routes = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Galaxy, ShortestRoutes> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        /**
+         * Retrieves the cached shortest routes from a galaxy, marking them as used.
+         *
+         * @param from The galaxy the routes start in.
+         * @return The shortest routes, or null if they are not cached.
+         */
+        private synchronized ShortestRoutes get(Galaxy from) {
+            return routes.get(from);
+        }
+
+        /**
+         * Caches the shortest routes from a galaxy unless another thread cached them first,
+         * dropping the least recently used routes if the cache is full.
+         *
+         * @param from     The galaxy the routes start in.
+         * @param computed The shortest routes.
+         * @return The cached shortest routes.
+         */
+        private synchronized ShortestRoutes putIfAbsent(Galaxy from, ShortestRoutes computed) {
+            ShortestRoutes existing = routes.putIfAbsent(from, computed);
+            return existing != null ? existing : computed;
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package com.example.classes;
 
+import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents an abstract ship with basic attributes and functionality.
  * Provides methods to manage cargo, contracts, and interactions with galaxies.
  * Extends ObjectPlus and implements Serializable.
  */
-public abstract class Ship {
+public abstract class Ship extends ObjectPlus implements Serializable {
 
     private String name;
     private Integer maxCargoMassCapacity;
@@ -18,6 +20,29 @@ public abstract class Ship {
     private Set<Cargo> cargoSet;
     private Set<Contract> contracts;
 
+    /**
+     * Total mass of the cargo currently on the ship, kept up to date on every cargo change.
+     */
+    private int currentCargoMass;
+
+    /**
+     * The cargo on the ship grouped by destination, kept up to date on every cargo change.
+     * Cargo without a destination is grouped under null. Groups and the cargo in them keep
+     * the order they were loaded in, so that iterating them gives the same order every run.
+     */
+    private Map<Galaxy, DestinationGroup> cargoByDestination;
+
+    /**
+     * Read-only views of the cargo of each destination group.
+     */
+    private Map<Galaxy, Set<Cargo>> cargoViewsByDestination;
+
+    /**
+     * Lock taken before the ships' own locks when two of them have the same identity hash code,
+     * so that ships whose order can not be told apart are never locked in two orders at once.
+     */
+    private static final Object TIE_LOCK = new Object();
+
     /**
      * Protected constructor to initialize a Ship object with specified attributes.
      *
@@ -33,8 +58,10 @@ public abstract class Ship {
         this.shipType = shipType;
         this.solarFlareShieldStrength = solarFlareShieldStrength;
 
-        cargoSet = new HashSet<>();
-        contracts = new HashSet<>();
+        cargoSet = new LinkedHashSet<>();
+        cargoByDestination = new LinkedHashMap<>();
+        cargoViewsByDestination = new HashMap<>();
+        contracts = ConcurrentHashMap.newKeySet();
     }
 
     /**
@@ -79,7 +106,12 @@ public abstract class Ship {
      */
     public void setName(String name) {
         Util.validString(name);
-        this.name = name;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.name = name;
+                Journal.log(Journal.SHIP_NAME, this, name);
+            }
+        });
     }
 
     /**
@@ -99,7 +131,12 @@ public abstract class Ship {
      */
     public void setMaxCargoMassCapacity(Integer maxCargoMassCapacity) {
         Util.positiveIntCheck(maxCargoMassCapacity);
-        this.maxCargoMassCapacity = maxCargoMassCapacity;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.maxCargoMassCapacity = maxCargoMassCapacity;
+                Journal.log(Journal.SHIP_CAPACITY, this, maxCargoMassCapacity);
+            }
+        });
     }
 
     /**
@@ -135,7 +172,12 @@ public abstract class Ship {
             throw new RuntimeException("No protection ship does not have solar flare shield strength attribute");
         }
         Util.nonNegativeIntCheck(solarFlareShieldStrength);
-        this.solarFlareShieldStrength = solarFlareShieldStrength;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                this.solarFlareShieldStrength = solarFlareShieldStrength;
+                Journal.log(Journal.SHIP_SHIELD, this, solarFlareShieldStrength);
+            }
+        });
     }
 
     /**
@@ -153,17 +195,30 @@ public abstract class Ship {
      * @param galaxy The galaxy object to set.
      */
     public void setGalaxy(Galaxy galaxy) {
-        if (this.galaxy == galaxy) return;
+        Journal.mutate(() -> {
+            synchronized (this) {
+                Galaxy oldGalaxy = this.galaxy;
+                if (oldGalaxy == galaxy) return;
+
+                if (oldGalaxy != null) oldGalaxy.shipLeft(this);
+                this.galaxy = galaxy;
+                if (galaxy != null) galaxy.shipArrived(this);
+                Journal.log(Journal.SHIP_GALAXY, this, galaxy);
+            }
+        });
+    }
 
-        if (this.galaxy != null) {
-            this.galaxy.removeShip(this);
-            if (galaxy == null) {
-                this.galaxy = null;
-                return;
+    /**
+     * Leaves the given galaxy if the ship is in it.
+     *
+     * @param galaxy The galaxy to leave.
+     */
+    void leaveGalaxy(Galaxy galaxy) {
+        Journal.mutate(() -> {
+            synchronized (this) {
+                if (this.galaxy == galaxy) setGalaxy(null);
             }
-        }
-        this.galaxy = galaxy;
-        galaxy.addShip(this);
+        });
     }
 
     /**
@@ -172,6 +227,7 @@ public abstract class Ship {
      * @return An unmodifiable set of cargo.
      */
     public Set<Cargo> getCargoSet() {
+        Snapshot.requireCargoOf(this);
         return Collections.unmodifiableSet(cargoSet);
     }
 
@@ -186,12 +242,270 @@ public abstract class Ship {
             throw new RuntimeException("Can not add null");
         }
 
-        if (cargoSet.contains(cargo)) return;
+        long start = Metrics.start(MeteredOperation.ShipAddCargo);
+        Snapshot.requireCargoOf(this);
+        withShipsOf(List.of(cargo), () -> {
+            if (cargoSet.contains(cargo)) return;
+
+            canAddCargoCheck(cargo);
+
+            loadAllCargo(List.of(cargo));
+            Metrics.record(MeteredOperation.ShipAddCargo, start);
+        });
+    }
+
+    /**
+     * Adds all given cargo to the ship's cargo set at once. The total mass is checked against the
+     * capacity of the ship once, before anything is loaded, so either all cargo is loaded or none.
+     * Cargo already on the ship is skipped, cargo on another ship is moved to this one.
+     *
+     * @param cargoList The cargo objects to add.
+     * @throws RuntimeException If the collection or any cargo is null or adding the cargo would exceed total allowed mass.
+     */
+    public void addAllCargo(Collection<Cargo> cargoList) {
+        if (cargoList == null) throw new RuntimeException("Can not add null");
+
+        Snapshot.requireCargoOf(this);
+        for (Cargo cargo : cargoList) {
+            if (cargo == null) throw new RuntimeException("Can not add null");
+        }
+        withShipsOf(cargoList, () -> {
+            Set<Cargo> toLoad = new LinkedHashSet<>();
+            long mass = 0;
+            for (Cargo cargo : cargoList) {
+                if (cargo.getShip() != this && toLoad.add(cargo)) mass += cargo.getMass();
+            }
+            if (currentCargoMass + mass > maxCargoMassCapacity) {
+                throw new RuntimeException("Adding this cargo would exceed total allowed mass");
+            }
+
+            loadAllCargo(toLoad);
+        });
+    }
+
+    /**
+     * Loads cargo whose total mass was checked against the capacity of the ship. Cargo on no
+     * ship may change its mass between the check and the load, so the capacity is checked again
+     * after loading, and if it is exceeded every cargo is put back where it was.
+     * Callers hold the locks of this ship and of every ship the cargo is on.
+     *
+     * @param toLoad The cargo to load.
+     * @throws RuntimeException If the loaded cargo exceeds the total allowed mass.
+     */
+    private void loadAllCargo(Collection<Cargo> toLoad) {
+        Map<Cargo, Ship> previousShips = new LinkedHashMap<>();
+        for (Cargo cargo : toLoad) {
+            previousShips.put(cargo, cargo.getShip());
+            loadCargo(cargo);
+        }
+        if (currentCargoMass > maxCargoMassCapacity) {
+            for (Map.Entry<Cargo, Ship> previous : previousShips.entrySet()) {
+                if (previous.getValue() != null) {
+                    previous.getValue().loadCargo(previous.getKey());
+                } else {
+                    takeOffCargo(previous.getKey());
+                }
+            }
+            throw new RuntimeException("Adding this cargo would exceed total allowed mass");
+        }
+        for (Cargo cargo : toLoad) {
+            Journal.log(Journal.CARGO_SHIP, cargo, this);
+        }
+    }
+
+    /**
+     * Loads cargo that is on no ship, as one part of a load spanning several ships that is only
+     * kept if every part succeeds. Nothing is journalled: the caller logs the load with
+     * {@link #logLoaded} once all parts succeeded, or undoes it with {@link #unloadUnlogged}.
+     * Callers hold the lock of this ship.
+     *
+     * @param toLoad The cargo to load, none of it on a ship.
+     * @throws RuntimeException If some cargo is on a ship or the cargo would exceed the total
+     *                          allowed mass, in which case nothing is loaded.
+     */
+    void loadFreeCargo(Collection<Cargo> toLoad) {
+        List<Cargo> loaded = new ArrayList<>(toLoad.size());
+        for (Cargo cargo : toLoad) {
+            synchronized (cargo) {
+                if (cargo.getShip() != null) {
+                    unloadUnlogged(loaded);
+                    throw new RuntimeException("Assigned cargo is already on a ship");
+                }
+                loadCargo(cargo);
+            }
+            loaded.add(cargo);
+        }
+        if (currentCargoMass > maxCargoMassCapacity) {
+            unloadUnlogged(loaded);
+            throw new RuntimeException("Adding this cargo would exceed total allowed mass");
+        }
+    }
+
+    /**
+     * Takes cargo loaded by {@link #loadFreeCargo} off the ship again. Callers hold the lock of this ship.
+     *
+     * @param loaded The cargo to take off.
+     */
+    void unloadUnlogged(Collection<Cargo> loaded) {
+        for (Cargo cargo : loaded) takeOffCargo(cargo);
+    }
+
+    /**
+     * Journals cargo loaded by {@link #loadFreeCargo}. Callers hold the lock of this ship.
+     *
+     * @param loaded The loaded cargo.
+     */
+    void logLoaded(Collection<Cargo> loaded) {
+        for (Cargo cargo : loaded) {
+            Journal.log(Journal.CARGO_SHIP, cargo, this);
+        }
+    }
+
+    /**
+     * Moves the given cargo from this ship to another ship in one step. Both ships are locked
+     * for the whole move and the target's capacity is checked once, so either all cargo is
+     * moved or none, and no other cargo change on either ship can interleave with it.
+     *
+     * @param target    The ship to move the cargo to.
+     * @param cargoList The cargo to move, all of it on this ship.
+     * @throws RuntimeException If the target or any cargo is null, some cargo is not on this ship
+     *                          or the cargo would exceed the total allowed mass of the target.
+     */
+    public void transferCargo(Ship target, Collection<Cargo> cargoList) {
+        if (target == null) throw new RuntimeException("Target ship can not be null");
+        if (cargoList == null) throw new RuntimeException("Can not transfer null");
+
+        Snapshot.requireCargoOf(this);
+        Snapshot.requireCargoOf(target);
+        withCargoLocks(List.of(this, target), () -> {
+            Set<Cargo> toMove = new LinkedHashSet<>();
+            long mass = 0;
+            for (Cargo cargo : cargoList) {
+                if (cargo == null) throw new RuntimeException("Can not transfer null");
+                if (!cargoSet.contains(cargo)) throw new RuntimeException("Cargo is not on this ship");
+                if (toMove.add(cargo)) mass += cargo.getMass();
+            }
+            if (target == this) return;
+            if (target.currentCargoMass + mass > target.maxCargoMassCapacity) {
+                throw new RuntimeException("Adding this cargo would exceed total allowed mass");
+            }
+
+            for (Cargo cargo : toMove) {
+                target.loadCargo(cargo);
+                Journal.log(Journal.CARGO_SHIP, cargo, target);
+            }
+        });
+    }
+
+    /**
+     * Runs an action while holding the locks of this ship and of every ship the given cargo is on.
+     * The cargo may move while the locks are being taken, in which case they are taken again.
+     *
+     * @param cargoList The cargo whose ships to lock.
+     * @param action    The action to run.
+     */
+    private void withShipsOf(Collection<Cargo> cargoList, Runnable action) {
+        while (true) {
+            Set<Ship> ships = new HashSet<>();
+            ships.add(this);
+            for (Cargo cargo : cargoList) {
+                if (cargo.getShip() != null) ships.add(cargo.getShip());
+            }
+            boolean[] done = {false};
+            withCargoLocks(ships, () -> {
+                for (Cargo cargo : cargoList) {
+                    if (cargo.getShip() != null && !ships.contains(cargo.getShip())) return;
+                }
+                action.run();
+                done[0] = true;
+            });
+            if (done[0]) return;
+        }
+    }
+
+    /**
+     * Runs an action while holding the locks of all given ships. The locks are always taken in
+     * the same order, by identity hash code, so two threads locking overlapping ships can not
+     * deadlock. Every change to the cargo of a ship is made while holding its lock.
+     *
+     * @param ships  The ships to lock.
+     * @param action The action to run.
+     */
+    static void withCargoLocks(Collection<? extends Ship> ships, Runnable action) {
+        Journal.mutate(() -> lockAll(ships, action));
+    }
+
+    /**
+     * Takes the locks of all given ships in their order and runs the action.
+     *
+     * @param ships  The ships to lock.
+     * @param action The action to run.
+     */
+    private static void lockAll(Collection<? extends Ship> ships, Runnable action) {
+        Ship[] ordered = new LinkedHashSet<Ship>(ships).toArray(new Ship[0]);
+        Arrays.sort(ordered, Comparator.comparingInt(System::identityHashCode));
+        boolean tie = false;
+        for (int i = 1; i < ordered.length; i++) {
+            if (System.identityHashCode(ordered[i]) == System.identityHashCode(ordered[i - 1])) tie = true;
+        }
+        if (tie) {
+            synchronized (TIE_LOCK) {
+                lockFrom(ordered, 0, action);
+            }
+        } else {
+            lockFrom(ordered, 0, action);
+        }
+    }
+
+    /**
+     * Takes the locks of the ships from the given index on, in order, and runs the action.
+     *
+     * @param ordered The ships in locking order.
+     * @param index   The index of the next ship to lock.
+     * @param action  The action to run.
+     */
+    private static void lockFrom(Ship[] ordered, int index, Runnable action) {
+        if (index == ordered.length) {
+            action.run();
+            return;
+        }
+        synchronized (ordered[index]) {
+            lockFrom(ordered, index + 1, action);
+        }
+    }
 
-        canAddCargoCheck(cargo);
+    /**
+     * Adds a cargo to the ship's cargo set without checking the capacity of the ship,
+     * taking it off the ship it was on. Also used for cargo restored from a snapshot or journal.
+     * Callers hold the locks of both ships. The cargo is locked while it is moved, so that its
+     * mass can not change in between.
+     *
+     * @param cargo The cargo object to add.
+     */
+    void loadCargo(Cargo cargo) {
+        synchronized (cargo) {
+            Ship previous = cargo.getShip();
+            if (previous == this) return;
+            if (previous != null) previous.takeOffCargo(cargo);
+            cargoSet.add(cargo);
+            currentCargoMass += cargo.getMass();
+            addToDestinationGroup(cargo, cargo.getDestination());
+            cargo.assignShip(this);
+        }
+    }
 
-        cargoSet.add(cargo);
-        cargo.setShip(this);
+    /**
+     * Puts a cargo on the ship as recorded in the journal. The move was checked when it was made,
+     * and moves made together, as in a consolidation, may pass through states over capacity
+     * when replayed one by one, so the capacity is not checked again.
+     *
+     * @param cargo The cargo object to add.
+     */
+    void restoreCargo(Cargo cargo) {
+        withShipsOf(List.of(cargo), () -> {
+            loadCargo(cargo);
+            Journal.log(Journal.CARGO_SHIP, cargo, this);
+        });
     }
 
     /**
@@ -200,11 +514,71 @@ public abstract class Ship {
      * @param cargo The cargo object to remove.
      */
     public void removeCargo(Cargo cargo) {
+        long start = Metrics.start(MeteredOperation.ShipRemoveCargo);
+        Snapshot.requireCargoOf(this);
+        Journal.mutate(() -> {
+            synchronized (this) {
+                if (!cargoSet.contains(cargo)) return;
+                unloadCargo(cargo);
+                Metrics.record(MeteredOperation.ShipRemoveCargo, start);
+            }
+        });
+    }
 
-        if (!cargoSet.contains(cargo)) return;
-        cargoSet.remove(cargo);
-        cargo.setShip(null);
+    /**
+     * Removes all given cargo that is on the ship from the ship's cargo set at once.
+     * Cargo that is not on the ship is ignored.
+     *
+     * @param cargoList The cargo objects to remove.
+     * @throws RuntimeException If the collection is null.
+     */
+    public void removeAllCargo(Collection<Cargo> cargoList) {
+        if (cargoList == null) throw new RuntimeException("Can not remove null");
+
+        Snapshot.requireCargoOf(this);
+        Journal.mutate(() -> {
+            synchronized (this) {
+                for (Cargo cargo : new ArrayList<>(cargoList)) {
+                    if (cargo != null && cargoSet.contains(cargo)) unloadCargo(cargo);
+                }
+            }
+        });
+    }
 
+    /**
+     * Removes a cargo known to be on the ship and clears the cargo's reference to the ship.
+     *
+     * @param cargo The cargo object to remove.
+     */
+    private void unloadCargo(Cargo cargo) {
+        takeOffCargo(cargo);
+        Journal.log(Journal.CARGO_SHIP, cargo, (Object) null);
+    }
+
+    /**
+     * Removes a cargo known to be on the ship without journalling it, as the first half of a move.
+     *
+     * @param cargo The cargo object to remove.
+     */
+    private void takeOffCargo(Cargo cargo) {
+        synchronized (cargo) {
+            cargoSet.remove(cargo);
+            currentCargoMass -= cargo.getMass();
+            removeFromDestinationGroup(cargo, cargo.getDestination());
+            cargo.assignShip(null);
+        }
+    }
+
+    /**
+     * Leaves the galaxy the ship is in, unloads all cargo and terminates all contracts.
+     */
+    @Override
+    protected void detach() {
+        setGalaxy(null);
+        removeAllCargo(getCargoSet());
+        for (Contract contract : new ArrayList<>(getContracts())) {
+            removeContract(contract);
+        }
     }
 
     /**
@@ -213,6 +587,7 @@ public abstract class Ship {
      * @return An unmodifiable set of contracts.
      */
     public Set<Contract> getContracts() {
+        Snapshot.require(Snapshot.CONTRACTS);
         return Collections.unmodifiableSet(contracts);
     }
 
@@ -226,14 +601,17 @@ public abstract class Ship {
     public void addContract(Contract contract) {
         if (contract == null) throw new RuntimeException("Contract can not be null");
 
-        if (contracts.contains(contract)) return;
-        if (contract.getShip() != this) throw new IllegalArgumentException("This contract is not for this ship");
-        for (Contract contr : contracts) {
-            if (contr.getCrewMember() == contract.getCrewMember()) {
-                throw new IllegalArgumentException("Contract between this crew member and ship already exists");
+        Snapshot.require(Snapshot.CONTRACTS);
+        synchronized (contracts) {
+            if (contracts.contains(contract)) return;
+            if (contract.getShip() != this) throw new IllegalArgumentException("This contract is not for this ship");
+            for (Contract contr : contracts) {
+                if (contr.getCrewMember() == contract.getCrewMember()) {
+                    throw new IllegalArgumentException("Contract between this crew member and ship already exists");
+                }
             }
+            contracts.add(contract);
         }
-        contracts.add(contract);
     }
 
     /**
@@ -245,12 +623,15 @@ public abstract class Ship {
     public void removeContract(Contract contract) {
         if (contract == null) throw new RuntimeException("Contract can not be null");
 
-
-        if (!contracts.contains(contract)) return;
-
-        contracts.remove(contract);
-        contract.getCrewMember().removeContract(contract);
-        contract.setToNulls();
+        Snapshot.require(Snapshot.CONTRACTS);
+        Journal.mutate(() -> {
+            CrewMember crewMember = contract.getCrewMember();
+            synchronized (contracts) {
+                if (!contracts.remove(contract)) return;
+            }
+            if (crewMember != null) crewMember.removeContract(contract);
+            contract.setToNulls();
+        });
     }
 
     /**
@@ -258,12 +639,81 @@ public abstract class Ship {
      *
      * @return The current total cargo mass.
      */
-    private int getCurrentCargoMass() {
-        int total = 0;
-        for (Cargo cargo : cargoSet) {
-            total += cargo.getMass();
+    public int getCurrentCargoMass() {
+        Snapshot.requireCargoOf(this);
+        return currentCargoMass;
+    }
+
+    /**
+     * Retrieves the cargo mass that can still be loaded onto the ship.
+     *
+     * @return The remaining cargo mass capacity.
+     */
+    public int getRemainingCapacity() {
+        Snapshot.requireCargoOf(this);
+        return maxCargoMassCapacity - currentCargoMass;
+    }
+
+    /**
+     * Checks that the ship can carry the new mass of one of its cargo and updates the current
+     * cargo mass, in one step. Called by the cargo before it stores its new mass, while holding
+     * the lock of this ship.
+     *
+     * @param cargo The cargo whose mass changes.
+     * @param delta The difference between the new and the old mass of the cargo.
+     * @throws RuntimeException If the new mass would exceed total allowed mass.
+     */
+    synchronized void cargoMassChanged(Cargo cargo, int delta) {
+        if (delta > 0 && currentCargoMass + delta > maxCargoMassCapacity) {
+            throw new RuntimeException("Adding this cargo would exceed total allowed mass");
+        }
+        currentCargoMass += delta;
+        cargoByDestination.get(cargo.getDestination()).mass += delta;
+    }
+
+    /**
+     * Moves a cargo on this ship to the group of its new destination.
+     *
+     * @param cargo          The cargo whose destination changed.
+     * @param oldDestination The previous destination of the cargo.
+     */
+    synchronized void cargoDestinationChanged(Cargo cargo, Galaxy oldDestination) {
+        if (!cargoSet.contains(cargo)) return;
+        removeFromDestinationGroup(cargo, oldDestination);
+        addToDestinationGroup(cargo, cargo.getDestination());
+    }
+
+    /**
+     * Adds a cargo to the group of the given destination.
+     *
+     * @param cargo       The cargo to add.
+     * @param destination The destination to group the cargo by.
+     */
+    private void addToDestinationGroup(Cargo cargo, Galaxy destination) {
+        DestinationGroup group = cargoByDestination.get(destination);
+        if (group == null) {
+            group = new DestinationGroup();
+            cargoByDestination.put(destination, group);
+            cargoViewsByDestination.put(destination, Collections.unmodifiableSet(group.cargo));
+        }
+        group.cargo.add(cargo);
+        group.mass += cargo.getMass();
+    }
+
+    /**
+     * Removes a cargo from the group of the given destination, dropping the group if it becomes empty.
+     *
+     * @param cargo       The cargo to remove.
+     * @param destination The destination the cargo is grouped by.
+     */
+    private void removeFromDestinationGroup(Cargo cargo, Galaxy destination) {
+        DestinationGroup group = cargoByDestination.get(destination);
+        group.cargo.remove(cargo);
+        group.mass -= cargo.getMass();
+        if (group.cargo.isEmpty()) {
+            cargoByDestination.remove(destination);
+            cargoViewsByDestination.remove(destination);
         }
-        return total;
     }
 
     /**
@@ -273,6 +723,7 @@ public abstract class Ship {
      * @throws RuntimeException If adding the cargo would exceed total allowed mass.
      */
     public void canAddCargoCheck(Cargo cargo) {
+        Snapshot.requireCargoOf(this);
         if (getCurrentCargoMass() + cargo.getMass() > maxCargoMassCapacity) {
             throw new RuntimeException("Adding this cargo would exceed total allowed mass");
         }
@@ -285,6 +736,7 @@ public abstract class Ship {
      * @throws RuntimeException If adding the cargo mass would exceed total allowed mass.
      */
     public void canAddCargoCheck(int i) {
+        Snapshot.requireCargoOf(this);
         if (getCurrentCargoMass() + i > maxCargoMassCapacity) {
             throw new RuntimeException("Adding this cargo would exceed total allowed mass");
         }
@@ -299,28 +751,69 @@ public abstract class Ship {
      */
     public boolean canGoToGalaxy(Galaxy galaxy) {
         if (galaxy == null) throw new RuntimeException("Galaxy can not be null");
-        return switch (shipType) {
-            case Shielded -> switch (galaxy.getGalaxyType()) {
-                case Peaceful -> true;
-                case Dangerous ->
-                        !(galaxy.getAtWar() || galaxy.getSolarFlareStrength() > getSolarFlareShieldStrength());
-            };
-            case NoProtection -> galaxy.getGalaxyType().equals(GalaxyType.Peaceful);
-        };
+        long start = Metrics.start(MeteredOperation.ShipCanGoToGalaxy);
+        boolean reachable = galaxy.isReachableWith(shipType, solarFlareShieldStrength);
+        Metrics.record(MeteredOperation.ShipCanGoToGalaxy, start);
+        return reachable;
+    }
+
+    /**
+     * Retrieves the ids of all galaxies the ship can go to, as a bit set over galaxy ids.
+     * Masks of several ships can be combined with bit set operations.
+     *
+     * @return A copy of the reachability mask of the ship.
+     * @see Galaxy#getId()
+     */
+    public BitSet getReachabilityMask() {
+        return (BitSet) Galaxy.reachabilityMask(shipType, solarFlareShieldStrength).clone();
     }
 
     /**
      * Retrieves a mapping of galaxies to the set of cargo destined for each galaxy.
+     * The map and its sets are read-only views that reflect later changes.
      *
      * @return A map where each key is a galaxy and the value is a set of cargo destined for that galaxy.
      */
     public Map<Galaxy, Set<Cargo>> getGalaxyToCargo() {
-        Map<Galaxy, Set<Cargo>> map = new HashMap<>();
-        for (Cargo cargo : cargoSet) {
-            Galaxy galaxyDest = cargo.getDestination();
-            map.computeIfAbsent(galaxyDest, g -> new HashSet<>()).add(cargo);
-        }
-        return map;
+        Snapshot.requireCargoOf(this);
+        return Collections.unmodifiableMap(cargoViewsByDestination);
+    }
+
+    /**
+     * Retrieves the cargo on the ship destined for a specific galaxy.
+     * The set is a read-only view that reflects later changes.
+     *
+     * @param galaxy The destination galaxy, or null for cargo without a destination.
+     * @return The cargo destined for the galaxy.
+     */
+    public Set<Cargo> getCargoGoingTo(Galaxy galaxy) {
+        Snapshot.requireCargoOf(this);
+        Set<Cargo> cargo = cargoViewsByDestination.get(galaxy);
+        return cargo == null ? Collections.emptySet() : cargo;
+    }
+
+    /**
+     * Retrieves the number of cargo on the ship destined for a specific galaxy.
+     *
+     * @param galaxy The destination galaxy, or null for cargo without a destination.
+     * @return The number of cargo destined for the galaxy.
+     */
+    public int getCargoCountGoingTo(Galaxy galaxy) {
+        Snapshot.requireCargoOf(this);
+        DestinationGroup group = cargoByDestination.get(galaxy);
+        return group == null ? 0 : group.cargo.size();
+    }
+
+    /**
+     * Retrieves the total mass of cargo on the ship destined for a specific galaxy.
+     *
+     * @param galaxy The destination galaxy, or null for cargo without a destination.
+     * @return The total mass of cargo destined for the galaxy.
+     */
+    public int getCargoMassGoingTo(Galaxy galaxy) {
+        Snapshot.requireCargoOf(this);
+        DestinationGroup group = cargoByDestination.get(galaxy);
+        return group == null ? 0 : group.mass;
     }
 
     /**
@@ -329,13 +822,40 @@ public abstract class Ship {
      * @param galaxy The galaxy object representing the destination.
      */
     public void unloadCargoGoingTo(Galaxy galaxy) {
-        cargoSet.removeIf(cargo -> cargo.getDestination() == galaxy);
+        Snapshot.requireCargoOf(this);
+        Journal.mutate(() -> {
+            synchronized (this) {
+                DestinationGroup group = cargoByDestination.get(galaxy);
+                if (group == null) return;
+                removeAllCargo(group.cargo);
+            }
+        });
     }
 
     /**
      * Unloads all cargo that cannot reach any destination galaxy based on ship's capabilities.
+     * Cargo without a destination stays on the ship.
      */
     public void unloadAllUnreachableCargo() {
-        cargoSet.removeIf(cargo -> !canGoToGalaxy(cargo.getDestination()));
+        Snapshot.requireCargoOf(this);
+        Journal.mutate(() -> {
+            synchronized (this) {
+                List<Galaxy> unreachable = new ArrayList<>();
+                for (Galaxy galaxy : cargoByDestination.keySet()) {
+                    if (galaxy != null && !canGoToGalaxy(galaxy)) unreachable.add(galaxy);
+                }
+                for (Galaxy galaxy : unreachable) {
+                    unloadCargoGoingTo(galaxy);
+                }
+            }
+        });
+    }
+
+    /**
+     * The cargo on the ship destined for one galaxy and its total mass.
+     */
+    private static class DestinationGroup implements Serializable {
+        private final Set<Cargo> cargo = new LinkedHashSet<>();
+        private int mass;
     }
 }
@@ -0,0 +1,171 @@
+package com.example.classes;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The commands carried out by {@link ShipActors} so far: how many of each kind, how fast and
+ * how long they took, both from sending to completion and for carrying them out alone.
+ */
+public class ShipActorReport {
+    private final int actors;
+    private final long wallNanos;
+    private final long[] counts;
+    private final long[] failures;
+    private final double[] meanLatencies;
+    private final long[] medianLatencies;
+    private final long[] p99Latencies;
+    private final long[] maxLatencies;
+    private final double[] meanServiceTimes;
+
+    /**
+     * Constructs a report from the recorded times, copying them.
+     *
+     * @param actors       The number of actors.
+     * @param wallNanos    The real time since the actors started, in nanoseconds.
+     * @param latencies    The times from sending to completion by kind of command.
+     * @param serviceTimes The times spent carrying out commands by kind of command.
+     * @param failures     The number of failed commands by kind of command.
+     */
+    ShipActorReport(int actors, long wallNanos, Map<ShipCommandType, LatencyHistogram> latencies,
+                    Map<ShipCommandType, LatencyHistogram> serviceTimes, Map<ShipCommandType, LongAdder> failures) {
+        this.actors = actors;
+        this.wallNanos = wallNanos;
+        int types = ShipCommandType.values().length;
+        counts = new long[types];
+        this.failures = new long[types];
+        meanLatencies = new double[types];
+        medianLatencies = new long[types];
+        p99Latencies = new long[types];
+        maxLatencies = new long[types];
+        meanServiceTimes = new double[types];
+        for (ShipCommandType type : ShipCommandType.values()) {
+            int i = type.ordinal();
+            LatencyHistogram latency = latencies.get(type);
+            counts[i] = latency.getCount();
+            this.failures[i] = failures.get(type).sum();
+            meanLatencies[i] = latency.getMean();
+            medianLatencies[i] = latency.getPercentile(50);
+            p99Latencies[i] = latency.getPercentile(99);
+            maxLatencies[i] = latency.getMax();
+            meanServiceTimes[i] = serviceTimes.get(type).getMean();
+        }
+    }
+
+    /**
+     * Retrieves the number of actors.
+     *
+     * @return The number of actors.
+     */
+    public int getActors() {
+        return actors;
+    }
+
+    /**
+     * Retrieves the real time since the actors started, in nanoseconds.
+     *
+     * @return The real time since the actors started, in nanoseconds.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Retrieves the number of commands of a kind carried out, failed ones included.
+     *
+     * @param type The kind of command.
+     * @return The number of commands.
+     */
+    public long getCount(ShipCommandType type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * Retrieves the number of commands of a kind that failed.
+     *
+     * @param type The kind of command.
+     * @return The number of failed commands.
+     */
+    public long getFailures(ShipCommandType type) {
+        return failures[type.ordinal()];
+    }
+
+    /**
+     * Computes the number of commands of a kind carried out per second of real time.
+     *
+     * @param type The kind of command.
+     * @return The throughput.
+     */
+    public double getThroughput(ShipCommandType type) {
+        return wallNanos == 0 ? 0 : counts[type.ordinal()] * 1e9 / wallNanos;
+    }
+
+    /**
+     * Retrieves the mean time from sending a command of a kind to its completion.
+     *
+     * @param type The kind of command.
+     * @return The mean latency in nanoseconds.
+     */
+    public double getMeanLatency(ShipCommandType type) {
+        return meanLatencies[type.ordinal()];
+    }
+
+    /**
+     * Retrieves the median time from sending a command of a kind to its completion, within an eighth.
+     *
+     * @param type The kind of command.
+     * @return The median latency in nanoseconds.
+     */
+    public long getMedianLatency(ShipCommandType type) {
+        return medianLatencies[type.ordinal()];
+    }
+
+    /**
+     * Retrieves the time from sending to completion that 99% of the commands of a kind took at most, within an eighth.
+     *
+     * @param type The kind of command.
+     * @return The 99th percentile latency in nanoseconds.
+     */
+    public long getP99Latency(ShipCommandType type) {
+        return p99Latencies[type.ordinal()];
+    }
+
+    /**
+     * Retrieves the longest time from sending a command of a kind to its completion.
+     *
+     * @param type The kind of command.
+     * @return The longest latency in nanoseconds.
+     */
+    public long getMaxLatency(ShipCommandType type) {
+        return maxLatencies[type.ordinal()];
+    }
+
+    /**
+     * Retrieves the mean time spent carrying out a command of a kind, not counting the time it waited in the mailbox.
+     *
+     * @param type The kind of command.
+     * @return The mean service time in nanoseconds.
+     */
+    public double getMeanServiceTime(ShipCommandType type) {
+        return meanServiceTimes[type.ordinal()];
+    }
+
+    /**
+     * Describes the report as a table with a row per kind of command, times in microseconds.
+     *
+     * @return The description.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format("%d actors, %.2f s%n", actors, wallNanos / 1e9));
+        builder.append(String.format("%-8s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                "Command", "Count", "Failed", "Per s", "Mean us", "p50 us", "p99 us", "Max us", "Service us"));
+        for (ShipCommandType type : ShipCommandType.values()) {
+            int i = type.ordinal();
+            builder.append(String.format("%-8s %10d %8d %10.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    type, counts[i], failures[i], getThroughput(type), meanLatencies[i] / 1e3,
+                    medianLatencies[i] / 1e3, p99Latencies[i] / 1e3, maxLatencies[i] / 1e3, meanServiceTimes[i] / 1e3));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.classes;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * The ShipActors class runs every ship of a fleet as an actor on its own virtual thread.
+ * <p>
+ * Commands for a ship are put into its mailbox and carried out one at a time, in the order they
+ * were sent, by the thread of the ship, so that a ship never runs two commands at once. Each
+ * command answers with a future completed when it was carried out, or completed exceptionally
+ * with the exception it failed with. Commands of different ships run at the same time and meet
+ * only in the shared galaxies and cargo, which the domain classes guard with their own locks:
+ * cargo moves lock the ships the cargo moves between and galaxies keep their ships in concurrent
+ * sets. For every kind of command the time from sending to completion and the time spent
+ * carrying it out are recorded, see {@link #report()}. The actors are fixed when they start and
+ * the recorded times are kept in thread-safe counters, so any thread may send commands, ask for
+ * a report or close the actors. Virtual threads need JDK 21 or later.
+ */
+public class ShipActors implements AutoCloseable {
+    /**
+     * The command that tells an actor to stop.
+     */
+    private static final Command<Void> STOP = new Command<>(null, () -> null);
+
+    private final Map<Ship, Actor> actors;
+    private final Map<ShipCommandType, LatencyHistogram> latencies = new EnumMap<>(ShipCommandType.class);
+    private final Map<ShipCommandType, LatencyHistogram> serviceTimes = new EnumMap<>(ShipCommandType.class);
+    private final Map<ShipCommandType, LongAdder> failures = new EnumMap<>(ShipCommandType.class);
+    private final long startNanos;
+
+    /**
+     * Guards closing: commands are sent under the read lock and the actors are told to stop
+     * under the write lock, so no command can get into a mailbox after the command to stop.
+     */
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    /**
+     * Starts the actors of the given ships.
+     *
+     * @param ships The ships.
+     */
+    private ShipActors(Collection<? extends Ship> ships) {
+        for (ShipCommandType type : ShipCommandType.values()) {
+            latencies.put(type, new LatencyHistogram());
+            serviceTimes.put(type, new LatencyHistogram());
+            failures.put(type, new LongAdder());
+        }
+        Map<Ship, Actor> started = new LinkedHashMap<>();
+        for (Ship ship : ships) {
+            if (ship == null) throw new RuntimeException("Ship can not be null");
+            started.computeIfAbsent(ship, Actor::new);
+        }
+        actors = Collections.unmodifiableMap(started);
+        startNanos = System.nanoTime();
+        for (Actor actor : actors.values()) actor.thread.start();
+    }
+
+    /**
+     * Starts an actor for every given ship.
+     *
+     * @param ships The ships.
+     * @return The running actors.
+     * @throws RuntimeException If ships or any ship is null.
+     */
+    public static ShipActors constructor(Collection<? extends Ship> ships) {
+        if (ships == null) throw new RuntimeException("Ships can not be null");
+        return new ShipActors(ships);
+    }
+
+    /**
+     * Retrieves the number of actors.
+     *
+     * @return The number of actors.
+     */
+    public int getActorCount() {
+        return actors.size();
+    }
+
+    /**
+     * Sends a ship the command to load cargo, see {@link Ship#addAllCargo(Collection)}.
+     *
+     * @param ship      The ship.
+     * @param cargoList The cargo to load.
+     * @return The future completed once the cargo is loaded.
+     * @throws RuntimeException If the ship has no actor or the actors are closed.
+     */
+    public CompletableFuture<Void> load(Ship ship, Collection<Cargo> cargoList) {
+        return send(ship, ShipCommandType.Load, () -> {
+            ship.addAllCargo(cargoList);
+            return null;
+        });
+    }
+
+    /**
+     * Sends a ship the command to travel to a galaxy, see {@link Ship#setGalaxy(Galaxy)}.
+     *
+     * @param ship   The ship.
+     * @param galaxy The galaxy to go to, or null to leave the galaxy the ship is in.
+     * @return The future completed once the ship is in the galaxy.
+     * @throws RuntimeException If the ship has no actor or the actors are closed.
+     */
+    public CompletableFuture<Void> travel(Ship ship, Galaxy galaxy) {
+        return send(ship, ShipCommandType.Travel, () -> {
+            ship.setGalaxy(galaxy);
+            return null;
+        });
+    }
+
+    /**
+     * Sends a ship the command to unload the cargo going to a galaxy, see {@link Ship#unloadCargoGoingTo(Galaxy)}.
+     *
+     * @param ship        The ship.
+     * @param destination The destination of the cargo to unload.
+     * @return The future completed once the cargo is unloaded.
+     * @throws RuntimeException If the ship has no actor or the actors are closed.
+     */
+    public CompletableFuture<Void> unload(Ship ship, Galaxy destination) {
+        return send(ship, ShipCommandType.Unload, () -> {
+            ship.unloadCargoGoingTo(destination);
+            return null;
+        });
+    }
+
+    /**
+     * Sends a ship the command to hire a crew member, see {@link Contract#constructor(String, Double, Ship, CrewMember)}.
+     *
+     * @param ship       The ship.
+     * @param role       The role of the crew member.
+     * @param salary     The salary of the crew member.
+     * @param crewMember The crew member to hire.
+     * @return The future completed with the contract once it is signed.
+     * @throws RuntimeException If the ship has no actor or the actors are closed.
+     */
+    public CompletableFuture<Contract> hire(Ship ship, String role, Double salary, CrewMember crewMember) {
+        return send(ship, ShipCommandType.Hire, () -> Contract.constructor(role, salary, ship, crewMember));
+    }
+
+    /**
+     * Puts a command into the mailbox of a ship.
+     *
+     * @param ship   The ship.
+     * @param type   The kind of the command.
+     * @param action What the command does.
+     * @param <T>    The type of the result of the command.
+     * @return The future of the result.
+     */
+    private <T> CompletableFuture<T> send(Ship ship, ShipCommandType type, Supplier<T> action) {
+        Actor actor = actors.get(ship);
+        if (actor == null) throw new RuntimeException("Ship has no actor");
+        Command<T> command = new Command<>(type, action);
+        closing.readLock().lock();
+        try {
+            if (closed) throw new RuntimeException("Ship actors are closed");
+            actor.mailbox.add(command);
+        } finally {
+            closing.readLock().unlock();
+        }
+        return command.future;
+    }
+
+    /**
+     * Reports how many commands of each kind were carried out since the actors started and how long they took.
+     *
+     * @return The report.
+     */
+    public ShipActorReport report() {
+        return new ShipActorReport(actors.size(), System.nanoTime() - startNanos, latencies, serviceTimes, failures);
+    }
+
+    /**
+     * Stops all actors once they carried out the commands already sent and waits for them.
+     * Commands sent while the actors are stopping fail.
+     */
+    @Override
+    public void close() {
+        closing.writeLock().lock();
+        try {
+            if (closed) return;
+            closed = true;
+            for (Actor actor : actors.values()) actor.mailbox.add(STOP);
+        } finally {
+            closing.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        for (Actor actor : actors.values()) {
+            while (true) {
+                try {
+                    actor.thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            for (Command<?> command : actor.mailbox) {
+                command.future.completeExceptionally(new RuntimeException("Ship actors are closed"));
+            }
+            actor.mailbox.clear();
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * A command waiting in a mailbox, with the time it was sent.
+     *
+     * @param <T> The type of the result of the command.
+     */
+    private static class Command<T> {
+        private final ShipCommandType type;
+        private final Supplier<T> action;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long sentNanos = System.nanoTime();
+
+        /**
+         * @param type   The kind of the command.
+         * @param action What the command does.
+         */
+        private Command(ShipCommandType type, Supplier<T> action) {
+            this.type = type;
+            this.action = action;
+        }
+    }
+
+    /**
+     * The mailbox and thread of one ship.
+     */
+    private class Actor implements Runnable {
+        private final BlockingQueue<Command<?>> mailbox = new LinkedBlockingQueue<>();
+        private final Thread thread;
+
+        /**
+         * Creates the thread of a ship, not started yet.
+         *
+         * @param ship The ship.
+         */
+        private Actor(Ship ship) {
+            thread = Thread.ofVirtual().name("ship-" + ship.getName()).unstarted(this);
+        }
+
+        /**
+         * Carries out commands until told to stop.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                Command<?> command;
+                try {
+                    command = mailbox.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (command == STOP) return;
+                execute(command);
+            }
+        }
+
+        /**
+         * Carries out a command, completes its future and records its times. The future is
+         * completed whatever the command throws, so no sender waits forever; an error is thrown
+         * on afterwards, ending the thread of the ship.
+         *
+         * @param command The command.
+         * @param <T>     The type of the result of the command.
+         */
+        private <T> void execute(Command<T> command) {
+            long started = System.nanoTime();
+            T result = null;
+            Throwable failure = null;
+            try {
+                result = command.action.get();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            long finished = System.nanoTime();
+            serviceTimes.get(command.type).record(finished - started);
+            latencies.get(command.type).record(finished - command.sentNanos);
+            if (failure != null) {
+                failures.get(command.type).increment();
+                command.future.completeExceptionally(failure);
+                if (failure instanceof Error error) throw error;
+            } else {
+                command.future.complete(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.classes;
+
+public enum ShipCommandType {
+    Load, Travel, Unload, Hire
+}
@@ -0,0 +1,208 @@
+package com.example.classes;
+
+/**
+ * The outcome of a run of a {@link FleetSimulation}: what happened in the simulated time and
+ * how fast it was simulated.
+ */
+public class SimulationReport {
+    private final double simulatedHours;
+    private final long wallNanos;
+    private final int shards;
+    private final long events;
+    private final long arrivals;
+    private final long turnedAway;
+    private final long deliveries;
+    private final long deliveredMass;
+    private final long repositionings;
+    private final long statusChanges;
+    private final long contractsEnded;
+    private final long contractsStarted;
+    private final long contractsRejected;
+
+    /**
+     * Constructs a simulation report.
+     *
+     * @param simulatedHours    The simulated time, in hours.
+     * @param wallNanos         The real time the run took, in nanoseconds.
+     * @param shards            The number of shards the ships were split into.
+     * @param events            The number of events processed.
+     * @param arrivals          The number of times a ship docked in a galaxy.
+     * @param turnedAway        The number of times a ship could not enter the galaxy it went to.
+     * @param deliveries        The number of cargo delivered.
+     * @param deliveredMass     The total mass of the cargo delivered.
+     * @param repositionings    The number of times an empty ship went to a random galaxy.
+     * @param statusChanges     The number of times a galaxy changed between peaceful and dangerous.
+     * @param contractsEnded    The number of contracts terminated.
+     * @param contractsStarted  The number of contracts signed.
+     * @param contractsRejected The number of contracts that could not be signed.
+     */
+    SimulationReport(double simulatedHours, long wallNanos, int shards, long events, long arrivals, long turnedAway,
+                     long deliveries, long deliveredMass, long repositionings, long statusChanges,
+                     long contractsEnded, long contractsStarted, long contractsRejected) {
+        this.simulatedHours = simulatedHours;
+        this.wallNanos = wallNanos;
+        this.shards = shards;
+        this.events = events;
+        this.arrivals = arrivals;
+        this.turnedAway = turnedAway;
+        this.deliveries = deliveries;
+        this.deliveredMass = deliveredMass;
+        this.repositionings = repositionings;
+        this.statusChanges = statusChanges;
+        this.contractsEnded = contractsEnded;
+        this.contractsStarted = contractsStarted;
+        this.contractsRejected = contractsRejected;
+    }
+
+    /**
+     * Retrieves the simulated time, in hours.
+     *
+     * @return The simulated time, in hours.
+     */
+    public double getSimulatedHours() {
+        return simulatedHours;
+    }
+
+    /**
+     * Retrieves the real time the run took, in nanoseconds.
+     *
+     * @return The real time the run took, in nanoseconds.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Retrieves the number of shards the ships were split into.
+     *
+     * @return The number of shards the ships were split into.
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Retrieves the number of events processed.
+     *
+     * @return The number of events processed.
+     */
+    public long getEvents() {
+        return events;
+    }
+
+    /**
+     * Retrieves the number of times a ship docked in a galaxy.
+     *
+     * @return The number of times a ship docked in a galaxy.
+     */
+    public long getArrivals() {
+        return arrivals;
+    }
+
+    /**
+     * Retrieves the number of times a ship could not enter the galaxy it went to.
+     *
+     * @return The number of times a ship could not enter the galaxy it went to.
+     */
+    public long getTurnedAway() {
+        return turnedAway;
+    }
+
+    /**
+     * Retrieves the number of cargo delivered.
+     *
+     * @return The number of cargo delivered.
+     */
+    public long getDeliveries() {
+        return deliveries;
+    }
+
+    /**
+     * Retrieves the total mass of the cargo delivered.
+     *
+     * @return The total mass of the cargo delivered.
+     */
+    public long getDeliveredMass() {
+        return deliveredMass;
+    }
+
+    /**
+     * Retrieves the number of times an empty ship went to a random galaxy.
+     *
+     * @return The number of times an empty ship went to a random galaxy.
+     */
+    public long getRepositionings() {
+        return repositionings;
+    }
+
+    /**
+     * Retrieves the number of times a galaxy changed between peaceful and dangerous.
+     *
+     * @return The number of times a galaxy changed between peaceful and dangerous.
+     */
+    public long getStatusChanges() {
+        return statusChanges;
+    }
+
+    /**
+     * Retrieves the number of contracts terminated.
+     *
+     * @return The number of contracts terminated.
+     */
+    public long getContractsEnded() {
+        return contractsEnded;
+    }
+
+    /**
+     * Retrieves the number of contracts signed.
+     *
+     * @return The number of contracts signed.
+     */
+    public long getContractsStarted() {
+        return contractsStarted;
+    }
+
+    /**
+     * Retrieves the number of contracts that could not be signed.
+     *
+     * @return The number of contracts that could not be signed.
+     */
+    public long getContractsRejected() {
+        return contractsRejected;
+    }
+
+    /**
+     * Computes the number of events processed per second of real time.
+     *
+     * @return The event throughput.
+     */
+    public double getEventsPerSecond() {
+        return wallNanos == 0 ? 0 : events * 1e9 / wallNanos;
+    }
+
+    /**
+     * Computes the number of cargo delivered per simulated day.
+     *
+     * @return The delivery rate.
+     */
+    public double getDeliveriesPerDay() {
+        return simulatedHours == 0 ? 0 : deliveries * 24 / simulatedHours;
+    }
+
+    /**
+     * Describes the report on a few lines.
+     *
+     * @return The description.
+     */
+    @Override
+    public String toString() {
+        return String.format("Simulated %.0f h in %.2f s on %d shards: %d events (%.0f/s)%n"
+                        + "Arrivals: %d, turned away: %d, repositionings: %d%n"
+                        + "Deliveries: %d (%.1f/day), delivered mass: %d%n"
+                        + "Galaxy status changes: %d, contracts ended: %d, started: %d, rejected: %d",
+                simulatedHours, wallNanos / 1e9, shards, events, getEventsPerSecond(),
+                arrivals, turnedAway, repositionings,
+                deliveries, getDeliveriesPerDay(), deliveredMass,
+                statusChanges, contractsEnded, contractsStarted, contractsRejected);
+    }
+}
@@ -0,0 +1,1076 @@
+package com.example.classes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * The Snapshot class saves and restores the whole domain state in a compact binary file.
+ * <p>
+ * A snapshot file starts with a fixed size header holding a magic number, the format version,
+ * the number of sections, the offset of the section directory, a CRC32 of everything after
+ * the header and a CRC32 of the header itself. It is followed by one section per class
+ * (owners, galaxies, ships, crew members, cargo and contracts) and by the section directory.
+ * The galaxy section ends with the routes between galaxies. The last section indexes the cargo on
+ * each ship, so that the cargo of one ship can be loaded without the rest of the cargo section.
+ * Objects refer to each other by their integer position in their section, so the file can be
+ * written and read without following the object graph recursively. Each section is mapped on its
+ * own when the file is read, so a file may exceed 2 GB as long as no single section does.
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x53504D53;
+    private static final short VERSION = 3;
+    private static final int HEADER_SIZE = 24;
+    private static final int DIRECTORY_ENTRY_SIZE = 25;
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The largest section, the limit of a single memory mapping. The whole file may be larger.
+     */
+    private static final long MAX_SECTION_SIZE = Integer.MAX_VALUE;
+    private static final int ALL_SECTIONS = 0b1111110;
+
+    static final byte ALL = 0;
+    static final byte OWNERS = 1;
+    static final byte GALAXIES = 2;
+    static final byte SHIPS = 3;
+    static final byte CREW = 4;
+    static final byte CARGO = 5;
+    static final byte CONTRACTS = 6;
+    private static final byte CARGO_INDEX = 7;
+    private static final int CARGO_INDEX_ENTRY_SIZE = 16;
+    private static final byte[] SECTION_ORDER = {OWNERS, GALAXIES, SHIPS, CREW, CARGO, CONTRACTS};
+
+    /**
+     * The snapshot opened by {@link #open} whose sections are not all loaded yet, or null.
+     */
+    private static volatile Loader pending;
+
+    private static final byte NO_LIFE_SUPPORT_SHIP = 0;
+    private static final byte ORGANIC_SUPPORT_SHIP = 1;
+    private static final byte ORGANIC_CREW_MEMBER = 0;
+    private static final byte MECHANICAL_CREW_MEMBER = 1;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Writes all extents and registered owners to the given file, replacing its content.
+     *
+     * @param path the file to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(Path path) throws IOException {
+        writeSnapshot(path);
+    }
+
+    /**
+     * Writes all extents and registered owners to the given file and returns the written
+     * galaxies, ships, crew members, cargo and contracts, each list in the order of its section.
+     *
+     * @param path the file to write to
+     * @return the written objects by section, the position in a list being the id of the object
+     * @throws IOException if an I/O error occurs
+     */
+    static List<List<?>> writeSnapshot(Path path) throws IOException {
+        long start = Metrics.start(MeteredOperation.SnapshotWrite);
+        require(ALL);
+        List<String> owners = new ArrayList<>(Cargo.getRegisteredOwners());
+        List<Galaxy> galaxies = extentList(Galaxy.class);
+        List<CrewMember> crewMembers = extentList(CrewMember.class);
+        List<Cargo> cargoList = extentList(Cargo.class);
+        List<Contract> contracts = new ArrayList<>();
+        for (Contract contract : extentList(Contract.class)) {
+            if (contract.getShip() != null) contracts.add(contract);
+        }
+        List<Ship> ships = collectShips(galaxies, cargoList, contracts);
+
+        Map<String, Integer> ownerIds = new HashMap<>();
+        for (int i = 0; i < owners.size(); i++) ownerIds.put(owners.get(i), i);
+        Map<Object, Integer> ids = new IdentityHashMap<>();
+        assignIds(ids, galaxies);
+        assignIds(ids, ships);
+        assignIds(ids, crewMembers);
+
+        int[] counts = {owners.size(), galaxies.size(), ships.size(), crewMembers.size(), cargoList.size(), contracts.size()};
+        writeSections(path, counts,
+                out -> {
+                    for (String owner : owners) out.putOwner(owner);
+                },
+                out -> {
+                    for (Galaxy galaxy : galaxies) writeGalaxy(out, galaxy);
+                    writeRoutes(out, galaxies, ids);
+                },
+                out -> {
+                    for (Ship ship : ships) writeShip(out, ship, ids);
+                },
+                out -> {
+                    for (CrewMember crewMember : crewMembers) writeCrewMember(out, crewMember);
+                },
+                out -> {
+                    for (Cargo cargo : cargoList) {
+                        out.putCargo(cargo.getName(), cargo.getMass(), ownerIds.get(cargo.getOwner()),
+                                idOf(ids, cargo.getDestination()), idOf(ids, cargo.getShip()));
+                    }
+                },
+                out -> {
+                    for (Contract contract : contracts) {
+                        out.putContract(contract.getRole(), contract.getSalary(), idOf(ids, contract.getShip()),
+                                idOf(ids, contract.getCrewMember()));
+                    }
+                });
+        Metrics.record(MeteredOperation.SnapshotWrite, start);
+        return List.of(galaxies, ships, crewMembers, cargoList, contracts);
+    }
+
+    /**
+     * Writes a snapshot file section by section, replacing its content. The sections are given
+     * in the order owners, galaxies, ships, crew members, cargo and contracts; each is written
+     * by its content after the number of objects in it. Objects refer to each other by their
+     * position in their section.
+     *
+     * @param path     the file to write to
+     * @param counts   the number of objects in each section
+     * @param contents the content of each section
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeSections(Path path, int[] counts, SectionContent... contents) throws IOException {
+        if (counts.length != SECTION_ORDER.length || contents.length != SECTION_ORDER.length) {
+            throw new RuntimeException("A snapshot has " + SECTION_ORDER.length + " sections");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer out = new Writer(channel, HEADER_SIZE);
+            long[][] directory = new long[SECTION_ORDER.length + 1][];
+            for (int i = 0; i < SECTION_ORDER.length; i++) {
+                long start = out.beginSection();
+                out.putInt(counts[i]);
+                contents[i].write(out);
+                checkSectionSize(SECTION_ORDER[i], out.position() - start);
+                directory[i] = new long[]{SECTION_ORDER[i], counts[i], start, out.position() - start, out.endSection()};
+            }
+            long start = out.beginSection();
+            out.putCargoIndex(counts[2]);
+            checkSectionSize(CARGO_INDEX, out.position() - start);
+            directory[SECTION_ORDER.length] = new long[]{CARGO_INDEX, counts[2], start, out.position() - start, out.endSection()};
+
+            long directoryOffset = out.position();
+            for (long[] entry : directory) {
+                out.putByte((byte) entry[0]);
+                out.putInt((int) entry[1]);
+                out.putLong(entry[2]);
+                out.putLong(entry[3]);
+                out.putInt((int) entry[4]);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putShort((short) directory.length);
+            header.putLong(directoryOffset);
+            header.putInt((int) out.checksum());
+            CRC32 headerCrc = new CRC32();
+            headerCrc.update(header.array(), 0, HEADER_SIZE - 4);
+            header.putInt((int) headerCrc.getValue());
+            header.flip();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * Checks that a written section can be mapped when the snapshot is read.
+     *
+     * @param tag    the tag of the section
+     * @param length the length of the section in bytes
+     * @throws IOException if the section is too large
+     */
+    private static void checkSectionSize(byte tag, long length) throws IOException {
+        if (length > MAX_SECTION_SIZE) {
+            throw new IOException("Snapshot section " + tag + " has " + length + " bytes, more than the "
+                    + MAX_SECTION_SIZE + " a section can have");
+        }
+    }
+
+    /**
+     * Replaces all extents and registered owners with the content of the given snapshot file.
+     *
+     * @param path the file to read from
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    public static void read(Path path) throws IOException {
+        readSnapshot(path);
+    }
+
+    /**
+     * Replaces all extents and registered owners with the content of the given snapshot file
+     * and returns the restored objects in the same form as {@link #writeSnapshot}.
+     *
+     * @param path the file to read from
+     * @return the restored objects by section, the position in a list being the id of the object
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    static List<List<?>> readSnapshot(Path path) throws IOException {
+        long start = Metrics.start(MeteredOperation.SnapshotRead);
+        Loader loader = new Loader(map(path));
+        pending = null;
+        ObjectPlus.clearExtents();
+        loader.load(ALL);
+        Metrics.record(MeteredOperation.SnapshotRead, start);
+        return loader.objects();
+    }
+
+    /**
+     * Replaces all extents and registered owners with the content of the given snapshot file
+     * without reading the objects yet. The file is memory-mapped and only its header and section
+     * directory are read. The objects of a section are created the first time they are needed,
+     * for example when the extent of their class is requested, when an association leading into
+     * the section is followed or when a new object links to it. Sections that a section refers to
+     * are created before it. The cargo of a ship is read through the cargo index when only that
+     * ship's cargo is needed.
+     *
+     * @param path the file to open
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    public static void open(Path path) throws IOException {
+        if (Journal.getActive() != null) throw new RuntimeException("Can not open a snapshot while a journal is open");
+        Loader loader = new Loader(map(path));
+        pending = null;
+        ObjectPlus.clearExtents();
+        pending = loader;
+    }
+
+    /**
+     * Creates the objects of the given section of a snapshot opened by {@link #open}, together
+     * with the sections it depends on, if they do not exist yet.
+     *
+     * @param tag the tag of the section, or {@link #ALL} for all sections
+     * @throws UncheckedIOException if the section is corrupted
+     */
+    static void require(byte tag) {
+        Loader loader = pending;
+        if (loader == null || loader.isLoaded(tag) || loader.loadingThread == Thread.currentThread()) return;
+        try {
+            loader.load(tag);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates the cargo on the given ship of a snapshot opened by {@link #open}, together with the
+     * owners, galaxies and ships, if it does not exist yet. The rest of the cargo section is only
+     * read if the snapshot has no cargo index.
+     *
+     * @param ship the ship whose cargo is needed
+     * @throws UncheckedIOException if the snapshot is corrupted
+     */
+    static void requireCargoOf(Ship ship) {
+        Loader loader = pending;
+        if (loader == null || loader.isLoaded(CARGO) || loader.loadingThread == Thread.currentThread()) return;
+        try {
+            loader.loadCargoOf(ship);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the tag of the section holding the objects of the given class.
+     *
+     * @param type the class of the objects
+     * @return the tag of the section, or {@link #ALL} if the class has no section of its own
+     */
+    static byte sectionOf(Class<?> type) {
+        if (type == Galaxy.class) return GALAXIES;
+        if (type == Cargo.class) return CARGO;
+        if (type == Contract.class) return CONTRACTS;
+        if (CrewMember.class.isAssignableFrom(type)) return CREW;
+        if (Ship.class.isAssignableFrom(type)) return SHIPS;
+        return ALL;
+    }
+
+    /**
+     * Validates the header and section directory of the given snapshot file and memory-maps
+     * each section on its own, so that the file may be larger than a single mapping allows.
+     *
+     * @param path the snapshot file
+     * @return the sections of the snapshot by their tag
+     * @throws IOException if an I/O error occurs, the file is not a valid snapshot or a section is too large to map
+     */
+    private static Map<Byte, Section> map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readDirectory(channel);
+        }
+    }
+
+    /**
+     * Returns the payload checksum stored in the header of the given snapshot file.
+     * It identifies the content of the snapshot without reading the whole file.
+     *
+     * @param path the snapshot file
+     * @return the payload checksum of the snapshot
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    static int checksumOf(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) ;
+            if (header.position() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a snapshot file");
+            }
+            return header.getInt(16);
+        }
+    }
+
+    /**
+     * Validates the header and the section directory of a snapshot and maps its sections.
+     * The content of each section is checked when it is loaded.
+     *
+     * @param channel the snapshot file
+     * @return the sections of the snapshot by their tag
+     * @throws IOException if the file is not a valid snapshot or a section is too large to map
+     */
+    private static Map<Byte, Section> readDirectory(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = readFully(channel, 0, (int) Math.min(size, HEADER_SIZE));
+        if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        if (header.getShort(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + header.getShort(4));
+        }
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(header.duplicate().position(0).limit(HEADER_SIZE - 4));
+        if ((int) headerCrc.getValue() != header.getInt(HEADER_SIZE - 4)) {
+            throw new IOException("Snapshot header is corrupted");
+        }
+
+        int sectionCount = header.getShort(6);
+        long directoryOffset = header.getLong(8);
+        if (sectionCount < 0 || directoryOffset < HEADER_SIZE || directoryOffset + (long) sectionCount * DIRECTORY_ENTRY_SIZE > size) {
+            throw new IOException("Snapshot directory is corrupted");
+        }
+        ByteBuffer directory = readFully(channel, directoryOffset, sectionCount * DIRECTORY_ENTRY_SIZE);
+        Map<Byte, Section> sections = new HashMap<>();
+        for (int i = 0; i < sectionCount; i++) {
+            byte tag = directory.get();
+            directory.getInt();
+            long offset = directory.getLong();
+            long length = directory.getLong();
+            int checksum = directory.getInt();
+            if (offset < HEADER_SIZE || length < 0 || offset + length > directoryOffset) {
+                throw new IOException("Snapshot directory is corrupted");
+            }
+            if (length > MAX_SECTION_SIZE) {
+                throw new IOException("Snapshot section " + tag + " has " + length + " bytes, more than the "
+                        + MAX_SECTION_SIZE + " a section can have");
+            }
+            sections.put(tag, new Section(channel.map(FileChannel.MapMode.READ_ONLY, offset, length), checksum));
+        }
+        return sections;
+    }
+
+    /**
+     * Reads a part of a file into a new buffer.
+     *
+     * @param channel  the file
+     * @param position the position of the part in the file
+     * @param length   the length of the part
+     * @return the part, at most length bytes if the file ends before it
+     * @throws IOException if an I/O error occurs
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) ;
+        return buffer.flip();
+    }
+
+    /**
+     * Writes a galaxy with the attributes of its current galaxy type.
+     */
+    private static void writeGalaxy(Writer out, Galaxy galaxy) throws IOException {
+        if (galaxy.getGalaxyType() == GalaxyType.Peaceful) {
+            out.putGalaxy(galaxy.getName(), galaxy.getGalaxyCode(), galaxy.getPeacefulSince(), false, 0);
+        } else {
+            out.putGalaxy(galaxy.getName(), galaxy.getGalaxyCode(), null, galaxy.getAtWar(), galaxy.getSolarFlareStrength());
+        }
+    }
+
+    /**
+     * Reads a galaxy written by {@link #writeGalaxy}.
+     */
+    private static Galaxy readGalaxy(ByteBuffer in) {
+        String name = getString(in);
+        String galaxyCode = getString(in);
+        if (GalaxyType.values()[in.get()] == GalaxyType.Peaceful) {
+            return Galaxy.peacefulGalaxyConstructor(name, galaxyCode, LocalDate.ofEpochDay(in.getLong()));
+        }
+        boolean atWar = in.get() != 0;
+        return Galaxy.dangerousGalaxyConstructor(name, galaxyCode, atWar, in.getInt());
+    }
+
+    /**
+     * Writes every route between the given galaxies once, from the galaxy with the lower id.
+     */
+    private static void writeRoutes(Writer out, List<Galaxy> galaxies, Map<Object, Integer> ids) throws IOException {
+        List<int[]> ends = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (Galaxy galaxy : galaxies) {
+            int from = ids.get(galaxy);
+            for (Map.Entry<Galaxy, Double> route : galaxy.getRoutes().entrySet()) {
+                Integer to = ids.get(route.getKey());
+                if (to == null || from > to) continue;
+                ends.add(new int[]{from, to});
+                distances.add(route.getValue());
+            }
+        }
+        int[] fromIds = new int[ends.size()];
+        int[] toIds = new int[ends.size()];
+        double[] lengths = new double[ends.size()];
+        for (int i = 0; i < ends.size(); i++) {
+            fromIds[i] = ends.get(i)[0];
+            toIds[i] = ends.get(i)[1];
+            lengths[i] = distances.get(i);
+        }
+        out.putRoutes(ends.size(), fromIds, toIds, lengths);
+    }
+
+    /**
+     * Reads the routes written by {@link #writeRoutes} and connects the galaxies.
+     */
+    private static void readRoutes(ByteBuffer in, Galaxy[] galaxies) {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            Galaxy from = galaxies[in.getInt()];
+            Galaxy to = galaxies[in.getInt()];
+            from.connect(to, in.getDouble());
+        }
+    }
+
+    /**
+     * Writes a ship together with the attributes of its subclass.
+     */
+    private static void writeShip(Writer out, Ship ship, Map<Object, Integer> ids) throws IOException {
+        Integer shield = ship.getShipType() == ShipType.Shielded ? ship.getSolarFlareShieldStrength() : null;
+        if (ship instanceof OrganicSupportShip organicSupportShip) {
+            out.putShip(ship.getName(), ship.getMaxCargoMassCapacity(), ship.getShipType(), shield,
+                    idOf(ids, ship.getGalaxy()), organicSupportShip.getFoodTypes(), null);
+        } else {
+            out.putShip(ship.getName(), ship.getMaxCargoMassCapacity(), ship.getShipType(), shield,
+                    idOf(ids, ship.getGalaxy()), null, ((NoLifeSupportShip) ship).getShipAIType());
+        }
+    }
+
+    /**
+     * Reads a ship written by {@link #writeShip}.
+     */
+    private static Ship readShip(ByteBuffer in, Galaxy[] galaxies) {
+        String name = getString(in);
+        int maxCargoMassCapacity = in.getInt();
+        ShipType shipType = ShipType.values()[in.get()];
+        int shield = in.getInt();
+        Integer solarFlareShieldStrength = shipType == ShipType.Shielded ? shield : null;
+        int galaxy = in.getInt();
+        Ship ship;
+        if (in.get() == ORGANIC_SUPPORT_SHIP) {
+            Set<FoodType> foodTypes = EnumSet.noneOf(FoodType.class);
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) foodTypes.add(FoodType.values()[in.get()]);
+            ship = OrganicSupportShip.constructor(name, maxCargoMassCapacity, shipType, solarFlareShieldStrength, foodTypes);
+        } else {
+            ship = NoLifeSupportShip.constructor(name, maxCargoMassCapacity, shipType, solarFlareShieldStrength, getString(in));
+        }
+        if (galaxy >= 0) ship.setGalaxy(galaxies[galaxy]);
+        return ship;
+    }
+
+    /**
+     * Writes a crew member together with the attributes of its subclass.
+     */
+    private static void writeCrewMember(Writer out, CrewMember crewMember) throws IOException {
+        if (crewMember instanceof OrganicCrewMember organicCrewMember) {
+            out.putOrganicCrewMember(organicCrewMember.getName(), organicCrewMember.getAcceptableFoodType());
+        } else {
+            MechanicalCrewMember mechanicalCrewMember = (MechanicalCrewMember) crewMember;
+            out.putMechanicalCrewMember(mechanicalCrewMember.getSerialNumber(), mechanicalCrewMember.getModelNumber());
+        }
+    }
+
+    /**
+     * Reads a crew member written by {@link #writeCrewMember}.
+     */
+    private static CrewMember readCrewMember(ByteBuffer in) {
+        if (in.get() == ORGANIC_CREW_MEMBER) {
+            String name = getString(in);
+            byte foodType = in.get();
+            return OrganicCrewMember.constructor(name, foodType < 0 ? null : FoodType.values()[foodType]);
+        }
+        String serialNumber = getString(in);
+        String modelNumber = getString(in);
+        // the model number is not validated by its setter, so it may have been null when saved
+        MechanicalCrewMember crewMember = MechanicalCrewMember.constructor(serialNumber, serialNumber);
+        crewMember.setModelNumber(modelNumber);
+        return crewMember;
+    }
+
+    /**
+     * Collects the extent of ships together with every ship referenced by the given galaxies,
+     * cargo and contracts, which includes ships removed from their extent but still in use.
+     */
+    private static List<Ship> collectShips(List<Galaxy> galaxies, List<Cargo> cargoList, List<Contract> contracts) {
+        Set<Ship> ships = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Ship> result = new ArrayList<>();
+        for (Ship ship : extentList(Ship.class)) {
+            if (ships.add(ship)) result.add(ship);
+        }
+        for (Galaxy galaxy : galaxies) {
+            for (Ship ship : galaxy.getShips()) {
+                if (ships.add(ship)) result.add(ship);
+            }
+        }
+        for (Cargo cargo : cargoList) {
+            if (cargo.getShip() != null && ships.add(cargo.getShip())) result.add(cargo.getShip());
+        }
+        for (Contract contract : contracts) {
+            if (ships.add(contract.getShip())) result.add(contract.getShip());
+        }
+        return result;
+    }
+
+    /**
+     * Copies the extents of the given class and its subclasses into a list.
+     */
+    private static <T> List<T> extentList(Class<T> type) {
+        return new ArrayList<>(ObjectPlus.getExtentOf(type));
+    }
+
+    /**
+     * Uses the position of each object in its list as its id.
+     */
+    private static void assignIds(Map<Object, Integer> ids, List<?> objects) {
+        for (int i = 0; i < objects.size(); i++) ids.put(objects.get(i), i);
+    }
+
+    /**
+     * Returns the id of the given object, or -1 for null.
+     */
+    private static int idOf(Map<Object, Integer> ids, Object object) {
+        return object == null ? -1 : ids.get(object);
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 string, where a negative length stands for null.
+     */
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The content of one section of a snapshot together with its checksum.
+     */
+    private static class Section {
+        private final ByteBuffer content;
+        private final int checksum;
+
+        private Section(ByteBuffer content, int checksum) {
+            this.content = content;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Creates the objects of a snapshot section by section. Each section is loaded at most once,
+     * after the sections it refers to.
+     */
+    private static class Loader {
+        private final Map<Byte, Section> sections;
+        private volatile int loaded;
+        private volatile Thread loadingThread;
+
+        private String[] owners;
+        private Galaxy[] galaxies;
+        private Ship[] ships;
+        private CrewMember[] crewMembers;
+        private Cargo[] cargoArray;
+        private Contract[] contracts;
+
+        private Map<Ship, Integer> shipIds;
+        private final BitSet shipsWithCargo = new BitSet();
+        private ByteBuffer cargoIndex;
+        private int[] cargoIndexStarts;
+
+        private Loader(Map<Byte, Section> sections) {
+            this.sections = sections;
+        }
+
+        /**
+         * Loads the given section and the sections it refers to, or all sections for {@link #ALL}.
+         */
+        private synchronized void load(byte tag) throws IOException {
+            if (isLoaded(tag)) return;
+            Thread previous = loadingThread;
+            loadingThread = Thread.currentThread();
+            try {
+                switch (tag) {
+                    case ALL -> {
+                        load(CARGO);
+                        load(CONTRACTS);
+                    }
+                    case OWNERS -> {
+                        ByteBuffer in = content(OWNERS);
+                        owners = new String[in.getInt()];
+                        for (int i = 0; i < owners.length; i++) owners[i] = getString(in);
+                        Cargo.setRegisteredOwners(new HashSet<>(Arrays.asList(owners)));
+                    }
+                    case GALAXIES -> {
+                        ByteBuffer in = content(GALAXIES);
+                        galaxies = new Galaxy[in.getInt()];
+                        for (int i = 0; i < galaxies.length; i++) galaxies[i] = readGalaxy(in);
+                        readRoutes(in, galaxies);
+                    }
+                    case SHIPS -> {
+                        load(GALAXIES);
+                        ByteBuffer in = content(SHIPS);
+                        ships = new Ship[in.getInt()];
+                        shipIds = new IdentityHashMap<>();
+                        for (int i = 0; i < ships.length; i++) {
+                            ships[i] = readShip(in, galaxies);
+                            shipIds.put(ships[i], i);
+                        }
+                    }
+                    case CREW -> {
+                        ByteBuffer in = content(CREW);
+                        crewMembers = new CrewMember[in.getInt()];
+                        for (int i = 0; i < crewMembers.length; i++) crewMembers[i] = readCrewMember(in);
+                    }
+                    case CARGO -> {
+                        load(OWNERS);
+                        load(SHIPS);
+                        ByteBuffer in = content(CARGO);
+                        int count = in.getInt();
+                        if (cargoArray == null) cargoArray = new Cargo[count];
+                        for (int i = 0; i < count; i++) {
+                            if (cargoArray[i] != null) {
+                                skipCargo(in);
+                            } else {
+                                cargoArray[i] = readCargo(in);
+                            }
+                        }
+                    }
+                    case CONTRACTS -> {
+                        load(SHIPS);
+                        load(CREW);
+                        ByteBuffer in = content(CONTRACTS);
+                        contracts = new Contract[in.getInt()];
+                        for (int i = 0; i < contracts.length; i++) {
+                            String role = getString(in);
+                            Double salary = in.get() != 0 ? in.getDouble() : null;
+                            contracts[i] = Contract.constructor(role, salary, ships[in.getInt()], crewMembers[in.getInt()]);
+                        }
+                    }
+                    default -> throw new IOException("Unknown snapshot section " + tag);
+                }
+                if (tag != ALL) loaded |= 1 << tag;
+            } finally {
+                loadingThread = previous;
+            }
+            if (isLoaded(ALL) && pending == this) pending = null;
+        }
+
+        /**
+         * Loads the cargo on the given ship through the cargo index, after the sections it refers to.
+         * Without a cargo index the whole cargo section is loaded.
+         */
+        private synchronized void loadCargoOf(Ship ship) throws IOException {
+            if (isLoaded(CARGO)) return;
+            Thread previous = loadingThread;
+            loadingThread = Thread.currentThread();
+            try {
+                load(OWNERS);
+                load(SHIPS);
+                Integer id = shipIds.get(ship);
+                if (id == null || shipsWithCargo.get(id)) return;
+                if (!sections.containsKey(CARGO_INDEX) || !sections.containsKey(CARGO)) {
+                    load(CARGO);
+                    return;
+                }
+                if (cargoIndex == null) readCargoIndex();
+                ByteBuffer cargoSection = sections.get(CARGO).content;
+                if (cargoArray == null) cargoArray = new Cargo[cargoSection.getInt(0)];
+                int entry = cargoIndexStarts[id];
+                for (int k = cargoIndex.getInt(4 + 4 * id); k > 0; k--, entry += CARGO_INDEX_ENTRY_SIZE) {
+                    int position = cargoIndex.getInt(entry);
+                    long offset = cargoIndex.getLong(entry + 4);
+                    int checksum = cargoIndex.getInt(entry + 12);
+                    if (position < 0 || position >= cargoArray.length) throw new IOException("Snapshot cargo index is corrupted");
+                    if (cargoArray[position] == null) cargoArray[position] = readCargo(cargoRecord(cargoSection, offset, checksum));
+                }
+                shipsWithCargo.set(id);
+            } finally {
+                loadingThread = previous;
+            }
+        }
+
+        /**
+         * Checks the cargo index and finds where the entries of each ship start.
+         */
+        private void readCargoIndex() throws IOException {
+            ByteBuffer index = content(CARGO_INDEX);
+            if (index.getInt(0) != ships.length || index.limit() < 4 + 4L * ships.length) {
+                throw new IOException("Snapshot cargo index is corrupted");
+            }
+            int[] starts = new int[ships.length];
+            long entry = 4 + 4L * ships.length;
+            for (int i = 0; i < ships.length; i++) {
+                starts[i] = (int) entry;
+                entry += (long) CARGO_INDEX_ENTRY_SIZE * index.getInt(4 + 4 * i);
+                if (index.getInt(4 + 4 * i) < 0 || entry > index.limit()) throw new IOException("Snapshot cargo index is corrupted");
+            }
+            cargoIndexStarts = starts;
+            cargoIndex = index;
+        }
+
+        /**
+         * Returns the record of one cargo after checking its checksum.
+         */
+        private static ByteBuffer cargoRecord(ByteBuffer cargoSection, long offset, int checksum) throws IOException {
+            if (offset < 4 || offset > cargoSection.limit() - 4) throw new IOException("Snapshot cargo index is corrupted");
+            int nameLength = cargoSection.getInt((int) offset);
+            long end = offset + 4 + Math.max(nameLength, 0) + 16;
+            if (end > cargoSection.limit()) throw new IOException("Snapshot cargo index is corrupted");
+            ByteBuffer record = cargoSection.duplicate().limit((int) end).position((int) offset);
+            CRC32 crc = new CRC32();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != checksum) throw new IOException("Snapshot section " + CARGO + " is corrupted");
+            return record;
+        }
+
+        /**
+         * Reads a cargo, sends it to its destination and puts it on its ship.
+         */
+        private Cargo readCargo(ByteBuffer in) {
+            Cargo cargo = Cargo.constructor(getString(in), in.getInt(), owners[in.getInt()]);
+            int destination = in.getInt();
+            int ship = in.getInt();
+            if (destination >= 0) cargo.setDestination(galaxies[destination]);
+            if (ship >= 0) ships[ship].loadCargo(cargo);
+            return cargo;
+        }
+
+        /**
+         * Skips a cargo that was already loaded through the cargo index.
+         */
+        private static void skipCargo(ByteBuffer in) {
+            int nameLength = in.getInt();
+            in.position(in.position() + Math.max(nameLength, 0) + 16);
+        }
+
+        /**
+         * Checks if the given section, or all sections for {@link #ALL}, are loaded.
+         */
+        private boolean isLoaded(byte tag) {
+            int mask = tag == ALL ? ALL_SECTIONS : 1 << tag;
+            return (loaded & mask) == mask;
+        }
+
+        /**
+         * Returns the content of the given section after checking its checksum.
+         */
+        private ByteBuffer content(byte tag) throws IOException {
+            Section section = sections.get(tag);
+            if (section == null) throw new IOException("Snapshot is missing section " + tag);
+            CRC32 crc = new CRC32();
+            crc.update(section.content.duplicate());
+            if ((int) crc.getValue() != section.checksum) {
+                throw new IOException("Snapshot section " + tag + " is corrupted");
+            }
+            return section.content.duplicate();
+        }
+
+        /**
+         * Returns the loaded objects in the same form as {@link #writeSnapshot}.
+         */
+        private List<List<?>> objects() {
+            return List.of(Arrays.asList(galaxies), Arrays.asList(ships), Arrays.asList(crewMembers),
+                    Arrays.asList(cargoArray), Arrays.asList(contracts));
+        }
+    }
+
+    /**
+     * Writes the objects of one section of a snapshot, see {@link #writeSections}.
+     */
+    interface SectionContent {
+        /**
+         * Writes the objects of the section, without their number.
+         *
+         * @param out the writer of the snapshot
+         * @throws IOException if an I/O error occurs
+         */
+        void write(Writer out) throws IOException;
+    }
+
+    /**
+     * Buffered writer over a file channel that keeps a running CRC32 of everything it writes.
+     * Objects are written by the methods for their section and refer to other objects by their
+     * position in their section, or -1 for none.
+     */
+    static class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+        private final CRC32 sectionCrc = new CRC32();
+        private int sectionMark;
+        private long position;
+        private long sectionStart;
+        private final CRC32 recordCrc = new CRC32();
+        private ByteBuffer record = ByteBuffer.allocate(256);
+        private int cargoWritten;
+        private int indexSize;
+        private int[] indexShips = new int[64];
+        private int[] indexCargo = new int[64];
+        private long[] indexOffsets = new long[64];
+        private int[] indexChecksums = new int[64];
+
+        private Writer(FileChannel channel, long position) throws IOException {
+            this.channel = channel;
+            this.position = position;
+            channel.position(position);
+        }
+
+        private long position() {
+            return position + buffer.position();
+        }
+
+        private long checksum() {
+            return crc.getValue();
+        }
+
+        private long beginSection() {
+            sectionCrc.reset();
+            sectionMark = buffer.position();
+            sectionStart = position();
+            return sectionStart;
+        }
+
+        private long endSection() {
+            sectionCrc.update(buffer.duplicate().limit(buffer.position()).position(sectionMark));
+            sectionMark = buffer.position();
+            return sectionCrc.getValue();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            sectionCrc.update(buffer.duplicate().limit(buffer.position()).position(sectionMark));
+            sectionMark = 0;
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            position += buffer.remaining();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        /**
+         * Writes a registered owner.
+         */
+        void putOwner(String owner) throws IOException {
+            putString(owner);
+        }
+
+        /**
+         * Writes a galaxy, which is peaceful if it has a peaceful since date and dangerous otherwise.
+         */
+        void putGalaxy(String name, String galaxyCode, LocalDate peacefulSince, boolean atWar, int solarFlareStrength) throws IOException {
+            putString(name);
+            putString(galaxyCode);
+            if (peacefulSince != null) {
+                putByte((byte) GalaxyType.Peaceful.ordinal());
+                putLong(peacefulSince.toEpochDay());
+            } else {
+                putByte((byte) GalaxyType.Dangerous.ordinal());
+                putBoolean(atWar);
+                putInt(solarFlareStrength);
+            }
+        }
+
+        /**
+         * Writes the routes between galaxies, which end the galaxy section.
+         */
+        void putRoutes(int count, int[] from, int[] to, double[] distances) throws IOException {
+            putInt(count);
+            for (int i = 0; i < count; i++) {
+                putInt(from[i]);
+                putInt(to[i]);
+                putDouble(distances[i]);
+            }
+        }
+
+        /**
+         * Writes a ship, which is an organic support ship if it has food types and a ship without
+         * life support otherwise.
+         */
+        void putShip(String name, int maxCargoMassCapacity, ShipType shipType, Integer solarFlareShieldStrength,
+                     int galaxy, Set<FoodType> foodTypes, String shipAIType) throws IOException {
+            putString(name);
+            putInt(maxCargoMassCapacity);
+            putByte((byte) shipType.ordinal());
+            putInt(solarFlareShieldStrength != null ? solarFlareShieldStrength : -1);
+            putInt(galaxy);
+            if (foodTypes != null) {
+                putByte(ORGANIC_SUPPORT_SHIP);
+                putInt(foodTypes.size());
+                for (FoodType foodType : foodTypes) putByte((byte) foodType.ordinal());
+            } else {
+                putByte(NO_LIFE_SUPPORT_SHIP);
+                putString(shipAIType);
+            }
+        }
+
+        /**
+         * Writes an organic crew member.
+         */
+        void putOrganicCrewMember(String name, FoodType acceptableFoodType) throws IOException {
+            putByte(ORGANIC_CREW_MEMBER);
+            putString(name);
+            putByte((byte) (acceptableFoodType == null ? -1 : acceptableFoodType.ordinal()));
+        }
+
+        /**
+         * Writes a mechanical crew member.
+         */
+        void putMechanicalCrewMember(String serialNumber, String modelNumber) throws IOException {
+            putByte(MECHANICAL_CREW_MEMBER);
+            putString(serialNumber);
+            putString(modelNumber);
+        }
+
+        /**
+         * Writes a cargo and remembers where the cargo of each ship is for the cargo index.
+         */
+        void putCargo(String name, int mass, int owner, int destination, int ship) throws IOException {
+            byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+            int size = 4 + (nameBytes == null ? 0 : nameBytes.length) + 16;
+            if (record.capacity() < size) record = ByteBuffer.allocate(Math.max(size, 2 * record.capacity()));
+            record.clear();
+            record.putInt(nameBytes == null ? -1 : nameBytes.length);
+            if (nameBytes != null) record.put(nameBytes);
+            record.putInt(mass).putInt(owner).putInt(destination).putInt(ship);
+            record.flip();
+            if (ship >= 0) {
+                recordCrc.reset();
+                recordCrc.update(record.duplicate());
+                addToCargoIndex(ship, cargoWritten, position() - sectionStart, (int) recordCrc.getValue());
+            }
+            cargoWritten++;
+            putBytes(record);
+        }
+
+        /**
+         * Remembers one cargo on a ship for the cargo index.
+         */
+        private void addToCargoIndex(int ship, int cargo, long offset, int checksum) {
+            if (indexSize == indexShips.length) {
+                int capacity = 2 * indexSize;
+                indexShips = Arrays.copyOf(indexShips, capacity);
+                indexCargo = Arrays.copyOf(indexCargo, capacity);
+                indexOffsets = Arrays.copyOf(indexOffsets, capacity);
+                indexChecksums = Arrays.copyOf(indexChecksums, capacity);
+            }
+            indexShips[indexSize] = ship;
+            indexCargo[indexSize] = cargo;
+            indexOffsets[indexSize] = offset;
+            indexChecksums[indexSize] = checksum;
+            indexSize++;
+        }
+
+        /**
+         * Writes the cargo index: the number of ships, the number of cargo on each ship and then,
+         * grouped by ship, the position of each of their cargo in the cargo section, the offset of
+         * its record in the section and the CRC32 of the record.
+         */
+        private void putCargoIndex(int shipCount) throws IOException {
+            int[] starts = new int[shipCount + 1];
+            for (int i = 0; i < indexSize; i++) {
+                if (indexShips[i] >= shipCount) throw new RuntimeException("Cargo is on ship " + indexShips[i] + " of " + shipCount);
+                starts[indexShips[i] + 1]++;
+            }
+            putInt(shipCount);
+            for (int i = 0; i < shipCount; i++) putInt(starts[i + 1]);
+            for (int i = 0; i < shipCount; i++) starts[i + 1] += starts[i];
+            int[] order = new int[indexSize];
+            for (int i = 0; i < indexSize; i++) order[starts[indexShips[i]]++] = i;
+            for (int i : order) {
+                putInt(indexCargo[i]);
+                putLong(indexOffsets[i]);
+                putInt(indexChecksums[i]);
+            }
+        }
+
+        /**
+         * Writes a contract.
+         */
+        void putContract(String role, Double salary, int ship, int crewMember) throws IOException {
+            putString(role);
+            putBoolean(salary != null);
+            if (salary != null) putDouble(salary);
+            putInt(ship);
+            putInt(crewMember);
+        }
+
+        private void putByte(byte b) throws IOException {
+            ensure(1);
+            buffer.put(b);
+        }
+
+        private void putBoolean(boolean b) throws IOException {
+            putByte((byte) (b ? 1 : 0));
+        }
+
+        private void putInt(int i) throws IOException {
+            ensure(4);
+            buffer.putInt(i);
+        }
+
+        private void putLong(long l) throws IOException {
+            ensure(8);
+            buffer.putLong(l);
+        }
+
+        private void putDouble(double d) throws IOException {
+            ensure(8);
+            buffer.putDouble(d);
+        }
+
+        private void putString(String string) throws IOException {
+            if (string == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(ByteBuffer.wrap(bytes));
+        }
+
+        private void putBytes(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), bytes.remaining());
+                buffer.put(bytes.slice(bytes.position(), chunk));
+                bytes.position(bytes.position() + chunk);
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.classes;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * The TourPlanner class finds a short order in which a ship can visit the destinations of its cargo.
+ * <p>
+ * The tour starts in the galaxy the ship is in and ends at the last destination, the cost of
+ * each leg being the length of its shortest route in the {@link RouteNetwork}. Destinations
+ * the ship can not go to or can not get to from the start are left out. A ship may start in a
+ * galaxy it can not pass through again, so stops can be reachable from the start but not from
+ * each other; then only the largest group of stops reachable from each other is kept, the group
+ * with the nearest stop among groups of equal size, and the other stops are left out. The distances between
+ * all stops are computed first. Then several searches run in parallel, one per core: each builds
+ * a tour by going to a near unvisited stop next and improves it by 2-opt, reversing a part of the
+ * tour, and by Or-opt, moving up to three consecutive stops elsewhere, until no move helps or the
+ * time is up. The first search always goes to the nearest stop, the others pick among the three
+ * nearest at random, each with its own fixed seed. The shortest tour found wins.
+ */
+public class TourPlanner {
+    /**
+     * The default time the searches may take, in milliseconds.
+     */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 200;
+
+    /**
+     * The least number of searches, so that there is more than one even on a single core.
+     */
+    private static final int MIN_RESTARTS = 4;
+
+    /**
+     * Cost of a leg between stops that can not be reached from each other, large enough for any
+     * tour avoiding such legs to be shorter.
+     */
+    private static final double NO_ROUTE = 1e15;
+
+    /**
+     * Plans a tour through the destinations of the cargo on a ship.
+     *
+     * @param ship The ship to plan for.
+     * @return The itinerary.
+     * @throws RuntimeException If ship is null or in no galaxy.
+     */
+    public static Itinerary plan(Ship ship) {
+        return plan(ship, DEFAULT_TIME_LIMIT_MILLIS);
+    }
+
+    /**
+     * Plans a tour through the destinations of the cargo on a ship.
+     *
+     * @param ship            The ship to plan for.
+     * @param timeLimitMillis The time the searches may take, in milliseconds.
+     * @return The itinerary.
+     * @throws RuntimeException If ship is null or in no galaxy.
+     */
+    public static Itinerary plan(Ship ship, long timeLimitMillis) {
+        if (ship == null) throw new RuntimeException("Ship can not be null");
+        if (ship.getGalaxy() == null) throw new RuntimeException("Ship is in no galaxy");
+        List<Galaxy> destinations = new ArrayList<>();
+        for (Galaxy galaxy : ship.getGalaxyToCargo().keySet()) {
+            if (galaxy != null) destinations.add(galaxy);
+        }
+        Integer shield = ship.getShipType() == ShipType.Shielded ? ship.getSolarFlareShieldStrength() : null;
+        return plan(ship.getShipType(), shield, ship.getGalaxy(), destinations, timeLimitMillis);
+    }
+
+    /**
+     * Plans a tour through the given galaxies for ships with the given protection.
+     *
+     * @param shipType                 The type of the ships.
+     * @param solarFlareShieldStrength The shield strength of the ships, used for shielded ships only.
+     * @param start                    The galaxy to start in.
+     * @param destinations             The galaxies to visit.
+     * @param timeLimitMillis          The time the searches may take, in milliseconds.
+     * @return The itinerary.
+     * @throws RuntimeException If shipType, start or destinations is null, the ships are shielded
+     *                          and solarFlareShieldStrength is null, or the time limit is negative.
+     */
+    public static Itinerary plan(ShipType shipType, Integer solarFlareShieldStrength, Galaxy start,
+                                 Collection<Galaxy> destinations, long timeLimitMillis) {
+        if (shipType == null) throw new RuntimeException("Ship type can not be null");
+        if (shipType == ShipType.Shielded && solarFlareShieldStrength == null)
+            throw new RuntimeException("Shield strength can not be null for shielded ships");
+        if (start == null) throw new RuntimeException("Start galaxy can not be null");
+        if (destinations == null) throw new RuntimeException("Destinations can not be null");
+        if (timeLimitMillis < 0) throw new RuntimeException("Time limit can not be negative");
+        Integer shield = shipType == ShipType.Shielded ? solarFlareShieldStrength : null;
+
+        List<Galaxy> stops = new ArrayList<>();
+        List<Galaxy> unreachable = new ArrayList<>();
+        for (Galaxy galaxy : new LinkedHashSet<>(destinations)) {
+            if (galaxy == null || galaxy == start) continue;
+            if (galaxy.isReachableWith(shipType, shield)
+                    && RouteNetwork.distance(shipType, shield, start, galaxy) < Double.POSITIVE_INFINITY) {
+                stops.add(galaxy);
+            } else {
+                unreachable.add(galaxy);
+            }
+        }
+        if (stops.isEmpty()) return new Itinerary(shipType, shield, start, stops, unreachable, 0);
+
+        Search search = new Search(shipType, shield, start, stops);
+        List<Galaxy> connected = search.connectedStops(stops);
+        if (connected.size() < stops.size()) {
+            for (Galaxy galaxy : stops) {
+                if (!connected.contains(galaxy)) unreachable.add(galaxy);
+            }
+            stops = connected;
+            search = new Search(shipType, shield, start, stops);
+        }
+        int[] tour = search.run(System.nanoTime() + timeLimitMillis * 1_000_000);
+        List<Galaxy> ordered = new ArrayList<>();
+        for (int i = 1; i < tour.length; i++) ordered.add(stops.get(tour[i] - 1));
+        return new Itinerary(shipType, shield, start, ordered, unreachable, search.cost(tour));
+    }
+
+    /**
+     * The state of one planning run. The start is node 0 and the stops are nodes 1 to n, a tour
+     * being an array of nodes beginning with 0.
+     */
+    private static class Search {
+        private final double[][] distances;
+        private long deadline;
+
+        /**
+         * Computes the distances between the start and all stops.
+         *
+         * @param shipType                 The type of the ships.
+         * @param solarFlareShieldStrength The shield strength of the ships.
+         * @param start                    The galaxy to start in.
+         * @param stops                    The galaxies to visit.
+         */
+        private Search(ShipType shipType, Integer solarFlareShieldStrength, Galaxy start, List<Galaxy> stops) {
+            List<Galaxy> nodes = new ArrayList<>();
+            nodes.add(start);
+            nodes.addAll(stops);
+            distances = new double[nodes.size()][];
+            IntStream.range(0, nodes.size()).parallel().forEach(from -> {
+                double[] reachable = RouteNetwork.distancesFrom(shipType, solarFlareShieldStrength, nodes.get(from));
+                double[] row = new double[nodes.size()];
+                for (int to = 0; to < row.length; to++) {
+                    int id = nodes.get(to).getId();
+                    row[to] = id < reachable.length && reachable[id] < Double.POSITIVE_INFINITY ? reachable[id] : NO_ROUTE;
+                }
+                distances[from] = row;
+            });
+        }
+
+        /**
+         * Finds the largest group of stops that can all be reached from each other, preferring
+         * the group with the stop nearest to the start among groups of equal size.
+         *
+         * @param stops The stops, in the order of their nodes.
+         * @return The stops of the group, in the same order.
+         */
+        private List<Galaxy> connectedStops(List<Galaxy> stops) {
+            int n = distances.length;
+            int[] group = new int[n];
+            int[] sizes = new int[n];
+            double[] nearest = new double[n];
+            int groups = 0;
+            for (int node = 1; node < n; node++) {
+                if (group[node] != 0) continue;
+                groups++;
+                nearest[groups] = Double.POSITIVE_INFINITY;
+                Deque<Integer> pending = new ArrayDeque<>(List.of(node));
+                group[node] = groups;
+                while (!pending.isEmpty()) {
+                    int current = pending.pop();
+                    sizes[groups]++;
+                    nearest[groups] = Math.min(nearest[groups], distances[0][current]);
+                    for (int next = 1; next < n; next++) {
+                        if (group[next] == 0 && distances[current][next] < NO_ROUTE) {
+                            group[next] = groups;
+                            pending.push(next);
+                        }
+                    }
+                }
+            }
+            int best = 1;
+            for (int g = 2; g <= groups; g++) {
+                if (sizes[g] > sizes[best] || sizes[g] == sizes[best] && nearest[g] < nearest[best]) best = g;
+            }
+            List<Galaxy> connected = new ArrayList<>();
+            for (int node = 1; node < n; node++) {
+                if (group[node] == best) connected.add(stops.get(node - 1));
+            }
+            return connected;
+        }
+
+        /**
+         * Runs one search per core, but at least {@link #MIN_RESTARTS}, and returns the shortest tour found.
+         *
+         * @param deadline The value of {@link System#nanoTime()} at which to stop improving.
+         * @return The best tour.
+         */
+        private int[] run(long deadline) {
+            this.deadline = deadline;
+            int restarts = Math.max(MIN_RESTARTS, Runtime.getRuntime().availableProcessors());
+            return IntStream.range(0, restarts).parallel()
+                    .mapToObj(this::search)
+                    .min(Comparator.comparingDouble(this::cost))
+                    .orElseThrow();
+        }
+
+        /**
+         * Builds a tour and improves it until no move helps or the time is up.
+         *
+         * @param restart The number of the search, 0 being the plain nearest neighbour search.
+         * @return The tour found.
+         */
+        private int[] search(int restart) {
+            int[] tour = build(restart == 0 ? null : new Random(restart));
+            boolean improved = true;
+            while (improved && System.nanoTime() < deadline) {
+                improved = twoOpt(tour) | orOpt(tour);
+            }
+            return tour;
+        }
+
+        /**
+         * Builds a tour by going to a near unvisited stop next.
+         *
+         * @param random The source of randomness choosing among the three nearest stops, or null to always take the nearest.
+         * @return The tour.
+         */
+        private int[] build(Random random) {
+            int n = distances.length;
+            int[] tour = new int[n];
+            boolean[] visited = new boolean[n];
+            visited[0] = true;
+            for (int i = 1; i < n; i++) {
+                int[] nearest = {-1, -1, -1};
+                for (int node = 1; node < n; node++) {
+                    if (visited[node]) continue;
+                    double distance = distances[tour[i - 1]][node];
+                    for (int k = 0; k < nearest.length; k++) {
+                        if (nearest[k] < 0 || distance < distances[tour[i - 1]][nearest[k]]) {
+                            System.arraycopy(nearest, k, nearest, k + 1, nearest.length - k - 1);
+                            nearest[k] = node;
+                            break;
+                        }
+                    }
+                }
+                int choices = random == null ? 1 : (int) Arrays.stream(nearest).filter(node -> node >= 0).count();
+                int next = nearest[random == null ? 0 : random.nextInt(choices)];
+                tour[i] = next;
+                visited[next] = true;
+            }
+            return tour;
+        }
+
+        /**
+         * Applies every 2-opt move that shortens the tour. A move reverses the part of the tour
+         * from position i to position j. The tour is open, so a part may reach its end.
+         *
+         * @param tour The tour to improve.
+         * @return True if the tour was shortened.
+         */
+        private boolean twoOpt(int[] tour) {
+            boolean improved = false;
+            int n = tour.length;
+            for (int i = 1; i < n - 1 && System.nanoTime() < deadline; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double before = distances[tour[i - 1]][tour[i]] + (j + 1 < n ? distances[tour[j]][tour[j + 1]] : 0);
+                    double after = distances[tour[i - 1]][tour[j]] + (j + 1 < n ? distances[tour[i]][tour[j + 1]] : 0);
+                    if (after < before - 1e-9) {
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            int node = tour[a];
+                            tour[a] = tour[b];
+                            tour[b] = node;
+                        }
+                        improved = true;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        /**
+         * Applies every Or-opt move that shortens the tour. A move takes one to three consecutive
+         * stops out of the tour and puts them back, in the same order, between two other stops
+         * or at the end.
+         *
+         * @param tour The tour to improve.
+         * @return True if the tour was shortened.
+         */
+        private boolean orOpt(int[] tour) {
+            boolean improved = false;
+            int n = tour.length;
+            for (int length = 1; length <= 3; length++) {
+                for (int i = 1; i + length <= n && System.nanoTime() < deadline; i++) {
+                    int first = tour[i];
+                    int last = tour[i + length - 1];
+                    int before = tour[i - 1];
+                    int after = i + length < n ? tour[i + length] : -1;
+                    double removed = distances[before][first] + (after >= 0 ? distances[last][after] - distances[before][after] : 0);
+                    int best = -1;
+                    double bestGain = 1e-9;
+                    for (int p = 0; p < n; p++) {
+                        if (p >= i - 1 && p < i + length) continue;
+                        int next = p + 1 < n ? tour[p + 1] : -1;
+                        double added = distances[tour[p]][first]
+                                + (next >= 0 ? distances[last][next] - distances[tour[p]][next] : 0);
+                        if (removed - added > bestGain) {
+                            bestGain = removed - added;
+                            best = p;
+                        }
+                    }
+                    if (best >= 0) {
+                        move(tour, i, length, best);
+                        improved = true;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        /**
+         * Moves the stops from position i on to right after position p.
+         *
+         * @param tour   The tour.
+         * @param i      The position of the first stop to move.
+         * @param length The number of stops to move.
+         * @param p      The position to put the stops after, outside of the moved stops.
+         */
+        private static void move(int[] tour, int i, int length, int p) {
+            int[] segment = Arrays.copyOfRange(tour, i, i + length);
+            if (p < i) {
+                System.arraycopy(tour, p + 1, tour, p + 1 + length, i - p - 1);
+                System.arraycopy(segment, 0, tour, p + 1, length);
+            } else {
+                System.arraycopy(tour, i + length, tour, i, p - i - length + 1);
+                System.arraycopy(segment, 0, tour, p - length + 1, length);
+            }
+        }
+
+        /**
+         * Computes the total distance of a tour.
+         *
+         * @param tour The tour.
+         * @return The distance.
+         */
+        private double cost(int[] tour) {
+            double cost = 0;
+            for (int i = 1; i < tour.length; i++) cost += distances[tour[i - 1]][tour[i]];
+            return cost;
+        }
+    }
+}
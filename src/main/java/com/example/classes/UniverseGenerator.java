@@ -0,0 +1,595 @@
+package com.example.classes;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The UniverseGenerator class builds large random universes for load tests and benchmarks:
+ * peaceful and dangerous galaxies connected in a ring with random shortcuts, ships of both kinds
+ * docked in them with their crew and contracts, registered owners and cargo, some of it loaded.
+ * <p>
+ * Every object is drawn from its own random generator, seeded by the seed of the generator and
+ * the position of the object, so the same seed and settings give the same universe however many
+ * cores do the work. Cargo is drawn in parallel in chunks that are handed on in order, so only a
+ * few chunks exist at a time and millions of cargo can be generated. Owners own cargo unevenly,
+ * a few of them most of it, and the galaxies created first are the destination of more cargo
+ * than the others.
+ * <p>
+ * The universe either goes into memory, as new objects added to their extents, or straight into
+ * a snapshot file without creating any objects. Such a file holds only the generated universe
+ * and can be opened with {@link Snapshot#open}.
+ */
+public class UniverseGenerator {
+    /**
+     * The number of cargo drawn by one task.
+     */
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private static final LocalDate EARLIEST_PEACEFUL_SINCE = LocalDate.of(2350, 1, 1);
+    private static final String[] SHIP_AI_TYPES = {"Autopilot", "Navigator", "Sentinel"};
+    private static final String[] ROLES = {"Captain", "Pilot", "Engineer", "Navigator", "Medic", "Cook"};
+
+    private static final int GALAXY = 1;
+    private static final int ROUTE = 2;
+    private static final int SHIP = 3;
+    private static final int CREW = 4;
+    private static final int CARGO = 5;
+
+    private final long seed;
+    private String prefix;
+    private int galaxyCount = 1000;
+    private double dangerousShare = 0.3;
+    private double atWarShare = 0.25;
+    private int shortcuts = 1;
+    private int shipCount = 100;
+    private double organicShare = 0.3;
+    private double shieldedShare = 0.5;
+    private int minCapacity = 1000;
+    private int maxCapacity = 10000;
+    private int crewPerShip = 3;
+    private int ownerCount = 10;
+    private int cargoCount = 10000;
+    private int maxCargoMass = 500;
+    private double loadedShare = 0.2;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param seed The seed of all random choices.
+     */
+    private UniverseGenerator(long seed) {
+        this.seed = seed;
+        this.prefix = "U" + seed + "-";
+    }
+
+    /**
+     * Static factory method to create a generator of 1000 galaxies, 100 ships with 3 crew members
+     * each, 10 owners and 10000 cargo. Names and codes start with "U", the seed and a dash.
+     *
+     * @param seed The seed of all random choices.
+     * @return A new generator.
+     */
+    public static UniverseGenerator constructor(long seed) {
+        return new UniverseGenerator(seed);
+    }
+
+    /**
+     * Sets what galaxy codes and the names of ships, owners and crew members start with, so that
+     * several universes can be generated into memory side by side.
+     *
+     * @param prefix The prefix.
+     * @throws RuntimeException If prefix is null or empty.
+     */
+    public void setPrefix(String prefix) {
+        Util.validString(prefix);
+        this.prefix = prefix;
+    }
+
+    /**
+     * Sets the galaxies to generate. Each galaxy is connected to the next one, the last to the
+     * first, and to the given number of random other galaxies.
+     *
+     * @param count          The number of galaxies.
+     * @param dangerousShare The share of dangerous galaxies.
+     * @param atWarShare     The share of dangerous galaxies that are at war.
+     * @param shortcuts      The number of random routes from each galaxy.
+     * @throws RuntimeException If a number is negative or a share is not between 0 and 1.
+     */
+    public void setGalaxies(int count, double dangerousShare, double atWarShare, int shortcuts) {
+        Util.nonNegativeIntCheck(count);
+        shareCheck(dangerousShare);
+        shareCheck(atWarShare);
+        Util.nonNegativeIntCheck(shortcuts);
+        this.galaxyCount = count;
+        this.dangerousShare = dangerousShare;
+        this.atWarShare = atWarShare;
+        this.shortcuts = shortcuts;
+    }
+
+    /**
+     * Sets the ships to generate. Organic support ships are crewed mostly by organic crew members,
+     * ships without life support only by mechanical ones. The first contract of every ship is
+     * for its captain.
+     *
+     * @param count         The number of ships.
+     * @param organicShare  The share of organic support ships.
+     * @param shieldedShare The share of shielded ships.
+     * @param minCapacity   The smallest cargo capacity.
+     * @param maxCapacity   The largest cargo capacity.
+     * @param crewPerShip   The number of crew members signed to each ship.
+     * @throws RuntimeException If a number is out of range or a share is not between 0 and 1.
+     */
+    public void setShips(int count, double organicShare, double shieldedShare, int minCapacity, int maxCapacity, int crewPerShip) {
+        Util.nonNegativeIntCheck(count);
+        shareCheck(organicShare);
+        shareCheck(shieldedShare);
+        Util.positiveIntCheck(minCapacity);
+        if (maxCapacity < minCapacity) throw new RuntimeException("Largest capacity can not be smaller than smallest capacity");
+        Util.nonNegativeIntCheck(crewPerShip);
+        if ((long) count * crewPerShip > Integer.MAX_VALUE) throw new RuntimeException("Too many crew members");
+        this.shipCount = count;
+        this.organicShare = organicShare;
+        this.shieldedShare = shieldedShare;
+        this.minCapacity = minCapacity;
+        this.maxCapacity = maxCapacity;
+        this.crewPerShip = crewPerShip;
+    }
+
+    /**
+     * Sets the cargo to generate. Cargo is loaded on a random ship with the given probability if
+     * the ship can go to its destination and has capacity left, and waits otherwise.
+     *
+     * @param count       The number of cargo.
+     * @param ownerCount  The number of registered owners.
+     * @param maxMass     The largest mass of a cargo.
+     * @param loadedShare The share of cargo put on ships.
+     * @throws RuntimeException If a number is out of range or the share is not between 0 and 1.
+     */
+    public void setCargo(int count, int ownerCount, int maxMass, double loadedShare) {
+        Util.nonNegativeIntCheck(count);
+        Util.nonNegativeIntCheck(ownerCount);
+        Util.positiveIntCheck(maxMass);
+        shareCheck(loadedShare);
+        this.cargoCount = count;
+        this.ownerCount = ownerCount;
+        this.maxCargoMass = maxMass;
+        this.loadedShare = loadedShare;
+    }
+
+    /**
+     * Generates the universe into memory, adding the new objects to their extents.
+     *
+     * @throws RuntimeException If a galaxy code is taken or the settings do not fit together.
+     */
+    public void generate() {
+        Layout layout = layout();
+        String[] owners = new String[ownerCount];
+        for (int i = 0; i < ownerCount; i++) {
+            owners[i] = ownerName(i);
+            Cargo.addRegisteredOwner(owners[i]);
+        }
+        Galaxy[] galaxies = new Galaxy[galaxyCount];
+        for (int i = 0; i < galaxyCount; i++) {
+            galaxies[i] = layout.dangerous[i]
+                    ? Galaxy.dangerousGalaxyConstructor(galaxyName(i), galaxyCode(i), layout.atWar[i], layout.solarFlareStrength[i])
+                    : Galaxy.peacefulGalaxyConstructor(galaxyName(i), galaxyCode(i), peacefulSince(layout, i));
+        }
+        for (int i = 0; i < layout.routeCount; i++) {
+            galaxies[layout.routeFrom[i]].connect(galaxies[layout.routeTo[i]], layout.routeDistance[i]);
+        }
+        Ship[] ships = new Ship[shipCount];
+        for (int i = 0; i < shipCount; i++) {
+            ships[i] = layout.organic[i]
+                    ? OrganicSupportShip.constructor(shipName(i), layout.capacity[i], shipType(layout, i), shield(layout, i), foodTypes(layout, i))
+                    : NoLifeSupportShip.constructor(shipName(i), layout.capacity[i], shipType(layout, i), shield(layout, i), shipAIType(layout, i));
+            ships[i].setGalaxy(galaxies[layout.galaxy[i]]);
+        }
+        for (int i = 0; i < shipCount * crewPerShip; i++) {
+            CrewSpec spec = crewSpec(layout, i);
+            CrewMember crewMember = spec.organic
+                    ? OrganicCrewMember.constructor(spec.name, spec.foodType)
+                    : MechanicalCrewMember.constructor(spec.name, spec.modelNumber);
+            Contract.constructor(spec.role, spec.salary, ships[i / crewPerShip], crewMember);
+        }
+        forEachCargoChunk(layout, chunk -> {
+            for (int j = 0; j < chunk.size; j++) {
+                Cargo cargo = Cargo.constructor(cargoName(chunk.first + j), chunk.mass[j], owners[chunk.owner[j]]);
+                cargo.setDestination(galaxies[chunk.destination[j]]);
+                if (chunk.ship[j] >= 0) ships[chunk.ship[j]].addCargo(cargo);
+            }
+        });
+    }
+
+    /**
+     * Generates the universe straight into a snapshot file, replacing its content, without
+     * creating any objects. Objects in memory are neither changed nor written.
+     *
+     * @param path The file to write to.
+     * @throws IOException      If the file can not be written.
+     * @throws RuntimeException If the settings do not fit together.
+     */
+    public void write(Path path) throws IOException {
+        Layout layout = layout();
+        int crewCount = shipCount * crewPerShip;
+        int[] counts = {ownerCount, galaxyCount, shipCount, crewCount, cargoCount, crewCount};
+        Snapshot.writeSections(path, counts,
+                out -> {
+                    for (int i = 0; i < ownerCount; i++) out.putOwner(ownerName(i));
+                },
+                out -> {
+                    for (int i = 0; i < galaxyCount; i++) {
+                        out.putGalaxy(galaxyName(i), galaxyCode(i), layout.dangerous[i] ? null : peacefulSince(layout, i),
+                                layout.atWar[i], layout.solarFlareStrength[i]);
+                    }
+                    out.putRoutes(layout.routeCount, layout.routeFrom, layout.routeTo, layout.routeDistance);
+                },
+                out -> {
+                    for (int i = 0; i < shipCount; i++) {
+                        out.putShip(shipName(i), layout.capacity[i], shipType(layout, i), shield(layout, i), layout.galaxy[i],
+                                layout.organic[i] ? foodTypes(layout, i) : null, layout.organic[i] ? null : shipAIType(layout, i));
+                    }
+                },
+                out -> {
+                    for (int i = 0; i < crewCount; i++) {
+                        CrewSpec spec = crewSpec(layout, i);
+                        if (spec.organic) {
+                            out.putOrganicCrewMember(spec.name, spec.foodType);
+                        } else {
+                            out.putMechanicalCrewMember(spec.name, spec.modelNumber);
+                        }
+                    }
+                },
+                out -> forEachCargoChunk(layout, chunk -> {
+                    for (int j = 0; j < chunk.size; j++) {
+                        out.putCargo(cargoName(chunk.first + j), chunk.mass[j], chunk.owner[j], chunk.destination[j], chunk.ship[j]);
+                    }
+                }),
+                out -> {
+                    for (int i = 0; i < crewCount; i++) {
+                        CrewSpec spec = crewSpec(layout, i);
+                        out.putContract(spec.role, spec.salary, i / crewPerShip, i);
+                    }
+                });
+    }
+
+    /**
+     * Draws the galaxies, routes and ships, each in parallel.
+     *
+     * @return The drawn galaxies, routes and ships.
+     * @throws RuntimeException If there are ships or cargo but no galaxies, or cargo but no owners.
+     */
+    private Layout layout() {
+        if (galaxyCount == 0 && (shipCount > 0 || cargoCount > 0)) {
+            throw new RuntimeException("Ships and cargo need at least one galaxy");
+        }
+        if (ownerCount == 0 && cargoCount > 0) throw new RuntimeException("Cargo needs at least one owner");
+        Layout layout = new Layout(galaxyCount, galaxyCount < 2 ? 0 : Math.multiplyExact(galaxyCount, 1 + shortcuts), shipCount);
+        IntStream.range(0, galaxyCount).parallel().forEach(i -> {
+            SplittableRandom random = random(GALAXY, i);
+            layout.dangerous[i] = random.nextDouble() < dangerousShare;
+            if (layout.dangerous[i]) {
+                layout.atWar[i] = random.nextDouble() < atWarShare;
+                double strength = random.nextDouble();
+                layout.solarFlareStrength[i] = (int) (100 * strength * strength);
+            } else {
+                layout.peacefulDays[i] = random.nextInt(365 * 50);
+            }
+        });
+        IntStream.range(0, layout.routeCount / (1 + shortcuts)).parallel().forEach(i -> {
+            SplittableRandom random = random(ROUTE, i);
+            int route = i * (1 + shortcuts);
+            layout.routeFrom[route] = i;
+            layout.routeTo[route] = (i + 1) % galaxyCount;
+            layout.routeDistance[route] = 1 + random.nextInt(20);
+            for (int k = 1; k <= shortcuts; k++) {
+                layout.routeFrom[route + k] = i;
+                layout.routeTo[route + k] = (i + 1 + random.nextInt(galaxyCount - 1)) % galaxyCount;
+                layout.routeDistance[route + k] = 5 + random.nextInt(50);
+            }
+        });
+        IntStream.range(0, shipCount).parallel().forEach(i -> {
+            SplittableRandom random = random(SHIP, i);
+            layout.organic[i] = random.nextDouble() < organicShare;
+            layout.shield[i] = random.nextDouble() < shieldedShare ? 20 + random.nextInt(80) : -1;
+            layout.capacity[i] = minCapacity + random.nextInt(maxCapacity - minCapacity + 1);
+            layout.galaxy[i] = random.nextInt(galaxyCount);
+            layout.kind[i] = layout.organic[i] ? 1 + random.nextInt(7) : random.nextInt(SHIP_AI_TYPES.length);
+        });
+        return layout;
+    }
+
+    /**
+     * Draws the cargo in chunks, several chunks in parallel, and hands the chunks to the action
+     * in order. Cargo drawn for a ship without the capacity left for it waits instead.
+     *
+     * @param layout The drawn galaxies and ships.
+     * @param action What to do with each chunk.
+     * @param <E>    The exception the action may throw.
+     * @throws E If the action fails.
+     */
+    private <E extends Exception> void forEachCargoChunk(Layout layout, ChunkAction<E> action) throws E {
+        int[] remaining = layout.capacity.clone();
+        int chunks = (int) ((cargoCount + (long) CHUNK_SIZE - 1) / CHUNK_SIZE);
+        int batch = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        for (int first = 0; first < chunks; first += batch) {
+            List<CargoChunk> drawn = IntStream.range(first, Math.min(chunks, first + batch)).parallel()
+                    .mapToObj(chunk -> drawCargo(layout, chunk)).toList();
+            for (CargoChunk chunk : drawn) {
+                for (int j = 0; j < chunk.size; j++) {
+                    int ship = chunk.ship[j];
+                    if (ship < 0) continue;
+                    if (remaining[ship] >= chunk.mass[j]) {
+                        remaining[ship] -= chunk.mass[j];
+                    } else {
+                        chunk.ship[j] = -1;
+                    }
+                }
+                action.accept(chunk);
+            }
+        }
+    }
+
+    /**
+     * Draws one chunk of cargo.
+     *
+     * @param layout The drawn galaxies and ships.
+     * @param index  The position of the chunk.
+     * @return The cargo of the chunk, each with the ship it is drawn for or -1.
+     */
+    private CargoChunk drawCargo(Layout layout, int index) {
+        int first = index * CHUNK_SIZE;
+        CargoChunk chunk = new CargoChunk(first, Math.min(CHUNK_SIZE, cargoCount - first));
+        for (int j = 0; j < chunk.size; j++) {
+            SplittableRandom random = random(CARGO, first + j);
+            double exponential = -Math.log(1 - random.nextDouble()) * maxCargoMass / 5;
+            chunk.mass[j] = 1 + (int) Math.min(maxCargoMass - 1, exponential);
+            double owner = random.nextDouble();
+            chunk.owner[j] = (int) (ownerCount * owner * owner * owner);
+            double destination = random.nextDouble();
+            chunk.destination[j] = (int) (galaxyCount * destination * destination);
+            int ship = shipCount > 0 && random.nextDouble() < loadedShare ? random.nextInt(shipCount) : -1;
+            chunk.ship[j] = ship >= 0 && reachable(layout, ship, chunk.destination[j]) ? ship : -1;
+        }
+        return chunk;
+    }
+
+    /**
+     * Draws a crew member together with the contract signing them to their ship.
+     *
+     * @param layout The drawn ships.
+     * @param index  The position of the crew member, crew members of a ship being next to each other.
+     * @return The crew member and contract.
+     */
+    private CrewSpec crewSpec(Layout layout, int index) {
+        SplittableRandom random = random(CREW, index);
+        int ship = index / crewPerShip;
+        boolean captain = index % crewPerShip == 0;
+        CrewSpec spec = new CrewSpec();
+        spec.role = captain ? ROLES[0] : ROLES[1 + random.nextInt(ROLES.length - 1)];
+        spec.organic = layout.organic[ship] && (captain || random.nextInt(4) > 0);
+        if (spec.organic) {
+            spec.name = prefix + "Crew " + index;
+            List<FoodType> foodTypes = List.copyOf(foodTypes(layout, ship));
+            spec.foodType = foodTypes.get(random.nextInt(foodTypes.size()));
+            spec.salary = 1000.0 * (2 + random.nextInt(9));
+        } else {
+            spec.name = prefix + "SN-" + index;
+            spec.modelNumber = "MK-" + (1 + random.nextInt(9));
+        }
+        return spec;
+    }
+
+    /**
+     * Checks if a drawn ship can go to a drawn galaxy, as {@link Ship#canGoToGalaxy} would.
+     *
+     * @param layout The drawn galaxies and ships.
+     * @param ship   The position of the ship.
+     * @param galaxy The position of the galaxy.
+     * @return True if the ship can go to the galaxy, false otherwise.
+     */
+    private static boolean reachable(Layout layout, int ship, int galaxy) {
+        if (!layout.dangerous[galaxy]) return true;
+        return layout.shield[ship] >= 0 && !layout.atWar[galaxy] && layout.solarFlareStrength[galaxy] <= layout.shield[ship];
+    }
+
+    /**
+     * Creates the random generator of one object, seeded by the seed of the generator, the kind
+     * of the object and its position.
+     *
+     * @param stream The kind of the object.
+     * @param index  The position of the object.
+     * @return The random generator.
+     */
+    private SplittableRandom random(int stream, long index) {
+        return new SplittableRandom(mix(mix(seed + stream * 0x9E3779B97F4A7C15L) + index));
+    }
+
+    /**
+     * Scrambles the bits of a number, so that close numbers give unrelated results.
+     *
+     * @param z The number.
+     * @return The scrambled number.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Checks that a share is between 0 and 1.
+     *
+     * @param share The share.
+     * @throws RuntimeException If the share is not between 0 and 1.
+     */
+    private static void shareCheck(double share) {
+        if (!(share >= 0 && share <= 1)) throw new RuntimeException("Share must be between 0 and 1");
+    }
+
+    /**
+     * Retrieves the peaceful since date of a drawn peaceful galaxy.
+     */
+    private static LocalDate peacefulSince(Layout layout, int galaxy) {
+        return EARLIEST_PEACEFUL_SINCE.plusDays(layout.peacefulDays[galaxy]);
+    }
+
+    /**
+     * Retrieves the type of a drawn ship.
+     */
+    private static ShipType shipType(Layout layout, int ship) {
+        return layout.shield[ship] >= 0 ? ShipType.Shielded : ShipType.NoProtection;
+    }
+
+    /**
+     * Retrieves the solar flare shield strength of a drawn ship, or null if it is not shielded.
+     */
+    private static Integer shield(Layout layout, int ship) {
+        return layout.shield[ship] >= 0 ? layout.shield[ship] : null;
+    }
+
+    /**
+     * Retrieves the food types of a drawn organic support ship.
+     */
+    private static Set<FoodType> foodTypes(Layout layout, int ship) {
+        Set<FoodType> foodTypes = EnumSet.noneOf(FoodType.class);
+        for (FoodType foodType : FoodType.values()) {
+            if ((layout.kind[ship] & 1 << foodType.ordinal()) != 0) foodTypes.add(foodType);
+        }
+        return foodTypes;
+    }
+
+    /**
+     * Retrieves the AI type of a drawn ship without life support.
+     */
+    private static String shipAIType(Layout layout, int ship) {
+        return SHIP_AI_TYPES[layout.kind[ship]];
+    }
+
+    /**
+     * Retrieves the name of a generated owner.
+     */
+    private String ownerName(int owner) {
+        return prefix + "Owner " + owner;
+    }
+
+    /**
+     * Retrieves the name of a generated galaxy.
+     */
+    private static String galaxyName(int galaxy) {
+        return "Galaxy " + galaxy;
+    }
+
+    /**
+     * Retrieves the code of a generated galaxy.
+     */
+    private String galaxyCode(int galaxy) {
+        return prefix + galaxy;
+    }
+
+    /**
+     * Retrieves the name of a generated ship.
+     */
+    private String shipName(int ship) {
+        return prefix + "Ship " + ship;
+    }
+
+    /**
+     * Retrieves the name of a generated cargo.
+     */
+    private static String cargoName(int cargo) {
+        return "Cargo " + cargo;
+    }
+
+    /**
+     * Something done with each chunk of cargo, in order.
+     *
+     * @param <E> The exception it may throw.
+     */
+    private interface ChunkAction<E extends Exception> {
+        /**
+         * Handles a chunk of cargo.
+         *
+         * @param chunk The chunk.
+         * @throws E If the chunk can not be handled.
+         */
+        void accept(CargoChunk chunk) throws E;
+    }
+
+    /**
+     * The drawn attributes of the galaxies, routes and ships, by their position.
+     */
+    private static class Layout {
+        private final boolean[] dangerous;
+        private final boolean[] atWar;
+        private final int[] solarFlareStrength;
+        private final int[] peacefulDays;
+        private final int routeCount;
+        private final int[] routeFrom;
+        private final int[] routeTo;
+        private final double[] routeDistance;
+        private final boolean[] organic;
+        private final int[] shield;
+        private final int[] capacity;
+        private final int[] galaxy;
+        /**
+         * The food types of an organic support ship as a bit set, or the AI type of other ships.
+         */
+        private final int[] kind;
+
+        private Layout(int galaxies, int routes, int ships) {
+            dangerous = new boolean[galaxies];
+            atWar = new boolean[galaxies];
+            solarFlareStrength = new int[galaxies];
+            peacefulDays = new int[galaxies];
+            routeCount = routes;
+            routeFrom = new int[routes];
+            routeTo = new int[routes];
+            routeDistance = new double[routes];
+            organic = new boolean[ships];
+            shield = new int[ships];
+            capacity = new int[ships];
+            galaxy = new int[ships];
+            kind = new int[ships];
+        }
+    }
+
+    /**
+     * The drawn attributes of consecutive cargo.
+     */
+    private static class CargoChunk {
+        private final int first;
+        private final int size;
+        private final int[] mass;
+        private final int[] owner;
+        private final int[] destination;
+        private final int[] ship;
+
+        private CargoChunk(int first, int size) {
+            this.first = first;
+            this.size = size;
+            mass = new int[size];
+            owner = new int[size];
+            destination = new int[size];
+            ship = new int[size];
+        }
+    }
+
+    /**
+     * A drawn crew member and the role and salary of their contract.
+     */
+    private static class CrewSpec {
+        private boolean organic;
+        private String name;
+        private FoodType foodType;
+        private String modelNumber;
+        private String role;
+        private Double salary;
+    }
+}
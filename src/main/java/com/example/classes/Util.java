@@ -1,9 +1,7 @@
 package com.example.classes;
 
-import java.io.*;
-import java.util.Hashtable;
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * The Util class provides utility methods for various checks and file operations.
@@ -51,41 +49,89 @@ public class Util {
     }
 
     /**
-     * Saves extents and registered owners to files.
+     * The file the extents and registered owners are saved to.
+     */
+    private static final Path SNAPSHOT_FILE = Path.of("extents.dat");
+
+    /**
+     * The file the changes since the last snapshot are journaled to.
+     */
+    private static final Path JOURNAL_FILE = Path.of("extents.journal");
+
+    /**
+     * The journal size in bytes above which it is compacted into the snapshot file.
+     */
+    private static final long MAX_JOURNAL_SIZE = 4 << 20;
+
+    /**
+     * The time in milliseconds between two checks of the journal size.
+     */
+    private static final long COMPACTION_CHECK_MILLIS = 10_000;
+
+    /**
+     * Saves extents and registered owners to a snapshot file.
+     * If a journal is open, the journal is compacted into its own snapshot file instead.
      *
      * @throws IOException if an I/O error occurs
      */
     public static void saveToFile() throws IOException {
-        FileOutputStream fileOutputStream = new FileOutputStream("extents.dat");
-        ObjectOutputStream objectOutputStream = new ObjectOutputStream(fileOutputStream);
-        ObjectPlus.writeExtents(objectOutputStream);
-        objectOutputStream.close();
-        fileOutputStream.close();
+        Journal journal = Journal.getActive();
+        if (journal != null) {
+            journal.compact();
+            return;
+        }
+        Snapshot.write(SNAPSHOT_FILE);
+    }
 
-        FileOutputStream fileOutputStream1 = new FileOutputStream("owners.dat");
-        ObjectOutputStream objectOutputStream1 = new ObjectOutputStream(fileOutputStream1);
-        objectOutputStream1.writeObject(Cargo.getRegisteredOwners());
-        objectOutputStream1.close();
-        fileOutputStream1.close();
+    /**
+     * Restores extents and registered owners from the snapshot file and its journal, and journals
+     * every later change.
+     *
+     * @return the open journal
+     * @throws IOException if an I/O error occurs or the files can not be recovered
+     * @see #openJournal(Path, Path)
+     */
+    public static Journal openJournal() throws IOException {
+        return openJournal(SNAPSHOT_FILE, JOURNAL_FILE);
+    }
+
+    /**
+     * Restores extents and registered owners from a snapshot file and its journal, and journals
+     * every later change. The journal is compacted into the snapshot file from a background
+     * thread once it grows larger than 4 MB.
+     *
+     * @param snapshotFile the snapshot file
+     * @param journalFile  the journal file
+     * @return the open journal
+     * @throws IOException if an I/O error occurs or the files can not be recovered
+     */
+    public static Journal openJournal(Path snapshotFile, Path journalFile) throws IOException {
+        Journal journal = Journal.open(snapshotFile, journalFile);
+        journal.setAutoCompaction(MAX_JOURNAL_SIZE, COMPACTION_CHECK_MILLIS);
+        return journal;
     }
 
     /**
-     * Reads extents and registered owners from files.
+     * Reads extents and registered owners from a snapshot file.
      *
+     * @throws RuntimeException       if a journal is open
      * @throws IOException            if an I/O error occurs
      * @throws ClassNotFoundException if the class of a serialized object cannot be found
      */
     public static void readFromFile() throws IOException, ClassNotFoundException {
-        FileInputStream fileInputStream = new FileInputStream("extents.dat");
-        ObjectInputStream objectInputStream = new ObjectInputStream(fileInputStream);
-        ObjectPlus.readExtents(objectInputStream);
-        objectInputStream.close();
-        fileInputStream.close();
+        if (Journal.getActive() != null) throw new RuntimeException("Can not read from file while a journal is open");
+        Snapshot.read(SNAPSHOT_FILE);
+    }
 
-        FileInputStream fileInputStream1 = new FileInputStream("owners.dat");
-        ObjectInputStream objectInputStream1 = new ObjectInputStream(fileInputStream);
-        Cargo.setRegisteredOwners((Set<String>) objectInputStream1.readObject());
-        objectInputStream1.close();
-        fileInputStream1.close();
+    /**
+     * Opens the snapshot file without reading it. Objects are read from the file the first time
+     * they are needed.
+     *
+     * @throws RuntimeException if a journal is open
+     * @throws IOException      if an I/O error occurs
+     * @see Snapshot#open
+     */
+    public static void openFile() throws IOException {
+        Snapshot.open(SNAPSHOT_FILE);
     }
 }
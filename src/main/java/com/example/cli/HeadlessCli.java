@@ -0,0 +1,385 @@
+package com.example.cli;
+
+import com.example.classes.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * The HeadlessCli class runs batch jobs against the domain classes without starting JavaFX.
+ * <p>
+ * The arguments are a list of commands carried out in order, each followed by its own
+ * arguments, for example {@code load fleet.snap assign tours save fleet.snap}. Results are
+ * written to standard output, tables as comma separated values. The program exits with 0 when
+ * all commands succeeded, 1 when a command failed and 2 when the arguments are not understood.
+ * <ul>
+ *     <li>{@code load <file>} opens a snapshot, replacing everything in memory.</li>
+ *     <li>{@code save <file>} writes everything in memory to a snapshot.</li>
+ *     <li>{@code journal <snapshot> <journal>} restores a snapshot and its journal, replacing everything in memory, and journals every later change until the program ends.</li>
+ *     <li>{@code sample <galaxies> <ships> <cargo> <seed>} adds a random connected universe.</li>
+ *     <li>{@code generate <galaxies> <ships> <cargo> <seed> <file>} writes a random universe straight into a snapshot, leaving memory as it is.</li>
+ *     <li>{@code summary} counts the objects and the waiting and loaded cargo.</li>
+ *     <li>{@code ships} lists the ships with their galaxy and cargo.</li>
+ *     <li>{@code assign} assigns the cargo on no ship to the ships and loads it.</li>
+ *     <li>{@code consolidate} moves cargo between the ships docked in each galaxy so that fewer ships carry each destination.</li>
+ *     <li>{@code tours} plans a tour through the destinations of the cargo of every docked ship.</li>
+ *     <li>{@code simulate <hours> <seed>} runs a fleet simulation, which changes the objects.</li>
+ *     <li>{@code metrics} prints the counts and durations of the operations so far and the number of objects of each class.</li>
+ * </ul>
+ */
+public class HeadlessCli {
+    private static final String USAGE = "Usage: spaceship-cli <command> [arguments] [<command> [arguments] ...]%n"
+            + "Commands: load <file>, save <file>, journal <snapshot> <journal>,%n"
+            + "          sample <galaxies> <ships> <cargo> <seed>,%n"
+            + "          generate <galaxies> <ships> <cargo> <seed> <file>,%n"
+            + "          summary, ships, assign, consolidate, tours, simulate <hours> <seed>, metrics%n";
+
+    private final PrintStream out;
+    private Journal journal;
+
+    /**
+     * Constructs a command line runner.
+     *
+     * @param out The stream results are written to.
+     */
+    public HeadlessCli(PrintStream out) {
+        if (out == null) throw new RuntimeException("Output can not be null");
+        this.out = out;
+    }
+
+    /**
+     * Runs the commands given on the command line and exits.
+     *
+     * @param args The commands and their arguments.
+     */
+    public static void main(String[] args) {
+        System.exit(new HeadlessCli(System.out).run(args));
+    }
+
+    /**
+     * Runs the given commands in order, stopping at the first one that fails, and closes the journal
+     * opened by them.
+     *
+     * @param args The commands and their arguments.
+     * @return The exit code: 0 on success, 1 if a command failed, 2 if the arguments are not understood.
+     */
+    public int run(String[] args) {
+        int exitCode = runCommands(args);
+        if (journal == null) return exitCode;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Closing the journal failed: " + e);
+            return 1;
+        } finally {
+            journal = null;
+        }
+        return exitCode;
+    }
+
+    /**
+     * Runs the given commands in order, stopping at the first one that fails.
+     *
+     * @param args The commands and their arguments.
+     * @return The exit code: 0 on success, 1 if a command failed, 2 if the arguments are not understood.
+     */
+    private int runCommands(String[] args) {
+        if (args.length == 0) {
+            System.err.printf(USAGE);
+            return 2;
+        }
+        int position = 0;
+        while (position < args.length) {
+            String command = args[position++];
+            int arity = arityOf(command);
+            if (arity < 0 || position + arity > args.length) {
+                System.err.printf(arity < 0 ? "Unknown command: %s%n" : "Missing arguments for %s%n", command);
+                System.err.printf(USAGE);
+                return 2;
+            }
+            String[] arguments = Arrays.copyOfRange(args, position, position + arity);
+            position += arity;
+            try {
+                execute(command, arguments);
+            } catch (IOException e) {
+                System.err.println(command + " failed: " + e);
+                return 1;
+            } catch (RuntimeException e) {
+                System.err.println(command + " failed: " + e.getMessage());
+                return 1;
+            }
+        }
+        out.flush();
+        return 0;
+    }
+
+    /**
+     * Retrieves the number of arguments a command takes.
+     *
+     * @param command The command.
+     * @return The number of arguments, or -1 if there is no such command.
+     */
+    private static int arityOf(String command) {
+        return switch (command) {
+            case "summary", "ships", "assign", "consolidate", "tours", "metrics" -> 0;
+            case "load", "save" -> 1;
+            case "simulate", "journal" -> 2;
+            case "sample" -> 4;
+            case "generate" -> 5;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Carries out one command.
+     *
+     * @param command   The command.
+     * @param arguments Its arguments.
+     * @throws IOException If a snapshot can not be read or written.
+     */
+    private void execute(String command, String[] arguments) throws IOException {
+        switch (command) {
+            case "load" -> Snapshot.open(Path.of(arguments[0]));
+            case "save" -> Snapshot.write(Path.of(arguments[0]));
+            case "journal" -> openJournal(Path.of(arguments[0]), Path.of(arguments[1]));
+            case "sample" -> sample(parseInt(arguments[0]), parseInt(arguments[1]), parseInt(arguments[2]), parseLong(arguments[3]));
+            case "generate" -> generate(parseInt(arguments[0]), parseInt(arguments[1]), parseInt(arguments[2]),
+                    parseLong(arguments[3]), Path.of(arguments[4]));
+            case "summary" -> summary();
+            case "ships" -> ships();
+            case "assign" -> assign();
+            case "consolidate" -> consolidate();
+            case "tours" -> tours();
+            case "simulate" -> simulate(parseDouble(arguments[0]), parseLong(arguments[1]));
+            case "metrics" -> out.print(Metrics.dump());
+            default -> throw new RuntimeException("Unknown command: " + command);
+        }
+    }
+
+    /**
+     * Restores a snapshot and its journal and journals every later change until the run ends.
+     *
+     * @param snapshot    The snapshot file, which the journal is compacted into.
+     * @param journalFile The journal file.
+     * @throws IOException If an I/O error occurs or the files can not be recovered.
+     */
+    private void openJournal(Path snapshot, Path journalFile) throws IOException {
+        if (journal != null) throw new RuntimeException("A journal is already open");
+        journal = Util.openJournal(snapshot, journalFile);
+    }
+
+    /**
+     * Adds a random universe: peaceful and dangerous galaxies connected in a ring with a few
+     * shortcuts, ships of both kinds docked in random galaxies with their crew, and cargo with
+     * random destinations, some of it loaded.
+     *
+     * @param galaxies The number of galaxies, at least 1.
+     * @param ships    The number of ships.
+     * @param cargo    The number of cargo.
+     * @param seed     The seed of all random choices.
+     */
+    private void sample(int galaxies, int ships, int cargo, long seed) {
+        universe(galaxies, ships, cargo, seed).generate();
+        out.printf("Added %d galaxies, %d ships and %d cargo%n", galaxies, ships, cargo);
+    }
+
+    /**
+     * Writes a random universe like the one {@code sample} adds straight into a snapshot file.
+     *
+     * @param galaxies The number of galaxies, at least 1.
+     * @param ships    The number of ships.
+     * @param cargo    The number of cargo.
+     * @param seed     The seed of all random choices.
+     * @param file     The snapshot file.
+     * @throws IOException If the file can not be written.
+     */
+    private void generate(int galaxies, int ships, int cargo, long seed, Path file) throws IOException {
+        universe(galaxies, ships, cargo, seed).write(file);
+        out.printf("Wrote %d galaxies, %d ships and %d cargo to %s%n", galaxies, ships, cargo, file);
+    }
+
+    /**
+     * Creates the generator of a random universe with the default shares of galaxy and ship
+     * types, crew and owners.
+     *
+     * @param galaxies The number of galaxies, at least 1.
+     * @param ships    The number of ships.
+     * @param cargo    The number of cargo.
+     * @param seed     The seed of all random choices.
+     * @return The generator.
+     */
+    private static UniverseGenerator universe(int galaxies, int ships, int cargo, long seed) {
+        Util.positiveIntCheck(galaxies);
+        UniverseGenerator generator = UniverseGenerator.constructor(seed);
+        generator.setPrefix("S" + seed + "-");
+        generator.setGalaxies(galaxies, 0.3, 0.25, 1);
+        generator.setShips(ships, 0.3, 0.5, 1000, 10000, 3);
+        generator.setCargo(cargo, 10, 500, 0.2);
+        return generator;
+    }
+
+    /**
+     * Prints the number of objects of each class and how much cargo waits and how much is loaded.
+     */
+    private void summary() {
+        long waiting = 0;
+        long waitingMass = 0;
+        long loaded = 0;
+        long loadedMass = 0;
+        for (Cargo cargo : ObjectPlus.getExtentOf(Cargo.class)) {
+            if (cargo.getShip() == null) {
+                waiting++;
+                waitingMass += cargo.getMass();
+            } else {
+                loaded++;
+                loadedMass += cargo.getMass();
+            }
+        }
+        long capacity = 0;
+        for (Ship ship : ObjectPlus.getExtentOf(Ship.class)) capacity += ship.getMaxCargoMassCapacity();
+        out.printf("Galaxies: %d, routes: %d%n", ObjectPlus.getExtentCount(Galaxy.class), routeCount());
+        out.printf("Ships: %d, capacity: %d%n", ObjectPlus.getExtentCount(Ship.class), capacity);
+        out.printf("Crew members: %d, contracts: %d%n", ObjectPlus.getExtentCount(CrewMember.class), ObjectPlus.getExtentCount(Contract.class));
+        out.printf("Cargo waiting: %d (mass %d), loaded: %d (mass %d)%n", waiting, waitingMass, loaded, loadedMass);
+    }
+
+    /**
+     * Counts the routes between galaxies, each route once.
+     *
+     * @return The number of routes.
+     */
+    private static long routeCount() {
+        long ends = 0;
+        for (Galaxy galaxy : ObjectPlus.getExtentOf(Galaxy.class)) ends += galaxy.getRoutes().size();
+        return ends / 2;
+    }
+
+    /**
+     * Prints a row per ship with its galaxy, cargo and capacity.
+     */
+    private void ships() {
+        out.println("name,type,shield,galaxy,cargo,mass,capacity");
+        for (Ship ship : sortedShips()) {
+            Integer shield = ship.getShipType() == ShipType.Shielded ? ship.getSolarFlareShieldStrength() : null;
+            out.println(String.join(",", csv(ship.getName()), ship.getShipType().toString(), shield == null ? "" : shield.toString(),
+                    ship.getGalaxy() == null ? "" : csv(ship.getGalaxy().getGalaxyCode()),
+                    Integer.toString(ship.getCargoSet().size()), Integer.toString(ship.getCurrentCargoMass()),
+                    Integer.toString(ship.getMaxCargoMassCapacity())));
+        }
+    }
+
+    /**
+     * Assigns the cargo on no ship to the ships, loads it and prints what was assigned.
+     */
+    private void assign() {
+        FleetAssignment assignment = FleetAssignmentPlanner.plan();
+        assignment.apply();
+        out.printf("Assigned %d cargo (mass %d) to %d ships, %d unassigned, %d unreachable%n",
+                assignment.getAssignedCount(), assignment.getAssignedMass(), assignment.getAssignments().size(),
+                assignment.getUnassigned().size(), assignment.getUnreachable().size());
+    }
+
+    /**
+     * Consolidates the cargo of the ships docked in every galaxy and prints how much moved.
+     */
+    private void consolidate() {
+        int moved = 0;
+        for (Galaxy galaxy : ObjectPlus.getExtentOf(Galaxy.class)) moved += CargoConsolidator.consolidate(galaxy);
+        out.printf("Moved %d cargo%n", moved);
+    }
+
+    /**
+     * Plans a tour for every docked ship with cargo and prints a row per ship.
+     */
+    private void tours() {
+        out.println("ship,start,stops,unreachable,distance,route");
+        for (Ship ship : sortedShips()) {
+            if (ship.getGalaxy() == null || ship.getCargoSet().isEmpty()) continue;
+            Itinerary itinerary = TourPlanner.plan(ship);
+            StringJoiner route = new StringJoiner(" ");
+            for (Galaxy stop : itinerary.getStops()) route.add(stop.getGalaxyCode());
+            out.println(String.join(",", csv(ship.getName()), csv(itinerary.getStart().getGalaxyCode()),
+                    Integer.toString(itinerary.getStops().size()), Integer.toString(itinerary.getUnreachable().size()),
+                    String.format(Locale.ROOT, "%.1f", itinerary.getDistance()), csv(route.toString())));
+        }
+    }
+
+    /**
+     * Runs a fleet simulation of all ships and prints its report.
+     *
+     * @param hours The time to simulate, in hours.
+     * @param seed  The seed of all random choices.
+     */
+    private void simulate(double hours, long seed) {
+        out.println(FleetSimulation.constructor(seed).run(hours));
+    }
+
+    /**
+     * Retrieves all ships ordered by name.
+     *
+     * @return The ships.
+     */
+    private static List<Ship> sortedShips() {
+        List<Ship> ships = new ArrayList<>(ObjectPlus.getExtentOf(Ship.class));
+        ships.sort(Comparator.comparing(Ship::getName));
+        return ships;
+    }
+
+    /**
+     * Quotes a value for a comma separated row if it contains a comma, a quote or a line break.
+     *
+     * @param value The value.
+     * @return The value as a field.
+     */
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Parses a whole number argument.
+     *
+     * @param argument The argument.
+     * @return The number.
+     * @throws RuntimeException If the argument is not a number.
+     */
+    private static int parseInt(String argument) {
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Not a number: " + argument);
+        }
+    }
+
+    /**
+     * Parses a long whole number argument.
+     *
+     * @param argument The argument.
+     * @return The number.
+     * @throws RuntimeException If the argument is not a number.
+     */
+    private static long parseLong(String argument) {
+        try {
+            return Long.parseLong(argument);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Not a number: " + argument);
+        }
+    }
+
+    /**
+     * Parses a decimal number argument.
+     *
+     * @param argument The argument.
+     * @return The number.
+     * @throws RuntimeException If the argument is not a number.
+     */
+    private static double parseDouble(String argument) {
+        try {
+            return Double.parseDouble(argument);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Not a number: " + argument);
+        }
+    }
+}
@@ -26,38 +26,10 @@ public class ManageRoute extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
 
-        Ship ship = NoLifeSupportShip.constructor("Dawnbreaker", 10000, ShipType.NoProtection, null, "GLaDOS");
-        Galaxy peacefulGalaxy1 = Galaxy.peacefulGalaxyConstructor("Galaxy A", "A", LocalDate.now());
-        Galaxy peacefulGalaxy2 = Galaxy.peacefulGalaxyConstructor("Galaxy B", "BB", LocalDate.now());
-        Galaxy peacefulGalaxy3 = Galaxy.peacefulGalaxyConstructor("Galaxy C", "CCC", LocalDate.now());
-        Galaxy dangerousGalaxy1 = Galaxy.dangerousGalaxyConstructor("Galaxy D", "DDD", true, 5);
-        Galaxy dangerousGalaxy2 = Galaxy.dangerousGalaxyConstructor("Galaxy E", "E-E", true, 5);
-        Galaxy dangerousGalaxy3 = Galaxy.dangerousGalaxyConstructor("Galaxy F", "FF", true, 5);
-
-        Cargo.addRegisteredOwner("Aperture");
-        Cargo cargo1 = Cargo.constructor("T", 10, "Aperture");
-        Cargo cargo2 = Cargo.constructor("T", 20, "Aperture");
-        Cargo cargo3 = Cargo.constructor("T", 30, "Aperture");
-        Cargo cargo4 = Cargo.constructor("T", 40, "Aperture");
-        Cargo cargo5 = Cargo.constructor("T", 50, "Aperture");
-        Cargo cargo6 = Cargo.constructor("T", 60, "Aperture");
-        Cargo cargo7 = Cargo.constructor("T", 40, "Aperture");
-
-        peacefulGalaxy1.addCargo(cargo1);
-        peacefulGalaxy2.addCargo(cargo2);
-        peacefulGalaxy3.addCargo(cargo3);
-        dangerousGalaxy1.addCargo(cargo4);
-        dangerousGalaxy2.addCargo(cargo5);
-        dangerousGalaxy3.addCargo(cargo6);
-        dangerousGalaxy3.addCargo(cargo7);
-
-        ship.addCargo(cargo1);
-        ship.addCargo(cargo2);
-        ship.addCargo(cargo3);
-        ship.addCargo(cargo4);
-        ship.addCargo(cargo5);
-        ship.addCargo(cargo6);
-        ship.addCargo(cargo7);
+        Metrics.registerMBean();
+        Util.openJournal();
+        Ship savedShip = findSampleShip();
+        Ship ship = savedShip != null ? savedShip : createSampleRoute();
 
         TextField currentTargetTextField = new TextField();
         currentTargetTextField.setEditable(false);
@@ -69,6 +41,36 @@ public class ManageRoute extends Application {
             currentTargetTextField.setText(getTargetText(ship));
         });
 
+        ListView<String> itineraryList = new ListView<>();
+        Itinerary[] itinerary = new Itinerary[1];
+
+        Button planTourButton = new Button("Plan tour");
+        planTourButton.setOnAction(actionEvent -> {
+            itineraryList.getItems().clear();
+            if (ship.getGalaxy() == null) {
+                itinerary[0] = null;
+                itineraryList.getItems().add("Set a target to start the tour from");
+                return;
+            }
+            itinerary[0] = TourPlanner.plan(ship);
+            for (int i = 0; i < itinerary[0].getStops().size(); i++) {
+                Route route = itinerary[0].getRoute(i);
+                String distance = route == null ? "no route" : String.valueOf(route.getDistance());
+                itineraryList.getItems().add(itinerary[0].getStops().get(i).getGalaxyCode() + " (" + distance + ")");
+            }
+            itineraryList.getItems().add("Total distance: " + itinerary[0].getDistance());
+        });
+
+        Button nextStopButton = new Button("Next stop");
+        nextStopButton.setOnAction(actionEvent -> {
+            if (itinerary[0] == null) return;
+            Galaxy next = itinerary[0].getNextStop(ship.getGalaxy());
+            if (next == null) return;
+            ship.setGalaxy(next);
+            currentTargetTextField.setText(getTargetText(ship));
+            itineraryList.getSelectionModel().select(itinerary[0].getStops().indexOf(next));
+        });
+
         Map<Galaxy, Set<Cargo>> map = ship.getGalaxyToCargo();
 
         Set<Galaxy> reachableGalaxies = new HashSet<>();
@@ -95,10 +97,10 @@ public class ManageRoute extends Application {
         galaxyCodeColumn1.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getGalaxyCode()));
 
         TableColumn<Galaxy, String> numberOfCargoColumn1 = new TableColumn<>("# of cargo");
-        numberOfCargoColumn1.setCellValueFactory(cellData -> new SimpleStringProperty(Integer.toString(getNumberOfCargo(map, cellData.getValue()))));
+        numberOfCargoColumn1.setCellValueFactory(cellData -> new SimpleStringProperty(Integer.toString(ship.getCargoCountGoingTo(cellData.getValue()))));
 
         TableColumn<Galaxy, String> totalMassColumn1 = new TableColumn<>("Total mass");
-        totalMassColumn1.setCellValueFactory(cellData -> new SimpleStringProperty(Integer.toString(getTotalMassOfCargo(map, cellData.getValue()))));
+        totalMassColumn1.setCellValueFactory(cellData -> new SimpleStringProperty(Integer.toString(ship.getCargoMassGoingTo(cellData.getValue()))));
 
         TableColumn<Galaxy, Void> setTargetColumn = new TableColumn<>("Set target");
 
@@ -143,10 +145,10 @@ public class ManageRoute extends Application {
         galaxyCodeColumn2.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getGalaxyCode()));
 
         TableColumn<Galaxy, String> numberOfCargoColumn2 = new TableColumn<>("# of cargo");
-        numberOfCargoColumn2.setCellValueFactory(cellData -> new SimpleStringProperty(Integer.toString(getNumberOfCargo(map, cellData.getValue()))));
+        numberOfCargoColumn2.setCellValueFactory(cellData -> new SimpleStringProperty(Integer.toString(ship.getCargoCountGoingTo(cellData.getValue()))));
 
         TableColumn<Galaxy, String> totalMassColumn2 = new TableColumn<>("Total mass");
-        totalMassColumn2.setCellValueFactory(cellData -> new SimpleStringProperty(Integer.toString(getTotalMassOfCargo(map, cellData.getValue()))));
+        totalMassColumn2.setCellValueFactory(cellData -> new SimpleStringProperty(Integer.toString(ship.getCargoMassGoingTo(cellData.getValue()))));
 
         TableColumn<Galaxy, Void> unloadCargo = new TableColumn<>("Unload cargo");
 
@@ -203,6 +205,10 @@ public class ManageRoute extends Application {
         gridPane.add(currentTargetTextField, 1, 1);
         gridPane.add(removeTargetButton, 0, 2);
         gridPane.add(removeAllUnreachableButton,3,3);
+        gridPane.add(new Label("Tour"), 0, 3);
+        gridPane.add(planTourButton, 0, 4);
+        gridPane.add(nextStopButton, 1, 4);
+        gridPane.add(itineraryList, 0, 5, 2, 1);
 
         Scene scene = new Scene(gridPane, 1000, 600);
         primaryStage.setTitle("Manage " + ship.getName() + "'s Route and Cargo");
@@ -210,22 +216,68 @@ public class ManageRoute extends Application {
         primaryStage.show();
     }
 
-    public String getTargetText(Ship ship) {
-        Galaxy galaxy = ship.getGalaxy();
-        if (galaxy == null) return new String("No target");
-        return galaxy.getGalaxyCode();
+    @Override
+    public void stop() throws Exception {
+        Journal journal = Journal.getActive();
+        if (journal != null) journal.close();
     }
 
-    public int getNumberOfCargo(Map<Galaxy, Set<Cargo>> map, Galaxy galaxy) {
-        return map.get(galaxy).size();
+    private Ship findSampleShip() {
+        for (Ship ship : ObjectPlus.getExtentOf(Ship.class)) {
+            if (ship.getName().equals("Dawnbreaker")) return ship;
+        }
+        return null;
     }
 
+    private Ship createSampleRoute() {
+        Ship ship = NoLifeSupportShip.constructor("Dawnbreaker", 10000, ShipType.NoProtection, null, "GLaDOS");
+        Galaxy peacefulGalaxy1 = Galaxy.peacefulGalaxyConstructor("Galaxy A", "A", LocalDate.now());
+        Galaxy peacefulGalaxy2 = Galaxy.peacefulGalaxyConstructor("Galaxy B", "BB", LocalDate.now());
+        Galaxy peacefulGalaxy3 = Galaxy.peacefulGalaxyConstructor("Galaxy C", "CCC", LocalDate.now());
+        Galaxy dangerousGalaxy1 = Galaxy.dangerousGalaxyConstructor("Galaxy D", "DDD", true, 5);
+        Galaxy dangerousGalaxy2 = Galaxy.dangerousGalaxyConstructor("Galaxy E", "E-E", true, 5);
+        Galaxy dangerousGalaxy3 = Galaxy.dangerousGalaxyConstructor("Galaxy F", "FF", true, 5);
+        Galaxy homeGalaxy = Galaxy.peacefulGalaxyConstructor("Home", "H", LocalDate.now());
 
-    public int getTotalMassOfCargo(Map<Galaxy, Set<Cargo>> map, Galaxy galaxy) {
-        int totalMass = 0;
-        for (Cargo cargo : map.get(galaxy)) {
-            totalMass += cargo.getMass();
-        }
-        return totalMass;
+        homeGalaxy.connect(peacefulGalaxy1, 4);
+        homeGalaxy.connect(peacefulGalaxy3, 9);
+        peacefulGalaxy1.connect(peacefulGalaxy2, 3);
+        peacefulGalaxy2.connect(peacefulGalaxy3, 2);
+        peacefulGalaxy1.connect(dangerousGalaxy1, 5);
+        peacefulGalaxy3.connect(dangerousGalaxy2, 6);
+        dangerousGalaxy2.connect(dangerousGalaxy3, 1);
+
+        Cargo.addRegisteredOwner("Aperture");
+        Cargo cargo1 = Cargo.constructor("T", 10, "Aperture");
+        Cargo cargo2 = Cargo.constructor("T", 20, "Aperture");
+        Cargo cargo3 = Cargo.constructor("T", 30, "Aperture");
+        Cargo cargo4 = Cargo.constructor("T", 40, "Aperture");
+        Cargo cargo5 = Cargo.constructor("T", 50, "Aperture");
+        Cargo cargo6 = Cargo.constructor("T", 60, "Aperture");
+        Cargo cargo7 = Cargo.constructor("T", 40, "Aperture");
+
+        peacefulGalaxy1.addCargo(cargo1);
+        peacefulGalaxy2.addCargo(cargo2);
+        peacefulGalaxy3.addCargo(cargo3);
+        dangerousGalaxy1.addCargo(cargo4);
+        dangerousGalaxy2.addCargo(cargo5);
+        dangerousGalaxy3.addCargo(cargo6);
+        dangerousGalaxy3.addCargo(cargo7);
+
+        ship.addCargo(cargo1);
+        ship.addCargo(cargo2);
+        ship.addCargo(cargo3);
+        ship.addCargo(cargo4);
+        ship.addCargo(cargo5);
+        ship.addCargo(cargo6);
+        ship.addCargo(cargo7);
+        ship.setGalaxy(homeGalaxy);
+        return ship;
+    }
+
+    public String getTargetText(Ship ship) {
+        Galaxy galaxy = ship.getGalaxy();
+        if (galaxy == null) return new String("No target");
+        return galaxy.getGalaxyCode();
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ module com.example.finalprojectnodatabase {
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.web;
+    requires java.management;
 
     requires org.controlsfx.controls;
     requires com.dlsc.formsfx;
@@ -0,0 +1,117 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that consolidation spreads the cargo for each destination over fewer ships, only moves
+ * cargo between ships docked in the galaxy and leaves cargo its ship can not deliver in place.
+ */
+class CargoConsolidatorTest {
+    private Galaxy earth;
+    private Galaxy mars;
+    private Galaxy venus;
+    private Ship first;
+    private Ship second;
+    private Ship third;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        Cargo.addRegisteredOwner("Owner");
+        earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", LocalDate.of(2400, 1, 1));
+        mars = Galaxy.peacefulGalaxyConstructor("Mars", "MA", LocalDate.of(2400, 1, 1));
+        venus = Galaxy.peacefulGalaxyConstructor("Venus", "VE", LocalDate.of(2400, 1, 1));
+        first = docked("First", 100);
+        second = docked("Second", 100);
+        third = docked("Third", 100);
+    }
+
+    private Ship docked(String name, int capacity) {
+        Ship ship = NoLifeSupportShip.constructor(name, capacity, ShipType.NoProtection, null, "Autopilot");
+        ship.setGalaxy(earth);
+        return ship;
+    }
+
+    private Cargo cargo(Ship ship, int mass, Galaxy destination) {
+        Cargo cargo = Cargo.constructor("Cargo", mass, "Owner");
+        cargo.setDestination(destination);
+        ship.addCargo(cargo);
+        return cargo;
+    }
+
+    /**
+     * Returns the ships carrying cargo to the given destination.
+     */
+    private static Set<Ship> shipsGoingTo(Galaxy destination, List<Ship> ships) {
+        Set<Ship> carrying = new HashSet<>();
+        for (Ship ship : ships) {
+            if (ship.getCargoCountGoingTo(destination) > 0) carrying.add(ship);
+        }
+        return carrying;
+    }
+
+    @Test
+    void cargoPerDestinationIsMerged() {
+        cargo(first, 30, mars);
+        cargo(second, 20, mars);
+        cargo(third, 25, mars);
+        cargo(first, 40, venus);
+        cargo(third, 10, venus);
+
+        int moved = CargoConsolidator.consolidate(earth);
+        List<Ship> ships = List.of(first, second, third);
+        assertTrue(moved > 0);
+        assertEquals(1, shipsGoingTo(mars, ships).size());
+        assertEquals(1, shipsGoingTo(venus, ships).size());
+        assertEquals(125, first.getCurrentCargoMass() + second.getCurrentCargoMass() + third.getCurrentCargoMass());
+        for (Ship ship : ships) assertTrue(ship.getCurrentCargoMass() <= ship.getMaxCargoMassCapacity());
+        assertEquals(0, CargoConsolidator.consolidate(earth));
+    }
+
+    @Test
+    void planThatDoesNotFitMovesNothing() {
+        cargo(first, 60, mars);
+        cargo(second, 60, mars);
+
+        assertEquals(0, CargoConsolidator.consolidate(earth));
+        assertEquals(60, first.getCurrentCargoMass());
+        assertEquals(60, second.getCurrentCargoMass());
+    }
+
+    @Test
+    void undeliverableCargoStaysInPlace() {
+        Galaxy pluto = Galaxy.dangerousGalaxyConstructor("Pluto", "PL", true, 1);
+        Cargo stuck = cargo(first, 70, pluto);
+        cargo(first, 20, mars);
+        cargo(second, 20, mars);
+
+        CargoConsolidator.consolidate(earth);
+        assertSame(first, stuck.getShip());
+        assertEquals(1, shipsGoingTo(mars, List.of(first, second, third)).size());
+        assertTrue(first.getCurrentCargoMass() <= first.getMaxCargoMassCapacity());
+    }
+
+    @Test
+    void shipsInOtherGalaxiesAreLeftAlone() {
+        Ship away = NoLifeSupportShip.constructor("Away", 100, ShipType.NoProtection, null, "Autopilot");
+        away.setGalaxy(mars);
+        Cargo awayCargo = cargo(away, 10, venus);
+        cargo(first, 10, venus);
+        third.setGalaxy(mars);
+        Cargo leftCargo = cargo(third, 10, venus);
+
+        assertEquals(0, CargoConsolidator.consolidate(earth));
+        assertSame(away, awayCargo.getShip());
+        assertSame(third, leftCargo.getShip());
+        assertThrows(RuntimeException.class, () -> CargoConsolidator.consolidate(null));
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the exact and parallel load planners against a brute-force search on small pools.
+ */
+class CargoLoadPlannerTest {
+    private Galaxy earth;
+    private Galaxy mars;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        Cargo.addRegisteredOwner("Owner");
+        earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", LocalDate.of(2400, 1, 1));
+        mars = Galaxy.peacefulGalaxyConstructor("Mars", "MA", LocalDate.of(2400, 1, 1));
+    }
+
+    private Cargo cargo(int mass, Galaxy destination) {
+        Cargo cargo = Cargo.constructor("Cargo", mass, "Owner");
+        if (destination != null) cargo.setDestination(destination);
+        return cargo;
+    }
+
+    private List<Cargo> pool(Random random, int count, int maxMass) {
+        List<Cargo> pool = new ArrayList<>();
+        for (int i = 0; i < count; i++) pool.add(cargo(1 + random.nextInt(maxMass), random.nextBoolean() ? earth : mars));
+        return pool;
+    }
+
+    /**
+     * Returns the largest total value of any subset of the pool within the capacity.
+     */
+    private static long bestValue(List<Cargo> pool, int capacity, ToLongFunction<Cargo> value) {
+        long best = 0;
+        for (int subset = 0; subset < 1 << pool.size(); subset++) {
+            long mass = 0;
+            long total = 0;
+            for (int i = 0; i < pool.size(); i++) {
+                if ((subset & 1 << i) == 0) continue;
+                mass += pool.get(i).getMass();
+                total += value.applyAsLong(pool.get(i));
+            }
+            if (mass <= capacity) best = Math.max(best, total);
+        }
+        return best;
+    }
+
+    /**
+     * Checks that a plan only takes cargo from the pool, fits the ship and reports its totals.
+     */
+    private static void assertValid(LoadPlan plan, Ship ship, List<Cargo> pool, ToLongFunction<Cargo> value) {
+        assertSame(ship, plan.getShip());
+        long mass = 0;
+        long total = 0;
+        for (Cargo cargo : plan.getCargo()) {
+            assertTrue(pool.contains(cargo));
+            mass += cargo.getMass();
+            total += value.applyAsLong(cargo);
+        }
+        assertEquals(plan.getCargo().size(), new HashSet<>(plan.getCargo()).size());
+        assertTrue(mass <= ship.getRemainingCapacity());
+        assertEquals(mass, plan.getTotalMass());
+        assertEquals(total, plan.getTotalValue());
+    }
+
+    @Test
+    void exactPlansAreOptimal() {
+        Random random = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            ObjectPlus.clearExtents();
+            setUpGalaxies();
+            int capacity = 10 + random.nextInt(200);
+            Ship ship = NoLifeSupportShip.constructor("Ship", capacity, ShipType.NoProtection, null, "Autopilot");
+            List<Cargo> pool = pool(random, 1 + random.nextInt(14), 60);
+            long best = bestValue(pool, capacity, Cargo::getMass);
+
+            LoadPlan exact = CargoLoadPlanner.planExact(ship, pool);
+            assertValid(exact, ship, pool, Cargo::getMass);
+            assertEquals(best, exact.getTotalValue());
+            assertEquals(best, CargoLoadPlanner.plan(ship, pool).getTotalValue());
+            assertEquals(best, CargoLoadPlanner.planParallel(ship, pool).getTotalValue());
+            LoadPlan greedy = CargoLoadPlanner.planGreedy(ship, pool);
+            assertValid(greedy, ship, pool, Cargo::getMass);
+            assertTrue(greedy.getTotalValue() <= best);
+        }
+    }
+
+    @Test
+    void exactPlansMaximizeGivenValue() {
+        Random random = new Random(2);
+        ToLongFunction<Cargo> value = cargo -> cargo.getMass() % 7 + (cargo.getDestination() == earth ? 10 : 1);
+        for (int round = 0; round < 30; round++) {
+            ObjectPlus.clearExtents();
+            setUpGalaxies();
+            int capacity = 10 + random.nextInt(100);
+            Ship ship = NoLifeSupportShip.constructor("Ship", capacity, ShipType.NoProtection, null, "Autopilot");
+            List<Cargo> pool = pool(random, 1 + random.nextInt(12), 40);
+            long best = bestValue(pool, capacity, value);
+
+            LoadPlan exact = CargoLoadPlanner.planExact(ship, pool, value);
+            assertValid(exact, ship, pool, value);
+            assertEquals(best, exact.getTotalValue());
+            assertEquals(best, CargoLoadPlanner.planParallel(ship, pool, value).getTotalValue());
+        }
+    }
+
+    @Test
+    void parallelRowsMatchSequentialRows() {
+        Random random = new Random(4);
+        int capacity = 150_000;
+        Ship ship = NoLifeSupportShip.constructor("Ship", capacity, ShipType.NoProtection, null, "Autopilot");
+        List<Cargo> pool = pool(random, 14, 30_000);
+        long best = bestValue(pool, capacity, Cargo::getMass);
+
+        LoadPlan parallel = CargoLoadPlanner.planParallel(ship, pool);
+        assertValid(parallel, ship, pool, Cargo::getMass);
+        assertEquals(best, parallel.getTotalValue());
+        assertEquals(best, CargoLoadPlanner.planExact(ship, pool).getTotalValue());
+    }
+
+    @Test
+    void plansOnlyUseRemainingCapacityAndFreeCargo() {
+        Ship ship = NoLifeSupportShip.constructor("Ship", 100, ShipType.NoProtection, null, "Autopilot");
+        Ship other = NoLifeSupportShip.constructor("Other", 100, ShipType.NoProtection, null, "Autopilot");
+        ship.addCargo(cargo(60, earth));
+        Cargo elsewhere = cargo(40, earth);
+        other.addCargo(elsewhere);
+        List<Cargo> pool = List.of(elsewhere, cargo(30, earth), cargo(25, mars), cargo(15, mars));
+
+        LoadPlan plan = CargoLoadPlanner.planExact(ship, pool);
+        assertFalse(plan.getCargo().contains(elsewhere));
+        assertEquals(40, plan.getTotalMass());
+    }
+
+    @Test
+    void cargoWithDestinationIsPreferred() {
+        Ship ship = NoLifeSupportShip.constructor("Ship", 10, ShipType.NoProtection, null, "Autopilot");
+        Cargo bound = cargo(6, earth);
+        Cargo loose = cargo(10, null);
+        Cargo filler = cargo(4, null);
+
+        LoadPlan plan = CargoLoadPlanner.planExact(ship, List.of(loose, bound));
+        assertEquals(List.of(bound), plan.getCargo());
+        plan = CargoLoadPlanner.planExact(ship, List.of(loose, bound, filler));
+        assertEquals(10, plan.getTotalMass());
+        assertTrue(plan.getCargo().contains(bound));
+        assertTrue(plan.getCargo().contains(filler));
+    }
+
+    @Test
+    void unreachableCargoIsLeftOut() {
+        Galaxy dangerous = Galaxy.dangerousGalaxyConstructor("Venus", "VE", true, 5);
+        Ship ship = NoLifeSupportShip.constructor("Ship", 100, ShipType.NoProtection, null, "Autopilot");
+        Cargo unreachable = cargo(50, dangerous);
+        Cargo reachable = cargo(20, earth);
+
+        LoadPlan plan = CargoLoadPlanner.planExact(ship, List.of(unreachable, reachable));
+        assertEquals(List.of(reachable), plan.getCargo());
+        plan.apply();
+        assertSame(ship, reachable.getShip());
+        assertEquals(20, ship.getCurrentCargoMass());
+    }
+
+    @Test
+    void stalePlansLoadNothing() {
+        Ship ship = NoLifeSupportShip.constructor("Ship", 100, ShipType.NoProtection, null, "Autopilot");
+        Ship other = NoLifeSupportShip.constructor("Other", 100, ShipType.NoProtection, null, "Autopilot");
+        Cargo first = cargo(30, earth);
+        Cargo second = cargo(40, mars);
+
+        LoadPlan plan = CargoLoadPlanner.planExact(ship, List.of(first, second));
+        assertEquals(70, plan.getTotalMass());
+        other.addCargo(second);
+        assertThrows(RuntimeException.class, plan::apply);
+        assertNull(first.getShip());
+        assertSame(other, second.getShip());
+        assertEquals(0, ship.getCurrentCargoMass());
+
+        plan = CargoLoadPlanner.planExact(ship, List.of(first));
+        ship.addCargo(cargo(80, earth));
+        assertThrows(RuntimeException.class, plan::apply);
+        assertNull(first.getShip());
+        assertEquals(80, ship.getCurrentCargoMass());
+    }
+
+    /**
+     * Creates the two galaxies again after the extents were cleared.
+     */
+    private void setUpGalaxies() {
+        earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", LocalDate.of(2400, 1, 1));
+        mars = Galaxy.peacefulGalaxyConstructor("Mars", "MA", LocalDate.of(2400, 1, 1));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that planned fleet assignments fit the fleet and that applying one loads either all
+ * of its cargo or none of it.
+ */
+class FleetAssignmentTest {
+    private Galaxy earth;
+    private Galaxy mars;
+    private Ship small;
+    private Ship large;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        Cargo.addRegisteredOwner("Owner");
+        earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", LocalDate.of(2400, 1, 1));
+        mars = Galaxy.dangerousGalaxyConstructor("Mars", "MA", false, 3);
+        small = NoLifeSupportShip.constructor("Small", 50, ShipType.NoProtection, null, "Autopilot");
+        large = NoLifeSupportShip.constructor("Large", 200, ShipType.Shielded, 5, "Autopilot");
+    }
+
+    private Cargo cargo(int mass, Galaxy destination) {
+        Cargo cargo = Cargo.constructor("Cargo", mass, "Owner");
+        cargo.setDestination(destination);
+        return cargo;
+    }
+
+    /**
+     * Builds an assignment of the given cargo lists to the small and the large ship.
+     */
+    private FleetAssignment assign(List<Cargo> toSmall, List<Cargo> toLarge) {
+        Map<Ship, List<Cargo>> assignments = new LinkedHashMap<>();
+        assignments.put(small, toSmall);
+        assignments.put(large, toLarge);
+        return new FleetAssignment(assignments, List.of(), List.of());
+    }
+
+    private static void assertNothingLoaded(Ship... ships) {
+        for (Ship ship : ships) {
+            assertEquals(0, ship.getCurrentCargoMass());
+            assertTrue(ship.getCargoSet().isEmpty());
+        }
+    }
+
+    @Test
+    void plannedAssignmentFitsAndApplies() {
+        Random random = new Random(3);
+        List<Cargo> pool = new ArrayList<>();
+        for (int i = 0; i < 40; i++) pool.add(cargo(1 + random.nextInt(30), random.nextBoolean() ? earth : mars));
+        FleetAssignment assignment = FleetAssignmentPlanner.plan(List.of(small, large), pool, 2);
+
+        int count = 0;
+        long mass = 0;
+        for (Map.Entry<Ship, List<Cargo>> entry : assignment.getAssignments().entrySet()) {
+            long shipMass = 0;
+            for (Cargo cargo : entry.getValue()) {
+                assertTrue(entry.getKey().canGoToGalaxy(cargo.getDestination()));
+                shipMass += cargo.getMass();
+            }
+            assertTrue(shipMass <= entry.getKey().getMaxCargoMassCapacity());
+            count += entry.getValue().size();
+            mass += shipMass;
+        }
+        assertEquals(count, assignment.getAssignedCount());
+        assertEquals(mass, assignment.getAssignedMass());
+        assertEquals(pool.size(), count + assignment.getUnassigned().size());
+
+        assignment.apply();
+        for (Map.Entry<Ship, List<Cargo>> entry : assignment.getAssignments().entrySet()) {
+            for (Cargo cargo : entry.getValue()) assertSame(entry.getKey(), cargo.getShip());
+        }
+        assertEquals(mass, small.getCurrentCargoMass() + large.getCurrentCargoMass());
+        for (Cargo cargo : assignment.getUnassigned()) assertNull(cargo.getShip());
+    }
+
+    @Test
+    void unreachableCargoIsReported() {
+        Cargo toMars = cargo(10, mars);
+        FleetAssignment assignment = FleetAssignmentPlanner.plan(List.of(small), List.of(toMars), 1);
+        assertEquals(List.of(toMars), assignment.getUnreachable());
+        assertEquals(0, assignment.getAssignedCount());
+    }
+
+    @Test
+    void duplicateCargoLoadsNothing() {
+        Cargo shared = cargo(10, earth);
+        FleetAssignment assignment = assign(List.of(cargo(5, earth)), List.of(shared, cargo(5, earth), shared));
+        assertThrows(RuntimeException.class, assignment::apply);
+        assertNothingLoaded(small, large);
+    }
+
+    @Test
+    void capacityFailureLoadsNothing() {
+        Cargo fits = cargo(100, mars);
+        FleetAssignment assignment = assign(List.of(cargo(30, earth), cargo(30, earth)), List.of(fits));
+        assertThrows(RuntimeException.class, assignment::apply);
+        assertNothingLoaded(small, large);
+        assertNull(fits.getShip());
+    }
+
+    @Test
+    void cargoLoadedMeanwhileLoadsNothing() {
+        Cargo taken = cargo(10, earth);
+        FleetAssignment assignment = assign(List.of(cargo(10, earth)), List.of(cargo(20, mars), taken));
+        Ship other = NoLifeSupportShip.constructor("Other", 50, ShipType.NoProtection, null, "Autopilot");
+        other.addCargo(taken);
+        assertThrows(RuntimeException.class, assignment::apply);
+        assertNothingLoaded(small, large);
+        assertSame(other, taken.getShip());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the fleet simulation gives the same results for the same seed, whether it plans
+ * with one shard or several.
+ */
+class FleetSimulationTest {
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ObjectPlus.clearExtents();
+    }
+
+    /**
+     * Creates a generator of a small universe.
+     */
+    private static UniverseGenerator generator(long seed) {
+        UniverseGenerator generator = UniverseGenerator.constructor(seed);
+        generator.setGalaxies(60, 0.3, 0.2, 2);
+        generator.setShips(20, 0.5, 0.4, 200, 2000, 2);
+        generator.setCargo(2000, 5, 100, 0.3);
+        return generator;
+    }
+
+    /**
+     * Generates a small universe into memory, replacing the current one, and describes it.
+     */
+    private static List<String> generate(long seed) {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        generator(seed).generate();
+        return StateDescription.describe();
+    }
+
+    /**
+     * Generates a small universe, simulates it for a few days and returns the counters of the
+     * report followed by the final state.
+     */
+    private static List<String> simulate(long seed, int shards) {
+        generate(7);
+        List<Galaxy> galaxies = new ArrayList<>(ObjectPlus.getExtentOf(Galaxy.class));
+        galaxies.sort(Comparator.comparing(Galaxy::getGalaxyCode));
+        List<Ship> ships = new ArrayList<>(ObjectPlus.getExtentOf(Ship.class));
+        ships.sort(Comparator.comparing(Ship::getName));
+        List<Cargo> waiting = new ArrayList<>();
+        for (Cargo cargo : ObjectPlus.getExtentOf(Cargo.class)) {
+            if (cargo.getShip() == null && cargo.getDestination() != null) waiting.add(cargo);
+        }
+        waiting.sort(Comparator.comparing(Cargo::getName));
+
+        FleetSimulation simulation = FleetSimulation.constructor(galaxies, ships, waiting, seed);
+        simulation.setShardCount(shards);
+        SimulationReport report = simulation.run(24 * 5);
+        List<String> result = new ArrayList<>(List.of(
+                "events " + report.getEvents(), "arrivals " + report.getArrivals(),
+                "turnedAway " + report.getTurnedAway(), "deliveries " + report.getDeliveries(),
+                "deliveredMass " + report.getDeliveredMass(), "repositionings " + report.getRepositionings(),
+                "statusChanges " + report.getStatusChanges(), "contractsEnded " + report.getContractsEnded(),
+                "contractsStarted " + report.getContractsStarted(), "contractsRejected " + report.getContractsRejected()));
+        result.addAll(StateDescription.describe());
+        return result;
+    }
+
+    @Test
+    void simulationsAreRepeatable() {
+        List<String> sequential = simulate(5, 1);
+        assertNotEquals("events 0", sequential.get(0));
+        assertEquals(sequential, simulate(5, 1));
+
+        List<String> sharded = simulate(5, 3);
+        assertEquals(sharded, simulate(5, 3));
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the indexes of galaxies follow the creation, change and deletion of galaxies.
+ */
+class GalaxyIndexTest {
+    private static final LocalDate SINCE = LocalDate.of(2400, 1, 1);
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+    }
+
+    @Test
+    void codeIndexFindsGalaxies() {
+        Galaxy earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE);
+        Galaxy mars = Galaxy.dangerousGalaxyConstructor("Mars", "MA", false, 3);
+        assertSame(earth, Galaxy.findByCode("EA"));
+        assertSame(mars, Galaxy.findByCode("MA"));
+        assertNull(Galaxy.findByCode("VE"));
+        assertSame(earth, Galaxy.findById(earth.getId()));
+    }
+
+    @Test
+    void codesStayUnique() {
+        Galaxy earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE);
+        assertThrows(RuntimeException.class, () -> Galaxy.galaxyCodeUniquenessCheck("EA"));
+        assertThrows(RuntimeException.class, () -> Galaxy.peacefulGalaxyConstructor("Other", "EA", SINCE));
+        assertThrows(RuntimeException.class, () -> Galaxy.dangerousGalaxyConstructor("Other", "EA", true, 1));
+        Galaxy mars = Galaxy.peacefulGalaxyConstructor("Mars", "MA", SINCE);
+        assertThrows(RuntimeException.class, () -> mars.setGalaxyCode("EA"));
+        assertEquals("MA", mars.getGalaxyCode());
+        assertSame(earth, Galaxy.findByCode("EA"));
+        assertEquals(2, ObjectPlus.getExtentCount(Galaxy.class));
+    }
+
+    @Test
+    void changedCodeMovesInIndex() {
+        Galaxy earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE);
+        earth.setGalaxyCode("TE");
+        assertSame(earth, Galaxy.findByCode("TE"));
+        assertNull(Galaxy.findByCode("EA"));
+        Galaxy other = Galaxy.peacefulGalaxyConstructor("Other", "EA", SINCE);
+        assertSame(other, Galaxy.findByCode("EA"));
+    }
+
+    @Test
+    void deletedGalaxyReleasesCode() {
+        Galaxy earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE);
+        earth.delete();
+        assertNull(Galaxy.findByCode("EA"));
+        assertNull(Galaxy.findById(earth.getId()));
+        Galaxy.galaxyCodeUniquenessCheck("EA");
+        assertNotNull(Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE));
+    }
+
+    @Test
+    void clearedExtentsReleaseCodes() {
+        Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE);
+        ObjectPlus.clearExtents();
+        assertNull(Galaxy.findByCode("EA"));
+        Galaxy.galaxyCodeUniquenessCheck("EA");
+    }
+
+    @Test
+    void concurrentLookupsSeeCompleteGalaxies() throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> reader = executor.submit(() -> {
+                while (!done.get()) {
+                    for (Galaxy galaxy : Galaxy.getPeacefulGalaxies()) readAll(galaxy);
+                    for (Galaxy galaxy : Galaxy.getCalmDangerousGalaxies(Integer.MAX_VALUE)) readAll(galaxy);
+                    Galaxy found = Galaxy.findByCode("G" + (int) (Math.random() * 5000));
+                    if (found != null) readAll(found);
+                }
+            });
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    if (i % 2 == 0) Galaxy.peacefulGalaxyConstructor("Galaxy", "G" + i, SINCE);
+                    else Galaxy.dangerousGalaxyConstructor("Galaxy", "G" + i, false, i % 50);
+                }
+            });
+            writer.get();
+            done.set(true);
+            reader.get();
+        } finally {
+            done.set(true);
+            executor.shutdown();
+        }
+        assertEquals(5000, ObjectPlus.getExtentCount(Galaxy.class));
+    }
+
+    @Test
+    void statusIndexesFollowChanges() {
+        Galaxy earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE);
+        Galaxy mars = Galaxy.dangerousGalaxyConstructor("Mars", "MA", false, 3);
+        Galaxy venus = Galaxy.dangerousGalaxyConstructor("Venus", "VE", false, 7);
+        Galaxy pluto = Galaxy.dangerousGalaxyConstructor("Pluto", "PL", true, 1);
+        assertEquals(Set.of(earth), Galaxy.getPeacefulGalaxies());
+        assertEquals(List.of(mars, venus), Galaxy.getCalmDangerousGalaxies(10));
+        assertEquals(List.of(mars), Galaxy.getCalmDangerousGalaxies(3));
+        assertEquals(List.of(), Galaxy.getCalmDangerousGalaxies(2));
+
+        Ship shielded = NoLifeSupportShip.constructor("Shielded", 100, ShipType.Shielded, 5, "Autopilot");
+        Ship unprotected = NoLifeSupportShip.constructor("Unprotected", 100, ShipType.NoProtection, null, "Autopilot");
+        assertEquals(Set.of(earth, mars), new HashSet<>(Galaxy.getReachableGalaxies(shielded)));
+        assertEquals(List.of(earth), Galaxy.getReachableGalaxies(unprotected));
+
+        earth.changeToDangerous(false, 5);
+        pluto.changeToPeaceful(SINCE);
+        mars.changeToPeaceful(SINCE);
+        mars.changeToDangerous(true, 3);
+        assertThrows(RuntimeException.class, () -> pluto.changeToPeaceful(SINCE));
+        assertEquals(Set.of(pluto), Galaxy.getPeacefulGalaxies());
+        assertEquals(List.of(earth, venus), Galaxy.getCalmDangerousGalaxies(10));
+        assertEquals(Set.of(pluto, earth), new HashSet<>(Galaxy.getReachableGalaxies(shielded)));
+
+        venus.delete();
+        pluto.delete();
+        assertEquals(Set.of(), Galaxy.getPeacefulGalaxies());
+        assertEquals(List.of(earth), Galaxy.getCalmDangerousGalaxies(10));
+    }
+
+    @Test
+    void reachabilityMasksFollowChanges() {
+        Random random = new Random(13);
+        List<Galaxy> galaxies = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            if (i % 3 == 0) galaxies.add(Galaxy.peacefulGalaxyConstructor("Galaxy", "G" + i, SINCE));
+            else galaxies.add(Galaxy.dangerousGalaxyConstructor("Galaxy", "G" + i, i % 5 == 0, i % 9));
+        }
+        for (int step = 0; step < 300; step++) {
+            Galaxy galaxy = galaxies.get(random.nextInt(galaxies.size()));
+            int action = random.nextInt(10);
+            if (action == 0) {
+                galaxy.delete();
+                galaxies.remove(galaxy);
+            } else if (galaxy.getGalaxyType() == GalaxyType.Peaceful) {
+                galaxy.changeToDangerous(random.nextInt(4) == 0, random.nextInt(9));
+            } else {
+                galaxy.changeToPeaceful(SINCE);
+            }
+            assertMaskMatches(galaxies, ShipType.NoProtection, null);
+            for (int shield = 0; shield < 10; shield++) assertMaskMatches(galaxies, ShipType.Shielded, shield);
+        }
+    }
+
+    @Test
+    void reachabilityIsReadWhileStatusChanges() throws Exception {
+        Galaxy mars = Galaxy.dangerousGalaxyConstructor("Mars", "MA", false, 3);
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> reader = executor.submit(() -> {
+                while (!done.get()) {
+                    mars.isReachableWith(ShipType.Shielded, 5);
+                    mars.isReachableWith(ShipType.NoProtection, null);
+                }
+            });
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    if (i % 2 == 0) mars.changeToPeaceful(SINCE);
+                    else mars.changeToDangerous(i % 3 == 0, 3);
+                }
+            });
+            writer.get();
+            done.set(true);
+            reader.get();
+        } finally {
+            done.set(true);
+            executor.shutdown();
+        }
+        assertFalse(mars.isReachableWith(ShipType.NoProtection, null));
+    }
+
+    @Test
+    void cargoStaysOrderedByMass() {
+        Cargo.addRegisteredOwner("Owner");
+        Galaxy earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE);
+        Galaxy mars = Galaxy.peacefulGalaxyConstructor("Mars", "MA", SINCE);
+        Ship ship = NoLifeSupportShip.constructor("Ship", 1_000_000, ShipType.NoProtection, null, "Autopilot");
+        Random random = new Random(10);
+        List<Cargo> all = new ArrayList<>();
+        for (int step = 0; step < 2000; step++) {
+            int action = random.nextInt(6);
+            if (action == 0 || all.isEmpty()) {
+                Cargo cargo = Cargo.constructor("Cargo", 1 + random.nextInt(50), "Owner");
+                cargo.setDestination(random.nextBoolean() ? earth : mars);
+                if (random.nextBoolean()) ship.addCargo(cargo);
+                all.add(cargo);
+                continue;
+            }
+            Cargo cargo = all.get(random.nextInt(all.size()));
+            switch (action) {
+                case 1, 2 -> cargo.setMass(1 + random.nextInt(50));
+                case 3 -> cargo.setDestination(random.nextBoolean() ? earth : null);
+                case 4 -> cargo.setDestination(mars);
+                default -> {
+                    cargo.delete();
+                    all.remove(cargo);
+                }
+            }
+        }
+        for (Galaxy galaxy : List.of(earth, mars)) {
+            List<Cargo> expected = new ArrayList<>();
+            for (Cargo cargo : all) {
+                if (cargo.getDestination() == galaxy) expected.add(cargo);
+            }
+            expected.sort(Comparator.comparingInt(Cargo::getMass));
+            assertMassOrder(expected, new ArrayList<>(galaxy.getCargoSet()));
+            assertEquals(new HashSet<>(expected), new HashSet<>(galaxy.getCargoSet()));
+            assertEquals(expected.size(), galaxy.getCargoSet().size());
+
+            assertMassOrder(expected.subList(0, Math.min(10, expected.size())), galaxy.getLightestCargo(10));
+            List<Cargo> reversed = new ArrayList<>(expected);
+            reversed.sort(Comparator.comparingInt(Cargo::getMass).reversed());
+            assertMassOrder(reversed.subList(0, Math.min(10, reversed.size())), galaxy.getHeaviestCargo(10));
+
+            Set<Cargo> between = galaxy.getCargoWithMassBetween(10, 20);
+            List<Cargo> inRange = new ArrayList<>();
+            for (Cargo cargo : expected) {
+                if (cargo.getMass() >= 10 && cargo.getMass() <= 20) inRange.add(cargo);
+            }
+            assertMassOrder(inRange, new ArrayList<>(between));
+            assertEquals(new HashSet<>(inRange), new HashSet<>(between));
+        }
+    }
+
+    @Test
+    void equalMassKeepsArrivalOrder() {
+        Cargo.addRegisteredOwner("Owner");
+        Galaxy earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE);
+        Cargo first = Cargo.constructor("First", 5, "Owner");
+        Cargo second = Cargo.constructor("Second", 5, "Owner");
+        Cargo light = Cargo.constructor("Light", 1, "Owner");
+        first.setDestination(earth);
+        second.setDestination(earth);
+        light.setDestination(earth);
+        assertEquals(List.of(light, first, second), new ArrayList<>(earth.getCargoSet()));
+        assertEquals(List.of(first, second), earth.getHeaviestCargo(2));
+        light.setMass(9);
+        assertEquals(List.of(first, second, light), new ArrayList<>(earth.getCargoSet()));
+        assertThrows(RuntimeException.class, () -> earth.getCargoWithMassBetween(5, 4));
+    }
+
+    /**
+     * Checks the reachability mask of the given protection against every galaxy's own check.
+     */
+    private static void assertMaskMatches(List<Galaxy> galaxies, ShipType shipType, Integer shield) {
+        BitSet expected = new BitSet();
+        for (Galaxy galaxy : galaxies) {
+            if (galaxy.isReachableWith(shipType, shield)) expected.set(galaxy.getId());
+        }
+        assertEquals(expected, Galaxy.reachabilityMask(shipType, shield));
+    }
+
+    /**
+     * Checks that the actual cargo have the masses of the expected cargo, in the same order.
+     */
+    private static void assertMassOrder(List<Cargo> expected, List<Cargo> actual) {
+        assertEquals(masses(expected), masses(actual));
+    }
+
+    /**
+     * Returns the masses of the cargo in order.
+     */
+    private static List<Integer> masses(List<Cargo> cargoList) {
+        List<Integer> masses = new ArrayList<>();
+        for (Cargo cargo : cargoList) masses.add(cargo.getMass());
+        return masses;
+    }
+
+    /**
+     * Reads the state of a galaxy found through an index, failing on anything not yet set.
+     */
+    private static void readAll(Galaxy galaxy) {
+        assertNotNull(galaxy.getName());
+        assertNotNull(galaxy.getGalaxyCode());
+        assertNotNull(galaxy.getGalaxyType());
+        galaxy.getShips().size();
+        galaxy.getCargoSet().size();
+        galaxy.getRoutes().size();
+    }
+}
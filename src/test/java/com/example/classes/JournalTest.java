@@ -0,0 +1,149 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the journal restores the state it recorded, across compactions, and that a
+ * journal cut off in the middle of a record recovers everything before it.
+ */
+class JournalTest {
+    @TempDir
+    Path directory;
+
+    private Path snapshot;
+    private Path journalPath;
+    private Journal journal;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        snapshot = directory.resolve("state.snapshot");
+        journalPath = directory.resolve("state.journal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (journal != null) journal.close();
+        ObjectPlus.clearExtents();
+    }
+
+    /**
+     * Closes the journal and opens it again, restoring the state from the files.
+     */
+    private void reopen() throws IOException {
+        journal.close();
+        journal = null;
+        ObjectPlus.clearExtents();
+        journal = Journal.open(snapshot, journalPath);
+    }
+
+    /**
+     * Returns the only ship with the given name.
+     */
+    private static Ship ship(String name) {
+        for (Ship ship : ObjectPlus.getExtentOf(Ship.class)) {
+            if (ship.getName().equals(name)) return ship;
+        }
+        throw new RuntimeException("No ship " + name);
+    }
+
+    /**
+     * Returns the only cargo with the given name.
+     */
+    private static Cargo cargo(String name) {
+        for (Cargo cargo : ObjectPlus.getExtentOf(Cargo.class)) {
+            if (cargo.getName().equals(name)) return cargo;
+        }
+        throw new RuntimeException("No cargo " + name);
+    }
+
+    @Test
+    void journalReplaysMutations() throws IOException {
+        journal = Journal.open(snapshot, journalPath);
+        SnapshotTest.populate();
+        cargo("Cargo3").setMass(42);
+        ship("Ship").transferCargo(ship("Other"), List.of(cargo("Cargo1")));
+        cargo("Cargo15").delete();
+        List<String> logged = StateDescription.describe();
+
+        reopen();
+        assertEquals(logged, StateDescription.describe());
+    }
+
+    @Test
+    void compactionKeepsState() throws IOException {
+        journal = Journal.open(snapshot, journalPath);
+        SnapshotTest.populate();
+        cargo("Cargo3").setMass(42);
+        journal.compact();
+        ship("Other").removeCargo(cargo("Cargo9"));
+        List<String> logged = StateDescription.describe();
+
+        reopen();
+        assertEquals(logged, StateDescription.describe());
+        journal.compact();
+        reopen();
+        assertEquals(logged, StateDescription.describe());
+    }
+
+    @Test
+    void tornTailKeepsEarlierMutations() throws IOException {
+        journal = Journal.open(snapshot, journalPath);
+        SnapshotTest.populate();
+        cargo("Cargo3").setMass(42);
+        List<String> beforeLast = StateDescription.describe();
+        cargo("Cargo5").setMass(77);
+        journal.close();
+        journal = null;
+
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        ObjectPlus.clearExtents();
+        journal = Journal.open(snapshot, journalPath);
+        assertEquals(beforeLast, StateDescription.describe());
+        assertEquals(6, cargo("Cargo5").getMass());
+
+        cargo("Cargo5").setMass(78);
+        List<String> afterRecovery = StateDescription.describe();
+        reopen();
+        assertEquals(afterRecovery, StateDescription.describe());
+    }
+
+    @Test
+    void crewMemberWithoutModelNumberIsReplayed() throws IOException {
+        journal = Journal.open(snapshot, journalPath);
+        MechanicalCrewMember crewMember = MechanicalCrewMember.constructor("S-1", "M-1");
+        crewMember.setModelNumber(null);
+
+        reopen();
+        List<CrewMember> crew = List.copyOf(ObjectPlus.getExtentOf(CrewMember.class));
+        assertEquals(1, crew.size());
+        MechanicalCrewMember replayed = (MechanicalCrewMember) crew.get(0);
+        assertEquals("S-1", replayed.getSerialNumber());
+        assertNull(replayed.getModelNumber());
+    }
+
+    @Test
+    void secondJournalIsRejected() throws IOException {
+        journal = Journal.open(snapshot, journalPath);
+        assertSame(journal, Journal.getActive());
+        assertThrows(RuntimeException.class, () -> Journal.open(snapshot, directory.resolve("other.journal")));
+        journal.close();
+        journal = null;
+        assertNull(Journal.getActive());
+    }
+}
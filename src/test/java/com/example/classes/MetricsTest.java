@@ -0,0 +1,81 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that metrics count operations only while they are on and keep what they recorded when
+ * switched off.
+ */
+class MetricsTest {
+    private Galaxy earth;
+    private Ship ship;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        Metrics.setEnabled(true);
+        earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", LocalDate.of(2400, 1, 1));
+        ship = NoLifeSupportShip.constructor("Ship", 100, ShipType.NoProtection, null, "Autopilot");
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.setEnabled(true);
+    }
+
+    @Test
+    void operationsAreCountedOnlyWhileOn() {
+        assertTrue(Metrics.isEnabled());
+        long before = Metrics.getCount(MeteredOperation.ShipCanGoToGalaxy);
+        for (int i = 0; i < 100; i++) ship.canGoToGalaxy(earth);
+        assertEquals(before + 100, Metrics.getCount(MeteredOperation.ShipCanGoToGalaxy));
+
+        Metrics.setEnabled(false);
+        assertFalse(Metrics.isEnabled());
+        for (int i = 0; i < 100; i++) ship.canGoToGalaxy(earth);
+        assertEquals(before + 100, Metrics.getCount(MeteredOperation.ShipCanGoToGalaxy));
+
+        Metrics.setEnabled(true);
+        ship.canGoToGalaxy(earth);
+        assertEquals(before + 101, Metrics.getCount(MeteredOperation.ShipCanGoToGalaxy));
+    }
+
+    @Test
+    void failedOperationsAreNotCounted() {
+        long before = Metrics.getCount(MeteredOperation.ShipCanGoToGalaxy);
+        assertThrows(RuntimeException.class, () -> ship.canGoToGalaxy(null));
+        assertEquals(before, Metrics.getCount(MeteredOperation.ShipCanGoToGalaxy));
+    }
+
+    @Test
+    void unsampledOperationsAreTimedEveryCall() {
+        LatencyHistogram latency = Metrics.getLatency(MeteredOperation.ContractConstructor);
+        long count = Metrics.getCount(MeteredOperation.ContractConstructor);
+        long timed = latency.getCount();
+        Contract.constructor("Pilot", null, ship, MechanicalCrewMember.constructor("S-1", "M-1"));
+        assertEquals(count + 1, Metrics.getCount(MeteredOperation.ContractConstructor));
+        assertEquals(timed + 1, latency.getCount());
+
+        Metrics.setEnabled(false);
+        Contract.constructor("Pilot", null, ship, MechanicalCrewMember.constructor("S-2", "M-1"));
+        assertEquals(count + 1, Metrics.getCount(MeteredOperation.ContractConstructor));
+        assertEquals(timed + 1, latency.getCount());
+    }
+
+    @Test
+    void dumpListsOperationsAndExtents() {
+        assertEquals(1, Metrics.getExtentSize(Galaxy.class));
+        assertEquals(1, Metrics.getExtentSize(Ship.class));
+        String dump = Metrics.dump();
+        for (MeteredOperation operation : MeteredOperation.values()) assertTrue(dump.contains(operation.name()));
+        assertTrue(dump.contains("Galaxy"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that cached and uncached route searches agree and that the cached routes follow changes
+ * to the routes and to the galaxies ships may pass through.
+ */
+class RouteNetworkTest {
+    private static final LocalDate SINCE = LocalDate.of(2400, 1, 1);
+    private static final double UNBOUNDED = Double.POSITIVE_INFINITY;
+
+    private Galaxy earth;
+    private Galaxy mars;
+    private Galaxy isolated;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", SINCE);
+        mars = Galaxy.peacefulGalaxyConstructor("Mars", "MA", SINCE);
+        isolated = Galaxy.peacefulGalaxyConstructor("Isolated", "IS", SINCE);
+        earth.connect(mars, 4);
+    }
+
+    @Test
+    void cachedNearestRouteSkipsUnreachableAndNullTargets() {
+        assertEquals(4, RouteNetwork.distance(ShipType.NoProtection, null, earth, mars));
+        assertNull(RouteNetwork.nearestRoute(ShipType.NoProtection, null, earth, List.of(isolated), UNBOUNDED));
+        assertNull(RouteNetwork.nearestRoute(ShipType.NoProtection, null, earth, Arrays.asList(null, isolated), UNBOUNDED));
+        Route route = RouteNetwork.nearestRoute(ShipType.NoProtection, null, earth, Arrays.asList(isolated, null, mars), UNBOUNDED);
+        assertEquals(List.of(earth, mars), route.getGalaxies());
+        assertEquals(4, route.getDistance());
+    }
+
+    @Test
+    void uncachedNearestRouteSkipsUnreachableAndNullTargets() {
+        assertNull(RouteNetwork.nearestRoute(ShipType.NoProtection, null, earth, Arrays.asList(null, isolated), UNBOUNDED));
+        Route route = RouteNetwork.nearestRoute(ShipType.NoProtection, null, earth, Arrays.asList(isolated, null, mars), UNBOUNDED);
+        assertEquals(List.of(earth, mars), route.getGalaxies());
+        assertNull(RouteNetwork.nearestRoute(ShipType.NoProtection, null, earth, List.of(mars), 3));
+    }
+
+    @Test
+    void shieldedShipsNeedShieldStrength() {
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> RouteNetwork.shortestRoute(ShipType.Shielded, null, earth, mars));
+        assertEquals("Shield strength can not be null for shielded ships", e.getMessage());
+        assertThrows(RuntimeException.class, () -> RouteNetwork.distance(ShipType.Shielded, null, earth, mars));
+        assertThrows(RuntimeException.class,
+                () -> RouteNetwork.nearestRoute(ShipType.Shielded, null, earth, List.of(mars), UNBOUNDED));
+        assertEquals(4, RouteNetwork.distance(ShipType.Shielded, 0, earth, mars));
+    }
+
+    @Test
+    void cachedRoutesFollowRouteChanges() {
+        Galaxy venus = Galaxy.peacefulGalaxyConstructor("Venus", "VE", SINCE);
+        mars.connect(venus, 5);
+        assertEquals(9, RouteNetwork.distance(ShipType.NoProtection, null, earth, venus));
+        assertEquals(List.of(earth, mars, venus), RouteNetwork.shortestRoute(ShipType.NoProtection, null, earth, venus).getGalaxies());
+
+        earth.connect(venus, 7);
+        assertEquals(7, RouteNetwork.distance(ShipType.NoProtection, null, earth, venus));
+        earth.connect(venus, 20);
+        assertEquals(9, RouteNetwork.distance(ShipType.NoProtection, null, earth, venus));
+        mars.disconnect(venus);
+        assertEquals(20, RouteNetwork.distance(ShipType.NoProtection, null, earth, venus));
+        earth.disconnect(venus);
+        assertNull(RouteNetwork.shortestRoute(ShipType.NoProtection, null, earth, venus));
+
+        isolated.connect(venus, 1);
+        earth.connect(isolated, 1);
+        assertEquals(2, RouteNetwork.distance(ShipType.NoProtection, null, earth, venus));
+    }
+
+    @Test
+    void cachedRoutesFollowStatusChanges() {
+        Galaxy venus = Galaxy.peacefulGalaxyConstructor("Venus", "VE", SINCE);
+        mars.connect(venus, 5);
+        earth.connect(isolated, 10);
+        isolated.connect(venus, 10);
+        assertEquals(9, RouteNetwork.distance(ShipType.NoProtection, null, earth, venus));
+        assertEquals(9, RouteNetwork.distance(ShipType.Shielded, 5, earth, venus));
+
+        mars.changeToDangerous(false, 3);
+        assertEquals(20, RouteNetwork.distance(ShipType.NoProtection, null, earth, venus));
+        assertEquals(9, RouteNetwork.distance(ShipType.Shielded, 5, earth, venus));
+        assertEquals(20, RouteNetwork.distance(ShipType.Shielded, 2, earth, venus));
+        assertEquals(UNBOUNDED, RouteNetwork.distance(ShipType.NoProtection, null, earth, mars));
+        assertEquals(0, RouteNetwork.distance(ShipType.NoProtection, null, mars, mars));
+
+        mars.changeToPeaceful(SINCE);
+        assertEquals(9, RouteNetwork.distance(ShipType.NoProtection, null, earth, venus));
+        isolated.delete();
+        mars.changeToDangerous(true, 0);
+        assertEquals(UNBOUNDED, RouteNetwork.distance(ShipType.Shielded, 5, earth, venus));
+    }
+
+    @Test
+    void cachedRoutesMatchFreshSearches() {
+        Random random = new Random(18);
+        List<Galaxy> galaxies = new ArrayList<>(List.of(earth, mars, isolated));
+        for (int i = 0; i < 30; i++) {
+            galaxies.add(i % 4 == 0
+                    ? Galaxy.dangerousGalaxyConstructor("Galaxy", "G" + i, false, i % 6)
+                    : Galaxy.peacefulGalaxyConstructor("Galaxy", "G" + i, SINCE));
+        }
+        for (int step = 0; step < 200; step++) {
+            Galaxy a = galaxies.get(random.nextInt(galaxies.size()));
+            Galaxy b = galaxies.get(random.nextInt(galaxies.size()));
+            int action = random.nextInt(4);
+            if (action < 2 && a != b) {
+                a.connect(b, 1 + random.nextInt(20));
+            } else if (action == 2) {
+                a.disconnect(b);
+            } else if (a.getGalaxyType() == GalaxyType.Peaceful) {
+                a.changeToDangerous(random.nextBoolean(), random.nextInt(6));
+            } else {
+                a.changeToPeaceful(SINCE);
+            }
+            Galaxy from = galaxies.get(random.nextInt(galaxies.size()));
+            for (Integer shield : Arrays.asList(null, 2, 5)) {
+                ShipType type = shield == null ? ShipType.NoProtection : ShipType.Shielded;
+                for (Galaxy to : galaxies) {
+                    assertEquals(expectedDistance(galaxies, type, shield, from, to),
+                            RouteNetwork.distance(type, shield, from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the length of the shortest route by relaxing every route until nothing changes,
+     * passing only through galaxies ships with the given protection can go to.
+     */
+    private static double expectedDistance(List<Galaxy> galaxies, ShipType type, Integer shield, Galaxy from, Galaxy to) {
+        Map<Galaxy, Double> distances = new HashMap<>();
+        for (Galaxy galaxy : galaxies) distances.put(galaxy, UNBOUNDED);
+        distances.put(from, 0.0);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Galaxy galaxy : galaxies) {
+                double distance = distances.get(galaxy);
+                if (distance == UNBOUNDED) continue;
+                for (Map.Entry<Galaxy, Double> route : galaxy.getRoutes().entrySet()) {
+                    Galaxy next = route.getKey();
+                    if (next == from || !next.isReachableWith(type, shield)) continue;
+                    if (distance + route.getValue() < distances.get(next)) {
+                        distances.put(next, distance + route.getValue());
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return distances.get(to);
+    }
+}
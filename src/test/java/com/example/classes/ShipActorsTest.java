@@ -0,0 +1,91 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that ship actors carry out the commands of each ship in order, report failures through
+ * the futures, and finish the commands already sent when they are closed.
+ */
+class ShipActorsTest {
+    private Galaxy earth;
+    private Galaxy mars;
+    private Ship ship;
+    private Ship other;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        Cargo.addRegisteredOwner("Owner");
+        earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", LocalDate.of(2400, 1, 1));
+        mars = Galaxy.peacefulGalaxyConstructor("Mars", "MA", LocalDate.of(2400, 1, 1));
+        ship = NoLifeSupportShip.constructor("Ship", 100, ShipType.NoProtection, null, "Autopilot");
+        other = NoLifeSupportShip.constructor("Other", 100, ShipType.NoProtection, null, "Autopilot");
+    }
+
+    private Cargo cargo(int mass, Galaxy destination) {
+        Cargo cargo = Cargo.constructor("Cargo", mass, "Owner");
+        cargo.setDestination(destination);
+        return cargo;
+    }
+
+    @Test
+    void commandsOfAShipRunInOrder() throws Exception {
+        try (ShipActors actors = ShipActors.constructor(List.of(ship, other, ship))) {
+            assertEquals(2, actors.getActorCount());
+            Cargo toMars = cargo(30, mars);
+            CompletableFuture<Void> loaded = actors.load(ship, List.of(toMars, cargo(20, earth)));
+            CompletableFuture<Void> travelled = actors.travel(ship, mars);
+            CompletableFuture<Void> unloaded = actors.unload(ship, mars);
+            unloaded.get();
+            assertTrue(loaded.isDone() && travelled.isDone());
+            assertSame(mars, ship.getGalaxy());
+            assertNull(toMars.getShip());
+            assertEquals(20, ship.getCurrentCargoMass());
+            assertEquals(1, actors.report().getCount(ShipCommandType.Unload));
+        }
+    }
+
+    @Test
+    void failedCommandsCompleteExceptionally() throws Exception {
+        try (ShipActors actors = ShipActors.constructor(List.of(ship))) {
+            CompletableFuture<Void> tooHeavy = actors.load(ship, List.of(cargo(101, earth)));
+            ExecutionException e = assertThrows(ExecutionException.class, tooHeavy::get);
+            assertInstanceOf(RuntimeException.class, e.getCause());
+            actors.load(ship, List.of(cargo(10, earth))).get();
+            assertEquals(10, ship.getCurrentCargoMass());
+            assertEquals(1, actors.report().getFailures(ShipCommandType.Load));
+            assertEquals(2, actors.report().getCount(ShipCommandType.Load));
+            assertThrows(RuntimeException.class, () -> actors.travel(other, mars));
+        }
+    }
+
+    @Test
+    void closeFinishesSentCommandsAndRejectsNewOnes() {
+        ShipActors actors = ShipActors.constructor(List.of(ship, other));
+        List<CompletableFuture<Void>> sent = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            sent.add(actors.load(ship, List.of(cargo(1, earth))));
+            sent.add(actors.travel(other, i % 2 == 0 ? earth : mars));
+        }
+        actors.close();
+        for (CompletableFuture<Void> future : sent) {
+            assertTrue(future.isDone());
+            assertFalse(future.isCompletedExceptionally());
+        }
+        assertEquals(50, ship.getCurrentCargoMass());
+        assertSame(mars, other.getGalaxy());
+        assertThrows(RuntimeException.class, () -> actors.travel(ship, mars));
+        actors.close();
+    }
+}
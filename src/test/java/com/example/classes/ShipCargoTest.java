@@ -0,0 +1,190 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the running cargo mass of a ship and its index of cargo by destination follow
+ * every change to the cargo.
+ */
+class ShipCargoTest {
+    private Galaxy earth;
+    private Galaxy mars;
+    private Ship ship;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        Cargo.addRegisteredOwner("Owner");
+        earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", LocalDate.of(2400, 1, 1));
+        mars = Galaxy.peacefulGalaxyConstructor("Mars", "MA", LocalDate.of(2400, 1, 1));
+        ship = NoLifeSupportShip.constructor("Ship", 100, ShipType.NoProtection, null, "Autopilot");
+    }
+
+    private Cargo cargo(int mass, Galaxy destination) {
+        Cargo cargo = Cargo.constructor("Cargo", mass, "Owner");
+        if (destination != null) cargo.setDestination(destination);
+        return cargo;
+    }
+
+    /**
+     * Checks the running mass and the destination index against the cargo set of a ship.
+     */
+    private static void assertConsistent(Ship ship) {
+        int mass = 0;
+        for (Cargo cargo : ship.getCargoSet()) {
+            mass += cargo.getMass();
+            assertSame(ship, cargo.getShip());
+            assertTrue(ship.getCargoGoingTo(cargo.getDestination()).contains(cargo));
+        }
+        assertEquals(mass, ship.getCurrentCargoMass());
+        assertEquals(ship.getMaxCargoMassCapacity() - mass, ship.getRemainingCapacity());
+        int indexed = 0;
+        for (Galaxy destination : ship.getGalaxyToCargo().keySet()) {
+            int destinationMass = 0;
+            for (Cargo cargo : ship.getCargoGoingTo(destination)) destinationMass += cargo.getMass();
+            assertEquals(destinationMass, ship.getCargoMassGoingTo(destination));
+            indexed += ship.getCargoCountGoingTo(destination);
+        }
+        assertEquals(ship.getCargoSet().size(), indexed);
+    }
+
+    @Test
+    void addAndRemoveUpdateMass() {
+        Cargo toEarth = cargo(30, earth);
+        Cargo toMars = cargo(20, mars);
+        Cargo nowhere = cargo(10, null);
+        ship.addCargo(toEarth);
+        ship.addAllCargo(List.of(toMars, nowhere));
+        assertEquals(60, ship.getCurrentCargoMass());
+        assertConsistent(ship);
+
+        ship.removeCargo(toMars);
+        assertEquals(40, ship.getCurrentCargoMass());
+        assertNull(toMars.getShip());
+        assertConsistent(ship);
+
+        ship.removeAllCargo(List.of(toEarth, nowhere));
+        assertEquals(0, ship.getCurrentCargoMass());
+        assertConsistent(ship);
+    }
+
+    @Test
+    void addBeyondCapacityLoadsNothing() {
+        ship.addCargo(cargo(60, earth));
+        assertThrows(RuntimeException.class, () -> ship.addCargo(cargo(41, earth)));
+        assertThrows(RuntimeException.class, () -> ship.addAllCargo(List.of(cargo(30, earth), cargo(30, mars))));
+        assertEquals(60, ship.getCurrentCargoMass());
+        assertEquals(1, ship.getCargoSet().size());
+        assertConsistent(ship);
+    }
+
+    @Test
+    void setMassUpdatesRunningMassOrFails() {
+        Cargo toEarth = cargo(30, earth);
+        ship.addCargo(toEarth);
+        toEarth.setMass(70);
+        assertEquals(70, ship.getCurrentCargoMass());
+
+        assertThrows(RuntimeException.class, () -> toEarth.setMass(101));
+        assertEquals(70, toEarth.getMass());
+        assertEquals(70, ship.getCurrentCargoMass());
+        assertConsistent(ship);
+    }
+
+    @Test
+    void deletedCargoLeavesShip() {
+        Cargo cargo = cargo(30, earth);
+        ship.addCargo(cargo);
+        cargo.delete();
+        assertEquals(0, ship.getCurrentCargoMass());
+        assertFalse(ship.getCargoSet().contains(cargo));
+        assertConsistent(ship);
+    }
+
+    @Test
+    void transferMovesMassAndDestinations() {
+        Ship other = NoLifeSupportShip.constructor("Other", 50, ShipType.NoProtection, null, "Autopilot");
+        Cargo toEarth = cargo(30, earth);
+        Cargo toMars = cargo(20, mars);
+        ship.addAllCargo(List.of(toEarth, toMars));
+
+        ship.transferCargo(other, List.of(toMars));
+        assertSame(other, toMars.getShip());
+        assertEquals(30, ship.getCurrentCargoMass());
+        assertEquals(20, other.getCurrentCargoMass());
+        assertEquals(0, ship.getCargoCountGoingTo(mars));
+        assertEquals(1, other.getCargoCountGoingTo(mars));
+        assertConsistent(ship);
+        assertConsistent(other);
+    }
+
+    @Test
+    void transferIsAllOrNothing() {
+        Ship other = NoLifeSupportShip.constructor("Other", 50, ShipType.NoProtection, null, "Autopilot");
+        Cargo toEarth = cargo(30, earth);
+        Cargo toMars = cargo(25, mars);
+        Cargo loose = cargo(5, null);
+        ship.addAllCargo(List.of(toEarth, toMars));
+
+        assertThrows(RuntimeException.class, () -> ship.transferCargo(other, List.of(toEarth, toMars)));
+        assertThrows(RuntimeException.class, () -> ship.transferCargo(other, List.of(toEarth, loose)));
+        assertEquals(55, ship.getCurrentCargoMass());
+        assertEquals(0, other.getCurrentCargoMass());
+        assertSame(ship, toEarth.getShip());
+        assertNull(loose.getShip());
+        assertConsistent(ship);
+        assertConsistent(other);
+    }
+
+    @Test
+    void destinationIndexFollowsLoading() {
+        Cargo toEarth = cargo(30, earth);
+        Cargo toMars = cargo(20, mars);
+        Cargo nowhere = cargo(10, null);
+        ship.addAllCargo(List.of(toEarth, toMars, nowhere));
+        assertEquals(1, ship.getCargoCountGoingTo(earth));
+        assertEquals(20, ship.getCargoMassGoingTo(mars));
+        assertEquals(1, ship.getCargoCountGoingTo(null));
+        assertConsistent(ship);
+
+        ship.removeCargo(toMars);
+        assertEquals(0, ship.getCargoCountGoingTo(mars));
+        assertFalse(ship.getGalaxyToCargo().containsKey(mars));
+        assertConsistent(ship);
+
+        ship.unloadCargoGoingTo(earth);
+        assertEquals(0, ship.getCargoCountGoingTo(earth));
+        assertEquals(10, ship.getCurrentCargoMass());
+        assertConsistent(ship);
+    }
+
+    @Test
+    void destinationIndexFollowsCargoChanges() {
+        Cargo cargo = cargo(30, earth);
+        ship.addCargo(cargo);
+        cargo.setDestination(mars);
+        assertEquals(0, ship.getCargoCountGoingTo(earth));
+        assertEquals(1, ship.getCargoCountGoingTo(mars));
+        assertTrue(mars.getCargoSet().contains(cargo));
+        assertFalse(earth.getCargoSet().contains(cargo));
+
+        cargo.setMass(45);
+        assertEquals(45, ship.getCargoMassGoingTo(mars));
+        cargo.setDestination(null);
+        assertEquals(1, ship.getCargoCountGoingTo(null));
+        assertEquals(45, ship.getCargoMassGoingTo(null));
+        assertConsistent(ship);
+
+        cargo.delete();
+        assertTrue(ship.getGalaxyToCargo().isEmpty());
+        assertConsistent(ship);
+    }
+}
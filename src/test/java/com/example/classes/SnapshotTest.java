@@ -0,0 +1,110 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that snapshots, read at once or lazily, restore the state they were written from.
+ */
+class SnapshotTest {
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ObjectPlus.clearExtents();
+    }
+
+    /**
+     * Creates two galaxies, two ships and some cargo, partly loaded.
+     */
+    static void populate() {
+        Cargo.addRegisteredOwner("Owner");
+        Cargo.addRegisteredOwner("Other");
+        Galaxy earth = Galaxy.peacefulGalaxyConstructor("Earth", "EA", LocalDate.of(2400, 1, 1));
+        Galaxy mars = Galaxy.dangerousGalaxyConstructor("Mars", "MA", false, 3);
+        earth.connect(mars, 12.5);
+        Ship ship = NoLifeSupportShip.constructor("Ship", 500, ShipType.Shielded, 5, "Autopilot");
+        Ship other = NoLifeSupportShip.constructor("Other", 300, ShipType.NoProtection, null, "Autopilot");
+        ship.setGalaxy(mars);
+        other.setGalaxy(earth);
+        for (int i = 0; i < 20; i++) {
+            Cargo cargo = Cargo.constructor("Cargo" + i, 1 + i, i % 3 == 0 ? "Other" : "Owner");
+            if (i % 4 != 0) cargo.setDestination(i % 2 == 0 ? earth : mars);
+            if (i < 8) ship.addCargo(cargo);
+            else if (i < 12) other.addCargo(cargo);
+        }
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        populate();
+        List<String> written = StateDescription.describe();
+        Path snapshot = directory.resolve("state.snapshot");
+        Snapshot.write(snapshot);
+
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        assertEquals(0, ObjectPlus.getExtentCount(Cargo.class));
+        Snapshot.read(snapshot);
+        assertEquals(written, StateDescription.describe());
+    }
+
+    @Test
+    void lazySnapshotLoadsOneShipsCargoAlone() throws IOException {
+        populate();
+        List<String> written = StateDescription.describe();
+        Path snapshot = directory.resolve("state.snapshot");
+        Snapshot.write(snapshot);
+
+        Snapshot.open(snapshot);
+        assertEquals(0, ObjectPlus.getLoadedExtentCount(Cargo.class));
+        Ship other = null;
+        for (Ship ship : ObjectPlus.getExtentOf(Ship.class)) {
+            if (ship.getName().equals("Other")) other = ship;
+        }
+        assertNotNull(other);
+        assertEquals(4, other.getCargoSet().size());
+        assertEquals(4, ObjectPlus.getLoadedExtentCount(Cargo.class));
+        assertEquals(written, StateDescription.describe());
+    }
+
+    @Test
+    void lazySnapshotIsWrittenUnchanged() throws IOException {
+        populate();
+        Path snapshot = directory.resolve("state.snapshot");
+        Snapshot.write(snapshot);
+        Snapshot.open(snapshot);
+        Path copy = directory.resolve("copy.snapshot");
+        Snapshot.write(copy);
+
+        Snapshot.read(copy);
+        List<String> copied = StateDescription.describe();
+        Snapshot.read(snapshot);
+        assertEquals(StateDescription.describe(), copied);
+    }
+
+    @Test
+    void invalidFileIsRejected() throws IOException {
+        Path file = directory.resolve("garbage.snapshot");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> Snapshot.read(file));
+    }
+}
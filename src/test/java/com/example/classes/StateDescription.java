@@ -0,0 +1,58 @@
+package com.example.classes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Describes the domain state in memory as text, so that tests can compare states that were
+ * restored or generated into different objects.
+ */
+final class StateDescription {
+    private StateDescription() {
+    }
+
+    /**
+     * Describes the registered owners, galaxies, ships and cargo in memory, independent of
+     * object identity and iteration order.
+     *
+     * @return One sorted line per owner list, galaxy, ship and cargo.
+     */
+    static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        lines.add("owners " + new TreeSet<>(Cargo.getRegisteredOwners()));
+        for (Galaxy galaxy : ObjectPlus.getExtentOf(Galaxy.class)) {
+            List<String> routes = new ArrayList<>();
+            galaxy.getRoutes().forEach((to, distance) -> routes.add(to.getGalaxyCode() + "=" + distance));
+            Collections.sort(routes);
+            String status = galaxy.getGalaxyType() == GalaxyType.Peaceful
+                    ? "peaceful since " + galaxy.getPeacefulSince()
+                    : "at war " + galaxy.getAtWar() + " flares " + galaxy.getSolarFlareStrength();
+            lines.add("galaxy " + galaxy.getGalaxyCode() + " " + galaxy.getName() + " " + status + " " + routes
+                    + " ships " + galaxy.getShips().size() + " cargo " + galaxy.getCargoSet().size());
+        }
+        for (Ship ship : ObjectPlus.getExtentOf(Ship.class)) {
+            String protection = ship.getShipType() == ShipType.Shielded
+                    ? "shield " + ship.getSolarFlareShieldStrength()
+                    : "unprotected";
+            lines.add("ship " + ship.getName() + " " + ship.getMaxCargoMassCapacity() + " " + protection
+                    + " " + codeOf(ship.getGalaxy())
+                    + " " + ship.getCurrentCargoMass() + " " + ship.getCargoSet().size());
+        }
+        for (Cargo cargo : ObjectPlus.getExtentOf(Cargo.class)) {
+            Ship ship = cargo.getShip();
+            lines.add("cargo " + cargo.getName() + " " + cargo.getMass() + " " + cargo.getOwner()
+                    + " " + codeOf(cargo.getDestination()) + " " + (ship == null ? null : ship.getName()));
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    /**
+     * Returns the code of a galaxy, or null for no galaxy.
+     */
+    private static String codeOf(Galaxy galaxy) {
+        return galaxy == null ? null : galaxy.getGalaxyCode();
+    }
+}
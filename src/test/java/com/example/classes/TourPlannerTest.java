@@ -0,0 +1,132 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that planned tours visit every stop that can be reached exactly once, report their
+ * length, and leave out the stops that can not be reached.
+ */
+class TourPlannerTest {
+    private static final LocalDate SINCE = LocalDate.of(2400, 1, 1);
+
+    private Galaxy start;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        start = Galaxy.peacefulGalaxyConstructor("Start", "ST", SINCE);
+    }
+
+    private static Galaxy peaceful(String code) {
+        return Galaxy.peacefulGalaxyConstructor("Galaxy", code, SINCE);
+    }
+
+    /**
+     * Adds up the lengths of the legs of a tour.
+     */
+    private static double legLengths(Itinerary itinerary) {
+        double total = 0;
+        for (int leg = 0; leg < itinerary.getStops().size(); leg++) total += itinerary.getRoute(leg).getDistance();
+        return total;
+    }
+
+    @Test
+    void stopsOnALineAreVisitedInOrder() {
+        Galaxy a = peaceful("A");
+        Galaxy b = peaceful("B");
+        Galaxy c = peaceful("C");
+        start.connect(a, 1);
+        a.connect(b, 2);
+        b.connect(c, 3);
+
+        Itinerary itinerary = TourPlanner.plan(ShipType.NoProtection, null, start, List.of(c, a, b), 50);
+        assertEquals(List.of(a, b, c), itinerary.getStops());
+        assertEquals(6, itinerary.getDistance());
+        assertSame(start, itinerary.getStart());
+        assertSame(a, itinerary.getNextStop(start));
+        assertSame(c, itinerary.getNextStop(b));
+        assertNull(itinerary.getNextStop(c));
+        assertEquals(List.of(a, b), itinerary.getRoute(1).getGalaxies());
+    }
+
+    @Test
+    void unreachableStopsAreLeftOut() {
+        Galaxy near = peaceful("NE");
+        Galaxy isolated = peaceful("IS");
+        Galaxy atWar = Galaxy.dangerousGalaxyConstructor("War", "WA", true, 0);
+        Galaxy flares = Galaxy.dangerousGalaxyConstructor("Flares", "FL", false, 4);
+        start.connect(near, 2);
+        start.connect(atWar, 1);
+        near.connect(flares, 1);
+
+        Itinerary unprotected = TourPlanner.plan(ShipType.NoProtection, null, start,
+                Arrays.asList(near, isolated, atWar, flares, null, start), 50);
+        assertEquals(List.of(near), unprotected.getStops());
+        assertEquals(new HashSet<>(List.of(isolated, atWar, flares)), new HashSet<>(unprotected.getUnreachable()));
+
+        Itinerary shielded = TourPlanner.plan(ShipType.Shielded, 5, start, List.of(flares, near, isolated), 50);
+        assertEquals(List.of(near, flares), shielded.getStops());
+        assertEquals(3, shielded.getDistance());
+        assertEquals(List.of(isolated), shielded.getUnreachable());
+    }
+
+    @Test
+    void toursVisitEveryStopOnce() {
+        Random random = new Random(19);
+        List<Galaxy> galaxies = new ArrayList<>();
+        galaxies.add(start);
+        for (int i = 0; i < 25; i++) galaxies.add(peaceful("G" + i));
+        for (int i = 1; i < galaxies.size(); i++) {
+            galaxies.get(i).connect(galaxies.get(random.nextInt(i)), 1 + random.nextInt(10));
+            galaxies.get(i).connect(galaxies.get(random.nextInt(i)), 1 + random.nextInt(10));
+        }
+        List<Galaxy> destinations = galaxies.subList(1, galaxies.size());
+
+        Itinerary itinerary = TourPlanner.plan(ShipType.NoProtection, null, start, destinations, 100);
+        assertEquals(destinations.size(), itinerary.getStops().size());
+        assertEquals(new HashSet<>(destinations), new HashSet<>(itinerary.getStops()));
+        assertTrue(itinerary.getUnreachable().isEmpty());
+        assertEquals(legLengths(itinerary), itinerary.getDistance(), 1e-9);
+    }
+
+    @Test
+    void shipToursGoToCargoDestinations() {
+        Cargo.addRegisteredOwner("Owner");
+        Galaxy a = peaceful("A");
+        Galaxy b = peaceful("B");
+        start.connect(a, 1);
+        start.connect(b, 5);
+        Ship ship = NoLifeSupportShip.constructor("Ship", 100, ShipType.NoProtection, null, "Autopilot");
+        assertThrows(RuntimeException.class, () -> TourPlanner.plan(ship));
+        ship.setGalaxy(start);
+        for (Galaxy destination : Arrays.asList(b, a, null)) {
+            Cargo cargo = Cargo.constructor("Cargo", 10, "Owner");
+            if (destination != null) cargo.setDestination(destination);
+            ship.addCargo(cargo);
+        }
+
+        Itinerary itinerary = TourPlanner.plan(ship, 50);
+        assertEquals(List.of(a, b), itinerary.getStops());
+        assertEquals(7, itinerary.getDistance());
+    }
+
+    @Test
+    void shieldedToursNeedShieldStrength() {
+        Galaxy a = peaceful("A");
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> TourPlanner.plan(ShipType.Shielded, null, start, List.of(a), 50));
+        assertEquals("Shield strength can not be null for shielded ships", e.getMessage());
+        assertThrows(RuntimeException.class, () -> TourPlanner.plan(ShipType.NoProtection, null, start, List.of(a), -1));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.classes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the universe generator gives the same universe for the same seed, whether it is
+ * written to a file or generated into memory.
+ */
+class UniverseGeneratorTest {
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ObjectPlus.clearExtents();
+    }
+
+    /**
+     * Creates a generator of a small universe.
+     */
+    private static UniverseGenerator generator(long seed) {
+        UniverseGenerator generator = UniverseGenerator.constructor(seed);
+        generator.setGalaxies(60, 0.3, 0.2, 2);
+        generator.setShips(20, 0.5, 0.4, 200, 2000, 2);
+        generator.setCargo(2000, 5, 100, 0.3);
+        return generator;
+    }
+
+    /**
+     * Generates a small universe into memory, replacing the current one, and describes it.
+     */
+    private static List<String> generate(long seed) {
+        ObjectPlus.clearExtents();
+        Cargo.setRegisteredOwners(new HashSet<>());
+        generator(seed).generate();
+        return StateDescription.describe();
+    }
+
+    @Test
+    void generatedFilesAreIdentical() throws IOException {
+        Path first = directory.resolve("first.snapshot");
+        Path second = directory.resolve("second.snapshot");
+        Path other = directory.resolve("other.snapshot");
+        generator(11).write(first);
+        generator(11).write(second);
+        generator(12).write(other);
+        assertEquals(-1, Files.mismatch(first, second));
+        assertNotEquals(-1, Files.mismatch(first, other));
+    }
+
+    @Test
+    void generatedUniversesAreEqual() {
+        List<String> first = generate(11);
+        assertEquals(first, generate(11));
+        assertNotEquals(first, generate(12));
+    }
+
+    @Test
+    void generatedFileMatchesGeneratedUniverse() throws IOException {
+        Path file = directory.resolve("universe.snapshot");
+        generator(11).write(file);
+        List<String> generated = generate(11);
+        Snapshot.read(file);
+        assertEquals(generated, StateDescription.describe());
+    }
+}